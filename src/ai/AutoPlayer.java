@@ -0,0 +1,29 @@
+package ai;
+
+import game.GameSession;
+
+/** {@literal <<Control>>}
+ * Classe che fa giocare una partita ad una strategia automatica, senza tastiera e senza console.
+ * La classe AutoPlayer chiede alla strategia una cella, la attacca sulla GameSession e comunica l'esito
+ * alla strategia, finché la partita non é piú in corso. É pensata per i test di carico e di regressione,
+ * dove molte partite vengono giocate senza un giocatore umano. */
+public final class AutoPlayer {
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private AutoPlayer() { }
+
+    /** Metodo che gioca una partita fino alla vittoria o alla sconfitta.
+     * @param session partita da giocare, con le navi giá piazzate
+     * @param strategy strategia che sceglie i colpi, giá riportata all'inizio della partita
+     * @return il numero di colpi sparati */
+    public static int play(final GameSession session, final ShootingStrategy strategy) {
+        int shots = 0;
+
+        while (session.getStatus() == GameSession.Status.IN_PROGRESS) {
+            int cell = strategy.nextShot();
+            strategy.onResult(cell, session.attackCell(cell));
+            shots++;
+        }
+        return shots;
+    }
+}
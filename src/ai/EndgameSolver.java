@@ -0,0 +1,638 @@
+package ai;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import grid.CellState;
+import grid.Grid;
+
+/** {@literal <<Control>>}
+ * Risolutore esatto delle posizioni di fine partita.
+ * Data la griglia vista dal giocatore (colpi a segno '$', colpi a vuoto 'O', navi affondate 'X') e la flotta,
+ * la classe EndgameSolver enumera tutte le disposizioni delle navi rimaste compatibili con quello che il
+ * giocatore ha visto e ricava, per ogni cella, la frazione di disposizioni in cui la cella contiene una nave.
+ * Ogni posizione possibile di una nave é descritta da due maschere di bit: le sue celle e le celle che
+ * proibisce alle altre navi, ovvero le sue celle con il bordo intorno, secondo la regola per cui le navi non
+ * si toccano nemmeno in diagonale. La ricerca tiene l'unione delle maschere proibite delle navi giá piazzate e
+ * scarta con un AND ogni posizione che la tocca. Per prima cosa vengono coperti i colpi a segno, partendo da
+ * quello di indice piú basso, che é il vincolo piú stretto; poi le navi rimaste vengono piazzate in ordine
+ * canonico (per lunghezza, e a paritá di lunghezza per posizione crescente) cosí ogni disposizione viene
+ * contata una sola volta, e l'ultima nave viene contata direttamente senza scendere di un livello.
+ * I sottoproblemi con almeno due navi da piazzare sono memorizzati in una tabella di dimensione limitata,
+ * indicizzata dalla maschera proibita e dalle navi rimaste.
+ * Le probabilitá sono esatte rispetto a una distribuzione uniforme sulle disposizioni compatibili; se la
+ * ricerca supera il numero massimo di nodi viene interrotta e il risultato non é disponibile. */
+public final class EndgameSolver {
+
+    /** Logaritmo in base due del numero di bit di un long. */
+    private static final int WORD_SHIFT = 6;
+
+    /** Numero massimo di nodi visitati di default prima di interrompere la ricerca. */
+    private static final long DEFAULT_MAX_NODES = 1_000_000L;
+
+    /** Numero massimo di sottoproblemi memorizzati in una risoluzione. */
+    private static final int MEMO_LIMIT = 1 << 12;
+
+    /** Numero minimo di navi rimaste perché un sottoproblema venga memorizzato;
+     * con meno navi l'ultima viene contata direttamente. */
+    private static final int MIN_MEMO_SHIPS = 2;
+
+    /** Cardinalità delle righe della griglia. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne della griglia. */
+    private final int dimColumn;
+
+    /** Lunghezze distinte delle navi della flotta, dalla piú lunga alla piú corta. */
+    private final int[] lengths;
+
+    /** Numero di navi di ogni lunghezza nella flotta completa. */
+    private final int[] fleetCounts;
+
+    /** Numero massimo di nodi visitati prima di interrompere la ricerca. */
+    private final long maxNodes;
+
+    /** Indice della lunghezza di ogni posizione possibile. */
+    private final int[] candidateSlot;
+
+    /** Indici lineari delle celle di ogni posizione possibile. */
+    private final int[][] candidateCells;
+
+    /** Prima parola delle maschere delle celle di ogni posizione. */
+    private final int[] cellsFrom;
+
+    /** Maschere delle celle di ogni posizione, dalla parola cellsFrom in poi. */
+    private final long[][] cellsMask;
+
+    /** Prima parola delle maschere proibite di ogni posizione. */
+    private final int[] haloFrom;
+
+    /** Maschere delle celle proibite da ogni posizione (celle e bordo), dalla parola haloFrom in poi. */
+    private final long[][] haloMask;
+
+    /** Posizioni possibili di ogni lunghezza, in ordine di cella iniziale. */
+    private final int[][] slotCandidates;
+
+    /** Posizioni possibili che coprono ogni cella. */
+    private final int[][] candidatesAt;
+
+    /** Posizioni compatibili con le celle giá viste nella risoluzione corrente. */
+    private final boolean[] usable;
+
+    /** Navi di ogni lunghezza ancora da piazzare nella ricerca. */
+    private final int[] counts;
+
+    /** Celle proibite dalle navi piazzate nella ricerca. */
+    private final long[] forbidden;
+
+    /** Celle occupate dalle navi piazzate nella ricerca. */
+    private final long[] covered;
+
+    /** Colpi a segno su navi non affondate. */
+    private final long[] hits;
+
+    /** Per ogni cella, il numero di disposizioni in cui contiene una nave. */
+    private final long[] coverage;
+
+    /** Celle viste dal giocatore, come indici di CellState. */
+    private final int[] view;
+
+    /** Parole salvate prima di piazzare una nave, per ogni profonditá della ricerca. */
+    private final long[][] saved;
+
+    /** Sottoproblemi giá risolti nella risoluzione corrente. */
+    private final Map<MemoKey, Subtotal> memo = new HashMap<>();
+
+    /** Numero di disposizioni trovate dall'ultima risoluzione. */
+    private long layoutCount;
+
+    /** Nodi visitati nella risoluzione corrente. */
+    private long nodes;
+
+    /** Vero se l'ultima risoluzione é stata interrotta. */
+    private boolean aborted;
+
+    /** Il costruttore prepara il risolutore con il numero massimo di nodi di default.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param fleet flotta nel formato di Game: all'indice i il numero di navi lunghe i */
+    public EndgameSolver(final int fixedDimRow, final int fixedDimColumn, final int[] fleet) {
+        this(fixedDimRow, fixedDimColumn, fleet, DEFAULT_MAX_NODES);
+    }
+
+    /** Il costruttore prepara il risolutore, calcolando le maschere di tutte le posizioni possibili.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param fleet flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @param nodeLimit numero massimo di nodi visitati prima di interrompere la ricerca */
+    public EndgameSolver(final int fixedDimRow, final int fixedDimColumn, final int[] fleet, final long nodeLimit) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        maxNodes = nodeLimit;
+
+        int distinct = 0;
+        int ships = 0;
+        for (int i = 1; i < fleet.length; i++) {
+            distinct += fleet[i] > 0 ? 1 : 0;
+            ships += fleet[i];
+        }
+        lengths = new int[distinct];
+        fleetCounts = new int[distinct];
+        for (int length = fleet.length - 1, k = 0; length > 0; length--) {
+            if (fleet[length] > 0) {
+                lengths[k] = length;
+                fleetCounts[k++] = fleet[length];
+            }
+        }
+
+        int cells = dimRow * dimColumn;
+        int words = (cells + Long.SIZE - 1) >>> WORD_SHIFT;
+        int total = 0;
+        for (int length : lengths) {
+            total += countPlacements(length);
+        }
+
+        candidateSlot = new int[total];
+        candidateCells = new int[total][];
+        cellsFrom = new int[total];
+        cellsMask = new long[total][];
+        haloFrom = new int[total];
+        haloMask = new long[total][];
+        slotCandidates = new int[distinct][];
+        usable = new boolean[total];
+
+        int next = 0;
+        for (int k = 0; k < distinct; k++) {
+            slotCandidates[k] = new int[countPlacements(lengths[k])];
+            int inSlot = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (fits(cell, lengths[k], 1)) {
+                    buildCandidate(next, k, cell, 1);
+                    slotCandidates[k][inSlot++] = next++;
+                }
+                if (lengths[k] > 1 && fits(cell, lengths[k], dimColumn)) {
+                    buildCandidate(next, k, cell, dimColumn);
+                    slotCandidates[k][inSlot++] = next++;
+                }
+            }
+        }
+
+        int[] perCell = new int[cells];
+        for (int[] candidate : candidateCells) {
+            for (int cell : candidate) {
+                perCell[cell]++;
+            }
+        }
+        candidatesAt = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            candidatesAt[cell] = new int[perCell[cell]];
+            perCell[cell] = 0;
+        }
+        for (int c = 0; c < total; c++) {
+            for (int cell : candidateCells[c]) {
+                candidatesAt[cell][perCell[cell]++] = c;
+            }
+        }
+
+        int span = 0;
+        for (long[] mask : haloMask) {
+            span = Math.max(span, mask.length);
+        }
+        counts = new int[distinct];
+        forbidden = new long[words];
+        covered = new long[words];
+        hits = new long[words];
+        coverage = new long[cells];
+        view = new int[cells];
+        saved = new long[ships + 1][span];
+    }
+
+    /** Metodo che enumera le disposizioni compatibili con la griglia vista dal giocatore.
+     * Le navi affondate vengono riconosciute dai gruppi di celle 'X' e tolte dalla flotta; se la griglia non é
+     * compatibile con la flotta la risoluzione termina con zero disposizioni.
+     * @param playerView griglia del giocatore, con le stesse dimensioni del risolutore
+     * @return vero se la risoluzione é terminata, falso se é stata interrotta per il numero di nodi */
+    public boolean solve(final Grid playerView) {
+        Arrays.fill(forbidden, 0L);
+        Arrays.fill(covered, 0L);
+        Arrays.fill(hits, 0L);
+        Arrays.fill(coverage, 0L);
+        System.arraycopy(fleetCounts, 0, counts, 0, counts.length);
+        memo.clear();
+        nodes = 0;
+        aborted = false;
+        layoutCount = 0;
+
+        for (int row = 0; row < dimRow; row++) {
+            for (int column = 0; column < dimColumn; column++) {
+                int cell = row * dimColumn + column;
+                view[cell] = CellState.toIndex(playerView.getGridValue(row, column));
+                if (view[cell] == CellState.HIT_INDEX) {
+                    hits[cell >>> WORD_SHIFT] |= 1L << cell;
+                }
+            }
+        }
+
+        if (!removeSunkShips() || !markUsable()) {
+            return true;
+        }
+        layoutCount = search(0, -1, coverage, 0);
+        return !aborted;
+    }
+
+    /** Metodo che ritorna il numero di disposizioni trovate dall'ultima risoluzione.
+     * @return il numero di disposizioni, zero se la griglia non é compatibile con la flotta */
+    public long getLayoutCount() {
+        return layoutCount;
+    }
+
+    /** Metodo che ritorna la probabilitá che una cella contenga una nave non ancora affondata.
+     * @param row riga della cella
+     * @param column colonna della cella
+     * @return la frazione di disposizioni in cui la cella é occupata, zero se non ce ne sono */
+    public double getProbability(final int row, final int column) {
+        return layoutCount == 0 ? 0 : (double) coverage[row * dimColumn + column] / layoutCount;
+    }
+
+    /** Metodo che ritorna la cella non ancora attaccata con la probabilitá piú alta di contenere una nave.
+     * A paritá di probabilitá viene scelta la cella di indice piú basso.
+     * @return l'indice lineare della cella, -1 se nessuna disposizione é compatibile */
+    public int getBestCell() {
+        int best = -1;
+        for (int cell = 0; cell < coverage.length; cell++) {
+            if (view[cell] != CellState.HIT_INDEX && coverage[cell] > 0
+                    && (best < 0 || coverage[cell] > coverage[best])) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /** Cerca le disposizioni a partire dallo stato corrente e ne aggiunge le celle occupate a target.
+     * @param from prima posizione utilizzabile tra quelle della lunghezza lastSlot
+     * @param lastSlot lunghezza dell'ultima nave piazzata in ordine canonico, -1 durante la copertura dei colpi
+     * @param target conteggi per cella a cui aggiungere le celle delle navi piazzate da qui in avanti
+     * @param depth numero di navi giá piazzate
+     * @return il numero di disposizioni che completano lo stato corrente */
+    private long search(final int from, final int lastSlot, final long[] target, final int depth) {
+        int hit = firstUncoveredHit();
+        if (hit >= 0) {
+            return (forbidden[hit >>> WORD_SHIFT] >>> hit & 1L) != 0 ? 0 : coverHit(hit, target, depth);
+        }
+
+        int slot = 0;
+        int remaining = 0;
+        for (int k = counts.length - 1; k >= 0; k--) {
+            if (counts[k] > 0) {
+                slot = k;
+                remaining += counts[k];
+            }
+        }
+        if (remaining == 0) {
+            return 1;
+        }
+
+        int start = slot == lastSlot ? from : 0;
+        if (remaining < MIN_MEMO_SHIPS) {
+            return countLastShip(slot, start, target);
+        }
+
+        MemoKey key = new MemoKey(forbidden.clone(), counts.clone(), lastSlot == slot ? from : -1);
+        Subtotal known = memo.get(key);
+        if (known != null) {
+            add(target, known.coverage);
+            return known.count;
+        }
+        if (memo.size() >= MEMO_LIMIT) {
+            return placeNext(slot, start, target, depth);
+        }
+
+        long[] local = new long[target.length];
+        long count = placeNext(slot, start, local, depth);
+        if (!aborted) {
+            memo.put(key, new Subtotal(count, local));
+        }
+        add(target, local);
+        return count;
+    }
+
+    /** Prova tutte le navi rimaste che possono coprire un colpo a segno.
+     * @param hit indice lineare del colpo
+     * @param target conteggi per cella delle disposizioni
+     * @param depth numero di navi giá piazzate
+     * @return il numero di disposizioni trovate */
+    private long coverHit(final int hit, final long[] target, final int depth) {
+        long total = 0;
+        for (int candidate : candidatesAt[hit]) {
+            if (counts[candidateSlot[candidate]] > 0 && fitsState(candidate)) {
+                total += descend(candidate, 0, -1, target, depth);
+            }
+        }
+        return total;
+    }
+
+    /** Prova tutte le posizioni di una lunghezza a partire da una posizione data.
+     * @param slot indice della lunghezza
+     * @param start prima posizione da provare tra quelle della lunghezza
+     * @param target conteggi per cella delle disposizioni
+     * @param depth numero di navi giá piazzate
+     * @return il numero di disposizioni trovate */
+    private long placeNext(final int slot, final int start, final long[] target, final int depth) {
+        int[] candidates = slotCandidates[slot];
+        long total = 0;
+        for (int i = start; i < candidates.length && !aborted; i++) {
+            if (fitsState(candidates[i])) {
+                total += descend(candidates[i], i + 1, slot, target, depth);
+            }
+        }
+        return total;
+    }
+
+    /** Conta direttamente le posizioni dell'ultima nave rimasta.
+     * @param slot indice della lunghezza dell'ultima nave
+     * @param start prima posizione da provare tra quelle della lunghezza
+     * @param target conteggi per cella delle disposizioni
+     * @return il numero di posizioni compatibili */
+    private long countLastShip(final int slot, final int start, final long[] target) {
+        int[] candidates = slotCandidates[slot];
+        long total = 0;
+        for (int i = start; i < candidates.length; i++) {
+            if (fitsState(candidates[i])) {
+                total++;
+                for (int cell : candidateCells[candidates[i]]) {
+                    target[cell]++;
+                }
+            }
+        }
+        nodes += candidates.length - start;
+        return total;
+    }
+
+    /** Piazza una nave, cerca i completamenti e la rimuove.
+     * @param candidate posizione della nave
+     * @param from prima posizione utilizzabile per la nave successiva della stessa lunghezza
+     * @param slot lunghezza usata per l'ordine canonico, -1 durante la copertura dei colpi
+     * @param target conteggi per cella delle disposizioni
+     * @param depth numero di navi giá piazzate
+     * @return il numero di disposizioni trovate */
+    private long descend(final int candidate, final int from, final int slot, final long[] target,
+                         final int depth) {
+        if (++nodes > maxNodes) {
+            aborted = true;
+            return 0;
+        }
+
+        long[] halo = haloMask[candidate];
+        long[] cells = cellsMask[candidate];
+        int haloStart = haloFrom[candidate];
+        int cellsStart = cellsFrom[candidate];
+        System.arraycopy(forbidden, haloStart, saved[depth], 0, halo.length);
+        for (int w = 0; w < halo.length; w++) {
+            forbidden[haloStart + w] |= halo[w];
+        }
+        for (int w = 0; w < cells.length; w++) {
+            covered[cellsStart + w] |= cells[w];
+        }
+        counts[candidateSlot[candidate]]--;
+
+        long found = search(from, slot, target, depth + 1);
+        for (int cell : candidateCells[candidate]) {
+            target[cell] += found;
+        }
+
+        counts[candidateSlot[candidate]]++;
+        for (int w = 0; w < cells.length; w++) {
+            covered[cellsStart + w] &= ~cells[w];
+        }
+        System.arraycopy(saved[depth], 0, forbidden, haloStart, halo.length);
+        return found;
+    }
+
+    /** Controlla che una posizione non tocchi le celle proibite dalle navi giá piazzate.
+     * @param candidate posizione da controllare
+     * @return vero se la posizione é utilizzabile */
+    private boolean fitsState(final int candidate) {
+        if (!usable[candidate]) {
+            return false;
+        }
+        long[] cells = cellsMask[candidate];
+        int start = cellsFrom[candidate];
+        for (int w = 0; w < cells.length; w++) {
+            if ((forbidden[start + w] & cells[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Ritorna il colpo a segno di indice piú basso non ancora coperto da una nave piazzata.
+     * @return l'indice lineare del colpo, -1 se sono tutti coperti */
+    private int firstUncoveredHit() {
+        for (int w = 0; w < hits.length; w++) {
+            long open = hits[w] & ~covered[w];
+            if (open != 0) {
+                return (w << WORD_SHIFT) + Long.numberOfTrailingZeros(open);
+            }
+        }
+        return -1;
+    }
+
+    /** Riconosce le navi affondate dai gruppi di celle 'X' allineate e le toglie dalla flotta.
+     * @return falso se una nave affondata non appartiene alla flotta */
+    private boolean removeSunkShips() {
+        boolean[] seen = new boolean[view.length];
+        for (int cell = 0; cell < view.length; cell++) {
+            if (view[cell] != CellState.SUNK_INDEX || seen[cell]) {
+                continue;
+            }
+
+            int length = 0;
+            int step = cell % dimColumn + 1 < dimColumn && view[cell + 1] == CellState.SUNK_INDEX ? 1 : dimColumn;
+            for (int c = cell; c < view.length && view[c] == CellState.SUNK_INDEX
+                    && (step == dimColumn || c / dimColumn == cell / dimColumn); c += step) {
+                seen[c] = true;
+                length++;
+            }
+
+            int slot = slotOf(length);
+            if (slot < 0 || counts[slot] == 0) {
+                return false;
+            }
+            counts[slot]--;
+        }
+        return true;
+    }
+
+    /** Segna le posizioni utilizzabili: quelle di lunghezze ancora a galla, che non toccano colpi a vuoto
+     * né navi affondate o il loro bordo, e che non sono fatte solo di colpi a segno, perché in quel caso
+     * la nave risulterebbe affondata.
+     * @return falso se un colpo a segno non puó essere coperto da nessuna posizione */
+    private boolean markUsable() {
+        boolean[] blocked = new boolean[view.length];
+        for (int cell = 0; cell < view.length; cell++) {
+            if (view[cell] == CellState.MISS_INDEX) {
+                blocked[cell] = true;
+            } else if (view[cell] == CellState.SUNK_INDEX) {
+                int row = cell / dimColumn;
+                int column = cell % dimColumn;
+                for (int i = Math.max(0, row - 1); i <= Math.min(dimRow - 1, row + 1); i++) {
+                    for (int j = Math.max(0, column - 1); j <= Math.min(dimColumn - 1, column + 1); j++) {
+                        blocked[i * dimColumn + j] = true;
+                    }
+                }
+            }
+        }
+
+        for (int c = 0; c < usable.length; c++) {
+            boolean ok = counts[candidateSlot[c]] > 0;
+            boolean allHits = true;
+            for (int cell : candidateCells[c]) {
+                ok &= !blocked[cell];
+                allHits &= view[cell] == CellState.HIT_INDEX;
+            }
+            usable[c] = ok && !allHits;
+        }
+
+        for (int cell = 0; cell < view.length; cell++) {
+            if (view[cell] == CellState.HIT_INDEX && Arrays.stream(candidatesAt[cell]).noneMatch(c -> usable[c])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Ritorna l'indice di una lunghezza nella flotta.
+     * @param length lunghezza della nave
+     * @return l'indice della lunghezza, -1 se non fa parte della flotta */
+    private int slotOf(final int length) {
+        for (int k = 0; k < lengths.length; k++) {
+            if (lengths[k] == length) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** Controlla che una nave stia nella griglia.
+     * @param cell indice lineare della prima cella
+     * @param length lunghezza della nave
+     * @param step 1 per le navi orizzontali, il numero di colonne per quelle verticali
+     * @return vero se tutte le celle della nave sono nella griglia */
+    private boolean fits(final int cell, final int length, final int step) {
+        return step == 1 ? cell % dimColumn + length <= dimColumn : cell / dimColumn + length <= dimRow;
+    }
+
+    /** Conta le posizioni possibili di una nave sulla griglia vuota.
+     * @param length lunghezza della nave
+     * @return il numero di posizioni */
+    private int countPlacements(final int length) {
+        int horizontal = dimRow * Math.max(0, dimColumn - length + 1);
+        int vertical = length > 1 ? dimColumn * Math.max(0, dimRow - length + 1) : 0;
+        return horizontal + vertical;
+    }
+
+    /** Calcola le celle e le maschere di una posizione.
+     * @param candidate indice della posizione
+     * @param slot indice della lunghezza
+     * @param first indice lineare della prima cella
+     * @param step 1 per le navi orizzontali, il numero di colonne per quelle verticali */
+    private void buildCandidate(final int candidate, final int slot, final int first, final int step) {
+        int length = lengths[slot];
+        int[] cells = new int[length];
+        for (int i = 0; i < length; i++) {
+            cells[i] = first + i * step;
+        }
+
+        int row = first / dimColumn;
+        int column = first % dimColumn;
+        int lastRow = cells[length - 1] / dimColumn;
+        int lastColumn = cells[length - 1] % dimColumn;
+        int fromRow = Math.max(0, row - 1);
+        int toRow = Math.min(dimRow - 1, lastRow + 1);
+        int fromColumn = Math.max(0, column - 1);
+        int toColumn = Math.min(dimColumn - 1, lastColumn + 1);
+
+        candidateSlot[candidate] = slot;
+        candidateCells[candidate] = cells;
+        cellsFrom[candidate] = first >>> WORD_SHIFT;
+        cellsMask[candidate] = new long[(cells[length - 1] >>> WORD_SHIFT) - cellsFrom[candidate] + 1];
+        for (int cell : cells) {
+            cellsMask[candidate][(cell >>> WORD_SHIFT) - cellsFrom[candidate]] |= 1L << cell;
+        }
+
+        int haloFirst = fromRow * dimColumn + fromColumn;
+        int haloLast = toRow * dimColumn + toColumn;
+        haloFrom[candidate] = haloFirst >>> WORD_SHIFT;
+        haloMask[candidate] = new long[(haloLast >>> WORD_SHIFT) - haloFrom[candidate] + 1];
+        for (int i = fromRow; i <= toRow; i++) {
+            for (int j = fromColumn; j <= toColumn; j++) {
+                int cell = i * dimColumn + j;
+                haloMask[candidate][(cell >>> WORD_SHIFT) - haloFrom[candidate]] |= 1L << cell;
+            }
+        }
+    }
+
+    /** Somma un array di conteggi ad un altro.
+     * @param target array a cui sommare
+     * @param values valori da sommare */
+    private static void add(final long[] target, final long[] values) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += values[i];
+        }
+    }
+
+    /** Chiave di un sottoproblema: celle proibite, navi rimaste e prima posizione utilizzabile. */
+    private static final class MemoKey {
+
+        /** Maschera delle celle proibite. */
+        private final long[] forbiddenCells;
+
+        /** Navi rimaste per ogni lunghezza. */
+        private final int[] shipsLeft;
+
+        /** Prima posizione utilizzabile della lunghezza corrente, -1 se non vincolata. */
+        private final int from;
+
+        /** Crea la chiave, senza copiare gli array.
+         * @param keyForbidden maschera delle celle proibite
+         * @param keyShips navi rimaste per ogni lunghezza
+         * @param keyFrom prima posizione utilizzabile della lunghezza corrente, -1 se non vincolata */
+        MemoKey(final long[] keyForbidden, final int[] keyShips, final int keyFrom) {
+            forbiddenCells = keyForbidden;
+            shipsLeft = keyShips;
+            from = keyFrom;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof MemoKey key && from == key.from
+                    && Arrays.equals(forbiddenCells, key.forbiddenCells) && Arrays.equals(shipsLeft, key.shipsLeft);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(forbiddenCells) * 31 + Arrays.hashCode(shipsLeft)) * 31 + from;
+        }
+    }
+
+    /** Risultato di un sottoproblema. */
+    private static final class Subtotal {
+
+        /** Numero di disposizioni che completano il sottoproblema. */
+        private final long count;
+
+        /** Per ogni cella, il numero di quei completamenti in cui la cella é occupata. */
+        private final long[] coverage;
+
+        /** Crea il risultato.
+         * @param total numero di disposizioni
+         * @param cellCounts conteggi per cella */
+        Subtotal(final long total, final long[] cellCounts) {
+            count = total;
+            coverage = cellCounts;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package ai;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import game.GameSession.AttackResult;
+
+/** {@literal <<Control>>}
+ * Giocatore automatico che spara nella cella coperta dal maggior numero di posizioni possibili delle navi
+ * rimaste, secondo le regole di piazzamento di Game (le navi non si toccano, nemmeno in diagonale).
+ * Per ogni lunghezza della flotta la classe conserva, cella per cella, quante posizioni ancora legali la
+ * coprono e quanti colpi a segno contengono complessivamente quelle posizioni. Una posizione smette di essere
+ * legale quando copre una cella bloccata, ovvero una cella che sicuramente non contiene navi da affondare:
+ * un colpo a vuoto, una cella di una nave affondata o del bordo intorno ad essa, una cella in diagonale ad un
+ * colpo a segno. Se ci sono colpi a segno di navi non ancora affondate la scelta cade sulle celle delle
+ * posizioni che passano per quei colpi, altrimenti su quelle coperte da piú posizioni; in entrambi i casi il
+ * conteggio di ogni lunghezza viene pesato per il numero di navi di quella lunghezza ancora a galla.
+ * Le mappe vengono aggiornate in modo incrementale: un colpo tocca solo le posizioni che passano per la cella
+ * colpita o bloccata, quindi il costo di una mossa dipende dalle lunghezze delle navi e non dalla griglia,
+ * a parte la scelta della cella che scorre una volta la griglia. */
+public final class ProbabilityShooter implements ShootingStrategy {
+
+    /** Azione che toglie dalle mappe le posizioni che coprono una cella appena bloccata. */
+    private static final int REMOVE = 0;
+
+    /** Azione che aggiunge alle mappe dei colpi il colpo a segno appena ricevuto da una cella. */
+    private static final int ADD_HIT = 1;
+
+    /** Cardinalità delle righe della griglia. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne della griglia. */
+    private final int dimColumn;
+
+    /** Lunghezze distinte delle navi della flotta. */
+    private final int[] lengths;
+
+    /** Numero di navi di ogni lunghezza nella flotta completa. */
+    private final int[] fleetCounts;
+
+    /** Numero di navi di ogni lunghezza ancora a galla. */
+    private final int[] counts;
+
+    /** Per ogni lunghezza e cella, il numero di posizioni legali che coprono la cella. */
+    private final int[][] coverage;
+
+    /** Per ogni lunghezza e cella, la somma dei colpi a segno delle posizioni legali che coprono la cella. */
+    private final int[][] hitCoverage;
+
+    /** Celle che sicuramente non contengono navi da affondare. */
+    private final boolean[] blocked;
+
+    /** Celle colpite con successo. */
+    private final boolean[] hit;
+
+    /** Celle giá attaccate. */
+    private final boolean[] shot;
+
+    /** Generatore casuale usato per scegliere tra celle con lo stesso punteggio. */
+    private final RandomGenerator random;
+
+    /** Numero di colpi a segno su navi non ancora affondate. */
+    private int pendingHits;
+
+    /** Il costruttore prepara il giocatore per una griglia e una flotta.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param fleet flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @param randomGenerator generatore casuale per le scelte a pari punteggio */
+    public ProbabilityShooter(final int fixedDimRow, final int fixedDimColumn, final int[] fleet,
+                              final RandomGenerator randomGenerator) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        random = randomGenerator;
+
+        int distinct = 0;
+        for (int count : fleet) {
+            distinct += count > 0 ? 1 : 0;
+        }
+        lengths = new int[distinct];
+        fleetCounts = new int[distinct];
+        for (int length = fleet.length - 1, k = 0; length > 0; length--) {
+            if (fleet[length] > 0) {
+                lengths[k] = length;
+                fleetCounts[k++] = fleet[length];
+            }
+        }
+
+        int cells = dimRow * dimColumn;
+        counts = new int[distinct];
+        coverage = new int[distinct][cells];
+        hitCoverage = new int[distinct][cells];
+        blocked = new boolean[cells];
+        hit = new boolean[cells];
+        shot = new boolean[cells];
+        reset();
+    }
+
+    /** Metodo che riporta il giocatore all'inizio di una nuova partita, con tutte le posizioni legali. */
+    @Override
+    public void reset() {
+        Arrays.fill(blocked, false);
+        Arrays.fill(hit, false);
+        Arrays.fill(shot, false);
+        System.arraycopy(fleetCounts, 0, counts, 0, counts.length);
+        pendingHits = 0;
+
+        for (int k = 0; k < lengths.length; k++) {
+            int length = lengths[k];
+            Arrays.fill(coverage[k], 0);
+            Arrays.fill(hitCoverage[k], 0);
+            for (int row = 0; row < dimRow; row++) {
+                for (int column = 0; column < dimColumn; column++) {
+                    if (column + length <= dimColumn) {
+                        addCoverage(k, row * dimColumn + column, length, 1);
+                    }
+                    if (row + length <= dimRow) {
+                        addCoverage(k, row * dimColumn + column, length, dimColumn);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Metodo che sceglie la cella non ancora attaccata con il punteggio piú alto.
+     * @return l'indice lineare della cella */
+    @Override
+    public int nextShot() {
+        int[][] map = pendingHits > 0 ? hitCoverage : coverage;
+        long bestScore = -1;
+        int best = -1;
+        int ties = 0;
+
+        for (int cell = 0; cell < shot.length; cell++) {
+            if (shot[cell] || blocked[cell]) {
+                continue;
+            }
+
+            long score = 0;
+            for (int k = 0; k < lengths.length; k++) {
+                score += (long) counts[k] * map[k][cell];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = cell;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+
+        if (best < 0) {
+            best = firstCellNotShot();
+        }
+        return best;
+    }
+
+    /** Metodo che aggiorna le mappe con l'esito di un colpo.
+     * @param cell indice lineare della cella attaccata
+     * @param result esito del colpo */
+    @Override
+    public void onResult(final int cell, final AttackResult result) {
+        if (shot[cell]) {
+            return;
+        }
+        shot[cell] = true;
+
+        switch (result) {
+            case MISS -> block(cell);
+            case HIT -> registerHit(cell);
+            case SUNK -> {
+                registerHit(cell);
+                sink(cell);
+            }
+            default -> { }
+        }
+    }
+
+    /** Registra un colpo a segno e blocca le celle in diagonale, che non possono contenere navi.
+     * @param cell indice lineare della cella colpita */
+    private void registerHit(final int cell) {
+        forEachPlacement(cell, ADD_HIT);
+        hit[cell] = true;
+        pendingHits++;
+
+        int row = cell / dimColumn;
+        int column = cell % dimColumn;
+        blockIfInside(row - 1, column - 1);
+        blockIfInside(row - 1, column + 1);
+        blockIfInside(row + 1, column - 1);
+        blockIfInside(row + 1, column + 1);
+    }
+
+    /** Registra l'affondamento della nave che occupa la cella: blocca le sue celle e il bordo intorno
+     * e la toglie dalle navi a galla. Le celle della nave sono i colpi a segno allineati con la cella,
+     * perché le navi non si toccano.
+     * @param cell indice lineare della cella che ha affondato la nave */
+    private void sink(final int cell) {
+        int row = cell / dimColumn;
+        int column = cell % dimColumn;
+        int left = column;
+        int right = column;
+        int top = row;
+        int bottom = row;
+
+        while (left > 0 && hit[cell - (column - left) - 1]) {
+            left--;
+        }
+        while (right < dimColumn - 1 && hit[cell + (right - column) + 1]) {
+            right++;
+        }
+        while (top > 0 && hit[cell - (row - top + 1) * dimColumn]) {
+            top--;
+        }
+        while (bottom < dimRow - 1 && hit[cell + (bottom - row + 1) * dimColumn]) {
+            bottom++;
+        }
+        if (right == left) {
+            left = column;
+            right = column;
+        } else {
+            top = row;
+            bottom = row;
+        }
+
+        for (int i = top - 1; i <= bottom + 1; i++) {
+            for (int j = left - 1; j <= right + 1; j++) {
+                blockIfInside(i, j);
+            }
+        }
+
+        int length = Math.max(right - left, bottom - top) + 1;
+        pendingHits -= length;
+        for (int k = 0; k < lengths.length; k++) {
+            if (lengths[k] == length && counts[k] > 0) {
+                counts[k]--;
+                break;
+            }
+        }
+    }
+
+    /** Blocca una cella se appartiene alla griglia.
+     * @param row riga della cella
+     * @param column colonna della cella */
+    private void blockIfInside(final int row, final int column) {
+        if (row >= 0 && row < dimRow && column >= 0 && column < dimColumn) {
+            block(row * dimColumn + column);
+        }
+    }
+
+    /** Blocca una cella, togliendo dalle mappe tutte le posizioni legali che la coprono.
+     * @param cell indice lineare della cella */
+    private void block(final int cell) {
+        if (blocked[cell]) {
+            return;
+        }
+        forEachPlacement(cell, REMOVE);
+        blocked[cell] = true;
+    }
+
+    /** Applica un'azione a tutte le posizioni legali, di ogni lunghezza ancora a galla, che coprono una cella.
+     * @param cell indice lineare della cella
+     * @param action REMOVE oppure ADD_HIT */
+    private void forEachPlacement(final int cell, final int action) {
+        int row = cell / dimColumn;
+        int column = cell % dimColumn;
+
+        for (int k = 0; k < lengths.length; k++) {
+            if (counts[k] == 0) {
+                continue;
+            }
+
+            int length = lengths[k];
+            for (int start = Math.max(0, column - length + 1); start <= Math.min(column, dimColumn - length);
+                    start++) {
+                apply(action, k, row * dimColumn + start, length, 1);
+            }
+            for (int start = Math.max(0, row - length + 1); start <= Math.min(row, dimRow - length); start++) {
+                apply(action, k, start * dimColumn + column, length, dimColumn);
+            }
+        }
+    }
+
+    /** Applica un'azione ad una posizione, se é legale.
+     * @param action REMOVE oppure ADD_HIT
+     * @param k indice della lunghezza
+     * @param start indice lineare della prima cella della posizione
+     * @param length lunghezza della posizione
+     * @param step distanza tra due celle consecutive della posizione */
+    private void apply(final int action, final int k, final int start, final int length, final int step) {
+        int hits = 0;
+        for (int i = 0, cell = start; i < length; i++, cell += step) {
+            if (blocked[cell]) {
+                return;
+            }
+            hits += hit[cell] ? 1 : 0;
+        }
+
+        if (action == REMOVE) {
+            addCoverage(k, start, length, step, -1, -hits);
+        } else {
+            addCoverage(k, start, length, step, 0, 1);
+        }
+    }
+
+    /** Aggiunge una posizione senza colpi alla mappa delle posizioni di una lunghezza.
+     * @param k indice della lunghezza
+     * @param start indice lineare della prima cella della posizione
+     * @param length lunghezza della posizione
+     * @param step distanza tra due celle consecutive della posizione */
+    private void addCoverage(final int k, final int start, final int length, final int step) {
+        addCoverage(k, start, length, step, 1, 0);
+    }
+
+    /** Aggiorna le mappe di una lunghezza su tutte le celle di una posizione.
+     * @param k indice della lunghezza
+     * @param start indice lineare della prima cella della posizione
+     * @param length lunghezza della posizione
+     * @param step distanza tra due celle consecutive della posizione
+     * @param placements variazione del numero di posizioni
+     * @param hits variazione della somma dei colpi a segno */
+    private void addCoverage(final int k, final int start, final int length, final int step,
+                             final int placements, final int hits) {
+        int[] placementMap = coverage[k];
+        int[] hitMap = hitCoverage[k];
+
+        for (int i = 0, cell = start; i < length; i++, cell += step) {
+            placementMap[cell] += placements;
+            hitMap[cell] += hits;
+        }
+    }
+
+    /** Ritorna la prima cella non ancora attaccata, usata se nessuna posizione legale é rimasta.
+     * @return l'indice lineare della cella
+     * @throws IllegalStateException se tutte le celle sono giá state attaccate */
+    private int firstCellNotShot() {
+        for (int cell = 0; cell < shot.length; cell++) {
+            if (!shot[cell]) {
+                return cell;
+            }
+        }
+        throw new IllegalStateException("Tutte le celle sono giá state attaccate");
+    }
+}
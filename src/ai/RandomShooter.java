@@ -0,0 +1,65 @@
+package ai;
+
+import java.util.random.RandomGenerator;
+
+import game.GameSession.AttackResult;
+
+/** {@literal <<Control>>}
+ * Giocatore automatico che spara in una cella casuale tra quelle non ancora attaccate.
+ * La classe RandomShooter non tiene conto degli esiti dei colpi e serve come riferimento per confrontare
+ * le altre strategie. Le celle vengono estratte da una permutazione mescolata in modo incrementale,
+ * quindi ogni colpo costa un tempo costante. */
+public final class RandomShooter implements ShootingStrategy {
+
+    /** Celle della griglia; le prime next sono giá state estratte. */
+    private final int[] cells;
+
+    /** Generatore casuale delle estrazioni. */
+    private final RandomGenerator random;
+
+    /** Numero di celle giá estratte. */
+    private int next;
+
+    /** Il costruttore prepara il giocatore per una griglia.
+     * La firma é la stessa di ProbabilityShooter, cosí entrambi possono essere creati allo stesso modo.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param fleet flotta nel formato di Game, non utilizzata
+     * @param randomGenerator generatore casuale delle estrazioni */
+    public RandomShooter(final int fixedDimRow, final int fixedDimColumn, final int[] fleet,
+                         final RandomGenerator randomGenerator) {
+        cells = new int[fixedDimRow * fixedDimColumn];
+        random = randomGenerator;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+    }
+
+    /** Metodo che estrae una cella non ancora attaccata.
+     * @return l'indice lineare della cella
+     * @throws IllegalStateException se tutte le celle sono giá state attaccate */
+    @Override
+    public int nextShot() {
+        if (next == cells.length) {
+            throw new IllegalStateException("Tutte le celle sono giá state attaccate");
+        }
+
+        int pick = next + random.nextInt(cells.length - next);
+        int cell = cells[pick];
+        cells[pick] = cells[next];
+        cells[next++] = cell;
+        return cell;
+    }
+
+    /** Il giocatore casuale non tiene conto degli esiti dei colpi.
+     * @param cell indice lineare della cella attaccata
+     * @param result esito del colpo */
+    @Override
+    public void onResult(final int cell, final AttackResult result) { }
+
+    /** Metodo che riporta il giocatore all'inizio di una nuova partita. */
+    @Override
+    public void reset() {
+        next = 0;
+    }
+}
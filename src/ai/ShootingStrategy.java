@@ -0,0 +1,24 @@
+package ai;
+
+import game.GameSession.AttackResult;
+
+/** {@literal <<Control>>}
+ * Interfaccia che rappresenta un giocatore automatico che sceglie dove sparare sulla griglia nemica.
+ * Una strategia propone una cella con nextShot, riceve l'esito del colpo con onResult e ne tiene conto
+ * per le scelte successive. Le celle sono indicate con il loro indice lineare (riga * colonne + colonna),
+ * lo stesso usato da ShipRegistry. Con reset la strategia dimentica la partita e puó essere riutilizzata
+ * per una nuova griglia delle stesse dimensioni e con la stessa flotta. */
+public interface ShootingStrategy {
+
+    /** Metodo che sceglie la prossima cella da attaccare.
+     * @return l'indice lineare della cella */
+    int nextShot();
+
+    /** Metodo che comunica alla strategia l'esito di un colpo.
+     * @param cell indice lineare della cella attaccata
+     * @param result esito del colpo */
+    void onResult(int cell, AttackResult result);
+
+    /** Metodo che riporta la strategia all'inizio di una nuova partita. */
+    void reset();
+}
@@ -1,6 +1,12 @@
+import java.io.IOException;
+
 import menu.CommandsMainMenu;
 import utility.UtilityTools;
+import game.Game;
+import game.Metrics;
+import game.MoveJournal;
 import game.Settings;
+import game.SnapshotStore;
 import keyboardInput.MainMenuInput;
 
 /** {@literal <<Control>>}
@@ -24,8 +30,13 @@ import keyboardInput.MainMenuInput;
  * sulla griglia, ecc.
  * Gestione dell'output: Il main è responsabile di stampare i messaggi di output sullo schermo,
  * ad esempio i messaggi di errore, i messaggi di conferma e le istruzioni per tornare al menu.
- * Chiusura delle risorse: Alla fine del gioco, il main chiude l'istanza di Scanner utilizzata
- * per l'input dell'utente.
+ * Salvataggio delle partite: all'avvio il main apre l'archivio in cui Game salva la partita in corso, cosí
+ * una partita interrotta dalla chiusura improvvisa del programma viene ripresa al successivo /gioca, e il
+ * diario su cui vengono registrate le mosse.
+ * Metriche: il main misura il tempo di esecuzione di ogni comando del menu principale (per /gioca l'intera
+ * partita) e salva periodicamente le metriche di Metrics in un file.
+ * Chiusura delle risorse: Alla fine del gioco, il main chiude l'input della console, ferma il salvataggio
+ * delle metriche, salvandole un'ultima volta, e chiude l'archivio dei salvataggi e il diario delle mosse.
  * In generale, il main dell'applicazione della battaglia navale coordina il flusso del gioco,
  * gestisce l'input dell'utente, chiama i comandi appropriati e visualizza l'output corrispondente. */
 public final class app {
@@ -44,7 +55,7 @@ public final class app {
         if (args.length == 1) {
             if (args[0].equals("-h") || args[0].equals("--help")) {
                 commandsMainMenu.help();
-                UtilityTools.SCANNER.nextLine();
+                UtilityTools.INPUT.nextLine();
             }
         } else if (args.length > 1) {
             System.out.println(UtilityTools.RED + "\nErrore: Sono stati inseriti troppi argomenti"
@@ -52,8 +63,24 @@ public final class app {
             System.exit(0);
         }
 
+        try {
+            settings.setSnapshots(SnapshotStore.open(Game.SNAPSHOT_FILE, 1, Game.SNAPSHOT_MAX_DIM,
+                    Game.SNAPSHOT_MAX_DIM));
+        } catch (IOException e) {
+            System.out.println(UtilityTools.RED + "\nAttenzione: " + e.getMessage()
+                    + ", la partita non verrá salvata" + UtilityTools.RESET);
+        }
+        try {
+            settings.setJournal(MoveJournal.open(Game.JOURNAL_FILE, true));
+        } catch (IOException e) {
+            System.out.println(UtilityTools.RED + "\nAttenzione: " + e.getMessage()
+                    + ", le mosse non verranno registrate" + UtilityTools.RESET);
+        }
+
+        Metrics.getIstance().startDump(Game.METRICS_FILE, Game.METRICS_PERIOD_SECONDS);
         while (settings.getMainMenuLoopValue()) {
             menuInput.takeInput(mainMenu);
+            long start = System.nanoTime();
             switch (settings.getCurrentState()) {
                 default -> System.out.println(UtilityTools.RED + "Nessun UserChoice trovato" + UtilityTools.RESET);
                 case GIOCA -> commandsMainMenu.play();
@@ -74,14 +101,32 @@ public final class app {
                 case LARGE -> commandsMainMenu.largeGrid();
                 case EXTRALARGE -> commandsMainMenu.extraLargeGrid();
                 case MOSTRATEMPO -> commandsMainMenu.showTime();
+                case METRICHE -> commandsMainMenu.showMetrics();
                 }
+            Metrics.getIstance().recordCommand(settings.getCurrentState(), System.nanoTime() - start);
 
             if (settings.getMainMenuLoopValue()) {
                 System.out.println("\nPremere " + UtilityTools.GREEN + "INVIO "
                         + UtilityTools.RESET + "per andare al menu...");
-                UtilityTools.SCANNER.nextLine();
+                UtilityTools.INPUT.nextLine();
+            }
+        }
+        UtilityTools.INPUT.close();
+        Metrics.getIstance().stopDump();
+        if (settings.getSnapshots() != null) {
+            try {
+                settings.getSnapshots().close();
+            } catch (IOException e) {
+                //Il programma sta terminando e lo slot della console é giá stato svuotato
+            }
+        }
+        if (settings.getJournal() != null) {
+            try {
+                settings.getJournal().close();
+            } catch (IOException e) {
+                System.out.println(UtilityTools.RED + "Errore nella scrittura del diario delle mosse: "
+                        + e.getMessage() + UtilityTools.RESET);
             }
         }
-        UtilityTools.SCANNER.close();
     }
 }
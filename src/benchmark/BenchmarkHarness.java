@@ -0,0 +1,192 @@
+package benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** {@literal <<Control>>}
+ * Piccola infrastruttura di misura usata dai benchmark che devono confrontare le esecuzioni tra loro.
+ * La classe BenchmarkHarness esegue un carico di lavoro per alcune iterazioni di riscaldamento, in modo che
+ * il JIT compili il codice misurato, e poi per alcune iterazioni di misura di durata fissa, ognuna delle quali
+ * ripete il carico a blocchi finché la durata non é trascorsa. Per ogni misura vengono registrate le operazioni
+ * al secondo (media e scarto tipo tra le iterazioni) e i byte allocati per operazione, letti dal contatore di
+ * allocazione del thread corrente di com.sun.management.ThreadMXBean.
+ * I risultati vengono stampati in tabella e possono essere salvati in un file JSON, un oggetto per misura,
+ * per confrontare due esecuzioni del programma prima e dopo una modifica. I carichi misurati con
+ * measureAllocationFree non devono allocare memoria dopo il riscaldamento: quelli che allocano vengono
+ * segnalati nella tabella e raccolti in getAllocationFailures. */
+final class BenchmarkHarness {
+
+    /** Carico di lavoro da misurare. */
+    interface Workload {
+
+        /** Esegue un blocco di operazioni.
+         * @param operations numero di operazioni da eseguire
+         * @return un valore calcolato dalle operazioni, accumulato per evitare che il JIT elimini il lavoro */
+        long run(int operations);
+    }
+
+    /** Risultato di una misura. */
+    static final class Result {
+
+        /** Nome del carico misurato. */
+        private final String name;
+
+        /** Dimensione della griglia usata dal carico. */
+        private final int dim;
+
+        /** Operazioni al secondo, media delle iterazioni di misura. */
+        private final double opsPerSecond;
+
+        /** Scarto tipo delle operazioni al secondo tra le iterazioni di misura. */
+        private final double opsPerSecondError;
+
+        /** Byte allocati in media da ogni operazione. */
+        private final double bytesPerOp;
+
+        /** Crea il risultato di una misura.
+         * @param resultName nome del carico
+         * @param resultDim dimensione della griglia
+         * @param rate operazioni al secondo
+         * @param rateError scarto tipo delle operazioni al secondo
+         * @param allocation byte allocati per operazione */
+        Result(final String resultName, final int resultDim, final double rate, final double rateError,
+               final double allocation) {
+            name = resultName;
+            dim = resultDim;
+            opsPerSecond = rate;
+            opsPerSecondError = rateError;
+            bytesPerOp = allocation;
+        }
+    }
+
+    /** Operazioni eseguite da ogni blocco di una iterazione. */
+    private static final int BATCH = 1_000;
+
+    /** Durata di ogni iterazione, in nanosecondi. */
+    private static final long ITERATION_NANOS = 200_000_000L;
+
+    /** Numero di iterazioni di riscaldamento. */
+    private static final int WARMUP_ITERATIONS = 3;
+
+    /** Numero di iterazioni di misura. */
+    private static final int MEASUREMENT_ITERATIONS = 5;
+
+    /** Byte per operazione oltre i quali un carico senza allocazioni viene segnalato; lascia spazio solo
+     * alle allocazioni isolate della JVM, ad esempio durante una ricompilazione, che su milioni di operazioni
+     * valgono molto meno di un byte. */
+    private static final double ALLOCATION_TOLERANCE = 0.01;
+
+    /** Contatore di allocazione dei thread fornito dalla JVM. */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Risultati raccolti. */
+    private final List<Result> results = new ArrayList<>();
+
+    /** Carichi senza allocazioni che hanno allocato memoria, nella forma nome/dimensione. */
+    private final List<String> allocationFailures = new ArrayList<>();
+
+    /** Valore accumulato dai carichi per evitare che il JIT elimini il lavoro. */
+    private long sink;
+
+    /** Il costruttore abilita il contatore di allocazione e stampa l'intestazione della tabella. */
+    BenchmarkHarness() {
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        System.out.println("benchmark              dim   op/s            errore   byte/op");
+    }
+
+    /** Metodo che misura un carico di lavoro e ne registra il risultato.
+     * @param name nome del carico
+     * @param dim dimensione della griglia usata dal carico
+     * @param workload carico da misurare */
+    void measure(final String name, final int dim, final Workload workload) {
+        final double nanosPerSecond = 1e9;
+        double[] rates = new double[MEASUREMENT_ITERATIONS];
+        long operations = 0;
+        long allocated = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iterate(workload);
+        }
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long done = iterate(workload);
+            long elapsed = System.nanoTime() - start;
+            allocated += THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            operations += done;
+            rates[i] = done * nanosPerSecond / elapsed;
+        }
+
+        double mean = 0;
+        for (double rate : rates) {
+            mean += rate / rates.length;
+        }
+        double variance = 0;
+        for (double rate : rates) {
+            variance += (rate - mean) * (rate - mean) / rates.length;
+        }
+        Result result = new Result(name, dim, mean, Math.sqrt(variance), (double) allocated / operations);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-22s %-5d %-15.0f %-8s %.1f%n", name, dim, mean,
+                String.format(Locale.ROOT, "%.1f%%", result.opsPerSecondError * 100 / mean), result.bytesPerOp);
+    }
+
+    /** Metodo che misura un carico che non deve allocare memoria in regime, come il percorso di un attacco,
+     * e lo segnala se i byte allocati per operazione superano ALLOCATION_TOLERANCE.
+     * @param name nome del carico
+     * @param dim dimensione della griglia usata dal carico
+     * @param workload carico da misurare */
+    void measureAllocationFree(final String name, final int dim, final Workload workload) {
+        measure(name, dim, workload);
+        Result result = results.get(results.size() - 1);
+        if (result.bytesPerOp > ALLOCATION_TOLERANCE) {
+            allocationFailures.add(name + "/" + dim);
+            System.out.printf(Locale.ROOT, "%-22s ^ alloca %.2f byte/op, attesi 0%n", "", result.bytesPerOp);
+        }
+    }
+
+    /** Metodo che ritorna i carichi misurati con measureAllocationFree che hanno allocato memoria.
+     * @return i carichi nella forma nome/dimensione, vuota se nessuno ha allocato */
+    List<String> getAllocationFailures() {
+        return List.copyOf(allocationFailures);
+    }
+
+    /** Metodo che salva i risultati raccolti in un file JSON.
+     * @param file percorso del file
+     * @throws IOException se il file non puó essere scritto */
+    void writeJson(final Path file) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(String.format(Locale.ROOT, "  {\"benchmark\": \"%s\", \"dim\": %d, \"opsPerSecond\": %.1f, "
+                    + "\"opsPerSecondError\": %.1f, \"bytesPerOp\": %.2f}", result.name, result.dim,
+                    result.opsPerSecond, result.opsPerSecondError, result.bytesPerOp));
+            json.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+        System.out.println("Risultati salvati in " + file.toAbsolutePath() + " (sink " + sink + ")");
+    }
+
+    /** Esegue il carico a blocchi per la durata di una iterazione.
+     * @param workload carico da eseguire
+     * @return il numero di operazioni eseguite */
+    private long iterate(final Workload workload) {
+        long operations = 0;
+        long deadline = System.nanoTime() + ITERATION_NANOS;
+
+        do {
+            sink += workload.run(BATCH);
+            operations += BATCH;
+        } while (System.nanoTime() < deadline);
+        return operations;
+    }
+}
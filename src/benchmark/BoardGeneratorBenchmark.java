@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+import game.BoardGenerator;
+
+/** {@literal <<Control>>}
+ * Programma che misura quante disposizioni della flotta vengono generate al secondo da BoardGenerator.
+ * Per ognuna delle dimensioni di griglia del gioco vengono generati lotti di disposizioni nello stesso
+ * buffer, prima sul thread corrente e poi in parallelo su tutti i core, stampando le griglie al secondo.
+ * Si avvia con: java benchmark.BoardGeneratorBenchmark */
+public final class BoardGeneratorBenchmark {
+
+    /** Dimensioni delle griglie da misurare, le stesse di CommandsMainMenu. */
+    private static final int[] GRID_DIMS = {10, 18, 26};
+
+    /** Flotta standard del gioco, nel formato di Game. */
+    private static final int[] FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Numero di disposizioni di ogni lotto. */
+    private static final int BOARDS = 1 << 18;
+
+    /** Numero di lotti di riscaldamento prima della misura. */
+    private static final int WARMUP_ROUNDS = 2;
+
+    /** Seme del generatore casuale. */
+    private static final long SEED = 42L;
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private BoardGeneratorBenchmark() { }
+
+    /** Punto di avvio della misura.
+     * @param args non utilizzati */
+    public static void main(final String[] args) {
+        final double nanosPerSecond = 1e9;
+        System.out.println("dim   griglie/s (1 thread)   griglie/s (" + Runtime.getRuntime().availableProcessors()
+                + " core)");
+
+        for (int dim : GRID_DIMS) {
+            BoardGenerator generator = new BoardGenerator(dim, dim, FLEET);
+            int[] buffer = new int[BOARDS * generator.getShipCount()];
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                generator.generate(new SplittableRandom(SEED), buffer, BOARDS);
+                generator.generateParallel(SEED, buffer, BOARDS);
+            }
+
+            long start = System.nanoTime();
+            generator.generate(new SplittableRandom(SEED), buffer, BOARDS);
+            double sequential = BOARDS * nanosPerSecond / (System.nanoTime() - start);
+
+            start = System.nanoTime();
+            generator.generateParallel(SEED, buffer, BOARDS);
+            double parallel = BOARDS * nanosPerSecond / (System.nanoTime() - start);
+
+            System.out.printf("%-5d %-22.0f %.0f%n", dim, sequential, parallel);
+        }
+    }
+}
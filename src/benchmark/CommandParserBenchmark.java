@@ -0,0 +1,127 @@
+package benchmark;
+
+import game.Settings.CommandsState;
+import keyboardInput.CommandParser;
+import keyboardInput.CommandTable;
+
+/** {@literal <<Control>>}
+ * Programma che confronta il riconoscimento delle righe digitate nel menu di gioco con le catene di
+ * equalsIgnoreCase e String.matches usate in precedenza e con CommandTable e CommandParser.
+ * Il corpus contiene comandi in maiuscolo e minuscolo, coordinate valide, coordinate fuori dalla griglia
+ * e righe sbagliate, nelle proporzioni di una partita in cui la maggior parte delle righe é un attacco.
+ * Per ogni riga entrambi i riconoscitori ricavano lo stato del comando e, per gli attacchi, riga e colonna;
+ * il programma controlla che i risultati coincidano e stampa le righe riconosciute al secondo.
+ * Si avvia con: java benchmark.CommandParserBenchmark */
+public final class CommandParserBenchmark {
+
+    /** Righe digitate dall'utente su cui misurare i riconoscitori. */
+    private static final String[] CORPUS = {
+        "a-1", "B-7", "j-10", "c-4", "E-5", "/help", "f-6", "/MostraGriglia", "g-8", "h-2", "i-9", "a-10",
+        "/mostratempo", "d-3", "z-1", "k-0", "b-99", "a1", "ciao", "/abbandona", "/mostranavi", "c-10",
+        "/mostratentativi", "/svelagriglia", "/esci", "/foo", "", "e-55", "J-1", "/mostralivello"
+    };
+
+    /** Cardinalità delle righe e delle colonne della griglia standard. */
+    private static final int GRID_DIM = 10;
+
+    /** Numero di righe riconosciute per ogni misura. */
+    private static final int LINES = 5_000_000;
+
+    /** Numero di ripetizioni di riscaldamento prima della misura. */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /** Valore restituito per le righe che non sono comandi né attacchi. */
+    private static final int UNKNOWN = -1;
+
+    /** Valore accumulato dalle misure per evitare che il JIT elimini i cicli. */
+    private static long sink;
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private CommandParserBenchmark() { }
+
+    /** Punto di avvio del confronto.
+     * @param args non utilizzati */
+    public static void main(final String[] args) {
+        for (String line : CORPUS) {
+            if (parseLegacy(line) != parseTable(line)) {
+                throw new IllegalStateException("Risultati diversi per la riga \"" + line + "\"");
+            }
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            measureLegacy();
+            measureTable();
+        }
+        System.out.printf("equalsIgnoreCase + matches  %.0f righe/s%n", measureLegacy());
+        System.out.printf("CommandTable + CommandParser %.0f righe/s%n", measureTable());
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /** Misura il riconoscimento con le catene di equalsIgnoreCase e matches.
+     * @return righe riconosciute al secondo */
+    private static double measureLegacy() {
+        final double nanosPerSecond = 1e9;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < LINES; i++) {
+            sink += parseLegacy(CORPUS[i % CORPUS.length]);
+        }
+        return LINES * nanosPerSecond / (System.nanoTime() - start);
+    }
+
+    /** Misura il riconoscimento con CommandTable e CommandParser.
+     * @return righe riconosciute al secondo */
+    private static double measureTable() {
+        final double nanosPerSecond = 1e9;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < LINES; i++) {
+            sink += parseTable(CORPUS[i % CORPUS.length]);
+        }
+        return LINES * nanosPerSecond / (System.nanoTime() - start);
+    }
+
+    /** Riconosce una riga come faceva GameMenuInput prima di CommandTable.
+     * @param line riga digitata
+     * @return l'ordinale dello stato del comando, la coordinata codificata per gli attacchi oppure UNKNOWN */
+    private static int parseLegacy(final String line) {
+        final String[] commands = {"/help", "/esci", "/mostralivello", "/mostranavi", "/svelagriglia",
+            "/mostratempo", "/mostragriglia", "/abbandona", "/mostratentativi"};
+        final CommandsState[] states = {CommandsState.HELP, CommandsState.ESCI, CommandsState.MOSTRALIVELLO,
+            CommandsState.MOSTRANAVI, CommandsState.SVELAGRIGLIA, CommandsState.MOSTRATEMPO,
+            CommandsState.MOSTRAGRIGLIA, CommandsState.ABBANDONA, CommandsState.MOSTRATENTATIVI};
+        final int offSet = 97;
+
+        for (int i = 0; i < commands.length; i++) {
+            if (line.equalsIgnoreCase(commands[i])) {
+                return states[i].ordinal();
+            }
+        }
+        if (line.matches("[a-z]-\\d[0-9]?") || line.matches("[A-Z]-\\d[0-9]?")) {
+            String[] cord = line.toLowerCase().split("-");
+            int column = cord[0].charAt(0) - offSet;
+            int row = Integer.parseInt(cord[1]) - 1;
+            if (column >= 0 && column < GRID_DIM && row >= 0 && row < GRID_DIM) {
+                return CommandsState.values().length + (row << Short.SIZE | column);
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /** Riconosce una riga con CommandTable e CommandParser.
+     * @param line riga digitata
+     * @return l'ordinale dello stato del comando, la coordinata codificata per gli attacchi oppure UNKNOWN */
+    private static int parseTable(final String line) {
+        CommandsState state = CommandTable.GAME_MENU.lookup(line);
+        if (state != null) {
+            return state.ordinal();
+        }
+
+        int coordinate = CommandParser.parseCoordinate(line, GRID_DIM, GRID_DIM);
+        if (coordinate >= 0) {
+            return CommandsState.values().length + (CommandParser.rowOf(coordinate) << Short.SIZE
+                    | CommandParser.columnOf(coordinate));
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,186 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import game.BoardGenerator;
+import grid.CellState;
+import grid.Grid;
+import grid.GridRenderer;
+import utility.UtilityTools;
+
+/** {@literal <<Control>>}
+ * Programma che confronta il disegno della griglia cella per cella con quello del GridRenderer.
+ * Per ognuna delle dimensioni di griglia del gioco (10, 18 e 26) il programma prepara una griglia a metá
+ * partita e la disegna ripetutamente su uno stream che scarta i byte ma conta le scritture ricevute,
+ * prima con una System.out.print per ogni cella (come faceva Grid.printGrid) e poi con il GridRenderer,
+ * stampando i fotogrammi al secondo, le scritture e i byte di ogni fotogramma.
+ * Si avvia con: java benchmark.GridRenderBenchmark */
+public final class GridRenderBenchmark {
+
+    /** Dimensioni delle griglie da confrontare, le stesse di CommandsMainMenu. */
+    private static final int[] GRID_DIMS = {10, 18, 26};
+
+    /** Flotta standard di Game. */
+    private static final int[] FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Numero di fotogrammi disegnati per ogni misura. */
+    private static final int FRAMES = 20_000;
+
+    /** Numero di ripetizioni di riscaldamento prima della misura. */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** Ultimo numero di riga che occupa una sola cifra. */
+    private static final int ROW_CHECK = 9;
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private GridRenderBenchmark() { }
+
+    /** Punto di avvio del confronto.
+     * @param args non utilizzati */
+    public static void main(final String[] args) {
+        System.out.println("dim   renderer      fotogrammi/s   scritture/fotogramma   byte/fotogramma");
+
+        for (int dim : GRID_DIMS) {
+            Grid grid = prepareGrid(dim);
+            CountingStream counter = new CountingStream();
+            PrintStream out = new PrintStream(counter, false, StandardCharsets.US_ASCII);
+            GridRenderer renderer = new GridRenderer();
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                measure(counter, () -> printPerCell(grid, out));
+                measure(counter, () -> renderer.print(grid, true, out));
+            }
+            report(dim, "per cella", counter, measure(counter, () -> printPerCell(grid, out)));
+            report(dim, "GridRenderer", counter, measure(counter, () -> renderer.print(grid, true, out)));
+        }
+    }
+
+    /** Prepara una griglia con la flotta piazzata e circa un terzo delle celle giá attaccate.
+     * @param dim dimensione della griglia quadrata
+     * @return la griglia */
+    private static Grid prepareGrid(final int dim) {
+        final int attackedShare = 3;
+        SplittableRandom random = new SplittableRandom(SEED);
+        BoardGenerator generator = new BoardGenerator(dim, dim, FLEET);
+        int[] buffer = new int[generator.getShipCount()];
+        Grid grid = new Grid(dim, dim);
+
+        generator.generate(random, buffer, 1);
+        generator.writeBoard(grid, buffer, 0);
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim; j++) {
+                if (random.nextInt(attackedShare) == 0) {
+                    grid.setGridValue(i, j, grid.getGridValue(i, j) == CellState.SHIP ? CellState.HIT
+                            : CellState.MISS);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /** Disegna FRAMES fotogrammi e ne misura la durata.
+     * @param counter stream che conta le scritture, azzerato prima della misura
+     * @param frame disegno di un fotogramma
+     * @return fotogrammi al secondo */
+    private static double measure(final CountingStream counter, final Runnable frame) {
+        final double nanosPerSecond = 1e9;
+        counter.reset();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            frame.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        return FRAMES * nanosPerSecond / elapsed;
+    }
+
+    /** Stampa una riga del confronto.
+     * @param dim dimensione della griglia
+     * @param name nome del renderer
+     * @param counter stream con le scritture dell'ultima misura
+     * @param rate fotogrammi al secondo */
+    private static void report(final int dim, final String name, final CountingStream counter, final double rate) {
+        System.out.printf("%-5d %-13s %-14.0f %-22d %d%n", dim, name, rate,
+                counter.getWrites() / FRAMES, counter.getBytes() / FRAMES);
+    }
+
+    /** Disegna la griglia con una print per ogni cella, come faceva Grid.printGrid.
+     * @param grid griglia da disegnare
+     * @param out stream su cui disegnare */
+    private static void printPerCell(final Grid grid, final PrintStream out) {
+        out.print("   ");
+        for (int j = 0; j < grid.getColumnLength(); j++) {
+            out.print(UtilityTools.PURPLE + (char) ('A' + j) + "  " + UtilityTools.RESET);
+        }
+        out.println();
+
+        for (int i = 0; i < grid.getRowLength(); i++) {
+            out.print(UtilityTools.PURPLE + (i + 1) + (i + 1 <= ROW_CHECK ? "  " : " ") + UtilityTools.RESET);
+            for (int j = 0; j < grid.getColumnLength(); j++) {
+                char value = grid.getGridValue(i, j);
+                switch (value) {
+                    case CellState.SHIP -> out.print(UtilityTools.GREEN + value + UtilityTools.RESET + "  ");
+                    case CellState.HIT -> out.print(UtilityTools.YELLOW + value + UtilityTools.RESET + "  ");
+                    case CellState.SUNK -> out.print(UtilityTools.RED + value + UtilityTools.RESET + "  ");
+                    case CellState.MISS -> out.print(UtilityTools.CYAN + value + UtilityTools.RESET + "  ");
+                    default -> out.print(value + "  ");
+                }
+            }
+            out.println();
+        }
+        out.println();
+        out.flush();
+    }
+
+    /** Stream che scarta i byte ricevuti contando le scritture e i byte. */
+    private static final class CountingStream extends OutputStream {
+
+        /** Numero di scritture ricevute. */
+        private long writes;
+
+        /** Numero di byte ricevuti. */
+        private long bytes;
+
+        /** Conta la scrittura di un byte.
+         * @param b byte scritto */
+        @Override
+        public void write(final int b) {
+            writes++;
+            bytes++;
+        }
+
+        /** Conta la scrittura di un blocco di byte.
+         * @param b byte scritti
+         * @param off posizione del primo byte
+         * @param len numero di byte */
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            writes++;
+            bytes += len;
+        }
+
+        /** Azzera i contatori. */
+        void reset() {
+            writes = 0;
+            bytes = 0;
+        }
+
+        /** Ritorna il numero di scritture ricevute.
+         * @return writes */
+        long getWrites() {
+            return writes;
+        }
+
+        /** Ritorna il numero di byte ricevuti.
+         * @return bytes */
+        long getBytes() {
+            return bytes;
+        }
+    }
+}
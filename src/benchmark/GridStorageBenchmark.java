@@ -0,0 +1,148 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+import grid.BitboardStorage;
+import grid.CellState;
+import grid.CharMatrixStorage;
+import grid.GridStorage;
+import grid.SparseStorage;
+
+/** {@literal <<Control>>}
+ * Programma che confronta l'occupazione di memoria e il throughput delle implementazioni di GridStorage.
+ * Per ognuna delle dimensioni di griglia del gioco (10, 18 e 26) il programma alloca molte griglie
+ * con la matrice di caratteri, con la bitboard e con la tabella delle sole celle non vuote, misurando i byte
+ * occupati nello heap da una griglia appena creata, e poi esegue un carico misto di letture e scritture casuali
+ * seguito da una scansione completa della griglia, stampando le operazioni al secondo di ogni rappresentazione.
+ * Si avvia con: java benchmark.GridStorageBenchmark */
+public final class GridStorageBenchmark {
+
+    /** Dimensioni delle griglie da confrontare, le stesse di CommandsMainMenu. */
+    private static final int[] GRID_DIMS = {10, 18, 26};
+
+    /** Numero di griglie allocate per la misura della memoria. */
+    private static final int GRIDS_FOR_MEMORY = 20_000;
+
+    /** Numero di operazioni eseguite per ogni misura del throughput. */
+    private static final int OPERATIONS = 20_000_000;
+
+    /** Numero di ripetizioni di riscaldamento prima della misura. */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** Valore accumulato dalle misure per evitare che il JIT elimini i cicli. */
+    private static long sink;
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private GridStorageBenchmark() { }
+
+    /** Punto di avvio del confronto.
+     * @param args non utilizzati */
+    public static void main(final String[] args) {
+        System.out.println("dim   storage       byte/griglia   get+set op/s    scan celle/s");
+
+        for (int dim : GRID_DIMS) {
+            run(dim, "char[][]", CharMatrixStorage::new);
+            run(dim, "bitboard", BitboardStorage::new);
+            run(dim, "sparse", SparseStorage::new);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /** Esegue le misure di una implementazione per una dimensione della griglia.
+     * @param dim dimensione della griglia quadrata
+     * @param name nome dell'implementazione da stampare
+     * @param factory costruttore dello storage */
+    private static void run(final int dim, final String name,
+                            final BiFunction<Integer, Integer, GridStorage> factory) {
+        long bytes = measureFootprint(dim, factory);
+        GridStorage storage = factory.apply(dim, dim);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            randomAccess(storage);
+            scan(storage);
+        }
+        double accessRate = randomAccess(storage);
+        double scanRate = scan(storage);
+
+        System.out.printf("%-5d %-13s %-14d %-15.0f %.0f%n", dim, name, bytes, accessRate, scanRate);
+    }
+
+    /** Misura i byte di heap occupati in media da uno storage.
+     * @param dim dimensione della griglia quadrata
+     * @param factory costruttore dello storage
+     * @return byte occupati da una singola griglia */
+    private static long measureFootprint(final int dim, final BiFunction<Integer, Integer, GridStorage> factory) {
+        GridStorage[] grids = new GridStorage[GRIDS_FOR_MEMORY];
+        long before = usedHeap();
+
+        for (int i = 0; i < grids.length; i++) {
+            grids[i] = factory.apply(dim, dim);
+        }
+        long after = usedHeap();
+        sink += grids[grids.length - 1].getRowLength();
+        return (after - before) / grids.length;
+    }
+
+    /** Esegue letture e scritture in celle casuali, come durante una partita.
+     * @param storage storage da misurare
+     * @return operazioni al secondo */
+    private static double randomAccess(final GridStorage storage) {
+        final char[] values = {CellState.EMPTY, CellState.SHIP, CellState.HIT, CellState.MISS, CellState.SUNK};
+        final double nanosPerSecond = 1e9;
+        SplittableRandom random = new SplittableRandom(SEED);
+        int rows = storage.getRowLength();
+        int columns = storage.getColumnLength();
+        long found = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int row = random.nextInt(rows);
+            int column = random.nextInt(columns);
+            if ((i & 1) == 0) {
+                storage.set(row, column, values[i % values.length]);
+            } else if (storage.get(row, column) == CellState.SHIP) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += found;
+        return OPERATIONS * nanosPerSecond / elapsed;
+    }
+
+    /** Scorre ripetutamente tutte le celle cercando le navi, come faceva il controllo di fine partita.
+     * @param storage storage da misurare
+     * @return celle lette al secondo */
+    private static double scan(final GridStorage storage) {
+        final double nanosPerSecond = 1e9;
+        int rows = storage.getRowLength();
+        int columns = storage.getColumnLength();
+        int rounds = OPERATIONS / (rows * columns);
+        long found = 0;
+
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    if (storage.get(i, j) == CellState.SHIP) {
+                        found++;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += found;
+        return (double) rounds * rows * columns * nanosPerSecond / elapsed;
+    }
+
+    /** Ritorna i byte di heap in uso dopo aver richiesto una garbage collection.
+     * @return byte di heap in uso */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
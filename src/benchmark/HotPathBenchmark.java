@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/** {@literal <<Control>>}
+ * Programma che misura i percorsi critici di una partita su tutte le dimensioni di griglia del gioco.
+ * Per le griglie 10, 18 e 26 di CommandsMainMenu vengono misurati con BenchmarkHarness i carichi di
+ * HotPathWorkloads: il piazzamento casuale della flotta, l'attacco di una cella (compreso il costo di una nuova
+ * partita ogni dim*dim attacchi), il percorso completo di un attacco digitato (riconoscimento della riga,
+ * GameSession.attack, Metrics, controllo di fine partita e accesso alla griglia da disegnare), il colpo completo
+ * del ProbabilityShooter, la risoluzione esatta di una posizione di fine partita con due navi a galla
+ * (EndgameSolver), il controllo della nave affondata sul registro delle navi, il controllo di fine partita
+ * (GameSession.getStatus), la costruzione del fotogramma della griglia (GridRenderer) e il riconoscimento
+ * delle righe del menu di gioco (CommandTable e CommandParser).
+ * Per ogni misura vengono stampate le operazioni al secondo e i byte allocati per operazione, e i risultati
+ * vengono salvati in un file JSON per confrontare esecuzioni diverse. Il percorso dell'attacco digitato, il
+ * controllo della nave affondata, il controllo di fine partita, il disegno e il riconoscimento delle righe non
+ * devono allocare memoria: se uno di loro alloca, il programma termina con codice di uscita 1.
+ * Gli stessi carichi vengono misurati con JMH da HotPathJmh (gradle jmh); questo programma non ha dipendenze
+ * e resta utilizzabile quando JMH non é disponibile.
+ * Si avvia con: java benchmark.HotPathBenchmark [file.json] (di default benchmark-results.json) */
+public final class HotPathBenchmark {
+
+    /** Dimensioni delle griglie da misurare, le stesse di CommandsMainMenu. */
+    private static final int[] GRID_DIMS = {10, 18, 26};
+
+    /** File JSON in cui vengono salvati i risultati se non ne viene indicato un altro. */
+    private static final String DEFAULT_OUTPUT = "benchmark-results.json";
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private HotPathBenchmark() { }
+
+    /** Punto di avvio delle misure.
+     * @param args eventuale percorso del file JSON dei risultati
+     * @throws IOException se il file dei risultati non puó essere scritto */
+    public static void main(final String[] args) throws IOException {
+        BenchmarkHarness harness = new BenchmarkHarness();
+
+        for (int dim : GRID_DIMS) {
+            harness.measure("placement", dim, HotPathWorkloads.placement(dim));
+            harness.measure("attack", dim, HotPathWorkloads.attack(dim));
+            harness.measureAllocationFree("commandAttack", dim, HotPathWorkloads.commandAttack(dim));
+            harness.measure("aiShot", dim, HotPathWorkloads.aiShot(dim));
+            harness.measure("endgame", dim, HotPathWorkloads.endgame(dim));
+            harness.measureAllocationFree("sinkCheck", dim, HotPathWorkloads.sinkCheck(dim));
+            harness.measureAllocationFree("gameEnd", dim, HotPathWorkloads.gameEnd(dim));
+            harness.measureAllocationFree("render", dim, HotPathWorkloads.render(dim));
+            harness.measureAllocationFree("parse", dim, HotPathWorkloads.parse(dim));
+        }
+
+        harness.writeJson(Path.of(args.length > 0 ? args[0] : DEFAULT_OUTPUT));
+        if (!harness.getAllocationFailures().isEmpty()) {
+            System.err.println("Carichi che allocano memoria: " + harness.getAllocationFailures());
+            System.exit(1);
+        }
+    }
+}
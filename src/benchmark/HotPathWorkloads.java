@@ -0,0 +1,453 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import ai.EndgameSolver;
+import ai.ProbabilityShooter;
+import game.BoardGenerator;
+import game.GameSession;
+import game.Metrics;
+import grid.CellState;
+import grid.Grid;
+import grid.GridRenderer;
+import grid.ShipRegistry;
+import keyboardInput.CommandParser;
+import keyboardInput.CommandTable;
+
+/** {@literal <<Control>>}
+ * Carichi di lavoro dei percorsi critici di una partita, condivisi da HotPathBenchmark, che li misura con
+ * BenchmarkHarness senza dipendenze esterne, e da HotPathJmh, che li misura con JMH nel source set jmh.
+ * Ogni metodo prepara il carico per una griglia quadrata della dimensione indicata; la preparazione
+ * (disposizioni, posizioni di fine partita, righe digitate) avviene prima della misura. */
+final class HotPathWorkloads {
+
+    /** Flotta standard di Game. */
+    private static final int[] FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Numero di disposizioni preparate per gli attacchi. */
+    private static final int LAYOUTS = 64;
+
+    /** Numero di posizioni di fine partita preparate per il risolutore. */
+    private static final int ENDGAMES = 16;
+
+    /** Navi ancora a galla nelle posizioni di fine partita. */
+    private static final int ENDGAME_SHIPS = 2;
+
+    /** Tempo di gioco delle partite misurate, abbastanza lungo da non scadere durante la misura. */
+    private static final long TIME_LIMIT = TimeUnit.DAYS.toNanos(1);
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** Righe digitate nel menu di gioco, in maggioranza attacchi. */
+    private static final String[] CORPUS = {
+        "a-1", "B-7", "j-10", "c-4", "E-5", "/help", "f-6", "/MostraGriglia", "g-8", "h-2", "i-9", "a-10",
+        "/mostratempo", "d-3", "z-1", "k-0", "b-99", "a1", "ciao", "/abbandona", "/mostranavi", "c-10"
+    };
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private HotPathWorkloads() { }
+
+    /** Piazzamento casuale della flotta (GameSession.placeShipsRandom, usato da Game.startNewGame).
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta le flotte piazzate */
+    static BenchmarkHarness.Workload placement(final int dim) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        GameSession session = new GameSession(dim, dim, Integer.MAX_VALUE, TIME_LIMIT);
+        return operations -> {
+            long placed = 0;
+            for (int i = 0; i < operations; i++) {
+                placed += session.placeShipsRandom(random, FLEET) ? 1 : 0;
+            }
+            return placed;
+        };
+    }
+
+    /** Attacco di una cella (GameSession.attackCell), compreso il costo di una nuova partita ogni dim*dim attacchi.
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta gli attacchi andati a segno */
+    static BenchmarkHarness.Workload attack(final int dim) {
+        return new AttackWorkload(dim);
+    }
+
+    /** Percorso completo di un attacco digitato, come in GameMenuInput e CommandsGame ma senza le stampe.
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta gli attacchi andati a segno */
+    static BenchmarkHarness.Workload commandAttack(final int dim) {
+        return new CommandAttackWorkload(dim);
+    }
+
+    /** Colpo completo del ProbabilityShooter: scelta della cella, attacco e aggiornamento delle mappe.
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta i colpi andati a segno */
+    static BenchmarkHarness.Workload aiShot(final int dim) {
+        return new ShooterWorkload(dim);
+    }
+
+    /** Risoluzione esatta di una posizione di fine partita con ENDGAME_SHIPS navi a galla (EndgameSolver).
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta le disposizioni trovate */
+    static BenchmarkHarness.Workload endgame(final int dim) {
+        Grid[] endgames = prepareEndgames(dim);
+        EndgameSolver solver = new EndgameSolver(dim, dim, FLEET);
+        return operations -> {
+            long layouts = 0;
+            for (int i = 0; i < operations; i++) {
+                solver.solve(endgames[i % ENDGAMES]);
+                layouts += solver.getLayoutCount();
+            }
+            return layouts;
+        };
+    }
+
+    /** Controllo della nave affondata sul registro delle navi, per ogni cella delle navi.
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta le navi affondate trovate */
+    static BenchmarkHarness.Workload sinkCheck(final int dim) {
+        ShipRegistry ships = prepareHalfHitGrid(dim).getShips();
+        int[] shipCells = shipCells(ships);
+        return operations -> {
+            long sunk = 0;
+            for (int i = 0; i < operations; i++) {
+                int cell = shipCells[i % shipCells.length];
+                int ship = ships.getShipAt(cell / dim, cell % dim);
+                sunk += ship != ShipRegistry.NO_SHIP && ships.isSunk(ship) ? 1 : 0;
+            }
+            return sunk;
+        };
+    }
+
+    /** Controllo di fine partita (GameSession.getStatus) a metá partita.
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che conta i controlli con la partita in corso */
+    static BenchmarkHarness.Workload gameEnd(final int dim) {
+        GameSession status = new GameSession(prepareHalfHitGrid(dim), Integer.MAX_VALUE, TIME_LIMIT);
+        return operations -> {
+            long inProgress = 0;
+            for (int i = 0; i < operations; i++) {
+                inProgress += status.getStatus() == GameSession.Status.IN_PROGRESS ? 1 : 0;
+            }
+            return inProgress;
+        };
+    }
+
+    /** Costruzione del fotogramma della griglia (GridRenderer, usato da Grid.printGrid) a metá partita.
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che somma le lunghezze dei fotogrammi */
+    static BenchmarkHarness.Workload render(final int dim) {
+        Grid halfHit = prepareHalfHitGrid(dim);
+        GridRenderer renderer = new GridRenderer();
+        return operations -> {
+            long length = 0;
+            for (int i = 0; i < operations; i++) {
+                length += renderer.render(halfHit, true).length();
+            }
+            return length;
+        };
+    }
+
+    /** Riconoscimento delle righe del menu di gioco (CommandTable e CommandParser, usati da GameMenuInput).
+     * @param dim dimensione della griglia quadrata
+     * @return il carico, che somma i comandi riconosciuti e le coordinate lette */
+    static BenchmarkHarness.Workload parse(final int dim) {
+        return operations -> {
+            long parsed = 0;
+            for (int i = 0; i < operations; i++) {
+                String line = CORPUS[i % CORPUS.length];
+                if (CommandTable.GAME_MENU.lookup(line) != null) {
+                    parsed++;
+                } else {
+                    parsed += CommandParser.parseCoordinate(line, dim, dim);
+                }
+            }
+            return parsed;
+        };
+    }
+
+    /** Prepara una griglia con la flotta piazzata e una cella su due di ogni nave colpita.
+     * @param dim dimensione della griglia quadrata
+     * @return la griglia */
+    private static Grid prepareHalfHitGrid(final int dim) {
+        BoardGenerator generator = new BoardGenerator(dim, dim, FLEET);
+        int[] buffer = new int[generator.getShipCount()];
+        Grid grid = new Grid(dim, dim);
+
+        generator.generate(new SplittableRandom(SEED), buffer, 1);
+        generator.writeBoard(grid, buffer, 0);
+        int[] cells = shipCells(grid.getShips());
+        for (int i = 0; i < cells.length; i += 2) {
+            grid.setGridValue(cells[i] / dim, cells[i] % dim, CellState.HIT);
+        }
+        return grid;
+    }
+
+    /** Prepara delle posizioni di fine partita facendo giocare il ProbabilityShooter finché restano
+     * ENDGAME_SHIPS navi a galla e copiando la griglia vista dal giocatore.
+     * @param dim dimensione della griglia quadrata
+     * @return le griglie del giocatore */
+    private static Grid[] prepareEndgames(final int dim) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        ProbabilityShooter shooter = new ProbabilityShooter(dim, dim, FLEET, random.split());
+        Grid[] endgames = new Grid[ENDGAMES];
+
+        for (int i = 0; i < ENDGAMES; i++) {
+            GameSession session = new GameSession(dim, dim, Integer.MAX_VALUE, TIME_LIMIT);
+            session.placeShipsRandom(random, FLEET);
+            ShipRegistry ships = session.getEnemyGrid().getShips();
+            shooter.reset();
+            int sunk = 0;
+            while (ships.getShipCount() - sunk > ENDGAME_SHIPS) {
+                int cell = shooter.nextShot();
+                GameSession.AttackResult result = session.attackCell(cell);
+                shooter.onResult(cell, result);
+                sunk += result == GameSession.AttackResult.SUNK ? 1 : 0;
+            }
+
+            Grid view = session.getPlayerGrid();
+            endgames[i] = new Grid(dim, dim);
+            for (int row = 0; row < dim; row++) {
+                for (int column = 0; column < dim; column++) {
+                    endgames[i].setGridValue(row, column, view.getGridValue(row, column));
+                }
+            }
+        }
+        return endgames;
+    }
+
+    /** Ritorna gli indici lineari di tutte le celle occupate dalle navi.
+     * @param ships registro delle navi
+     * @return gli indici delle celle, nave per nave */
+    private static int[] shipCells(final ShipRegistry ships) {
+        int total = 0;
+        for (int ship = 0; ship < ships.getShipCount(); ship++) {
+            total += ships.getShipLength(ship);
+        }
+
+        int[] cells = new int[total];
+        int next = 0;
+        for (int ship = 0; ship < ships.getShipCount(); ship++) {
+            for (int segment = 0; segment < ships.getShipLength(ship); segment++) {
+                cells[next++] = ships.getShipCell(ship, segment);
+            }
+        }
+        return cells;
+    }
+
+    /** Carico che attacca le celle di una partita in ordine casuale e, quando sono finite,
+     * ricomincia su una delle disposizioni preparate. Il costo della nuova partita é ripartito
+     * tra gli attacchi, uno per ogni cella della griglia. */
+    private static final class AttackWorkload implements BenchmarkHarness.Workload {
+
+        /** Dimensione della griglia. */
+        private final int dim;
+
+        /** Generatore delle disposizioni. */
+        private final BoardGenerator generator;
+
+        /** Disposizioni preparate. */
+        private final int[] layouts;
+
+        /** Celle della griglia in ordine casuale. */
+        private final int[] order;
+
+        /** Griglia del nemico su cui viene scritta la disposizione corrente. */
+        private final Grid enemy;
+
+        /** Partita corrente. */
+        private GameSession session;
+
+        /** Indice della prossima cella da attaccare in order. */
+        private int next;
+
+        /** Indice della disposizione corrente. */
+        private int layout;
+
+        /** Prepara le disposizioni e l'ordine degli attacchi.
+         * @param gridDim dimensione della griglia quadrata */
+        AttackWorkload(final int gridDim) {
+            dim = gridDim;
+            generator = new BoardGenerator(dim, dim, FLEET);
+            layouts = new int[LAYOUTS * generator.getShipCount()];
+            generator.generate(new SplittableRandom(SEED), layouts, LAYOUTS);
+            enemy = new Grid(dim, dim);
+
+            SplittableRandom random = new SplittableRandom(SEED);
+            order = new int[dim * dim];
+            for (int i = 0; i < order.length; i++) {
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+            next = order.length;
+        }
+
+        /** Attacca le prossime celle, iniziando una nuova partita quando necessario.
+         * @param operations numero di attacchi
+         * @return il numero di attacchi andati a segno */
+        @Override
+        public long run(final int operations) {
+            long hits = 0;
+
+            for (int i = 0; i < operations; i++) {
+                if (next == order.length) {
+                    generator.writeBoard(enemy, layouts, layout);
+                    layout = (layout + 1) % LAYOUTS;
+                    session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+                    next = 0;
+                }
+
+                int cell = order[next++];
+                hits += session.attackCell(cell) != GameSession.AttackResult.MISS ? 1 : 0;
+            }
+            return hits;
+        }
+    }
+
+    /** Carico che ripete il percorso di un attacco digitato nel menu di gioco, senza le stampe: la riga viene
+     * cercata tra i comandi e letta come coordinata, il colpo viene sparato e contato in Metrics, poi vengono
+     * controllate la fine della partita e la griglia del giocatore, che la console ridisegna ad ogni comando.
+     * Le righe sono preparate prima della misura, come quelle giá lette dalla tastiera; quando tutte le celle
+     * sono state attaccate, la stessa partita riceve una nuova disposizione attraverso le sue griglie,
+     * cosí anche il cambio di disposizione non alloca. */
+    private static final class CommandAttackWorkload implements BenchmarkHarness.Workload {
+
+        /** Generatore delle disposizioni. */
+        private final BoardGenerator generator;
+
+        /** Disposizioni preparate. */
+        private final int[] layouts;
+
+        /** Righe digitate, una per cella della griglia in ordine casuale. */
+        private final String[] lines;
+
+        /** Partita in cui vengono sparati i colpi. */
+        private final GameSession session;
+
+        /** Contatori degli esiti degli attacchi. */
+        private final Metrics metrics = Metrics.getIstance();
+
+        /** Indice della prossima riga in lines. */
+        private int next;
+
+        /** Indice della disposizione corrente. */
+        private int layout;
+
+        /** Prepara le disposizioni, le righe e la partita.
+         * @param dim dimensione della griglia quadrata */
+        CommandAttackWorkload(final int dim) {
+            generator = new BoardGenerator(dim, dim, FLEET);
+            layouts = new int[LAYOUTS * generator.getShipCount()];
+            generator.generate(new SplittableRandom(SEED), layouts, LAYOUTS);
+            session = new GameSession(dim, dim, Integer.MAX_VALUE, TIME_LIMIT);
+
+            SplittableRandom random = new SplittableRandom(SEED);
+            int[] order = new int[dim * dim];
+            for (int i = 0; i < order.length; i++) {
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+
+            lines = new String[order.length];
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < order.length; i++) {
+                line.setLength(0);
+                GridRenderer.appendColumnLabel(line, order[i] % dim);
+                lines[i] = line.append('-').append(order[i] / dim + 1).toString();
+            }
+            next = lines.length;
+        }
+
+        /** Esegue i prossimi attacchi, cambiando disposizione quando tutte le celle sono state attaccate.
+         * @param operations numero di attacchi
+         * @return il numero di attacchi andati a segno piú le celle colpite viste dal giocatore */
+        @Override
+        public long run(final int operations) {
+            long hits = 0;
+
+            for (int i = 0; i < operations; i++) {
+                if (next == lines.length) {
+                    generator.writeBoard(session.getEnemyGrid(), layouts, layout);
+                    session.getPlayerGrid().resetGrid();
+                    layout = (layout + 1) % LAYOUTS;
+                    next = 0;
+                }
+
+                String line = lines[next++];
+                if (CommandTable.GAME_MENU.lookup(line) == null) {
+                    int coordinate = CommandParser.parseCoordinate(line, session.getRowLength(),
+                            session.getColumnLength());
+                    GameSession.AttackResult result = session.attack(CommandParser.rowOf(coordinate),
+                            CommandParser.columnOf(coordinate));
+                    metrics.recordAttack(result);
+                    hits += result != GameSession.AttackResult.MISS ? 1 : 0;
+                    if (session.getStatus() == GameSession.Status.IN_PROGRESS) {
+                        hits += session.getPlayerGrid().countGridValue(CellState.HIT);
+                    }
+                }
+            }
+            return hits;
+        }
+    }
+
+    /** Carico che fa giocare il ProbabilityShooter sulle disposizioni preparate: ogni operazione é una scelta
+     * della cella, l'attacco e l'aggiornamento delle mappe del giocatore. */
+    private static final class ShooterWorkload implements BenchmarkHarness.Workload {
+
+        /** Dimensione della griglia. */
+        private final int dim;
+
+        /** Generatore delle disposizioni. */
+        private final BoardGenerator generator;
+
+        /** Disposizioni preparate. */
+        private final int[] layouts;
+
+        /** Griglia del nemico su cui viene scritta la disposizione corrente. */
+        private final Grid enemy;
+
+        /** Giocatore automatico. */
+        private final ProbabilityShooter shooter;
+
+        /** Partita corrente, null prima della prima operazione. */
+        private GameSession session;
+
+        /** Indice della disposizione corrente. */
+        private int layout;
+
+        /** Prepara le disposizioni e il giocatore.
+         * @param gridDim dimensione della griglia quadrata */
+        ShooterWorkload(final int gridDim) {
+            dim = gridDim;
+            generator = new BoardGenerator(dim, dim, FLEET);
+            layouts = new int[LAYOUTS * generator.getShipCount()];
+            generator.generate(new SplittableRandom(SEED), layouts, LAYOUTS);
+            enemy = new Grid(dim, dim);
+            shooter = new ProbabilityShooter(dim, dim, FLEET, new SplittableRandom(SEED));
+        }
+
+        /** Spara i prossimi colpi, iniziando una nuova partita quando quella corrente é vinta.
+         * @param operations numero di colpi
+         * @return il numero di colpi andati a segno */
+        @Override
+        public long run(final int operations) {
+            long hits = 0;
+
+            for (int i = 0; i < operations; i++) {
+                if (session == null || session.getStatus() != GameSession.Status.IN_PROGRESS) {
+                    generator.writeBoard(enemy, layouts, layout);
+                    layout = (layout + 1) % LAYOUTS;
+                    session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+                    shooter.reset();
+                }
+
+                int cell = shooter.nextShot();
+                GameSession.AttackResult result = session.attackCell(cell);
+                shooter.onResult(cell, result);
+                hits += result != GameSession.AttackResult.MISS ? 1 : 0;
+            }
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import game.BoardGenerator;
+import game.GameSession;
+import game.MoveJournal;
+import game.MoveReplay;
+import grid.Grid;
+
+/** {@literal <<Control>>}
+ * Programma che misura il costo del diario delle mosse di MoveJournal e la velocitá di MoveReplay.
+ * Per le griglie 10, 18 e 26 vengono misurati con BenchmarkHarness: gli attacchi di GameSession senza diario,
+ * con un diario lasciato al sistema operativo e con un diario durevole, che forza su disco ogni gruppo di
+ * record; poi la ricostruzione delle partite registrate, con i record del diario giá in memoria.
+ * I risultati vengono salvati in un file JSON.
+ * Si avvia con: java benchmark.JournalBenchmark [file.json] (di default journal-results.json) */
+public final class JournalBenchmark {
+
+    /** Dimensioni delle griglie da misurare, le stesse di CommandsMainMenu. */
+    private static final int[] GRID_DIMS = {10, 18, 26};
+
+    /** Flotta standard di Game. */
+    private static final int[] FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Numero di disposizioni preparate per gli attacchi. */
+    private static final int LAYOUTS = 64;
+
+    /** Tempo di gioco delle partite misurate, abbastanza lungo da non scadere durante la misura. */
+    private static final long TIME_LIMIT = TimeUnit.DAYS.toNanos(1);
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** File JSON in cui vengono salvati i risultati se non ne viene indicato un altro. */
+    private static final String DEFAULT_OUTPUT = "journal-results.json";
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private JournalBenchmark() { }
+
+    /** Punto di avvio delle misure.
+     * @param args eventuale percorso del file JSON dei risultati
+     * @throws IOException se il diario temporaneo o il file dei risultati non possono essere scritti */
+    public static void main(final String[] args) throws IOException {
+        BenchmarkHarness harness = new BenchmarkHarness();
+        Path file = Files.createTempFile("battleship-mosse", ".log");
+
+        try {
+            for (int dim : GRID_DIMS) {
+                harness.measure("attack", dim, new AttackWorkload(dim, null));
+                measureJournal(harness, "attackJournal", dim, file, false);
+                measureJournal(harness, "attackDurableJournal", dim, file, true);
+
+                Files.delete(file);
+                try (MoveJournal journal = MoveJournal.open(file, false)) {
+                    new AttackWorkload(dim, journal).run(LAYOUTS * dim * dim);
+                }
+                harness.measure("replay", dim, new ReplayWorkload(ByteBuffer.wrap(Files.readAllBytes(file))));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        harness.writeJson(Path.of(args.length > 0 ? args[0] : DEFAULT_OUTPUT));
+    }
+
+    /** Misura gli attacchi registrati su un diario appena creato.
+     * @param harness infrastruttura di misura
+     * @param name nome della misura
+     * @param dim dimensione della griglia quadrata
+     * @param file percorso del diario, svuotato prima della misura
+     * @param durable vero per forzare su disco ogni gruppo di record
+     * @throws IOException se il diario non puó essere scritto */
+    private static void measureJournal(final BenchmarkHarness harness, final String name, final int dim,
+                                       final Path file, final boolean durable) throws IOException {
+        Files.deleteIfExists(file);
+        try (MoveJournal journal = MoveJournal.open(file, durable)) {
+            harness.measure(name, dim, new AttackWorkload(dim, journal));
+        }
+    }
+
+    /** Carico che gioca partite intere attaccando le celle in ordine casuale e, quando sono finite, ricomincia
+     * su una delle disposizioni preparate, registrando l'inizio di ogni partita sul diario; ogni operazione é
+     * un attacco. */
+    private static final class AttackWorkload implements BenchmarkHarness.Workload {
+
+        /** Generatore delle disposizioni. */
+        private final BoardGenerator generator;
+
+        /** Disposizioni preparate. */
+        private final int[] layouts;
+
+        /** Celle della griglia in ordine casuale. */
+        private final int[] order;
+
+        /** Griglia del nemico su cui viene scritta la disposizione corrente. */
+        private final Grid enemy;
+
+        /** Dimensione della griglia. */
+        private final int dim;
+
+        /** Diario delle partite, null per non registrarle. */
+        private final MoveJournal journal;
+
+        /** Partita corrente. */
+        private GameSession session;
+
+        /** Indice della prossima cella da attaccare in order. */
+        private int next;
+
+        /** Indice della disposizione corrente. */
+        private int layout;
+
+        /** Prepara le disposizioni e l'ordine degli attacchi.
+         * @param gridDim dimensione della griglia quadrata
+         * @param moveJournal diario delle partite, null per non registrarle */
+        AttackWorkload(final int gridDim, final MoveJournal moveJournal) {
+            dim = gridDim;
+            journal = moveJournal;
+            generator = new BoardGenerator(dim, dim, FLEET);
+            layouts = new int[LAYOUTS * generator.getShipCount()];
+            generator.generate(new SplittableRandom(SEED), layouts, LAYOUTS);
+            enemy = new Grid(dim, dim);
+
+            SplittableRandom random = new SplittableRandom(SEED);
+            order = new int[dim * dim];
+            for (int i = 0; i < order.length; i++) {
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+            next = order.length;
+        }
+
+        /** Esegue i prossimi attacchi, iniziando una nuova partita quando necessario.
+         * @param operations numero di attacchi
+         * @return il numero di attacchi andati a segno */
+        @Override
+        public long run(final int operations) {
+            long hits = 0;
+
+            for (int i = 0; i < operations; i++) {
+                if (next == order.length) {
+                    generator.writeBoard(enemy, layouts, layout);
+                    layout = (layout + 1) % LAYOUTS;
+                    session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+                    if (journal != null && journal.recordStart(session)) {
+                        session.setJournal(journal);
+                    }
+                    next = 0;
+                }
+                int cell = order[next++];
+                hits += session.attackCell(cell) == GameSession.AttackResult.MISS ? 0 : 1;
+            }
+            return hits;
+        }
+    }
+
+    /** Carico che ricostruisce le partite di un diario giá letto in memoria e, arrivato alla fine, ricomincia
+     * con un nuovo MoveReplay; ogni operazione é un record. */
+    private static final class ReplayWorkload implements BenchmarkHarness.Workload {
+
+        /** Record del diario. */
+        private final ByteBuffer records;
+
+        /** Ricostruzione corrente. */
+        private MoveReplay replay = new MoveReplay();
+
+        /** Prepara la ricostruzione.
+         * @param journalRecords record del diario */
+        ReplayWorkload(final ByteBuffer journalRecords) {
+            records = journalRecords;
+        }
+
+        /** Rigioca i prossimi record.
+         * @param operations numero di record
+         * @return il numero di attacchi rigiocati dall'ultima ripartenza */
+        @Override
+        public long run(final int operations) {
+            int remaining = operations;
+
+            while (remaining > 0) {
+                if (!records.hasRemaining()) {
+                    records.rewind();
+                    replay = new MoveReplay();
+                }
+                int count = Math.min(remaining, records.remaining() / MoveJournal.RECORD_SIZE);
+                int limit = records.limit();
+                records.limit(records.position() + count * MoveJournal.RECORD_SIZE);
+                replay.apply(records);
+                records.limit(limit);
+                remaining -= count;
+            }
+            return replay.getMoveCount();
+        }
+    }
+}
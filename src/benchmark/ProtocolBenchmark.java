@@ -0,0 +1,361 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import game.BoardGenerator;
+import game.GameSession;
+import grid.CellState;
+import grid.Grid;
+import grid.GridRenderer;
+import keyboardInput.CommandParser;
+import keyboardInput.CommandTable;
+import server.BinaryProtocol;
+import utility.UtilityTools;
+
+/** {@literal <<Control>>}
+ * Programma che confronta il protocollo binario di BinaryProtocol con il protocollo a righe di testo di
+ * RemoteGame, senza rete, su tutte le dimensioni di griglia del gioco.
+ * Per le griglie 10, 18 e 26 vengono misurati con BenchmarkHarness: lo scambio completo di un attacco (il
+ * client codifica la richiesta, il server la decodifica, spara il colpo e codifica l'esito, il client lo
+ * decodifica) con ciascuno dei due protocolli, e l'invio della griglia del giocatore, come piani di bit
+ * ricostruiti in una copia della griglia oppure come fotogramma del GridRenderer codificato in UTF-8.
+ * Al termine vengono stampati i byte medi di ogni messaggio e i risultati vengono salvati in un file JSON.
+ * Si avvia con: java benchmark.ProtocolBenchmark [file.json] (di default protocol-results.json) */
+public final class ProtocolBenchmark {
+
+    /** Dimensioni delle griglie da misurare, le stesse di CommandsMainMenu. */
+    private static final int[] GRID_DIMS = {10, 18, 26};
+
+    /** Flotta standard di Game. */
+    private static final int[] FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Numero di disposizioni preparate per gli attacchi. */
+    private static final int LAYOUTS = 64;
+
+    /** Tempo di gioco delle partite misurate, abbastanza lungo da non scadere durante la misura. */
+    private static final long TIME_LIMIT = TimeUnit.DAYS.toNanos(1);
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** File JSON in cui vengono salvati i risultati se non ne viene indicato un altro. */
+    private static final String DEFAULT_OUTPUT = "protocol-results.json";
+
+    /** Testo che chiude ogni risposta del protocollo a righe, lo stesso di RemoteGame. */
+    private static final String PROMPT = "> ";
+
+    /** Dimensione dei buffer di invio e ricezione, sufficiente per il fotogramma della griglia piú grande. */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private ProtocolBenchmark() { }
+
+    /** Punto di avvio delle misure.
+     * @param args eventuale percorso del file JSON dei risultati
+     * @throws IOException se il file dei risultati non puó essere scritto */
+    public static void main(final String[] args) throws IOException {
+        BenchmarkHarness harness = new BenchmarkHarness();
+        StringBuilder sizes = new StringBuilder();
+
+        for (int dim : GRID_DIMS) {
+            AttackWorkload binary = new BinaryAttackWorkload(dim);
+            AttackWorkload text = new TextAttackWorkload(dim);
+            harness.measure("binaryAttack", dim, binary);
+            harness.measure("textAttack", dim, text);
+
+            Grid grid = prepareGrid(dim);
+            Grid mirror = new Grid(dim, dim);
+            ByteBuffer channel = ByteBuffer.allocate(BUFFER_SIZE);
+            harness.measure("binaryBoard", dim, operations -> {
+                long cells = 0;
+                for (int i = 0; i < operations; i++) {
+                    channel.clear();
+                    BinaryProtocol.writeBoard(channel, grid);
+                    channel.flip();
+                    if (BinaryProtocol.readFrame(channel) == BinaryProtocol.BOARD) {
+                        BinaryProtocol.readBoard(channel, mirror);
+                    }
+                    cells += mirror.countGridValue(CellState.HIT);
+                }
+                return cells;
+            });
+            int binaryBoardBytes = channel.limit();
+
+            GridRenderer renderer = new GridRenderer();
+            TextEncoder encoder = new TextEncoder();
+            harness.measure("textBoard", dim, operations -> {
+                long length = 0;
+                for (int i = 0; i < operations; i++) {
+                    encoder.encode(renderer.render(grid, true));
+                    length += encoder.scanToPrompt();
+                }
+                return length;
+            });
+            int textBoardBytes = encoder.bytes.position();
+
+            sizes.append(String.format(Locale.ROOT, "%-5d %-16.1f %-16.1f %-16d %d%n", dim,
+                    binary.getBytesPerExchange(), text.getBytesPerExchange(), binaryBoardBytes, textBoardBytes));
+        }
+
+        System.out.println();
+        System.out.println("dim   attacco binario  attacco testo    griglia binaria  griglia testo   (byte)");
+        System.out.print(sizes);
+        harness.writeJson(Path.of(args.length > 0 ? args[0] : DEFAULT_OUTPUT));
+    }
+
+    /** Prepara una griglia con la flotta piazzata e circa un terzo delle celle giá attaccate.
+     * @param dim dimensione della griglia quadrata
+     * @return la griglia */
+    private static Grid prepareGrid(final int dim) {
+        final int attackedShare = 3;
+        SplittableRandom random = new SplittableRandom(SEED);
+        BoardGenerator generator = new BoardGenerator(dim, dim, FLEET);
+        int[] buffer = new int[generator.getShipCount()];
+        Grid grid = new Grid(dim, dim);
+
+        generator.generate(random, buffer, 1);
+        generator.writeBoard(grid, buffer, 0);
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim; j++) {
+                if (random.nextInt(attackedShare) == 0) {
+                    grid.setGridValue(i, j, grid.getGridValue(i, j) == CellState.SHIP ? CellState.HIT
+                            : CellState.MISS);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /** Codificatore UTF-8 che riusa lo stesso buffer di byte, come RemoteGame.send. */
+    private static final class TextEncoder {
+
+        /** Codificatore riutilizzato. */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        /** Buffer dei byte codificati. */
+        private ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
+        TextEncoder() { }
+
+        /** Codifica un testo nel buffer, che cresce se non basta.
+         * @param text testo da codificare */
+        void encode(final CharSequence text) {
+            encoder.reset();
+            bytes.clear();
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                bytes = ByteBuffer.allocate(bytes.capacity() * 2).put(bytes.flip());
+            }
+        }
+
+        /** Scorre i byte codificati come farebbe il client che aspetta il PROMPT.
+         * @return il numero di byte che precedono il PROMPT, oppure tutti i byte se il PROMPT manca */
+        int scanToPrompt() {
+            byte[] array = bytes.array();
+            int end = bytes.position();
+            for (int i = 0; i + 1 < end; i++) {
+                if (array[i] == PROMPT.charAt(0) && array[i + 1] == PROMPT.charAt(1)) {
+                    return i;
+                }
+            }
+            return end;
+        }
+    }
+
+    /** Carico che gioca partite intere attaccando le celle in ordine casuale e, quando sono finite, ricomincia
+     * su una delle disposizioni preparate; ogni operazione é lo scambio completo di un attacco.
+     * Le sottoclassi scelgono il protocollo. */
+    private abstract static class AttackWorkload implements BenchmarkHarness.Workload {
+
+        /** Dimensione della griglia. */
+        final int dim;
+
+        /** Generatore delle disposizioni. */
+        private final BoardGenerator generator;
+
+        /** Disposizioni preparate. */
+        private final int[] layouts;
+
+        /** Celle della griglia in ordine casuale. */
+        private final int[] order;
+
+        /** Griglia del nemico su cui viene scritta la disposizione corrente. */
+        private final Grid enemy;
+
+        /** Partita corrente. */
+        GameSession session;
+
+        /** Indice della prossima cella da attaccare in order. */
+        private int next;
+
+        /** Indice della disposizione corrente. */
+        private int layout;
+
+        /** Scambi misurati. */
+        private long exchanges;
+
+        /** Byte inviati in entrambe le direzioni negli scambi misurati. */
+        private long bytes;
+
+        /** Prepara le disposizioni e l'ordine degli attacchi.
+         * @param gridDim dimensione della griglia quadrata */
+        AttackWorkload(final int gridDim) {
+            dim = gridDim;
+            generator = new BoardGenerator(dim, dim, FLEET);
+            layouts = new int[LAYOUTS * generator.getShipCount()];
+            generator.generate(new SplittableRandom(SEED), layouts, LAYOUTS);
+            enemy = new Grid(dim, dim);
+
+            SplittableRandom random = new SplittableRandom(SEED);
+            order = new int[dim * dim];
+            for (int i = 0; i < order.length; i++) {
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+            next = order.length;
+        }
+
+        /** Scambia i prossimi attacchi, iniziando una nuova partita quando necessario.
+         * @param operations numero di attacchi
+         * @return il numero di attacchi andati a segno secondo il client */
+        @Override
+        public long run(final int operations) {
+            long hits = 0;
+
+            for (int i = 0; i < operations; i++) {
+                if (next == order.length) {
+                    generator.writeBoard(enemy, layouts, layout);
+                    layout = (layout + 1) % LAYOUTS;
+                    session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+                    next = 0;
+                }
+                hits += exchange(order[next++]) ? 1 : 0;
+            }
+            return hits;
+        }
+
+        /** Registra i byte di uno scambio per la media stampata alla fine.
+         * @param exchanged byte inviati dal client e dal server */
+        void count(final int exchanged) {
+            exchanges++;
+            bytes += exchanged;
+        }
+
+        /** Ritorna i byte medi di uno scambio.
+         * @return i byte per scambio */
+        double getBytesPerExchange() {
+            return exchanges == 0 ? 0 : (double) bytes / exchanges;
+        }
+
+        /** Esegue lo scambio di un attacco con il protocollo della sottoclasse.
+         * @param cell indice lineare della cella da attaccare
+         * @return vero se il client ha ricevuto un colpo andato a segno */
+        abstract boolean exchange(int cell);
+    }
+
+    /** Scambio di un attacco con i frame di BinaryProtocol. */
+    private static final class BinaryAttackWorkload extends AttackWorkload {
+
+        /** Buffer dal client al server. */
+        private final ByteBuffer request = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /** Buffer dal server al client. */
+        private final ByteBuffer response = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /** Prepara il carico.
+         * @param gridDim dimensione della griglia quadrata */
+        BinaryAttackWorkload(final int gridDim) {
+            super(gridDim);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean exchange(final int cell) {
+            request.clear();
+            BinaryProtocol.writeAttack(request, cell);
+            request.flip();
+
+            response.clear();
+            if (BinaryProtocol.readFrame(request) == BinaryProtocol.ATTACK) {
+                int target = BinaryProtocol.readAttack(request);
+                GameSession.AttackResult result = session.attackCell(target);
+                BinaryProtocol.writeResult(response, session, result);
+            }
+            response.flip();
+            count(request.limit() + response.limit());
+
+            if (BinaryProtocol.readFrame(response) != BinaryProtocol.RESULT) {
+                return false;
+            }
+            byte code = BinaryProtocol.codeOf(BinaryProtocol.readResult(response));
+            return code == BinaryProtocol.HIT || code == BinaryProtocol.SUNK;
+        }
+    }
+
+    /** Scambio di un attacco con le righe di testo di RemoteGame: la coordinata come "a-1", la risposta con i
+     * colori ANSI e il PROMPT. */
+    private static final class TextAttackWorkload extends AttackWorkload {
+
+        /** Byte della riga inviata dal client. */
+        private final byte[] line = new byte[Byte.SIZE];
+
+        /** Risposta in costruzione sul server. */
+        private final StringBuilder reply = new StringBuilder();
+
+        /** Codificatore della risposta. */
+        private final TextEncoder encoder = new TextEncoder();
+
+        /** Prepara il carico.
+         * @param gridDim dimensione della griglia quadrata */
+        TextAttackWorkload(final int gridDim) {
+            super(gridDim);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean exchange(final int cell) {
+            final int radix = 10;
+            int row = cell / dim + 1;
+            int length = 0;
+            line[length++] = (byte) ('a' + cell % dim);
+            line[length++] = '-';
+            if (row >= radix) {
+                line[length++] = (byte) ('0' + row / radix);
+            }
+            line[length++] = (byte) ('0' + row % radix);
+            line[length++] = '\n';
+
+            String text = new String(line, 0, length - 1, StandardCharsets.UTF_8);
+            reply.setLength(0);
+            if (CommandTable.GAME_MENU.lookup(text) == null) {
+                int coordinate = CommandParser.parseCoordinate(text, dim, dim);
+                if (coordinate >= 0) {
+                    switch (session.attack(CommandParser.rowOf(coordinate), CommandParser.columnOf(coordinate))) {
+                        case SUNK -> reply.append(UtilityTools.PURPLE).append("Colpito e affondato");
+                        case HIT -> reply.append(UtilityTools.YELLOW).append("Colpito");
+                        case MISS -> reply.append(UtilityTools.CYAN).append("Buco nell'acqua");
+                        default -> reply.append(UtilityTools.YELLOW).append("Posizione gia' attaccata");
+                    }
+                    reply.append(UtilityTools.RESET).append('\n');
+                    session.getStatus();
+                }
+            }
+            reply.append(PROMPT);
+            encoder.encode(reply);
+            count(length + encoder.bytes.position());
+
+            int end = encoder.scanToPrompt();
+            return end > 0 && encoder.bytes.array()[UtilityTools.PURPLE.length()] == 'C';
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package game;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import grid.Grid;
+
+/** {@literal <<Control>>}
+ * Classe che genera in blocco disposizioni casuali della flotta nemica, senza interfaccia e senza Settings.
+ * La classe BoardGenerator é pensata per preparare grandi quantità di griglie (tornei, addestramento
+ * di avversari automatici) senza passare da Game.startNewGame, che attende l'input da tastiera e scrive
+ * nel singleton Settings. Le disposizioni rispettano le stesse regole di Game: le navi non si sovrappongono
+ * e non si toccano, nemmeno in diagonale.
+ * Le disposizioni vengono scritte in un buffer di interi fornito dal chiamante, che puó essere riutilizzato
+ * tra un lotto e l'altro: la disposizione b occupa le posizioni da b * getShipCount() in poi e ogni
+ * intero codifica la prima cella e la direzione di una nave, leggibili con PlacementEngine.cellOf
+ * e PlacementEngine.directionOf. La generazione di un lotto non alloca memoria per le singole griglie.
+ * Con generateParallel il lotto viene diviso tra i core disponibili attraverso il fork-join;
+ * il generatore casuale viene diviso insieme al lotto, quindi a paritá di seme il risultato é sempre lo stesso.
+ * Un'istanza non va usata da piú thread contemporaneamente: per generare in parallelo si usa generateParallel,
+ * che crea un motore di piazzamento per ogni porzione del lotto. */
+public final class BoardGenerator {
+
+    /** Numero di disposizioni sotto il quale un lotto parallelo non viene piú diviso. */
+    private static final int SPLIT_THRESHOLD = 4096;
+
+    /** Cardinalità delle righe della griglia. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne della griglia. */
+    private final int dimColumn;
+
+    /** Flotta nel formato di Game: all'indice i il numero di navi lunghe i. */
+    private final int[] shipsArray;
+
+    /** Motore di piazzamento usato dalla generazione sequenziale. */
+    private final PlacementEngine engine;
+
+    /** Il costruttore prepara il generatore per una griglia e una flotta.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param fleet flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @throws IllegalArgumentException se la flotta non puó essere contenuta nella griglia */
+    public BoardGenerator(final int fixedDimRow, final int fixedDimColumn, final int[] fleet) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        shipsArray = fleet.clone();
+        engine = new PlacementEngine(fixedDimRow, fixedDimColumn, shipsArray);
+
+        if (engine.isImpossible()) {
+            throw new IllegalArgumentException("La flotta non puó essere piazzata su una griglia "
+                    + fixedDimRow + "x" + fixedDimColumn);
+        }
+    }
+
+    /** Metodo che ritorna il numero di navi di ogni disposizione, ovvero gli interi occupati nel buffer.
+     * @return il numero di navi */
+    public int getShipCount() {
+        return engine.getShipCount();
+    }
+
+    /** Metodo che ritorna la lunghezza di una nave, nell'ordine in cui compare in ogni disposizione.
+     * @param ship indice della nave
+     * @return la lunghezza della nave */
+    public int getShipLength(final int ship) {
+        return engine.getShipLength(ship);
+    }
+
+    /** Metodo che genera un lotto di disposizioni sul thread corrente.
+     * @param random generatore casuale da cui estrarre le disposizioni
+     * @param buffer buffer di almeno boards * getShipCount() interi
+     * @param boards numero di disposizioni da generare */
+    public void generate(final SplittableRandom random, final int[] buffer, final int boards) {
+        generate(engine, random, buffer, 0, boards);
+    }
+
+    /** Metodo che genera un lotto di disposizioni dividendolo tra i core del pool fork-join comune.
+     * @param seed seme da cui derivare i generatori casuali di ogni porzione del lotto
+     * @param buffer buffer di almeno boards * getShipCount() interi
+     * @param boards numero di disposizioni da generare */
+    public void generateParallel(final long seed, final int[] buffer, final int boards) {
+        ForkJoinPool.commonPool().invoke(new GenerateTask(new SplittableRandom(seed), buffer, 0, boards));
+    }
+
+    /** Metodo che scrive una disposizione del buffer su una griglia, registrando le navi.
+     * La griglia viene svuotata prima della scrittura.
+     * @param grid griglia su cui scrivere
+     * @param buffer buffer riempito da generate o generateParallel
+     * @param board indice della disposizione nel buffer */
+    public void writeBoard(final Grid grid, final int[] buffer, final int board) {
+        int offset = board * getShipCount();
+        grid.resetGrid();
+
+        for (int ship = 0; ship < getShipCount(); ship++) {
+            int cell = PlacementEngine.cellOf(buffer[offset + ship]);
+            grid.placeShip(cell / dimColumn, cell % dimColumn, getShipLength(ship),
+                    PlacementEngine.directionOf(buffer[offset + ship]));
+        }
+    }
+
+    /** Genera le disposizioni da from a to con il motore indicato.
+     * @param placementEngine motore di piazzamento del thread corrente
+     * @param random generatore casuale
+     * @param buffer buffer delle disposizioni
+     * @param from indice della prima disposizione
+     * @param to indice successivo all'ultima disposizione */
+    private void generate(final PlacementEngine placementEngine, final SplittableRandom random,
+                          final int[] buffer, final int from, final int to) {
+        int ships = placementEngine.getShipCount();
+
+        for (int board = from; board < to; board++) {
+            if (!placementEngine.placeFleet(random, buffer, board * ships)) {
+                throw new IllegalStateException("Impossibile piazzare la flotta su una griglia "
+                        + dimRow + "x" + dimColumn);
+            }
+        }
+    }
+
+    /** Porzione di un lotto parallelo: si divide a metà finché é piú grande di SPLIT_THRESHOLD. */
+    private final class GenerateTask extends RecursiveAction {
+
+        /** Identificativo di serializzazione, richiesto da RecursiveAction. */
+        private static final long serialVersionUID = 1L;
+
+        /** Generatore casuale della porzione. */
+        private final transient SplittableRandom random;
+
+        /** Buffer delle disposizioni. */
+        private final int[] buffer;
+
+        /** Indice della prima disposizione della porzione. */
+        private final int from;
+
+        /** Indice successivo all'ultima disposizione della porzione. */
+        private final int to;
+
+        /** Crea una porzione del lotto.
+         * @param taskRandom generatore casuale della porzione
+         * @param taskBuffer buffer delle disposizioni
+         * @param taskFrom indice della prima disposizione
+         * @param taskTo indice successivo all'ultima disposizione */
+        GenerateTask(final SplittableRandom taskRandom, final int[] taskBuffer, final int taskFrom, final int taskTo) {
+            random = taskRandom;
+            buffer = taskBuffer;
+            from = taskFrom;
+            to = taskTo;
+        }
+
+        /** Divide la porzione oppure, se é abbastanza piccola, la genera con un proprio motore. */
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                generate(new PlacementEngine(dimRow, dimColumn, shipsArray), random, buffer, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            GenerateTask left = new GenerateTask(random.split(), buffer, from, middle);
+            GenerateTask right = new GenerateTask(random, buffer, middle, to);
+            invokeAll(left, right);
+        }
+    }
+}
@@ -1,21 +1,28 @@
 package game;
 
+import java.nio.file.Path;
 import java.util.Random;
-import grid.Grid;
+import java.util.concurrent.TimeUnit;
+
+import game.Settings.CommandsState;
 import keyboardInput.GameMenuInput;
 import menu.CommandsGame;
+import utility.InputTimeoutException;
 import utility.UtilityTools;
 
 /** {@literal <<Control>>}
  * Classe che si occupa della creazione o gestione della partita.
  * La classe Game ha la responsabilità di gestire la creazione e lo svolgimento di una partita del gioco.
  * Ecco le principali responsabilità della classe:
- * Creazione della griglia del giocatore e del nemico.
+ * Creazione della GameSession, che possiede la griglia del giocatore e del nemico, il tempo e i tentativi,
+ * e registrazione della sessione in Settings perché i comandi della console possano accedervi.
+ * Salvataggio della partita in corso nell'archivio di Settings dopo ogni comando, cosí una partita interrotta
+ * dalla chiusura improvvisa del programma puó essere ripresa con resumeGame, e registrazione delle sue mosse
+ * nel diario di Settings.
  * Inizializzazione della partita, inclusa la posizionamento casuale delle navi sulle griglie.
- * Gestione del menu di gioco, consentendo al giocatore di eseguire varie azioni e attacchi.
- * Piazzamento delle navi in modo casuale sulla griglia nemica.
- * Verifica se una nave può essere posizionata in una determinata posizione sulla griglia.
- * Effettua controlli sulla legalità di una posizione nella griglia, verificando la presenza di navi adiacenti.
+ * Gestione del menu di gioco, consentendo al giocatore di eseguire varie azioni e attacchi, e misura del tempo
+ * di esecuzione di ogni comando e della durata di ogni mossa, con l'orologio della partita, nelle metriche di
+ * Metrics.
  * Fornisce metodi di accesso per ottenere e modificare i valori dell'array shipsArray.
  * Utilizza un oggetto Random per generare numeri casuali nel posizionamento delle navi.
  * In generale, la classe Game coordina tutte le operazioni necessarie per avviare e gestire
@@ -23,18 +30,30 @@ import utility.UtilityTools;
  * attraverso il menu di gioco. */
 public class Game {
 
+    /** File in cui viene salvata la partita giocata dalla console, per riprenderla se il programma si interrompe. */
+    public static final Path SNAPSHOT_FILE = Path.of("battleship-partita.bin");
+
+    /** File su cui vengono registrate le mosse delle partite giocate dalla console. */
+    public static final Path JOURNAL_FILE = Path.of("battleship-mosse.log");
+
+    /** File in cui vengono salvate periodicamente le metriche, letto da chi le raccoglie. */
+    public static final Path METRICS_FILE = Path.of("battleship-metriche.prom");
+
+    /** Secondi tra due salvataggi delle metriche. */
+    public static final long METRICS_PERIOD_SECONDS = 10;
+
+    /** Slot dell'archivio occupato dalla partita giocata dalla console. */
+    public static final int SNAPSHOT_SLOT = 0;
+
+    /** Dimensione massima delle griglie salvate, quella della griglia extralarge. */
+    public static final int SNAPSHOT_MAX_DIM = 26;
+
     /**Oggetto per generare numeri randomici. */
     private Random random;
 
     /** Array contenente le navi e la loro lunghezza. */
     private final int[] shipsArray = {0, 0, 4, 3, 2, 1};
 
-    /** Costante che indica la direzione orizzontale per il piazzamento randomico di navi. */
-    private static final int HORIZONTAL = 0;
-
-    /** Costante che indica la direzione verticale per il piazzamento randomico di navi. */
-    private static final int VERTICAL = 1;
-
     /** Dimensione massima della riga. */
     private int dimRowMax;
 
@@ -44,16 +63,31 @@ public class Game {
     /** Utilizzo del Singleton per accedere a variabili condivise. */
     private Settings settings = Settings.getIstance();
 
-    /** Il costruttore della classe crea le griglie del nemico dove ha posizionato le navi e quella del giocatore.
+    /** Partita giocata dalla console. */
+    private final GameSession session;
+
+    /** Il costruttore della classe crea la partita, con le griglie del nemico e del giocatore,
+     * usando il tempo e i tentativi impostati in Settings, e la rende la partita corrente.
      * @param fixedDimRow cardinalità delle righe della griglia
      * @param fixedDimColumn cardinalità delle colonne della griglia */
     public Game(final int fixedDimRow, final int fixedDimColumn) {
         dimRowMax = fixedDimRow;
         dimColumnMax = fixedDimColumn;
 
-        settings.setEnemyGrid(new Grid(dimRowMax, dimColumnMax));
-        settings.setPlayerGrid(new Grid(dimRowMax, dimColumnMax));
-        settings.setFailures(0);
+        session = new GameSession(dimRowMax, dimColumnMax, settings.getCurrentDifficultyNumTry(),
+                TimeUnit.MINUTES.toNanos(settings.getTime()));
+        settings.setSession(session);
+
+        random = new Random();
+    }
+
+    /** Il costruttore riprende una partita salvata e la rende la partita corrente.
+     * @param restored partita letta dall'archivio dei salvataggi */
+    public Game(final GameSession restored) {
+        dimRowMax = restored.getRowLength();
+        dimColumnMax = restored.getColumnLength();
+        session = restored;
+        settings.setSession(session);
 
         random = new Random();
     }
@@ -77,191 +111,101 @@ public class Game {
     public void startNewGame() {
         System.out.println("La griglia e' stata inizializzata randomicamente premere "
                 + UtilityTools.GREEN + "INVIO" + UtilityTools.RESET + " per iniziare la partita...");
-        UtilityTools.SCANNER.nextLine();
-        placeShipsRandom();
-        gameMenu();
-    }
-
-    /** Metodo che rappresenta il menú di gioco, dove il giocatore puó utilizzare diversi comandi o attaccare. */
-    private void gameMenu() {
-        final int gameMenu = 3;
-        CommandsGame commandsGame = new CommandsGame();
-        GameMenuInput gameMenuInput = new GameMenuInput();
+        UtilityTools.INPUT.nextLine();
 
-        while (settings.getGameMenuLoopValue()) {
-            gameMenuInput.takeInput(gameMenu);
-            switch (settings.getCurrentState()) {
-                default -> System.out.println(UtilityTools.RED + "Nessun UserChoice trovato" + UtilityTools.RESET);
-                case HELP -> commandsGame.help();
-                case ESCI -> commandsGame.exit();
-                case MOSTRANAVI -> commandsGame.printShipsSet();
-                case MOSTRALIVELLO -> commandsGame.showLevel();
-                case SVELAGRIGLIA -> commandsGame.showGrid(settings.getEnemyGrid());
-                case MOSTRATEMPO -> commandsGame.showTime();
-                case ATTACCA -> commandsGame.attack(settings.getEnemyGrid(), settings.getPlayerGrid(),
-                gameMenuInput.getUserInput().toLowerCase(), true);
-                case MOSTRAGRIGLIA -> commandsGame.showGridWithoutMiss(settings.getPlayerGrid());
-                case ABBANDONA -> commandsGame.abandon();
-                case MOSTRATENTATIVI -> commandsGame.showFailures();
-                }
-
-            if (settings.getGameMenuLoopValue()) {
-                System.out.println("\nPremere " + UtilityTools.GREEN + "INVIO" + UtilityTools.RESET
-                        + " per andare al menu..." + UtilityTools.RESET);
-                UtilityTools.SCANNER.nextLine();
-            }
+        if (!session.placeShipsRandom(random, shipsArray)) {
+            System.out.println(UtilityTools.RED + "Errore: Le navi non possono essere piazzate tutte sulla griglia"
+                    + UtilityTools.RESET);
+            return;
         }
-    }
-
-    /** Metodo che piazza tutte le navi presenti nell'array in modo randomico. */
-    private void placeShipsRandom() {
-        boolean isAllShipPlaced = false;
-        final int maxFailAttemps = 400;
-        final int numOfDirections = 2;
-
-        while (!isAllShipPlaced) {
-            int count = 0;
-            settings.getEnemyGrid().resetGrid();
-
-            for (int i = 2; i < shipsArray.length; i++) {
-                for (int j = 1; j <= shipsArray[i]; j++) {
-
-                    while (count < maxFailAttemps) {
-                        int row = random.nextInt(dimRowMax);
-                        int column = random.nextInt(dimRowMax);
-                        int direction = random.nextInt(numOfDirections);
-
-                        if (isShipPlaceable(i, settings.getEnemyGrid(), row, column, direction)) {
-                            placeShip(i, settings.getEnemyGrid(), row, column, direction);
-                            break;
-                        }
-                        count++;
-
-                    }
-                }
-            }
-
-            if (count < maxFailAttemps) {
-                isAllShipPlaced = true;
-            }
+        if (settings.getJournal() != null && settings.getJournal().recordStart(session)) {
+            session.setJournal(settings.getJournal());
         }
+        gameMenu();
     }
 
-    /** Metodo che piazza una singola nave.
-     * @param lengthShip usiamo la lunghezza della nave per capire quante caselle scrivere
-     * @param grid la griglia in cui vogliamo scrivere
-     * @param row la riga in cui vogliamo scrivere
-     * @param column la colonna in cui vogliamo scrivere
-     * @param direction usiamo la direzione per capire se piazzarla in verticale o orizzontale */
-    private void placeShip(final int lengthShip, final Grid grid,
-                          final int row, final int column, final int direction) {
-        for (int i = 0; i < lengthShip; i++) {
-            if (direction == HORIZONTAL) {
-                grid.setGridValue(row, column + i, 'S');
-            } else if (direction == VERTICAL) {
-                grid.setGridValue(row  + i, column, 'S');
-            }
-        }
+    /** Metodo che riprende una partita salvata, rientrando nel menú di gioco. */
+    public void resumeGame() {
+        System.out.println(UtilityTools.GREEN + "E' stata ripresa la partita interrotta" + UtilityTools.RESET);
+        session.setJournal(settings.getJournal());
+        gameMenu();
     }
 
-    /** Metodo che controlla se la nave é piazzabile o meno.
-     * @param lengthShip usiamo la lunghezza della nave per capire quante caselle controllare
-     * @param grid la griglia che vogliamo controllare
-     * @param row la riga in cui vogliamo controllare
-     * @param column la colonna in cui vogliamo controllare
-     * @param direction la direzione in cui vogliamo controllare
-     * @return boolean vero se é possibile posizionare la nave, altrimenti falso */
-    private boolean isShipPlaceable(final int lengthShip, final Grid grid,
-                                    final int row, final int column, final int direction) {
-
-        int count = 0;
-        for (int i = 0; i < lengthShip; i++) {
-            if (direction == HORIZONTAL) {
-                if (isPositionLegal(grid, row, column + i)) {
-                    count++;
-                }
-            } else if (direction == VERTICAL) {
-                if (isPositionLegal(grid, row  + i, column)) {
-                    count++;
-                }
-            }
+    /** Salva la partita nell'archivio se é ancora in corso, altrimenti ne svuota lo slot.
+     * @param playing falso se la partita é stata abbandonata o si é usciti dal gioco */
+    private void checkpoint(final boolean playing) {
+        SnapshotStore snapshots = settings.getSnapshots();
+        if (snapshots == null) {
+            return;
         }
-
-        if (count != lengthShip) {
-            return false;
+        if (playing && session.getStatus() == GameSession.Status.IN_PROGRESS) {
+            snapshots.save(SNAPSHOT_SLOT, session, settings.getCurrentDifficulty());
+        } else {
+            snapshots.clear(SNAPSHOT_SLOT);
         }
-
-        return true;
     }
 
-    /** Fa i dovuti controlli per vedere se la casella ha delle navi attorno.
-     * @param grid la griglia che vogliamo controllare
-     * @param row la riga in cui vogliamo controllare
-     * @param column la colonna in cui vogliamo controllare
-     * @return boolean falso se trova non rispetta i vincoli o non trova il "mare"*/
-    private boolean isPositionLegal(final Grid grid, final int row, final int column) {
-        final int maxIndexRowColumn = dimRowMax - 1;
-
-        if (row < 0 || row > maxIndexRowColumn || column < 0 || column > maxIndexRowColumn
-                    || (grid.getGridValue(row, column) != '-')) {
-            return false;
-        }
-
-        //Controlla posizione destra
-        if (column < maxIndexRowColumn) {
-            if (grid.getGridValue(row, column + 1) != '-') {
-                return false;
-            }
-        }
-
-        //Controlla posizione Bottom-right
-        if (row < maxIndexRowColumn && column < maxIndexRowColumn) {
-            if (grid.getGridValue(row + 1, column + 1) != '-') {
-                return false;
-            }
-        }
-
-        //Controlla posizione Top
-        if (row > 0) {
-            if (grid.getGridValue(row - 1, column) != '-') {
-                return false;
-            }
-        }
-
-        //Controlla posizione Sinistra*
-        if (column > 0) {
-            if (grid.getGridValue(row, column - 1) != '-') {
-                return false;
-            }
-        }
-
-        //Controlla posizione Top-Left*
-        if (row > 0 && column > 0) {
-            if (grid.getGridValue(row - 1, column - 1) != '-') {
-                return false;
-            }
-        }
+    /** Metodo che rappresenta il menú di gioco, dove il giocatore puó utilizzare diversi comandi o attaccare.
+     * I comandi sono quelli di CommandsGame, scritti sulla console. */
+    private void gameMenu() {
+        final int gameMenu = 3;
+        CommandsGame commandsGame = new CommandsGame(session, String.valueOf(settings.getCurrentDifficulty()),
+                System.out, settings.getScreen());
+        GameMenuInput gameMenuInput = new GameMenuInput(session, System.out);
+
+        UtilityTools.INPUT.setTimeLimit(session::getRemainingNanos);
+        session.getClock().setTimeoutListener(UtilityTools.INPUT::expire);
+        try {
+            checkpoint(true);
+            while (commandsGame.isPlaying()) {
+                //La mossa dura dalla stampa del menu fino alla riga accettata, errori di battitura compresi
+                session.getClock().startMove();
+                gameMenuInput.takeInput(gameMenu);
+                Metrics.getIstance().recordMove(session.getClock().endMove());
+                long start = System.nanoTime();
+                CommandsState state = gameMenuInput.getState();
+                switch (state) {
+                    default -> System.out.println(UtilityTools.RED + "Nessun UserChoice trovato" + UtilityTools.RESET);
+                    case HELP -> commandsGame.help();
+                    case ESCI -> commandsGame.exit();
+                    case MOSTRANAVI -> commandsGame.printShipsSet();
+                    case MOSTRALIVELLO -> commandsGame.showLevel();
+                    case SVELAGRIGLIA -> commandsGame.showGrid();
+                    case MOSTRATEMPO -> commandsGame.showTime();
+                    case ATTACCA -> commandsGame.attack(gameMenuInput.getCoordinate());
+                    case MOSTRAGRIGLIA -> commandsGame.showGridWithoutMiss();
+                    case ABBANDONA -> commandsGame.abandon();
+                    case MOSTRATENTATIVI -> commandsGame.showFailures();
+                    case METRICHE -> commandsGame.showMetrics();
+                    case CENTRA -> commandsGame.center(gameMenuInput.getCoordinate());
+                    }
+                Metrics.getIstance().recordCommand(state, System.nanoTime() - start);
+                checkpoint(commandsGame.isPlaying());
 
-        //Controlla posizione Bottom-left
-        if (row < maxIndexRowColumn  && column != 0) {
-            if (grid.getGridValue(row + 1, column - 1) != '-') {
-                return false;
+                if (commandsGame.isPlaying()) {
+                    System.out.println("\nPremere " + UtilityTools.GREEN + "INVIO" + UtilityTools.RESET
+                            + " per andare al menu..." + UtilityTools.RESET);
+                    UtilityTools.INPUT.nextLine();
+                }
             }
+        } catch (InputTimeoutException e) {
+            //Il tempo é scaduto mentre si aspettava l'input, anche in mezzo ad un comando
+            commandsGame.timeUp();
+            checkpoint(false);
+        } finally {
+            //L'orologio viene fermato prima di togliere il limite, cosí non resta una scadenza in coda
+            session.getClock().cancel();
+            UtilityTools.INPUT.clearTimeLimit();
         }
 
-        //Controlla posizione Top-right
-        if (column != maxIndexRowColumn && row != 0) {
-            if (grid.getGridValue(row - 1, column + 1) != '-') {
-                return false;
-            }
+        //Il limite di tempo é stato tolto, quindi dopo la fine della partita si puó aspettare INVIO
+        if (session.getStatus() != GameSession.Status.IN_PROGRESS) {
+            System.out.println("\nStai per tornare al menu principale, premere " + UtilityTools.GREEN + "INVIO"
+                    + UtilityTools.RESET + " per continuare...");
+            UtilityTools.INPUT.nextLine();
         }
-
-        //Controlla posizione Bottom
-        if (row != maxIndexRowColumn) {
-            if (grid.getGridValue(row + 1, column) != '-') {
-                return false;
-            }
+        if (commandsGame.hasQuit()) {
+            settings.setMainMenuLoop(false);
         }
-        return true;
     }
 }
@@ -0,0 +1,261 @@
+package game;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/** {@literal <<Control>>}
+ * Orologio di una partita basato su System.nanoTime, che non dipende dall'ora di sistema.
+ * La classe GameClock conserva la scadenza del tempo di gioco e, se viene registrato un ascoltatore, lo avvisa
+ * nell'istante in cui il tempo finisce, senza bisogno che qualcuno controlli l'orologio: la scadenza viene
+ * affidata ad un unico thread demone condiviso da tutti gli orologi, che dorme fino al prossimo evento.
+ * Game e RemoteGame usano l'avviso per interrompere l'attesa dell'input del giocatore.
+ * L'orologio puó essere messo in pausa, conservando il tempo rimanente, e ripreso, come fa CommandsGame mentre
+ * aspetta la conferma di /esci o /abbandona; inoltre misura la durata di ogni mossa, che Game registra in
+ * Metrics, e se viene impostato un limite per mossa avvisa un secondo ascoltatore quando la mossa corrente lo
+ * supera. Un orologio senza ascoltatori non usa il thread, quindi le partite simulate possono crearne quanti ne
+ * servono. I metodi sono sincronizzati perché gli avvisi arrivano dal thread dell'orologio. */
+public final class GameClock {
+
+    /** Momento della mossa corrente, prima che ne inizi una. */
+    private static final long NO_MOVE = -1L;
+
+    /** Tempo di gioco rimanente al momento dell'ultima pausa o ripresa. */
+    private long remaining;
+
+    /** Istante (in System.nanoTime) dell'ultima ripresa, valido se l'orologio non é in pausa. */
+    private long resumedAt;
+
+    /** Vero se l'orologio é in pausa. */
+    private boolean paused;
+
+    /** Vero se l'orologio é stato fermato definitivamente e non invierá piú avvisi. */
+    private boolean cancelled;
+
+    /** Ascoltatore avvisato alla scadenza del tempo di gioco, null se non registrato. */
+    private Runnable timeoutListener;
+
+    /** Scadenza del tempo di gioco affidata al thread dell'orologio. */
+    private ScheduledFuture<?> timeout;
+
+    /** Limite di tempo di ogni mossa in nanosecondi, zero se le mosse non hanno limite. */
+    private long moveLimit;
+
+    /** Ascoltatore avvisato quando una mossa supera il suo limite. */
+    private Runnable moveListener;
+
+    /** Scadenza della mossa corrente affidata al thread dell'orologio. */
+    private ScheduledFuture<?> moveTimeout;
+
+    /** Tempo giá trascorso nella mossa corrente prima dell'ultima ripresa, NO_MOVE se nessuna mossa é iniziata. */
+    private long moveElapsed = NO_MOVE;
+
+    /** Il costruttore fa partire l'orologio.
+     * @param timeLimitNanos tempo di gioco a disposizione in nanosecondi */
+    public GameClock(final long timeLimitNanos) {
+        remaining = timeLimitNanos;
+        resumedAt = System.nanoTime();
+    }
+
+    /** Metodo che ritorna i nanosecondi rimanenti prima della fine del tempo di gioco.
+     * @return i nanosecondi rimanenti, negativi se il tempo é scaduto */
+    public synchronized long getRemainingNanos() {
+        return paused ? remaining : remaining - (System.nanoTime() - resumedAt);
+    }
+
+    /** Metodo che indica se il tempo di gioco é scaduto.
+     * @return vero se il tempo é scaduto */
+    public boolean isExpired() {
+        return getRemainingNanos() <= 0;
+    }
+
+    /** Metodo che registra l'ascoltatore da avvisare alla scadenza del tempo di gioco.
+     * L'avviso arriva sul thread dell'orologio, una sola volta; se il tempo é giá scaduto arriva subito.
+     * Mentre l'orologio é in pausa l'avviso non arriva, e se l'orologio é stato fermato non arriva piú.
+     * @param listener azione da eseguire alla scadenza */
+    public synchronized void setTimeoutListener(final Runnable listener) {
+        timeoutListener = listener;
+        scheduleTimeout();
+    }
+
+    /** Metodo che imposta il limite di tempo di ogni mossa e l'ascoltatore da avvisare quando viene superato.
+     * Il limite vale dalla prossima chiamata a startMove.
+     * @param limitNanos limite di ogni mossa in nanosecondi, zero per togliere il limite
+     * @param listener azione da eseguire quando una mossa supera il limite */
+    public synchronized void setMoveLimit(final long limitNanos, final Runnable listener) {
+        moveLimit = limitNanos;
+        moveListener = listener;
+    }
+
+    /** Metodo che mette in pausa l'orologio: il tempo di gioco e quello della mossa corrente smettono di scorrere
+     * e gli avvisi in attesa vengono sospesi. */
+    public synchronized void pause() {
+        if (paused || cancelled) {
+            return;
+        }
+        freeze();
+        cancelFutures();
+    }
+
+    /** Metodo che fa ripartire l'orologio dopo una pausa, ripianificando gli avvisi. */
+    public synchronized void resume() {
+        if (!paused || cancelled) {
+            return;
+        }
+        paused = false;
+        resumedAt = System.nanoTime();
+        scheduleTimeout();
+        scheduleMoveTimeout();
+    }
+
+    /** Metodo che indica se l'orologio é in pausa.
+     * @return vero se l'orologio é in pausa, falso se sta scorrendo o se é stato fermato */
+    public synchronized boolean isPaused() {
+        return paused && !cancelled;
+    }
+
+    /** Metodo che fa iniziare una nuova mossa, azzerandone il tempo e pianificando l'avviso del limite. */
+    public synchronized void startMove() {
+        if (!paused) {
+            long now = System.nanoTime();
+            remaining -= now - resumedAt;
+            resumedAt = now;
+        }
+        moveElapsed = 0;
+        if (moveTimeout != null) {
+            moveTimeout.cancel(false);
+            moveTimeout = null;
+        }
+        scheduleMoveTimeout();
+    }
+
+    /** Metodo che ritorna il tempo trascorso nella mossa corrente, senza contare le pause.
+     * @return i nanosecondi trascorsi, zero se nessuna mossa é iniziata */
+    public synchronized long getMoveNanos() {
+        if (moveElapsed == NO_MOVE) {
+            return 0;
+        }
+        return paused ? moveElapsed : moveElapsed + System.nanoTime() - resumedAt;
+    }
+
+    /** Metodo che conclude la mossa corrente, annullandone l'avviso del limite.
+     * @return la durata della mossa in nanosecondi, senza contare le pause */
+    public synchronized long endMove() {
+        long elapsed = getMoveNanos();
+        moveElapsed = NO_MOVE;
+        if (moveTimeout != null) {
+            moveTimeout.cancel(false);
+            moveTimeout = null;
+        }
+        return elapsed;
+    }
+
+    /** Metodo che ferma definitivamente l'orologio: il tempo rimanente smette di scorrere, gli avvisi in attesa
+     * vengono annullati e non ne arriveranno altri. Va chiamato quando la partita finisce prima della scadenza,
+     * cosí il suo esito non cambia piú. */
+    public synchronized void cancel() {
+        freeze();
+        cancelled = true;
+        cancelFutures();
+    }
+
+    /** Ferma lo scorrere del tempo di gioco e di quello della mossa corrente, conservandoli. */
+    private void freeze() {
+        if (!paused) {
+            long now = System.nanoTime();
+            remaining -= now - resumedAt;
+            if (moveElapsed != NO_MOVE) {
+                moveElapsed += now - resumedAt;
+            }
+            paused = true;
+        }
+    }
+
+    /** Affida al thread dell'orologio la scadenza del tempo di gioco, se c'é un ascoltatore. */
+    private void scheduleTimeout() {
+        if (timeoutListener == null || paused || cancelled) {
+            return;
+        }
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        timeout = Scheduler.INSTANCE.schedule(this::fireTimeout, Math.max(0, getRemainingNanos()),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /** Affida al thread dell'orologio la scadenza della mossa corrente, se c'é un limite. */
+    private void scheduleMoveTimeout() {
+        if (moveLimit <= 0 || moveListener == null || moveElapsed == NO_MOVE || paused || cancelled) {
+            return;
+        }
+        moveTimeout = Scheduler.INSTANCE.schedule(this::fireMoveTimeout, Math.max(0, moveLimit - getMoveNanos()),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /** Annulla gli avvisi in attesa. */
+    private void cancelFutures() {
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+        if (moveTimeout != null) {
+            moveTimeout.cancel(false);
+            moveTimeout = null;
+        }
+    }
+
+    /** Avvisa l'ascoltatore della scadenza del tempo di gioco, eseguito dal thread dell'orologio.
+     * L'ascoltatore viene chiamato fuori dal blocco sincronizzato, cosí puó usare l'orologio. */
+    private void fireTimeout() {
+        Runnable listener;
+        synchronized (this) {
+            if (paused || cancelled || getRemainingNanos() > 0) {
+                return;
+            }
+            listener = timeoutListener;
+            timeout = null;
+            freeze();
+            cancelled = true;
+            if (moveTimeout != null) {
+                moveTimeout.cancel(false);
+                moveTimeout = null;
+            }
+        }
+        listener.run();
+    }
+
+    /** Avvisa l'ascoltatore del superamento del limite della mossa, eseguito dal thread dell'orologio. */
+    private void fireMoveTimeout() {
+        Runnable listener;
+        synchronized (this) {
+            if (paused || cancelled || moveElapsed == NO_MOVE || getMoveNanos() < moveLimit) {
+                return;
+            }
+            listener = moveListener;
+            moveTimeout = null;
+        }
+        listener.run();
+    }
+
+    /** Contenitore del thread condiviso dagli orologi, creato solo al primo avviso pianificato. */
+    private static final class Scheduler {
+
+        /** Esecutore con un solo thread demone, che non impedisce la chiusura dell'applicazione. */
+        private static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        /** Costruttore privato per evitare che venga istanziata la classe. */
+        private Scheduler() { }
+
+        /** Crea l'esecutore; gli avvisi annullati vengono tolti subito dalla coda.
+         * @return l'esecutore */
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "orologio-partita");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
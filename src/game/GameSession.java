@@ -0,0 +1,352 @@
+package game;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import grid.CellState;
+import grid.Grid;
+import grid.ShipRegistry;
+
+/** {@literal <<Control>>}
+ * Classe che rappresenta una singola partita, indipendente dal singleton Settings e dalla console.
+ * La classe GameSession possiede le proprie griglie (quella del nemico con le navi e quella del giocatore
+ * con i colpi sparati), il contatore dei tentativi falliti, il limite di tentativi e l'orologio (GameClock)
+ * con il tempo di gioco. Le regole della partita sono tutte qui: attack riceve riga e colonna e restituisce l'esito
+ * del colpo, getStatus dice se la partita é vinta, persa o ancora in corso. La classe non legge dalla
+ * tastiera e non stampa nulla, quindi i comandi della console (CommandsGame) sono solo un adattatore che
+ * traduce l'input in chiamate alla sessione e i risultati in messaggi.
+ * Ogni partita ha un identificativo e, se viene collegata ad un MoveJournal, registra ogni attacco sul diario.
+ * Ogni sessione é indipendente dalle altre, quindi uno stesso processo puó ospitarne quante ne servono;
+ * una singola sessione invece non va usata da piú thread contemporaneamente. */
+public final class GameSession {
+
+    /** Enumerazione che rappresenta l'esito di un colpo. */
+    public enum AttackResult {
+
+        /** Il colpo é finito in acqua. */
+        MISS,
+
+        /** Il colpo ha colpito una nave senza affondarla. */
+        HIT,
+
+        /** Il colpo ha affondato una nave. */
+        SUNK,
+
+        /** La cella era giá stata attaccata. */
+        ALREADY_ATTACKED
+    }
+
+    /** Enumerazione che rappresenta lo stato della partita. */
+    public enum Status {
+
+        /** La partita é ancora in corso. */
+        IN_PROGRESS,
+
+        /** Tutte le navi sono state affondate. */
+        WON,
+
+        /** Il tempo a disposizione é finito. */
+        LOST_TIME,
+
+        /** I tentativi falliti hanno raggiunto il limite. */
+        LOST_FAILURES
+    }
+
+    /** Bit di cui viene spostato l'istante di avvio per ottenere il primo identificativo di partita. */
+    private static final int ID_SHIFT = 20;
+
+    /** Prossimo identificativo di partita. Parte dall'istante di avvio in millisecondi spostato di ID_SHIFT bit,
+     * cosí le partite di esecuzioni diverse del programma hanno identificativi diversi finché un'esecuzione non
+     * crea piú di 2^ID_SHIFT partite per ogni millisecondo che la separa dalla successiva. */
+    private static final AtomicLong NEXT_ID = new AtomicLong(System.currentTimeMillis() << ID_SHIFT);
+
+    /** Identificativo della partita, usato dal diario delle mosse e conservato dai salvataggi. */
+    private final long id;
+
+    /** Diario su cui vengono registrati gli attacchi, null se la partita non viene registrata. */
+    private MoveJournal journal;
+
+    /** Griglia del nemico dove vengono posizionate le navi da colpire. */
+    private final Grid enemyGrid;
+
+    /** Griglia del giocatore dove vengono segnati i colpi sparati. */
+    private final Grid playerGrid;
+
+    /** Vista della griglia del nemico restituita da getEnemyGrid, creata una sola volta con la partita. */
+    private final Grid enemyView;
+
+    /** Vista della griglia del giocatore restituita da getPlayerGrid, creata una sola volta con la partita. */
+    private final Grid playerView;
+
+    /** Numero massimo di tentativi falliti. */
+    private final int maxFailures;
+
+    /** Orologio della partita, con il tempo di gioco rimanente. */
+    private final GameClock clock;
+
+    /** Numero di tentativi falliti. */
+    private int failures;
+
+    /** Numero di colpi sparati, compresi quelli su celle giá attaccate. */
+    private int shots;
+
+    /** Identificativo dell'ultima nave affondata. */
+    private int lastSunkShip = ShipRegistry.NO_SHIP;
+
+    /** Il costruttore crea una partita con le griglie vuote; le navi vanno piazzate con placeShipsRandom.
+     * @param fixedDimRow cardinalità delle righe delle griglie
+     * @param fixedDimColumn cardinalità delle colonne delle griglie
+     * @param maxFailuresParam numero massimo di tentativi falliti
+     * @param timeLimitNanos tempo di gioco a disposizione in nanosecondi */
+    public GameSession(final int fixedDimRow, final int fixedDimColumn, final int maxFailuresParam,
+                       final long timeLimitNanos) {
+        this(new Grid(fixedDimRow, fixedDimColumn), maxFailuresParam, timeLimitNanos);
+    }
+
+    /** Il costruttore crea una partita su una griglia nemica giá preparata, ad esempio da BoardGenerator.
+     * @param enemy griglia del nemico con le navi giá piazzate e registrate
+     * @param maxFailuresParam numero massimo di tentativi falliti
+     * @param timeLimitNanos tempo di gioco a disposizione in nanosecondi */
+    public GameSession(final Grid enemy, final int maxFailuresParam, final long timeLimitNanos) {
+        id = NEXT_ID.getAndIncrement();
+        enemyGrid = new Grid(enemy);
+        playerGrid = new Grid(enemy.getRowLength(), enemy.getColumnLength());
+        enemyView = new Grid(enemyGrid);
+        playerView = new Grid(playerGrid);
+        maxFailures = maxFailuresParam;
+        clock = new GameClock(timeLimitNanos);
+    }
+
+    /** Il costruttore ricrea una partita giá iniziata a partire dalle sue griglie, usate senza copiarle.
+     * @param idParam identificativo della partita
+     * @param enemy griglia del nemico, con le navi registrate
+     * @param player griglia del giocatore
+     * @param maxFailuresParam numero massimo di tentativi falliti
+     * @param remainingNanos tempo di gioco rimanente in nanosecondi */
+    private GameSession(final long idParam, final Grid enemy, final Grid player, final int maxFailuresParam,
+                        final long remainingNanos) {
+        id = idParam;
+        enemyGrid = enemy;
+        playerGrid = player;
+        enemyView = new Grid(enemyGrid);
+        playerView = new Grid(playerGrid);
+        maxFailures = maxFailuresParam;
+        clock = new GameClock(remainingNanos);
+    }
+
+    /** Metodo che ricrea una partita salvata, ad esempio da SnapshotStore. Il tempo rimanente riprende a scorrere
+     * da subito; se la partita era giá finita l'orologio viene fermato, cosí il suo esito non cambia.
+     * @param idParam identificativo della partita salvata
+     * @param enemy griglia del nemico, con le navi registrate
+     * @param player griglia del giocatore, delle stesse dimensioni
+     * @param maxFailuresParam numero massimo di tentativi falliti
+     * @param failuresParam tentativi falliti giá consumati
+     * @param shotsParam colpi giá sparati
+     * @param lastSunkShipParam identificativo dell'ultima nave affondata oppure ShipRegistry.NO_SHIP
+     * @param remainingNanos tempo di gioco rimanente in nanosecondi
+     * @return la partita ricreata */
+    public static GameSession restore(final long idParam, final Grid enemy, final Grid player,
+                                      final int maxFailuresParam, final int failuresParam, final int shotsParam,
+                                      final int lastSunkShipParam, final long remainingNanos) {
+        GameSession session = new GameSession(idParam, enemy, player, maxFailuresParam, remainingNanos);
+        session.failures = failuresParam;
+        session.shots = shotsParam;
+        session.lastSunkShip = lastSunkShipParam;
+        if (session.getStatus() != Status.IN_PROGRESS) {
+            session.clock.cancel();
+        }
+        return session;
+    }
+
+    /** Metodo che piazza in modo casuale tutte le navi della flotta sulla griglia del nemico.
+     * @param random generatore di numeri casuali
+     * @param fleet flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @return vero se tutte le navi sono state piazzate, falso se la flotta non entra nella griglia */
+    public boolean placeShipsRandom(final RandomGenerator random, final int[] fleet) {
+        PlacementEngine engine = new PlacementEngine(enemyGrid.getRowLength(), enemyGrid.getColumnLength(), fleet);
+        int[] placements = new int[engine.getShipCount()];
+        int columns = enemyGrid.getColumnLength();
+
+        enemyGrid.resetGrid();
+        if (!engine.placeFleet(random, placements, 0)) {
+            return false;
+        }
+
+        for (int i = 0; i < placements.length; i++) {
+            int cell = PlacementEngine.cellOf(placements[i]);
+            enemyGrid.placeShip(cell / columns, cell % columns, engine.getShipLength(i),
+                    PlacementEngine.directionOf(placements[i]));
+        }
+        return true;
+    }
+
+    /** Metodo che spara un colpo nella cella indicata, aggiornando entrambe le griglie.
+     * Se il colpo affonda una nave, tutte le sue celle vengono segnate con 'X' su entrambe le griglie.
+     * @param row riga della cella da attaccare
+     * @param column colonna della cella da attaccare
+     * @return l'esito del colpo
+     * @throws IndexOutOfBoundsException se la cella non é dentro la griglia; il colpo non viene sparato */
+    public AttackResult attack(final int row, final int column) {
+        Objects.checkIndex(row, enemyGrid.getRowLength());
+        Objects.checkIndex(column, enemyGrid.getColumnLength());
+        return attackCell(row * enemyGrid.getColumnLength() + column);
+    }
+
+    /** Metodo che spara un colpo nella cella indicata dal suo indice lineare, riga per riga come nelle strategie
+     * di ShootingStrategy e nel diario delle mosse. É il percorso usato dai giocatori automatici: non alloca
+     * nulla, e l'esito é una costante di AttackResult, il cui ordinal puó essere usato come codice intero.
+     * @param cell indice lineare della cella da attaccare, riga * colonne + colonna
+     * @return l'esito del colpo
+     * @throws IndexOutOfBoundsException se l'indice non é dentro la griglia; il colpo non viene sparato */
+    public AttackResult attackCell(final int cell) {
+        int columns = enemyGrid.getColumnLength();
+        Objects.checkIndex(cell, enemyGrid.getRowLength() * columns);
+        AttackResult result = shoot(cell / columns, cell % columns);
+        if (journal != null) {
+            journal.recordAttack(id, cell, result);
+        }
+        return result;
+    }
+
+    /** Metodo che collega la partita ad un diario delle mosse: da quel momento ogni attacco viene registrato.
+     * L'inizio della partita va registrato a parte con MoveJournal.recordStart, una sola volta per partita.
+     * @param moveJournal diario su cui registrare gli attacchi, null per smettere di registrarli */
+    public void setJournal(final MoveJournal moveJournal) {
+        journal = moveJournal;
+    }
+
+    /** Metodo che ritorna l'identificativo della partita.
+     * @return l'identificativo */
+    public long getId() {
+        return id;
+    }
+
+    /** Spara il colpo di attack aggiornando entrambe le griglie.
+     * @param row riga della cella da attaccare
+     * @param column colonna della cella da attaccare
+     * @return l'esito del colpo */
+    private AttackResult shoot(final int row, final int column) {
+        shots++;
+        char value = enemyGrid.getGridValue(row, column);
+
+        if (value == CellState.SHIP) {
+            enemyGrid.setGridValue(row, column, CellState.HIT);
+            playerGrid.setGridValue(row, column, CellState.HIT);
+
+            ShipRegistry ships = enemyGrid.getShips();
+            int ship = ships.getShipAt(row, column);
+            if (ship != ShipRegistry.NO_SHIP && ships.isSunk(ship)) {
+                markSunk(ships, ship);
+                lastSunkShip = ship;
+                if (enemyGrid.countGridValue(CellState.SHIP) == 0) {
+                    //Partita vinta: l'orologio si ferma, cosí l'esito non cambia durante i messaggi finali
+                    clock.cancel();
+                }
+                return AttackResult.SUNK;
+            }
+            return AttackResult.HIT;
+        } else if (value == CellState.EMPTY) {
+            enemyGrid.setGridValue(row, column, CellState.MISS);
+            playerGrid.setGridValue(row, column, CellState.MISS);
+            failures++;
+            if (failures >= maxFailures) {
+                clock.cancel();
+            }
+            return AttackResult.MISS;
+        }
+        return AttackResult.ALREADY_ATTACKED;
+    }
+
+    /** Metodo che ritorna lo stato della partita.
+     * Il tempo viene controllato per primo, poi i tentativi falliti e infine le navi rimaste;
+     * il conteggio delle navi rimaste é mantenuto dalla griglia, quindi il costo é costante.
+     * @return lo stato della partita */
+    public Status getStatus() {
+        if (clock.isExpired()) {
+            return Status.LOST_TIME;
+        } else if (failures >= maxFailures) {
+            return Status.LOST_FAILURES;
+        } else if (enemyGrid.countGridValue(CellState.SHIP) == 0) {
+            return Status.WON;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    /** Metodo che ritorna i nanosecondi rimanenti prima della fine del tempo di gioco.
+     * @return i nanosecondi rimanenti, negativi se il tempo é scaduto */
+    public long getRemainingNanos() {
+        return clock.getRemainingNanos();
+    }
+
+    /** Metodo che ritorna l'orologio della partita, per mettere in pausa il tempo, misurare le mosse
+     * o essere avvisati della scadenza.
+     * @return l'orologio */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /** Metodo di accesso alla griglia del nemico.
+     * Ritorna sempre la stessa vista, che condivide le celle con la griglia della partita; cosí il disegno dello
+     * schermo ad ogni comando non crea un nuovo oggetto.
+     * @return la griglia del nemico */
+    public Grid getEnemyGrid() {
+        return enemyView;
+    }
+
+    /** Metodo di accesso alla griglia del giocatore.
+     * Ritorna sempre la stessa vista, che condivide le celle con la griglia della partita.
+     * @return la griglia del giocatore */
+    public Grid getPlayerGrid() {
+        return playerView;
+    }
+
+    /** Metodo che ritorna la cardinalità delle righe delle griglie della partita.
+     * @return la cardinalità delle righe */
+    public int getRowLength() {
+        return enemyGrid.getRowLength();
+    }
+
+    /** Metodo che ritorna la cardinalità delle colonne delle griglie della partita.
+     * @return la cardinalità delle colonne */
+    public int getColumnLength() {
+        return enemyGrid.getColumnLength();
+    }
+
+    /** Metodo che ottiene i tentativi falliti.
+     * @return failures */
+    public int getFailures() {
+        return failures;
+    }
+
+    /** Metodo che ottiene il numero massimo di tentativi falliti.
+     * @return maxFailures */
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    /** Metodo che ottiene il numero di colpi sparati.
+     * @return shots */
+    public int getShots() {
+        return shots;
+    }
+
+    /** Metodo che ritorna l'identificativo, nel registro della griglia nemica, dell'ultima nave affondata.
+     * @return l'identificativo della nave oppure ShipRegistry.NO_SHIP se nessuna nave é stata affondata */
+    public int getLastSunkShip() {
+        return lastSunkShip;
+    }
+
+    /** Segna con 'X' tutte le celle di una nave affondata su entrambe le griglie.
+     * @param ships registro delle navi della griglia nemica
+     * @param ship identificativo della nave affondata */
+    private void markSunk(final ShipRegistry ships, final int ship) {
+        int columns = enemyGrid.getColumnLength();
+
+        for (int i = 0; i < ships.getShipLength(ship); i++) {
+            int cell = ships.getShipCell(ship, i);
+            enemyGrid.setGridValue(cell / columns, cell % columns, CellState.SUNK);
+            playerGrid.setGridValue(cell / columns, cell % columns, CellState.SUNK);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package game;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import game.Settings.CommandsState;
+import grid.Grid;
+import utility.LatencyHistogram;
+
+/** {@literal <<Entity>>}
+ * Metriche raccolte durante l'esecuzione del gioco, per capire dove viene speso il tempo.
+ * Per ogni comando di CommandsState viene conservato un LatencyHistogram con i tempi di esecuzione dei comandi
+ * eseguiti dal menu principale e dal menu di gioco, esclusa l'attesa dell'input; per ogni esito di un attacco
+ * un contatore LongAdder; i tempi di stampa della griglia sono quelli di Grid.getRenderTimes. Un istogramma a
+ * parte conserva la durata delle mosse del menu di gioco, cioé il tempo che il giocatore impiega a scrivere un
+ * comando o una coordinata, misurata da GameClock senza contare le pause.
+ * La registrazione non usa blocchi: gli istogrammi e i contatori sono suddivisi per thread e vengono sommati
+ * solo quando le metriche vengono lette, da /metriche oppure dal thread che le salva periodicamente in un file.
+ * Il file usa il formato di testo di Prometheus, una riga "nome{etichette} valore" per ogni serie, e viene
+ * sostituito in un solo passo, quindi chi lo legge non vede mai un file scritto a metá.
+ * Le metriche sono uniche per tutto il programma e si ottengono con getIstance. */
+public final class Metrics {
+
+    /** Comandi indicizzati per ordinale, copiati una volta sola. */
+    private static final CommandsState[] STATES = CommandsState.values();
+
+    /** Esiti degli attacchi indicizzati per ordinale, copiati una volta sola. */
+    private static final GameSession.AttackResult[] RESULTS = GameSession.AttackResult.values();
+
+    /** Percentili mostrati e salvati per ogni istogramma. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /** Nanosecondi in un millisecondo, l'unitá della tabella di /metriche. */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** Nanosecondi in un secondo, l'unitá del file delle metriche. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** Unica istanza delle metriche, creata dopo le costanti da cui dipende. */
+    private static final Metrics ISTANCE = new Metrics();
+
+    /** Tempi di esecuzione di ogni comando, indicizzati per ordinale di CommandsState. */
+    private final LatencyHistogram[] commands = new LatencyHistogram[STATES.length];
+
+    /** Durata delle mosse del menu di gioco, senza le pause dell'orologio. */
+    private final LatencyHistogram moves = new LatencyHistogram();
+
+    /** Attacchi per esito, indicizzati per ordinale di GameSession.AttackResult. */
+    private final LongAdder[] attacks = new LongAdder[RESULTS.length];
+
+    /** Thread che salva periodicamente le metriche, null se il salvataggio non é attivo. */
+    private ScheduledThreadPoolExecutor dumper;
+
+    /** File in cui vengono salvate periodicamente le metriche. */
+    private Path dumpFile;
+
+    /** Il costruttore crea gli istogrammi e i contatori vuoti. */
+    private Metrics() {
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < attacks.length; i++) {
+            attacks[i] = new LongAdder();
+        }
+    }
+
+    /** Metodo che ritorna le metriche del programma.
+     * @return l'unica istanza di Metrics */
+    public static Metrics getIstance() {
+        return ISTANCE;
+    }
+
+    /** Metodo che registra il tempo di esecuzione di un comando.
+     * @param state comando eseguito, ignorato se null
+     * @param nanos tempo di esecuzione in nanosecondi */
+    public void recordCommand(final CommandsState state, final long nanos) {
+        if (state != null) {
+            commands[state.ordinal()].record(nanos);
+        }
+    }
+
+    /** Metodo che conta l'esito di un attacco.
+     * @param result esito dell'attacco */
+    public void recordAttack(final GameSession.AttackResult result) {
+        attacks[result.ordinal()].increment();
+    }
+
+    /** Metodo che registra la durata di una mossa del menu di gioco.
+     * @param nanos durata della mossa in nanosecondi, ad esempio quella ritornata da GameClock.endMove */
+    public void recordMove(final long nanos) {
+        moves.record(nanos);
+    }
+
+    /** Metodo che ritorna le durate delle mosse del menu di gioco.
+     * @return l'istogramma delle durate in nanosecondi */
+    public LatencyHistogram getMoveTimes() {
+        return moves;
+    }
+
+    /** Metodo che ritorna i tempi di esecuzione di un comando.
+     * @param state comando
+     * @return l'istogramma dei tempi in nanosecondi */
+    public LatencyHistogram getCommandTimes(final CommandsState state) {
+        return commands[state.ordinal()];
+    }
+
+    /** Metodo che ritorna il numero di attacchi con un certo esito.
+     * @param result esito
+     * @return il numero di attacchi */
+    public long getAttackCount(final GameSession.AttackResult result) {
+        return attacks[result.ordinal()].sum();
+    }
+
+    /** Metodo che prepara la tabella delle metriche mostrata da /metriche, con i tempi in millisecondi.
+     * Vengono elencati solo i comandi eseguiti almeno una volta.
+     * @return il testo della tabella */
+    public String report() {
+        StringBuilder text = new StringBuilder();
+        Formatter out = new Formatter(text, Locale.ROOT);
+
+        out.format("%-20s %10s %9s", "comando (ms)", "conteggio", "media");
+        for (double percentile : PERCENTILES) {
+            out.format(" %9s", "p" + formatPercentile(percentile, 0));
+        }
+        out.format(" %9s%n", "max");
+        for (CommandsState state : STATES) {
+            reportRow(out, state.name().toLowerCase(Locale.ROOT), commands[state.ordinal()]);
+        }
+        reportRow(out, "stampa griglia", Grid.getRenderTimes());
+        reportRow(out, "mossa", moves);
+
+        out.format("%nAttacchi:");
+        for (GameSession.AttackResult result : RESULTS) {
+            out.format(" %s %d", result.name().toLowerCase(Locale.ROOT), attacks[result.ordinal()].sum());
+        }
+        out.format("%n");
+        return text.toString();
+    }
+
+    /** Metodo che prepara le metriche nel formato di testo di Prometheus, con i tempi in secondi.
+     * @return il testo del file delle metriche */
+    public String exposition() {
+        StringBuilder text = new StringBuilder();
+        Formatter out = new Formatter(text, Locale.ROOT);
+
+        out.format("# TYPE battleship_command_seconds summary%n");
+        for (CommandsState state : STATES) {
+            summary(out, "battleship_command_seconds", "command=\"" + state.name().toLowerCase(Locale.ROOT) + "\",",
+                    commands[state.ordinal()]);
+        }
+        out.format("# TYPE battleship_attacks_total counter%n");
+        for (GameSession.AttackResult result : RESULTS) {
+            out.format("battleship_attacks_total{result=\"%s\"} %d%n", result.name().toLowerCase(Locale.ROOT),
+                    attacks[result.ordinal()].sum());
+        }
+        out.format("# TYPE battleship_render_seconds summary%n");
+        summary(out, "battleship_render_seconds", "", Grid.getRenderTimes());
+        out.format("# TYPE battleship_move_seconds summary%n");
+        summary(out, "battleship_move_seconds", "", moves);
+        return text.toString();
+    }
+
+    /** Metodo che salva le metriche in un file, scrivendo prima un file temporaneo accanto e sostituendo poi
+     * il file con un solo spostamento.
+     * @param file percorso del file delle metriche
+     * @throws IOException se il file non puó essere scritto */
+    public void dump(final Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, exposition(), StandardCharsets.UTF_8);
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /** Metodo che avvia il salvataggio periodico delle metriche su un thread demone, sostituendo quello
+     * eventualmente giá attivo.
+     * @param file percorso del file delle metriche
+     * @param periodSeconds secondi tra un salvataggio e il successivo */
+    public synchronized void startDump(final Path file, final long periodSeconds) {
+        stopDump();
+        dumpFile = file;
+        dumper = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "salvataggio-metriche");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            try {
+                dump(file);
+            } catch (IOException e) {
+                //Il file verrá riscritto al prossimo salvataggio
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Metodo che ferma il salvataggio periodico, salvando un'ultima volta le metriche. */
+    public synchronized void stopDump() {
+        if (dumper == null) {
+            return;
+        }
+        dumper.shutdownNow();
+        dumper = null;
+        try {
+            dump(dumpFile);
+        } catch (IOException e) {
+            //Il programma sta terminando: resta l'ultimo file salvato
+        }
+    }
+
+    /** Aggiunge alla tabella di report la riga di un istogramma, se contiene almeno un valore.
+     * @param out tabella in costruzione
+     * @param name nome della riga
+     * @param histogram istogramma in nanosecondi */
+    private static void reportRow(final Formatter out, final String name, final LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        out.format("%-20s %10d %9.3f", name, histogram.getCount(), histogram.getMean() / NANOS_PER_MILLI);
+        for (double percentile : PERCENTILES) {
+            out.format(" %9.3f", histogram.getPercentile(percentile) / NANOS_PER_MILLI);
+        }
+        out.format(" %9.3f%n", histogram.getMax() / NANOS_PER_MILLI);
+    }
+
+    /** Aggiunge al testo di exposition le serie di un istogramma: i percentili, la somma e il conteggio.
+     * @param out testo in costruzione
+     * @param name nome della metrica
+     * @param labels etichette comuni alle serie, ognuna seguita da una virgola, oppure vuote
+     * @param histogram istogramma in nanosecondi */
+    private static void summary(final Formatter out, final String name, final String labels,
+                                final LatencyHistogram histogram) {
+        final int percentDigits = 2;
+        long count = histogram.getCount();
+        for (double percentile : PERCENTILES) {
+            out.format("%s{%squantile=\"%s\"} %.9f%n", name, labels, formatPercentile(percentile, percentDigits),
+                    histogram.getPercentile(percentile) / NANOS_PER_SECOND);
+        }
+        String plain = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.format("%s_sum%s %.9f%n", name, plain, histogram.getMean() * count / NANOS_PER_SECOND);
+        out.format("%s_count%s %d%n", name, plain, count);
+    }
+
+    /** Scrive un percentile in decimale esatto e senza zeri inutili, ad esempio 99.9 oppure, come quantile,
+     * 0.999.
+     * @param percentile percentile da scrivere
+     * @param shift cifre di cui spostare la virgola a sinistra, 2 per ottenere il quantile
+     * @return il testo del valore */
+    private static String formatPercentile(final double percentile, final int shift) {
+        return BigDecimal.valueOf(percentile).movePointLeft(shift).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,295 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import grid.Grid;
+import grid.ShipRegistry;
+
+/** {@literal <<Boundary>>}
+ * Diario delle mosse in sola aggiunta, per ricostruire le partite dopo un arresto o per analizzarle.
+ * Ogni record occupa RECORD_SIZE byte: identificativo della partita, tipo, tre campi che dipendono dal tipo e
+ * istante di scrittura in millisecondi. L'inizio di una partita é un record START (righe, colonne e tentativi
+ * massimi) seguito da un record SHIP per ogni nave (lunghezza, prima cella e direzione); ogni attacco é un
+ * record ATTACK (esito, cella). MoveReplay ricostruisce le partite rileggendo i record.
+ * Le righe occupano un byte e le celle due, quindi vengono registrate solo le partite su griglie con al massimo
+ * MAX_ROWS righe e MAX_CELLS celle; le altre vengono ignorate da recordStart.
+ * I record vengono scritti con il group commit: chi registra una mossa la copia in un buffer in memoria e
+ * prosegue subito, mentre un thread dedicato scrive sul FileChannel, con una sola chiamata, tutti i record
+ * accumulati durante la scrittura precedente e, se il diario é durevole, ne forza il salvataggio su disco.
+ * In questo modo il costo di una mossa non comprende la scrittura e il numero di scritture si adatta da solo
+ * al carico. Se il buffer é pieno chi registra aspetta che il thread lo svuoti.
+ * Un errore di scrittura ferma il diario senza interrompere le partite: i record successivi vengono scartati
+ * e l'errore viene segnalato da flush e close. */
+public final class MoveJournal implements AutoCloseable {
+
+    /** Byte di un record. */
+    public static final int RECORD_SIZE = 24;
+
+    /** Tipo del record che apre una partita. */
+    static final byte START = 1;
+
+    /** Tipo del record di una nave della partita. */
+    static final byte SHIP = 2;
+
+    /** Tipo del record di un attacco. */
+    static final byte ATTACK = 3;
+
+    /** Posizione del tipo in un record. */
+    static final int TYPE_OFFSET = Long.BYTES;
+
+    /** Posizione del campo su un byte in un record. */
+    static final int SMALL_OFFSET = TYPE_OFFSET + 1;
+
+    /** Posizione del campo su due byte in un record. */
+    static final int CELL_OFFSET = SMALL_OFFSET + 1;
+
+    /** Posizione del campo su quattro byte in un record. */
+    static final int VALUE_OFFSET = CELL_OFFSET + Short.BYTES;
+
+    /** Posizione dell'istante di scrittura in un record. */
+    static final int TIME_OFFSET = VALUE_OFFSET + Integer.BYTES;
+
+    /** Numero massimo di righe di una partita registrata, il massimo del campo su un byte. */
+    public static final int MAX_ROWS = 0xFF;
+
+    /** Numero massimo di celle di una partita registrata, gli indici rappresentabili dal campo su due byte. */
+    public static final int MAX_CELLS = 1 << Short.SIZE;
+
+    /** Record contenuti in ognuno dei due buffer. */
+    private static final int BATCH_RECORDS = 4096;
+
+    /** Canale del file, in scrittura alla fine. */
+    private final FileChannel channel;
+
+    /** Vero se ogni gruppo di record va forzato su disco prima di considerarlo scritto. */
+    private final boolean durable;
+
+    /** Thread che scrive i gruppi di record. */
+    private final Thread writer;
+
+    /** Buffer in cui vengono copiati i nuovi record. */
+    private ByteBuffer filling = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_SIZE);
+
+    /** Buffer in scrittura sul file. */
+    private ByteBuffer writing = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_SIZE);
+
+    /** Record registrati dall'apertura. */
+    private long appended;
+
+    /** Record scritti sul file dall'apertura. */
+    private long written;
+
+    /** Record scartati dopo un errore di scrittura. */
+    private long dropped;
+
+    /** Vero dopo la chiamata a close. */
+    private boolean closed;
+
+    /** Errore che ha fermato il diario, null finché le scritture riescono. */
+    private IOException failure;
+
+    /** Il costruttore avvia il thread di scrittura.
+     * @param fileChannel canale del file, posizionato alla fine
+     * @param durableParam vero per forzare su disco ogni gruppo di record */
+    private MoveJournal(final FileChannel fileChannel, final boolean durableParam) {
+        channel = fileChannel;
+        durable = durableParam;
+        writer = new Thread(this::writeLoop, "diario-mosse");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Metodo che apre il diario, creando il file se non esiste. Un eventuale record incompleto alla fine del
+     * file, lasciato da un arresto durante una scrittura, viene eliminato.
+     * @param file percorso del file
+     * @param durableParam vero per forzare su disco ogni gruppo di record, falso per lasciarlo al sistema
+     * operativo
+     * @return il diario aperto
+     * @throws IOException se il file non puó essere aperto */
+    public static MoveJournal open(final Path file, final boolean durableParam) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            long complete = channel.size() - channel.size() % RECORD_SIZE;
+            channel.truncate(complete);
+            channel.position(complete);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new MoveJournal(channel, durableParam);
+    }
+
+    /** Metodo che registra l'inizio di una partita con la disposizione delle sue navi; va chiamato dopo aver
+     * piazzato le navi e prima del primo attacco. Gli attacchi vanno registrati, con GameSession.setJournal,
+     * solo se la partita é stata registrata.
+     * @param session partita appena iniziata
+     * @return vero se la partita é stata registrata, falso se la griglia é troppo grande per i record */
+    public synchronized boolean recordStart(final GameSession session) {
+        Grid enemy = session.getEnemyGrid();
+        ShipRegistry ships = enemy.getShips();
+        int columns = enemy.getColumnLength();
+        long id = session.getId();
+        if (enemy.getRowLength() > MAX_ROWS || enemy.getRowLength() * columns > MAX_CELLS) {
+            return false;
+        }
+
+        append(id, START, enemy.getRowLength(), columns, session.getMaxFailures());
+        for (int ship = 0; ship < ships.getShipCount(); ship++) {
+            append(id, SHIP, ships.getShipLength(ship), ships.getShipRow(ship) * columns + ships.getShipColumn(ship),
+                    ships.getShipDirection(ship));
+        }
+        return true;
+    }
+
+    /** Metodo che registra un attacco, chiamato da GameSession.attack.
+     * @param session identificativo della partita
+     * @param cell indice lineare della cella attaccata
+     * @param result esito dell'attacco */
+    synchronized void recordAttack(final long session, final int cell, final GameSession.AttackResult result) {
+        append(session, ATTACK, result.ordinal(), cell, 0);
+    }
+
+    /** Metodo che aspetta che tutti i record registrati finora siano scritti sul file.
+     * @throws IOException se una scrittura é fallita */
+    public synchronized void flush() throws IOException {
+        long target = appended;
+        boolean interrupted = false;
+        while (written < target && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Metodo che ritorna i record scartati dopo un errore di scrittura.
+     * @return il numero di record scartati */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /** Scrive i record rimasti, ferma il thread di scrittura e chiude il file.
+     * @throws IOException se una scrittura o la chiusura é fallita */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        try (channel) {
+            synchronized (this) {
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    /** Copia un record nel buffer, aspettando il thread di scrittura se il buffer é pieno.
+     * Va chiamato tenendo il blocco del diario.
+     * @param session identificativo della partita
+     * @param type tipo del record
+     * @param small campo su un byte
+     * @param cell campo su due byte
+     * @param value campo su quattro byte */
+    private void append(final long session, final byte type, final int small, final int cell, final int value) {
+        boolean interrupted = false;
+        while (!filling.hasRemaining() && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null || closed) {
+            dropped++;
+            return;
+        }
+
+        if (filling.position() == 0) {
+            notifyAll();
+        }
+        filling.putLong(session).put(type).put((byte) small).putShort((short) cell).putInt(value)
+                .putLong(System.currentTimeMillis());
+        appended++;
+    }
+
+    /** Ciclo del thread di scrittura: scambia i buffer, scrive il gruppo di record accumulato e ricomincia,
+     * finché il diario non viene chiuso e svuotato. */
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long target;
+            synchronized (this) {
+                while (filling.position() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        //Il thread appartiene al diario: si ferma solo con close
+                    }
+                }
+                if (filling.position() == 0) {
+                    return;
+                }
+                batch = filling;
+                filling = writing;
+                writing = batch;
+                target = appended;
+                notifyAll();
+            }
+
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (durable) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    dropped += target - written;
+                    notifyAll();
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+
+            synchronized (this) {
+                written = target;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import grid.Grid;
+import grid.ShipRegistry;
+
+/** {@literal <<Control>>}
+ * Motore che ricostruisce le partite registrate da un MoveJournal.
+ * Per ogni partita la disposizione iniziale viene ricreata dai record START e SHIP, poi gli attacchi vengono
+ * rigiocati con GameSession.attack nell'ordine del diario; l'esito di ogni attacco rigiocato deve essere uguale
+ * a quello registrato, altrimenti il diario non descrive la partita e la ricostruzione si ferma. Il risultato
+ * é una GameSession con lo stesso identificativo, le stesse griglie e gli stessi tentativi falliti della
+ * partita originale, utile per analizzare una partita conclusa o per riprenderne una interrotta.
+ * Il diario viene letto a blocchi in un unico buffer e i record vengono decodificati sul posto; le partite che
+ * iniziano prima del diario (senza record START) vengono ignorate e contate. */
+public final class MoveReplay {
+
+    /** Record letti dal file ad ogni lettura. */
+    private static final int READ_RECORDS = 16 * 1024;
+
+    /** Tempo di gioco delle partite ricostruite, abbastanza lungo da non scadere. */
+    private static final long TIME_LIMIT = Long.MAX_VALUE / 2;
+
+    /** Esiti degli attacchi indicizzati per ordinale, copiati una volta sola. */
+    private static final GameSession.AttackResult[] RESULTS = GameSession.AttackResult.values();
+
+    /** Partite ricostruite, per identificativo. */
+    private final Map<Long, GameSession> sessions = new HashMap<>();
+
+    /** Disposizioni delle partite iniziate e non ancora attaccate, per identificativo. */
+    private final Map<Long, Layout> layouts = new HashMap<>();
+
+    /** Vero se viene ricostruita una sola partita. */
+    private final boolean filtered;
+
+    /** Partita da ricostruire se filtered é vero. */
+    private final long onlySession;
+
+    /** Identificativo dell'ultima partita attaccata, per evitare la ricerca nella mappa. */
+    private long lastId;
+
+    /** Ultima partita attaccata, null se non ce n'é una. */
+    private GameSession lastSession;
+
+    /** Attacchi rigiocati. */
+    private long moves;
+
+    /** Record ignorati perché la loro partita non inizia nel diario. */
+    private long skipped;
+
+    /** Il costruttore prepara la ricostruzione di tutte le partite del diario. */
+    public MoveReplay() {
+        filtered = false;
+        onlySession = 0;
+    }
+
+    /** Il costruttore prepara la ricostruzione di una sola partita, ignorando i record delle altre.
+     * @param sessionId identificativo della partita */
+    public MoveReplay(final long sessionId) {
+        filtered = true;
+        onlySession = sessionId;
+    }
+
+    /** Metodo che ricostruisce una partita da un diario.
+     * @param journal percorso del diario
+     * @param sessionId identificativo della partita
+     * @return la partita ricostruita, null se il diario non contiene il suo inizio
+     * @throws IOException se il diario non puó essere letto */
+    public static GameSession replaySession(final Path journal, final long sessionId) throws IOException {
+        MoveReplay replay = new MoveReplay(sessionId);
+        replay.replay(journal);
+        return replay.getSession(sessionId);
+    }
+
+    /** Metodo che rigioca tutti i record di un diario; un eventuale record incompleto alla fine viene ignorato.
+     * @param journal percorso del diario
+     * @throws IOException se il diario non puó essere letto
+     * @throws IllegalStateException se un attacco rigiocato ha un esito diverso da quello registrato */
+    public void replay(final Path journal) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * MoveJournal.RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                apply(buffer);
+                buffer.compact();
+            }
+        }
+    }
+
+    /** Metodo che rigioca i record completi contenuti in un buffer, lasciando la posizione sul primo byte non
+     * consumato.
+     * @param records buffer in lettura con i record del diario
+     * @throws IllegalStateException se un attacco rigiocato ha un esito diverso da quello registrato */
+    public void apply(final ByteBuffer records) {
+        int position = records.position();
+        int end = position + records.remaining() / MoveJournal.RECORD_SIZE * MoveJournal.RECORD_SIZE;
+
+        for (; position < end; position += MoveJournal.RECORD_SIZE) {
+            long id = records.getLong(position);
+            if (filtered && id != onlySession) {
+                continue;
+            }
+            int small = Byte.toUnsignedInt(records.get(position + MoveJournal.SMALL_OFFSET));
+            int cell = Short.toUnsignedInt(records.getShort(position + MoveJournal.CELL_OFFSET));
+            int value = records.getInt(position + MoveJournal.VALUE_OFFSET);
+
+            switch (records.get(position + MoveJournal.TYPE_OFFSET)) {
+                case MoveJournal.START -> {
+                    sessions.remove(id);
+                    if (lastSession != null && lastId == id) {
+                        lastSession = null;
+                    }
+                    layouts.put(id, new Layout(new Grid(small, cell), value));
+                }
+                case MoveJournal.SHIP -> {
+                    Layout layout = layouts.get(id);
+                    if (layout == null) {
+                        skipped++;
+                    } else {
+                        int columns = layout.enemy.getColumnLength();
+                        layout.enemy.placeShip(cell / columns, cell % columns, small, value);
+                    }
+                }
+                case MoveJournal.ATTACK -> attack(id, cell, small);
+                default -> throw new IllegalStateException("Tipo di record sconosciuto alla posizione " + position);
+            }
+        }
+        records.position(end);
+    }
+
+    /** Metodo che ritorna una partita ricostruita, anche se non ha ancora ricevuto attacchi.
+     * @param sessionId identificativo della partita
+     * @return la partita, null se il diario letto non contiene il suo inizio */
+    public GameSession getSession(final long sessionId) {
+        GameSession session = sessions.get(sessionId);
+        return session != null ? session : start(sessionId);
+    }
+
+    /** Metodo che ritorna le partite a cui é stato rigiocato almeno un attacco.
+     * @return la mappa non modificabile delle partite per identificativo */
+    public Map<Long, GameSession> getSessions() {
+        return Collections.unmodifiableMap(sessions);
+    }
+
+    /** Metodo che ritorna il numero di attacchi rigiocati.
+     * @return il numero di attacchi */
+    public long getMoveCount() {
+        return moves;
+    }
+
+    /** Metodo che ritorna il numero di record ignorati perché la loro partita non inizia nel diario.
+     * @return il numero di record ignorati */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    /** Rigioca un attacco controllandone l'esito.
+     * @param id identificativo della partita
+     * @param cell indice lineare della cella attaccata
+     * @param result ordinale dell'esito registrato */
+    private void attack(final long id, final int cell, final int result) {
+        GameSession session = lastSession != null && lastId == id ? lastSession : sessions.get(id);
+        if (session == null) {
+            session = start(id);
+            if (session == null) {
+                skipped++;
+                return;
+            }
+        }
+        lastId = id;
+        lastSession = session;
+
+        GameSession.AttackResult replayed = session.attackCell(cell);
+        if (result >= RESULTS.length || replayed != RESULTS[result]) {
+            throw new IllegalStateException("Il diario non corrisponde alla partita " + id + ": la cella " + cell
+                    + " ha dato " + replayed);
+        }
+        moves++;
+    }
+
+    /** Crea la partita di una disposizione registrata.
+     * @param id identificativo della partita
+     * @return la partita, null se la disposizione non é nel diario */
+    private GameSession start(final long id) {
+        Layout layout = layouts.remove(id);
+        if (layout == null) {
+            return null;
+        }
+        Grid player = new Grid(layout.enemy.getRowLength(), layout.enemy.getColumnLength());
+        GameSession session = GameSession.restore(id, layout.enemy, player, layout.maxFailures, 0, 0,
+                ShipRegistry.NO_SHIP, TIME_LIMIT);
+        sessions.put(id, session);
+        return session;
+    }
+
+    /** Disposizione iniziale di una partita letta dai record START e SHIP. */
+    private static final class Layout {
+
+        /** Griglia del nemico con le navi registrate. */
+        private final Grid enemy;
+
+        /** Numero massimo di tentativi falliti. */
+        private final int maxFailures;
+
+        /** Il costruttore conserva la griglia e il limite di tentativi.
+         * @param enemyGrid griglia del nemico, ancora senza navi
+         * @param maxFailuresParam numero massimo di tentativi falliti */
+        Layout(final Grid enemyGrid, final int maxFailuresParam) {
+            enemy = enemyGrid;
+            maxFailures = maxFailuresParam;
+        }
+    }
+}
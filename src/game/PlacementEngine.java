@@ -0,0 +1,451 @@
+package game;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import grid.ShipRegistry;
+
+/** {@literal <<Control>>}
+ * Classe che piazza in modo casuale un'intera flotta rispettando le regole del gioco.
+ * Le navi non possono sovrapporsi né toccarsi, nemmeno in diagonale: ogni cella occupata rende quindi
+ * proibite sé stessa e le otto celle che la circondano. Invece di estrarre posizioni a caso e scartare
+ * quelle illegali, la classe PlacementEngine mantiene per ogni lunghezza di nave e per ogni direzione
+ * una maschera di bit con tutte le ancore (prima cella della nave) ancora legali. Le celle proibite da una nave
+ * si ottengono dilatando la maschera delle sue celle con degli shift e degli OR su righe intere, una parola di
+ * 64 celle alla volta: di una colonna a destra e a sinistra (escludendo i bit che passerebbero alla riga
+ * accanto) e poi di una riga in alto e in basso. Dopo ogni piazzamento vengono spente solo le ancore che
+ * coprono le celle appena proibite: la maschera delle nuove celle proibite viene dilatata allo stesso modo
+ * verso l'ancora (di una colonna per le navi orizzontali, di una riga per quelle verticali) e tolta dalle
+ * ancore con un AND.
+ * Per ogni nave basta quindi una sola estrazione uniforme tra le ancore rimaste.
+ * Se una nave resta senza ancore il tentativo viene ripetuto da capo un numero limitato di volte;
+ * le flotte che non possono stare sulla griglia vengono riconosciute subito senza tentare. */
+public final class PlacementEngine {
+
+    /** Numero massimo di tentativi completi prima di dichiarare la flotta non piazzabile. */
+    private static final int MAX_ATTEMPTS = 1000;
+
+    /** Logaritmo in base due del numero di bit di un long. */
+    private static final int WORD_SHIFT = 6;
+
+    /** Numero di direzioni in cui una nave puó essere piazzata. */
+    private static final int DIRECTIONS = 2;
+
+    /** Cardinalità delle righe della griglia. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne della griglia. */
+    private final int dimColumn;
+
+    /** Lunghezze delle navi da piazzare, dalla piú lunga alla piú corta. */
+    private final int[] shipLengths;
+
+    /** Lunghezze distinte presenti nella flotta. */
+    private final int[] distinctLengths;
+
+    /** Indice in distinctLengths della lunghezza di ogni nave. */
+    private final int[] lengthSlot;
+
+    /** Vero se la flotta non puó in nessun caso essere contenuta nella griglia. */
+    private final boolean impossible;
+
+    /** Celle occupate da una nave o adiacenti ad essa. */
+    private final long[] forbidden;
+
+    /** Maschera di lavoro con le celle appena proibite dall'ultima nave piazzata. */
+    private final long[] fresh;
+
+    /** Maschera di lavoro con le ancore da spegnere. */
+    private final long[] covered;
+
+    /** Maschera di lavoro con la dilatazione orizzontale della nave appena piazzata. */
+    private final long[] widened;
+
+    /** Celle della prima colonna di ogni riga. */
+    private final long[] firstColumn;
+
+    /** Celle dell'ultima colonna di ogni riga. */
+    private final long[] lastColumn;
+
+    /** Bit dell'ultima parola delle maschere che corrispondono a celle della griglia. */
+    private final long lastWordCells;
+
+    /** Ancore legali per ogni lunghezza distinta e direzione (indice slot * 2 + direzione). */
+    private final long[][] anchors;
+
+    /** Numero di ancore legali per ogni lunghezza distinta e direzione. */
+    private final int[] anchorCount;
+
+    /** Ancore legali sulla griglia vuota, usate per ripartire ad ogni tentativo. */
+    private final long[][] initialAnchors;
+
+    /** Numero di ancore legali sulla griglia vuota. */
+    private final int[] initialAnchorCount;
+
+    /** Il costruttore prepara le maschere delle ancore per la griglia vuota.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param shipsArray flotta nel formato di Game: all'indice i il numero di navi lunghe i */
+    public PlacementEngine(final int fixedDimRow, final int fixedDimColumn, final int[] shipsArray) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+
+        int ships = 0;
+        int distinct = 0;
+        for (int i = 1; i < shipsArray.length; i++) {
+            ships += shipsArray[i];
+            if (shipsArray[i] > 0) {
+                distinct++;
+            }
+        }
+
+        shipLengths = new int[ships];
+        lengthSlot = new int[ships];
+        distinctLengths = new int[distinct];
+        int ship = 0;
+        int slot = 0;
+        for (int i = shipsArray.length - 1; i >= 1; i--) {
+            if (shipsArray[i] > 0) {
+                distinctLengths[slot] = i;
+                for (int j = 0; j < shipsArray[i]; j++) {
+                    shipLengths[ship] = i;
+                    lengthSlot[ship] = slot;
+                    ship++;
+                }
+                slot++;
+            }
+        }
+
+        int cells = fixedDimRow * fixedDimColumn;
+        int words = (cells + Long.SIZE - 1) >>> WORD_SHIFT;
+        forbidden = new long[words];
+        fresh = new long[words];
+        covered = new long[words];
+        widened = new long[words];
+        firstColumn = new long[words];
+        lastColumn = new long[words];
+        lastWordCells = -1L >>> (words * Long.SIZE - cells);
+        for (int row = 0; row < dimRow; row++) {
+            setBit(firstColumn, row * dimColumn);
+            setBit(lastColumn, row * dimColumn + dimColumn - 1);
+        }
+        anchors = new long[distinct * DIRECTIONS][words];
+        anchorCount = new int[distinct * DIRECTIONS];
+        initialAnchors = new long[distinct * DIRECTIONS][words];
+        initialAnchorCount = new int[distinct * DIRECTIONS];
+
+        for (int s = 0; s < distinct; s++) {
+            int length = distinctLengths[s];
+            for (int row = 0; row < dimRow; row++) {
+                for (int column = 0; column < dimColumn; column++) {
+                    int cell = row * dimColumn + column;
+                    if (column + length <= dimColumn) {
+                        setBit(initialAnchors[s * DIRECTIONS + ShipRegistry.HORIZONTAL], cell);
+                        initialAnchorCount[s * DIRECTIONS + ShipRegistry.HORIZONTAL]++;
+                    }
+                    if (row + length <= dimRow) {
+                        setBit(initialAnchors[s * DIRECTIONS + ShipRegistry.VERTICAL], cell);
+                        initialAnchorCount[s * DIRECTIONS + ShipRegistry.VERTICAL]++;
+                    }
+                }
+            }
+        }
+
+        impossible = !fitsInGrid();
+    }
+
+    /** Metodo che ritorna il numero di navi della flotta.
+     * @return il numero di navi */
+    public int getShipCount() {
+        return shipLengths.length;
+    }
+
+    /** Metodo che ritorna la lunghezza di una nave della flotta, nell'ordine in cui viene piazzata.
+     * @param ship indice della nave
+     * @return la lunghezza della nave */
+    public int getShipLength(final int ship) {
+        return shipLengths[ship];
+    }
+
+    /** Metodo che indica se la flotta non puó essere contenuta nella griglia.
+     * @return vero se la flotta é sicuramente impossibile da piazzare */
+    public boolean isImpossible() {
+        return impossible;
+    }
+
+    /** Metodo che estrae l'indice lineare della prima cella da un piazzamento.
+     * @param placement piazzamento prodotto da placeFleet
+     * @return l'indice lineare (riga * colonne + colonna) della prima cella della nave */
+    public static int cellOf(final int placement) {
+        return placement >>> 1;
+    }
+
+    /** Metodo che estrae la direzione da un piazzamento.
+     * @param placement piazzamento prodotto da placeFleet
+     * @return ShipRegistry.HORIZONTAL o ShipRegistry.VERTICAL */
+    public static int directionOf(final int placement) {
+        return placement & 1;
+    }
+
+    /** Metodo che piazza tutta la flotta in modo casuale.
+     * Per ogni nave viene scritto in out un piazzamento, nello stesso ordine di getShipLength,
+     * che codifica la prima cella e la direzione e che si legge con cellOf e directionOf.
+     * @param random generatore di numeri casuali
+     * @param out array in cui scrivere i piazzamenti
+     * @param offset posizione di out da cui iniziare a scrivere
+     * @return vero se la flotta é stata piazzata, falso se non é stato possibile */
+    public boolean placeFleet(final RandomGenerator random, final int[] out, final int offset) {
+        if (impossible) {
+            return false;
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (tryPlaceFleet(random, out, offset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Esegue un singolo tentativo di piazzamento dell'intera flotta.
+     * @param random generatore di numeri casuali
+     * @param out array in cui scrivere i piazzamenti
+     * @param offset posizione di out da cui iniziare a scrivere
+     * @return vero se tutte le navi sono state piazzate */
+    private boolean tryPlaceFleet(final RandomGenerator random, final int[] out, final int offset) {
+        Arrays.fill(forbidden, 0L);
+        for (int i = 0; i < anchors.length; i++) {
+            System.arraycopy(initialAnchors[i], 0, anchors[i], 0, anchors[i].length);
+            anchorCount[i] = initialAnchorCount[i];
+        }
+
+        for (int ship = 0; ship < shipLengths.length; ship++) {
+            int horizontal = lengthSlot[ship] * DIRECTIONS + ShipRegistry.HORIZONTAL;
+            int vertical = lengthSlot[ship] * DIRECTIONS + ShipRegistry.VERTICAL;
+            int total = anchorCount[horizontal] + anchorCount[vertical];
+
+            if (total == 0) {
+                return false;
+            }
+
+            int pick = random.nextInt(total);
+            int direction;
+            int cell;
+            if (pick < anchorCount[horizontal]) {
+                direction = ShipRegistry.HORIZONTAL;
+                cell = selectBit(anchors[horizontal], pick);
+            } else {
+                direction = ShipRegistry.VERTICAL;
+                cell = selectBit(anchors[vertical], pick - anchorCount[horizontal]);
+            }
+
+            out[offset + ship] = cell << 1 | direction;
+            forbidShip(cell / dimColumn, cell % dimColumn, shipLengths[ship], direction);
+        }
+        return true;
+    }
+
+    /** Rende proibite le celle di una nave e quelle che la circondano,
+     * spegnendo tutte le ancore delle navi che coprirebbero una delle nuove celle proibite.
+     * @param row riga della prima cella della nave
+     * @param column colonna della prima cella della nave
+     * @param length lunghezza della nave
+     * @param direction direzione della nave */
+    private void forbidShip(final int row, final int column, final int length, final int direction) {
+        int lastRow = direction == ShipRegistry.VERTICAL ? row + length - 1 : row;
+        int lastColumn = direction == ShipRegistry.HORIZONTAL ? column + length - 1 : column;
+        int fromRow = Math.max(0, row - 1);
+        int toRow = Math.min(dimRow - 1, lastRow + 1);
+        int fromColumn = Math.max(0, column - 1);
+        int toColumn = Math.min(dimColumn - 1, lastColumn + 1);
+        int firstCell = fromRow * dimColumn + fromColumn;
+        int lastCell = toRow * dimColumn + toColumn;
+
+        if (direction == ShipRegistry.HORIZONTAL) {
+            setRange(fresh, row * dimColumn + column, row * dimColumn + column + length);
+        } else {
+            for (int i = row; i <= lastRow; i++) {
+                setBit(fresh, i * dimColumn + column);
+            }
+        }
+        dilate(firstCell >>> WORD_SHIFT, lastCell >>> WORD_SHIFT);
+
+        for (int w = firstCell >>> WORD_SHIFT; w <= lastCell >>> WORD_SHIFT; w++) {
+            fresh[w] &= ~forbidden[w];
+            forbidden[w] |= fresh[w];
+        }
+
+        for (int s = 0; s < distinctLengths.length; s++) {
+            int reach = distinctLengths[s] - 1;
+            clearCovered(s * DIRECTIONS + ShipRegistry.HORIZONTAL, distinctLengths[s], 1,
+                    Math.max(0, firstCell - reach), lastCell);
+            clearCovered(s * DIRECTIONS + ShipRegistry.VERTICAL, distinctLengths[s], dimColumn,
+                    Math.max(0, firstCell - reach * dimColumn), lastCell);
+        }
+
+        for (int w = firstCell >>> WORD_SHIFT; w <= lastCell >>> WORD_SHIFT; w++) {
+            fresh[w] = 0L;
+        }
+    }
+
+    /** Dilata le celle in fresh di una cella in tutte le direzioni, diagonali comprese, lavorando solo sulle
+     * parole da fromWord a toWord, che devono contenere l'intero risultato. Prima ogni parola viene unita alle
+     * sue copie spostate di un bit (una colonna) in entrambi i versi, togliendo i bit che sono passati alla
+     * riga accanto; poi il risultato viene unito alle sue copie spostate di dimColumn bit (una riga).
+     * Dopo entrambi i passi vengono tolti i bit finiti oltre l'ultima cella della griglia.
+     * @param fromWord prima parola da aggiornare
+     * @param toWord ultima parola da aggiornare */
+    private void dilate(final int fromWord, final int toWord) {
+        final int lastBit = Long.SIZE - 1;
+
+        for (int w = fromWord; w <= toWord; w++) {
+            long previous = w > 0 ? fresh[w - 1] : 0L;
+            long next = w + 1 < fresh.length ? fresh[w + 1] : 0L;
+            long right = (fresh[w] << 1 | previous >>> lastBit) & ~firstColumn[w];
+            long left = (fresh[w] >>> 1 | next << lastBit) & ~lastColumn[w];
+            widened[w] = fresh[w] | right | left;
+        }
+        widened[widened.length - 1] &= lastWordCells;
+
+        for (int w = fromWord; w <= toWord; w++) {
+            fresh[w] = widened[w];
+        }
+        orShiftedDown(widened, dimColumn, fresh, fromWord, toWord);
+        orShiftedUp(widened, dimColumn, fresh, fromWord, toWord);
+        fresh[fresh.length - 1] &= lastWordCells;
+        for (int w = fromWord; w <= toWord; w++) {
+            widened[w] = 0L;
+        }
+    }
+
+    /** Spegne le ancore le cui navi coprirebbero una delle celle appena proibite.
+     * Un'ancora copre le celle ancora, ancora + step, ..., ancora + (lunghezza - 1) * step, quindi le ancore
+     * da spegnere si ottengono spostando le celle proibite indietro di 0, step, ..., (lunghezza - 1) * step.
+     * Per le navi orizzontali lo spostamento puó passare alla riga precedente, ma solo verso ancore
+     * che non sono mai legali perché la nave uscirebbe dalla griglia.
+     * @param anchorIndex indice della maschera delle ancore
+     * @param length lunghezza delle navi
+     * @param step distanza lineare tra due celle consecutive della nave
+     * @param fromCell prima cella che puó contenere un'ancora da spegnere
+     * @param toCell ultima cella che puó contenere un'ancora da spegnere */
+    private void clearCovered(final int anchorIndex, final int length, final int step,
+                              final int fromCell, final int toCell) {
+        int fromWord = fromCell >>> WORD_SHIFT;
+        int toWord = toCell >>> WORD_SHIFT;
+
+        System.arraycopy(fresh, fromWord, covered, fromWord, toWord - fromWord + 1);
+        for (int k = 1; k < length; k++) {
+            orShiftedDown(fresh, k * step, covered, fromWord, toWord);
+        }
+
+        long[] bits = anchors[anchorIndex];
+        int removed = 0;
+        for (int w = fromWord; w <= toWord; w++) {
+            removed += Long.bitCount(bits[w] & covered[w]);
+            bits[w] &= ~covered[w];
+        }
+        anchorCount[anchorIndex] -= removed;
+    }
+
+    /** Controlla che la flotta possa stare nella griglia.
+     * Ogni nave, insieme alla fascia di celle alla sua destra e sotto di essa, occupa un rettangolo
+     * di (lunghezza + 1) x 2 celle che non puó sovrapporsi a quello di nessun'altra nave all'interno
+     * della griglia allargata di una riga e una colonna; inoltre ogni nave deve avere almeno un'ancora.
+     * @return falso se la flotta é sicuramente impossibile da piazzare */
+    private boolean fitsInGrid() {
+        long area = 0;
+        for (int ship = 0; ship < shipLengths.length; ship++) {
+            area += 2L * (shipLengths[ship] + 1);
+        }
+        if (area > (long) (dimRow + 1) * (dimColumn + 1)) {
+            return false;
+        }
+
+        for (int i = 0; i < initialAnchorCount.length; i += DIRECTIONS) {
+            if (initialAnchorCount[i] + initialAnchorCount[i + 1] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Ritorna l'indice del bit acceso di posizione rank.
+     * @param bits maschera di bit
+     * @param rank posizione del bit acceso cercato, partendo da zero
+     * @return l'indice del bit */
+    private static int selectBit(final long[] bits, final int rank) {
+        int remaining = rank;
+        for (int word = 0; word < bits.length; word++) {
+            int count = Long.bitCount(bits[word]);
+            if (remaining < count) {
+                long value = bits[word];
+                for (int i = 0; i < remaining; i++) {
+                    value &= value - 1;
+                }
+                return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(value);
+            }
+            remaining -= count;
+        }
+        throw new IllegalArgumentException("Bit di posizione " + rank + " non presente");
+    }
+
+    /** Accende un bit.
+     * @param bits maschera di bit
+     * @param index indice del bit */
+    private static void setBit(final long[] bits, final int index) {
+        bits[index >>> WORD_SHIFT] |= 1L << index;
+    }
+
+    /** Accende i bit da from (incluso) a to (escluso), una parola alla volta.
+     * @param bits maschera di bit
+     * @param from indice del primo bit
+     * @param to indice successivo all'ultimo bit */
+    private static void setRange(final long[] bits, final int from, final int to) {
+        for (int i = from; i < to; i = (i | (Long.SIZE - 1)) + 1) {
+            int end = Math.min(to, (i | (Long.SIZE - 1)) + 1);
+            bits[i >>> WORD_SHIFT] |= -1L >>> (Long.SIZE - (end - i)) << i;
+        }
+    }
+
+    /** Aggiunge a dst, nelle sole parole da fromWord a toWord, la maschera src
+     * spostata verso gli indici piú alti di shift bit.
+     * @param src maschera da spostare
+     * @param shift numero di bit dello spostamento
+     * @param dst maschera a cui aggiungere il risultato
+     * @param fromWord prima parola di dst da aggiornare
+     * @param toWord ultima parola di dst da aggiornare */
+    private static void orShiftedUp(final long[] src, final int shift, final long[] dst,
+                                    final int fromWord, final int toWord) {
+        int wordShift = shift >>> WORD_SHIFT;
+        int bitShift = shift & (Long.SIZE - 1);
+
+        for (int w = Math.max(fromWord, wordShift); w <= toWord; w++) {
+            long value = src[w - wordShift] << bitShift;
+            if (bitShift != 0 && w - wordShift - 1 >= 0) {
+                value |= src[w - wordShift - 1] >>> (Long.SIZE - bitShift);
+            }
+            dst[w] |= value;
+        }
+    }
+
+    /** Aggiunge a dst, nelle sole parole da fromWord a toWord, la maschera src
+     * spostata verso gli indici piú bassi di shift bit.
+     * @param src maschera da spostare
+     * @param shift numero di bit dello spostamento
+     * @param dst maschera a cui aggiungere il risultato
+     * @param fromWord prima parola di dst da aggiornare
+     * @param toWord ultima parola di dst da aggiornare */
+    private static void orShiftedDown(final long[] src, final int shift, final long[] dst,
+                                      final int fromWord, final int toWord) {
+        int wordShift = shift >>> WORD_SHIFT;
+        int bitShift = shift & (Long.SIZE - 1);
+
+        for (int w = fromWord; w <= toWord && w + wordShift < src.length; w++) {
+            long value = src[w + wordShift] >>> bitShift;
+            if (bitShift != 0 && w + wordShift + 1 < src.length) {
+                value |= src[w + wordShift + 1] << (Long.SIZE - bitShift);
+            }
+            dst[w] |= value;
+        }
+    }
+}
@@ -1,16 +1,17 @@
 package game;
 
-import java.time.LocalDateTime;
 import grid.Grid;
+import grid.ScreenModel;
 
 /** {@literal <<Entity>>}
  * Classe Singleton contenente i settaggi del gioco e le variabili condivise nel programma.
  * La classe Settings è responsabile di gestire i settaggi del gioco e le variabili condivise nel programma.
  * È una classe singleton, il che significa che può essere istanziata solo una volta e offre
  * un metodo statico getIstance() per ottenere l'istanza corrente.
- * La classe contiene diverse variabili di stato, come enemyGrid e playerGrid, che rappresentano le griglie
- * usate nella partita, endTime che indica il tempo di gioco, failures che conta il numero di tentativi
- * sbagliati dell'utente e currentState che rappresenta il comando impostato dall'utente.
+ * La classe contiene diverse variabili di stato, come session che rappresenta la partita giocata dalla console
+ * (con le sue griglie, il tempo di gioco e i tentativi sbagliati dell'utente) e currentState che rappresenta
+ * il comando impostato dall'utente. Le regole della partita sono nella classe GameSession, che non dipende
+ * da Settings: qui viene conservata solo la sessione corrente, a cui i comandi della console accedono.
  * Inoltre, la classe gestisce le impostazioni di difficoltà del gioco, come il numero di tentativi
  * per ogni difficoltà, e fornisce metodi per accedere e modificare queste impostazioni.
  * La classe Settings fornisce anche metodi per gestire i loop dei menu di gioco, impostare il tempo
@@ -86,21 +87,28 @@ public final class Settings {
         ATTACCA,
 
         /** Comando per abbandonare il gioco. */
-        ABBANDONA
+        ABBANDONA,
+
+        /** Comando per mostrare le metriche dei comandi, degli attacchi e delle stampe della griglia. */
+        METRICHE,
+
+        /** Comando per centrare la finestra della griglia su una cella, per le griglie che non entrano nel
+         * terminale. */
+        CENTRA
     }
 
 
-    /** Griglie del nemico dove vengono posizionate le navi da colpire. */
-    private Grid enemyGrid;
+    /** Partita corrente giocata dalla console, con le griglie, il tempo e i tentativi sbagliati. */
+    private GameSession session;
 
-    /** Griglia del giocatore dove si cerca di colpire le navi del nemico. */
-    private Grid playerGrid;
+    /** Archivio in cui viene salvata la partita della console, null se il file non é disponibile. */
+    private SnapshotStore snapshots;
 
-    /** Attributo utilizzato come timer all'inizio della partita. */
-    private LocalDateTime endTime;
+    /** Diario su cui vengono registrate le mosse della console, null se il file non é disponibile. */
+    private MoveJournal journal;
 
-    /** Attributo utilizzato come contatatore dei tentativi sbagliati dell'utente. */
-    private int failures;
+    /** Modello dell'ultima schermata disegnata sul terminale, usato per ridisegnare solo le differenze. */
+    private final ScreenModel screen = new ScreenModel();
 
     /** Attributo che indica lo stato (enum) attuale del menu. */
     private CommandsState currentState;
@@ -108,9 +116,6 @@ public final class Settings {
     /** Attributo per la gestione del loop nel menu. */
     private boolean mainMenuLoop = true;
 
-    /** Attributo per la gestione del loop nel menu di gioco. */
-    private boolean gameMenuLoop = true;
-
     /** Attributo che indica il tempo massimo di gioco in minuti. */
     private int time;
 
@@ -262,18 +267,6 @@ public final class Settings {
         return mainMenuLoop;
     }
 
-    /** Metodo di accesso all'attributo gameMenuLoop.
-     * @param value Utilizzato nell' assegnazione di gameMenuLoop */
-    public void setGameMenuLoop(final boolean value) {
-        gameMenuLoop = value;
-    }
-
-    /** Metodo di accesso all'attributo gameMenuLoop.
-     * @return GameMenuLoop ritorna sempre gameMenuLoop */
-    public boolean getGameMenuLoopValue() {
-        return gameMenuLoop;
-    }
-
     /** Metodo di accesso all'attributo time.
      * @return time */
     public int getTime() {
@@ -298,52 +291,63 @@ public final class Settings {
         minValueTime = paramMinValueTime;
     }
 
-    /** Metodo di accesso a endTime.
-     * @param paramTime il valore che modifica l'attributo privato */
-    public void setEndTime(final LocalDateTime paramTime) {
-        endTime = paramTime;
+    /** Metodo di accesso a session.
+     * @param paramSession la partita giocata dalla console */
+    public void setSession(final GameSession paramSession) {
+        session = paramSession;
+    }
+
+    /** Metodo di accesso a session.
+     * @return la partita giocata dalla console */
+    public GameSession getSession() {
+        return session;
     }
 
-    /** Metodo che ritorna il tempo di gioco.
-     * @return il tempo di gioco. */
-    public LocalDateTime getEndTime() {
-        return endTime;
+    /** Metodo di accesso a snapshots.
+     * @param paramSnapshots l'archivio in cui salvare la partita della console, null per non salvarla */
+    public void setSnapshots(final SnapshotStore paramSnapshots) {
+        snapshots = paramSnapshots;
     }
 
+    /** Metodo di accesso a snapshots.
+     * @return l'archivio in cui salvare la partita della console, null se non é disponibile */
+    public SnapshotStore getSnapshots() {
+        return snapshots;
+    }
+
+    /** Metodo di accesso a journal.
+     * @param paramJournal il diario su cui registrare le mosse della console, null per non registrarle */
+    public void setJournal(final MoveJournal paramJournal) {
+        journal = paramJournal;
+    }
+
+    /** Metodo di accesso a journal.
+     * @return il diario su cui registrare le mosse della console, null se non é disponibile */
+    public MoveJournal getJournal() {
+        return journal;
+    }
 
-    /** Metodo che imposta i tentativi falliti.
-     * @param fail il numero di tentativi falliti */
-    public void setFailures(final int fail) {
-        failures = fail;
+    /** Metodo di accesso a screen.
+     * @return il modello della schermata del terminale */
+    public ScreenModel getScreen() {
+        return screen;
     }
 
-    /** Metodo che ottiene i tentativi falliti.
+    /** Metodo che ottiene i tentativi falliti della partita corrente.
      * @return failures */
     public int getFailures() {
-        return failures;
+        return session.getFailures();
     }
 
-    /** Metodo di accesso a enemyGrid.
+    /** Metodo di accesso alla griglia del nemico della partita corrente.
      * @return enemyGrid */
     public Grid getEnemyGrid() {
-        return new Grid(enemyGrid);
+        return session.getEnemyGrid();
     }
 
-    /** Metodo di accesso a enemyGrid.
-     * @param objectGrid il valore che modifica l'attributo privato */
-    public void setEnemyGrid(final Grid objectGrid) {
-        enemyGrid = new Grid(objectGrid);
-    }
-
-    /** Metodo di accesso a playerGrid.
+    /** Metodo di accesso alla griglia del giocatore della partita corrente.
      * @return playerGrid */
     public Grid getPlayerGrid() {
-        return new Grid(playerGrid);
-    }
-
-    /** Metodo di accesso a playerGrid.
-     * @param objectGrid il valore che modifica l'attributo privato */
-    public void setPlayerGrid(final Grid objectGrid) {
-        playerGrid = new Grid(objectGrid);
+        return session.getPlayerGrid();
     }
 }
@@ -0,0 +1,396 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import game.Settings.CommandsState;
+import grid.BitboardStorage;
+import grid.Grid;
+import grid.ShipRegistry;
+
+/** {@literal <<Boundary>>}
+ * Archivio delle partite in corso su un file mappato in memoria, con uno slot di dimensione fissa per partita.
+ * Salvare una partita significa scrivere pochi campi e copiare i piani di bit delle due griglie direttamente
+ * nella memoria del file, senza serializzazione né chiamate al sistema operativo: é il sistema operativo a
+ * riportare le pagine sul disco, anche se il processo termina all'improvviso. Per resistere anche allo
+ * spegnimento della macchina va chiamato force.
+ * Il file inizia con un'intestazione (HEADER_SIZE byte) che ne descrive la geometria, seguita dagli slot.
+ * Ogni slot contiene due copie del record e ogni salvataggio scrive la copia meno recente, cosí un salvataggio
+ * interrotto a metá lascia intatto quello precedente. Ogni copia inizia con il CRC32C del resto del record,
+ * un numero di sequenza (zero per una copia vuota) e la lunghezza dei dati; seguono righe e colonne,
+ * difficoltá, numero di navi, identificativo della partita, tentativi massimi e falliti, colpi sparati, tempo
+ * rimanente, ultima nave affondata, le navi (prima cella, lunghezza e direzione) e infine i piani di bit della
+ * griglia del nemico e di quella del giocatore, nel formato di Grid.writeCells.
+ * Slot diversi possono essere salvati e letti da thread diversi; uno stesso slot va usato da un thread alla
+ * volta. */
+public final class SnapshotStore implements AutoCloseable {
+
+    /** Numero massimo di navi di una partita salvata. */
+    public static final int MAX_SHIPS = 64;
+
+    /** Numero che identifica il formato del file. */
+    private static final int MAGIC = 0x42534E31;
+
+    /** Byte dell'intestazione del file. */
+    private static final int HEADER_SIZE = 64;
+
+    /** Copie del record in ogni slot. */
+    private static final int COPIES = 2;
+
+    /** Allineamento delle copie, la dimensione di una linea di cache. */
+    private static final int ALIGNMENT = 64;
+
+    /** Posizione del numero di sequenza in una copia. */
+    private static final int SEQUENCE_OFFSET = Integer.BYTES;
+
+    /** Posizione della lunghezza dei dati in una copia. */
+    private static final int LENGTH_OFFSET = SEQUENCE_OFFSET + Integer.BYTES;
+
+    /** Posizione dei dati in una copia. */
+    private static final int DATA_OFFSET = LENGTH_OFFSET + Integer.BYTES;
+
+    /** Byte dei campi fissi dei dati, prima delle navi. */
+    private static final int FIXED_DATA_SIZE = 4 + 3 * Integer.BYTES + 2 * Long.BYTES + Short.BYTES;
+
+    /** Byte di ogni nave nei dati. */
+    private static final int SHIP_SIZE = Short.BYTES + 2;
+
+    /** Valore della difficoltá quando la partita non ne ha una. */
+    private static final int NO_DIFFICULTY = 0xFF;
+
+    /** Maschera di un valore senza segno su un byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** Maschera di un valore senza segno su due byte. */
+    private static final int SHORT_MASK = 0xFFFF;
+
+    /** Copia corrente di uno slot che non ha salvataggi integri. */
+    private static final byte NO_COPY = -1;
+
+    /** Copia corrente di uno slot non ancora controllato. */
+    private static final byte UNKNOWN_COPY = -2;
+
+    /** Difficoltá indicizzate per ordinale, copiate una volta sola. */
+    private static final CommandsState[] STATES = CommandsState.values();
+
+    /** Canale del file, tenuto aperto per force e close. */
+    private final FileChannel channel;
+
+    /** Memoria mappata del file. */
+    private final MappedByteBuffer mapped;
+
+    /** Vista di ogni copia di ogni slot, creata all'apertura per non allocare durante i salvataggi. */
+    private final ByteBuffer[] copies;
+
+    /** Copia che contiene il salvataggio piú recente di ogni slot, NO_COPY oppure UNKNOWN_COPY. */
+    private final byte[] latest;
+
+    /** Numero di slot del file. */
+    private final int slots;
+
+    /** Cardinalità massima delle righe di una partita salvata. */
+    private final int maxRows;
+
+    /** Cardinalità massima delle colonne di una partita salvata. */
+    private final int maxColumns;
+
+    /** Byte di una copia del record. */
+    private final int copySize;
+
+    /** Il costruttore mappa il file giá aperto e ne prepara le viste.
+     * @param fileChannel canale del file
+     * @param fileMapped memoria mappata del file
+     * @param slotCount numero di slot
+     * @param rows cardinalità massima delle righe
+     * @param columns cardinalità massima delle colonne */
+    private SnapshotStore(final FileChannel fileChannel, final MappedByteBuffer fileMapped, final int slotCount,
+                          final int rows, final int columns) {
+        channel = fileChannel;
+        mapped = fileMapped;
+        slots = slotCount;
+        maxRows = rows;
+        maxColumns = columns;
+        copySize = copySize(rows, columns);
+        latest = new byte[slots];
+        Arrays.fill(latest, UNKNOWN_COPY);
+        copies = new ByteBuffer[slots * COPIES];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = mapped.slice(HEADER_SIZE + i * copySize, copySize);
+        }
+    }
+
+    /** Metodo che apre l'archivio, creando il file se non esiste.
+     * @param file percorso del file
+     * @param slotCount numero di slot, uno per partita
+     * @param rows cardinalità massima delle righe delle partite salvate, al massimo 255
+     * @param columns cardinalità massima delle colonne delle partite salvate, al massimo 255
+     * @return l'archivio aperto
+     * @throws IOException se il file non puó essere aperto oppure esiste con una geometria diversa */
+    public static SnapshotStore open(final Path file, final int slotCount, final int rows, final int columns)
+            throws IOException {
+        if (slotCount < 1 || rows < 1 || columns < 1 || rows > BYTE_MASK || columns > BYTE_MASK) {
+            throw new IllegalArgumentException("Geometria dell'archivio non valida");
+        }
+        long size = HEADER_SIZE + (long) slotCount * COPIES * copySize(rows, columns);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Archivio troppo grande: " + size + " byte");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (!created && channel.size() != size) {
+                throw new IOException("Il file " + file + " ha una dimensione inattesa");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (created) {
+                mapped.putInt(0, MAGIC).putInt(Integer.BYTES, slotCount).put(2 * Integer.BYTES, (byte) rows)
+                        .put(2 * Integer.BYTES + 1, (byte) columns);
+            } else if (mapped.getInt(0) != MAGIC || mapped.getInt(Integer.BYTES) != slotCount
+                    || (mapped.get(2 * Integer.BYTES) & BYTE_MASK) != rows
+                    || (mapped.get(2 * Integer.BYTES + 1) & BYTE_MASK) != columns) {
+                throw new IOException("Il file " + file + " non é un archivio con la geometria richiesta");
+            }
+            return new SnapshotStore(channel, mapped, slotCount, rows, columns);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Metodo che salva una partita nel suo slot, sovrascrivendo la copia meno recente.
+     * @param slot indice dello slot
+     * @param session partita da salvare
+     * @param difficulty difficoltá della partita, null se non ne ha una
+     * @throws IllegalArgumentException se la partita é piú grande della geometria dell'archivio */
+    public void save(final int slot, final GameSession session, final CommandsState difficulty) {
+        Grid enemy = session.getEnemyGrid();
+        ShipRegistry ships = enemy.getShips();
+        int rows = session.getRowLength();
+        int columns = session.getColumnLength();
+        if (rows > maxRows || columns > maxColumns || ships.getShipCount() > MAX_SHIPS) {
+            throw new IllegalArgumentException("La partita non entra in uno slot dell'archivio");
+        }
+
+        int current = currentCopy(slot);
+        int target = current == 0 ? 1 : 0;
+        ByteBuffer copy = copies[slot * COPIES + target];
+        int sequence = current == NO_COPY ? 1 : copies[slot * COPIES + current].getInt(SEQUENCE_OFFSET) + 1;
+
+        //La copia viene invalidata prima di essere riscritta, cosí un salvataggio interrotto non puó sembrare
+        //piú recente di quello integro conservato nell'altra copia
+        copy.putInt(SEQUENCE_OFFSET, 0);
+        copy.position(DATA_OFFSET);
+        copy.put((byte) rows).put((byte) columns)
+                .put((byte) (difficulty == null ? NO_DIFFICULTY : difficulty.ordinal()))
+                .put((byte) ships.getShipCount()).putLong(session.getId())
+                .putInt(session.getMaxFailures()).putInt(session.getFailures()).putInt(session.getShots())
+                .putLong(session.getRemainingNanos()).putShort((short) session.getLastSunkShip());
+        for (int ship = 0; ship < ships.getShipCount(); ship++) {
+            copy.putShort((short) (ships.getShipRow(ship) * columns + ships.getShipColumn(ship)))
+                    .put((byte) ships.getShipLength(ship)).put((byte) ships.getShipDirection(ship));
+        }
+        enemy.writeCells(copy);
+        session.getPlayerGrid().writeCells(copy);
+
+        copy.putInt(LENGTH_OFFSET, copy.position() - DATA_OFFSET);
+        copy.putInt(SEQUENCE_OFFSET, sequence == 0 ? 1 : sequence);
+        copy.putInt(0, checksum(copy, copy.position()));
+        latest[slot] = (byte) target;
+    }
+
+    /** Metodo che svuota uno slot, ad esempio quando la sua partita finisce.
+     * @param slot indice dello slot */
+    public void clear(final int slot) {
+        for (int i = 0; i < COPIES; i++) {
+            copies[slot * COPIES + i].putInt(SEQUENCE_OFFSET, 0);
+        }
+        latest[slot] = NO_COPY;
+    }
+
+    /** Metodo che ricrea la partita salvata in uno slot, usando la copia valida piú recente.
+     * @param slot indice dello slot
+     * @return la partita salvata, null se lo slot é vuoto oppure nessuna delle due copie é integra */
+    public SavedGame load(final int slot) {
+        int current = newestValidCopy(slot);
+        latest[slot] = (byte) current;
+        if (current < 0) {
+            return null;
+        }
+        SavedGame game = decode(copies[slot * COPIES + current]);
+        int other = slot * COPIES + 1 - current;
+        if (game == null && isValid(copies[other])) {
+            game = decode(copies[other]);
+        }
+        return game;
+    }
+
+    /** Metodo che ricrea le partite di tutti gli slot, ad esempio all'avvio.
+     * @return un array con la partita di ogni slot, null per gli slot vuoti o danneggiati */
+    public SavedGame[] loadAll() {
+        SavedGame[] games = new SavedGame[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            games[slot] = load(slot);
+        }
+        return games;
+    }
+
+    /** Metodo che forza la scrittura su disco dei salvataggi, per non perderli neanche se la macchina si spegne. */
+    public void force() {
+        mapped.force();
+    }
+
+    /** Metodo che ritorna il numero di slot dell'archivio.
+     * @return il numero di slot */
+    public int getSlotCount() {
+        return slots;
+    }
+
+    /** Chiude il file dopo averne forzato la scrittura; la memoria mappata viene rilasciata dalla JVM quando non
+     * é piú raggiungibile, quindi l'archivio non va piú usato.
+     * @throws IOException se il file non puó essere chiuso */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /** Ritorna la copia che contiene il salvataggio piú recente di uno slot, controllandone l'integritá solo la
+     * prima volta che lo slot viene usato.
+     * @param slot indice dello slot
+     * @return l'indice della copia nello slot, NO_COPY se lo slot non ha salvataggi integri */
+    private int currentCopy(final int slot) {
+        if (latest[slot] == UNKNOWN_COPY) {
+            latest[slot] = (byte) newestValidCopy(slot);
+        }
+        return latest[slot];
+    }
+
+    /** Cerca la copia integra piú recente di uno slot.
+     * @param slot indice dello slot
+     * @return l'indice della copia nello slot, NO_COPY se nessuna copia é integra */
+    private int newestValidCopy(final int slot) {
+        ByteBuffer first = copies[slot * COPIES];
+        ByteBuffer second = copies[slot * COPIES + 1];
+        boolean firstValid = isValid(first);
+        boolean secondValid = isValid(second);
+        if (firstValid && secondValid) {
+            return Integer.compareUnsigned(first.getInt(SEQUENCE_OFFSET), second.getInt(SEQUENCE_OFFSET)) > 0 ? 0 : 1;
+        } else if (firstValid || secondValid) {
+            return firstValid ? 0 : 1;
+        }
+        return NO_COPY;
+    }
+
+    /** Calcola i byte di una copia del record per la geometria indicata, allineati ad ALIGNMENT.
+     * @param rows cardinalità massima delle righe
+     * @param columns cardinalità massima delle colonne
+     * @return i byte della copia */
+    private static int copySize(final int rows, final int columns) {
+        int size = DATA_OFFSET + FIXED_DATA_SIZE + MAX_SHIPS * SHIP_SIZE + 2 * BitboardStorage.bitsSize(rows, columns);
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /** Calcola il CRC32C di una copia, dal numero di sequenza alla fine dei dati.
+     * @param copy vista della copia
+     * @param end posizione della fine dei dati
+     * @return il CRC32C */
+    private static int checksum(final ByteBuffer copy, final int end) {
+        CRC32C crc = new CRC32C();
+        copy.limit(end).position(SEQUENCE_OFFSET);
+        crc.update(copy);
+        copy.limit(copy.capacity());
+        return (int) crc.getValue();
+    }
+
+    /** Controlla che una copia non sia vuota e che il suo CRC32C corrisponda ai dati.
+     * @param copy vista della copia
+     * @return vero se la copia é integra */
+    private boolean isValid(final ByteBuffer copy) {
+        int length = copy.getInt(LENGTH_OFFSET);
+        if (copy.getInt(SEQUENCE_OFFSET) == 0 || length < FIXED_DATA_SIZE || length > copySize - DATA_OFFSET) {
+            return false;
+        }
+        return copy.getInt(0) == checksum(copy, DATA_OFFSET + length);
+    }
+
+    /** Ricrea la partita di una copia integra.
+     * @param copy vista della copia
+     * @return la partita salvata, null se i dati non descrivono una partita valida */
+    private SavedGame decode(final ByteBuffer copy) {
+        copy.position(DATA_OFFSET);
+        int rows = copy.get() & BYTE_MASK;
+        int columns = copy.get() & BYTE_MASK;
+        int difficulty = copy.get() & BYTE_MASK;
+        int shipCount = copy.get() & BYTE_MASK;
+        long id = copy.getLong();
+        int maxFailures = copy.getInt();
+        int failures = copy.getInt();
+        int shots = copy.getInt();
+        long remaining = copy.getLong();
+        int lastSunk = copy.getShort();
+        int shipsAt = copy.position();
+        if (rows < 1 || columns < 1 || rows > maxRows || columns > maxColumns || shipCount > MAX_SHIPS
+                || difficulty != NO_DIFFICULTY && difficulty >= STATES.length || lastSunk >= shipCount
+                || copy.getInt(LENGTH_OFFSET) != shipsAt - DATA_OFFSET + shipCount * SHIP_SIZE
+                        + 2 * BitboardStorage.bitsSize(rows, columns)) {
+            return null;
+        }
+
+        Grid enemy = new Grid(rows, columns);
+        Grid player = new Grid(rows, columns);
+        try {
+            copy.position(shipsAt + shipCount * SHIP_SIZE);
+            enemy.readCells(copy);
+            player.readCells(copy);
+            for (int ship = 0; ship < shipCount; ship++) {
+                int at = shipsAt + ship * SHIP_SIZE;
+                int cell = copy.getShort(at) & SHORT_MASK;
+                enemy.registerShip(cell / columns, cell % columns, copy.get(at + Short.BYTES) & BYTE_MASK,
+                        copy.get(at + Short.BYTES + 1) & BYTE_MASK);
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        GameSession session = GameSession.restore(id, enemy, player, maxFailures, failures, shots,
+                lastSunk < 0 ? ShipRegistry.NO_SHIP : lastSunk, remaining);
+        return new SavedGame(session, difficulty == NO_DIFFICULTY ? null : STATES[difficulty]);
+    }
+
+    /** Partita letta dall'archivio, con la difficoltá con cui era stata salvata. */
+    public static final class SavedGame {
+
+        /** Partita ricreata. */
+        private final GameSession session;
+
+        /** Difficoltá della partita, null se non ne aveva una. */
+        private final CommandsState difficulty;
+
+        /** Il costruttore conserva la partita e la sua difficoltá.
+         * @param savedSession partita ricreata
+         * @param savedDifficulty difficoltá della partita */
+        SavedGame(final GameSession savedSession, final CommandsState savedDifficulty) {
+            session = savedSession;
+            difficulty = savedDifficulty;
+        }
+
+        /** Metodo di accesso a session.
+         * @return la partita ricreata */
+        public GameSession getSession() {
+            return session;
+        }
+
+        /** Metodo di accesso a difficulty.
+         * @return la difficoltá della partita, null se non ne aveva una */
+        public CommandsState getDifficulty() {
+            return difficulty;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package grid;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/** {@literal <<Entity>>}
+ * Implementazione di GridStorage che conserva le celle in un unico array di long (bitboard).
+ * La griglia viene linearizzata riga per riga, quindi la cella (riga, colonna) corrisponde al bit
+ * riga * colonne + colonna. Per ognuno degli stati nave, colpita, vuoto e affondata viene mantenuto
+ * un piano di bit all'interno dello stesso array; la cella vuota é rappresentata dall'assenza
+ * di bit accesi in tutti i piani. I piani sono intercalati: i quattro long che descrivono le stesse
+ * 64 celle sono adiacenti, cosí la lettura di una cella tocca sempre una sola linea di cache.
+ * In questo modo una griglia 26x26 occupa 4 * 11 long (352 byte) invece delle 26 righe di caratteri
+ * della matrice. Lo stesso array, copiato cosí com'é, é il formato di writeBits e readBits, usato per inviare
+ * o salvare una griglia; i metodi statici writeBits e readBits lo producono a partire da qualsiasi storage. */
+public final class BitboardStorage implements GridStorage {
+
+    /** Numero di piani memorizzati: tutti gli stati tranne la cella vuota. */
+    private static final int PLANES = CellState.STATES - 1;
+
+    /** Logaritmo in base due del numero di bit di un long. */
+    private static final int WORD_SHIFT = 6;
+
+    /** Array che contiene tutti i piani di bit, intercalati a gruppi di PLANES long. */
+    private final long[] bits;
+
+    /** Attributo che definisce la cardinalità delle righe. */
+    private final int dimRow;
+
+    /** Attributo che definisce la cardinalità delle colonne. */
+    private final int dimColumn;
+
+    /** Numero di celle per ogni stato, indicizzato secondo CellState. */
+    private final int[] counts = new int[CellState.STATES];
+
+    /** Il costruttore alloca i piani di bit, inizialmente tutti vuoti.
+     * @param fixedDimRow cardinalità delle righe
+     * @param fixedDimColumn cardinalità delle colonne */
+    public BitboardStorage(final int fixedDimRow, final int fixedDimColumn) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        bits = new long[PLANES * wordCount(fixedDimRow * fixedDimColumn)];
+        counts[CellState.EMPTY_INDEX] = fixedDimRow * fixedDimColumn;
+    }
+
+    /** Metodo che ritorna quanti byte occupano le celle di una griglia nel formato di writeBits.
+     * @param rows cardinalità delle righe
+     * @param columns cardinalità delle colonne
+     * @return il numero di byte */
+    public static int bitsSize(final int rows, final int columns) {
+        return PLANES * wordCount(rows * columns) * Long.BYTES;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public char get(final int rowPos, final int columnPos) {
+        int cell = toCell(rowPos, columnPos);
+        return CellState.toChar(stateOf(cell));
+    }
+
+    /** Metodo che ritorna l'indice dello stato di una cella già validata.
+     * @param cell indice lineare della cella
+     * @return l'indice dello stato secondo CellState */
+    private int stateOf(final int cell) {
+        int base = (cell >>> WORD_SHIFT) * PLANES;
+
+        //Al massimo un piano ha il bit acceso, quindi la somma pesata restituisce direttamente l'indice
+        int state = (int) (bits[base] >>> cell & 1L) * CellState.SHIP_INDEX
+                + (int) (bits[base + 1] >>> cell & 1L) * CellState.HIT_INDEX
+                + (int) (bits[base + 2] >>> cell & 1L) * CellState.MISS_INDEX
+                + (int) (bits[base + PLANES - 1] >>> cell & 1L) * CellState.SUNK_INDEX;
+        return state;
+    }
+
+    /** {@inheritDoc}
+     * @throws IllegalArgumentException se il carattere non é uno degli stati definiti in CellState */
+    @Override
+    public void set(final int rowPos, final int columnPos, final char value) {
+        int state = CellState.toIndex(value);
+        if (state < 0) {
+            throw new IllegalArgumentException("Carattere di cella non supportato: " + value);
+        }
+
+        int cell = toCell(rowPos, columnPos);
+        int base = (cell >>> WORD_SHIFT) * PLANES;
+        long mask = 1L << cell;
+        counts[stateOf(cell)]--;
+        counts[state]++;
+
+        bits[base] &= ~mask;
+        bits[base + 1] &= ~mask;
+        bits[base + 2] &= ~mask;
+        bits[base + PLANES - 1] &= ~mask;
+        if (state != CellState.EMPTY_INDEX) {
+            bits[base + state - 1] |= mask;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        Arrays.fill(bits, 0L);
+        Arrays.fill(counts, 0);
+        counts[CellState.EMPTY_INDEX] = dimRow * dimColumn;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int count(final char value) {
+        int state = CellState.toIndex(value);
+        return state < 0 ? 0 : counts[state];
+    }
+
+    /** {@inheritDoc}
+     * L'array dei piani viene copiato nel buffer con una sola operazione. */
+    @Override
+    public void writeBits(final ByteBuffer out) {
+        out.asLongBuffer().put(bits);
+        out.position(out.position() + bits.length * Long.BYTES);
+    }
+
+    /** {@inheritDoc}
+     * L'array dei piani viene letto dal buffer con una sola operazione, poi i conteggi vengono ricalcolati. */
+    @Override
+    public void readBits(final ByteBuffer in) {
+        in.asLongBuffer().get(bits);
+        in.position(in.position() + bits.length * Long.BYTES);
+
+        Arrays.fill(counts, 0);
+        int cells = dimRow * dimColumn;
+        for (int base = 0; base < bits.length; base += PLANES) {
+            long padding = base + PLANES == bits.length ? ~lastWordMask(cells) : 0L;
+            if (!isValidGroup(bits, base, padding)) {
+                reset();
+                throw new IllegalArgumentException("Piani di bit non validi");
+            }
+            for (int plane = 0; plane < PLANES; plane++) {
+                counts[plane + 1] += Long.bitCount(bits[base + plane]);
+            }
+        }
+        counts[CellState.EMPTY_INDEX] = cells - counts[CellState.SHIP_INDEX] - counts[CellState.HIT_INDEX]
+                - counts[CellState.MISS_INDEX] - counts[CellState.SUNK_INDEX];
+    }
+
+    /** Metodo che scrive le celle di uno storage qualsiasi nel formato di writeBits.
+     * @param storage storage da scrivere
+     * @param out buffer in cui scrivere, a partire dalla sua posizione */
+    static void writeBits(final GridStorage storage, final ByteBuffer out) {
+        int columns = storage.getColumnLength();
+        int cells = storage.getRowLength() * columns;
+        long[] group = new long[PLANES];
+
+        for (int first = 0; first < cells; first += Long.SIZE) {
+            Arrays.fill(group, 0L);
+            for (int cell = first; cell < Math.min(cells, first + Long.SIZE); cell++) {
+                int state = CellState.toIndex(storage.get(cell / columns, cell % columns));
+                if (state > CellState.EMPTY_INDEX) {
+                    group[state - 1] |= 1L << cell;
+                }
+            }
+            for (long word : group) {
+                out.putLong(word);
+            }
+        }
+    }
+
+    /** Metodo che sostituisce le celle di uno storage qualsiasi con quelle lette nel formato di writeBits.
+     * @param storage storage da riempire
+     * @param in buffer da cui leggere, a partire dalla sua posizione */
+    static void readBits(final GridStorage storage, final ByteBuffer in) {
+        int columns = storage.getColumnLength();
+        int cells = storage.getRowLength() * columns;
+        long[] group = new long[PLANES];
+
+        for (int first = 0; first < cells; first += Long.SIZE) {
+            for (int plane = 0; plane < PLANES; plane++) {
+                group[plane] = in.getLong();
+            }
+            long padding = first + Long.SIZE >= cells ? ~lastWordMask(cells) : 0L;
+            if (!isValidGroup(group, 0, padding)) {
+                storage.reset();
+                throw new IllegalArgumentException("Piani di bit non validi");
+            }
+            for (int cell = first; cell < Math.min(cells, first + Long.SIZE); cell++) {
+                int state = CellState.EMPTY_INDEX;
+                for (int plane = 0; plane < PLANES; plane++) {
+                    if ((group[plane] >>> cell & 1L) != 0) {
+                        state = plane + 1;
+                    }
+                }
+                storage.set(cell / columns, cell % columns, CellState.toChar(state));
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowLength() {
+        return dimRow;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnLength() {
+        return dimColumn;
+    }
+
+    /** Calcola quanti long servono per un piano di bit.
+     * @param cells numero di celle della griglia
+     * @return il numero di long di un piano */
+    private static int wordCount(final int cells) {
+        return (cells + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+    /** Calcola la maschera delle celle presenti nell'ultimo long di un piano.
+     * @param cells numero di celle della griglia
+     * @return la maschera, con un bit acceso per ogni cella */
+    private static long lastWordMask(final int cells) {
+        int used = cells & (Long.SIZE - 1);
+        return used == 0 ? -1L : (1L << used) - 1;
+    }
+
+    /** Controlla che in un gruppo di piani ogni cella abbia al massimo uno stato e che i bit oltre l'ultima
+     * cella siano spenti.
+     * @param words array che contiene il gruppo
+     * @param base indice del primo piano del gruppo
+     * @param padding maschera dei bit che non corrispondono a celle
+     * @return vero se il gruppo é valido */
+    private static boolean isValidGroup(final long[] words, final int base, final long padding) {
+        long seen = 0;
+        long overlap = 0;
+        for (int plane = 0; plane < PLANES; plane++) {
+            overlap |= seen & words[base + plane];
+            seen |= words[base + plane];
+        }
+        return overlap == 0 && (seen & padding) == 0;
+    }
+
+    /** Metodo che converte riga e colonna nell'indice lineare della cella,
+     * controllando che entrambe rientrino nei limiti della griglia.
+     * @param rowPos indice della riga
+     * @param columnPos indice della colonna
+     * @return l'indice lineare della cella */
+    private int toCell(final int rowPos, final int columnPos) {
+        Objects.checkIndex(rowPos, dimRow);
+        Objects.checkIndex(columnPos, dimColumn);
+        return rowPos * dimColumn + columnPos;
+    }
+}
@@ -0,0 +1,161 @@
+package grid;
+
+import java.util.Arrays;
+
+/** {@literal <<Entity>>}
+ * Tabella che associa un intero ad alcune celle di una griglia, indicate dal loro indice lineare.
+ * Le chiavi e i valori sono conservati in due array di int con indirizzamento aperto e ispezione lineare:
+ * la posizione di partenza di una cella si ottiene moltiplicandone l'indice per la costante di Fibonacci e
+ * tenendo i bit piú alti, cosí anche le celle vicine si distribuiscono su tutta la tabella. La tabella
+ * raddoppia quando supera il fattore di carico massimo e le rimozioni spostano indietro gli elementi successivi
+ * invece di lasciare lapidi, quindi le ricerche restano brevi anche dopo molte scritture.
+ * Viene usata da SparseStorage e da ShipRegistry per le griglie molto grandi, dove una tabella grande quanto
+ * la griglia occuperebbe memoria anche per le celle vuote. */
+final class CellMap {
+
+    /** Valore ritornato per una cella senza valore associato. */
+    static final int NO_VALUE = -1;
+
+    /** Chiave che indica una posizione libera della tabella; gli indici delle celle non sono mai negativi. */
+    private static final int FREE = -1;
+
+    /** Capacitá iniziale della tabella, una potenza di due. */
+    private static final int MIN_CAPACITY = 16;
+
+    /** Costante di Fibonacci, 2^32 diviso la sezione aurea, usata per distribuire gli indici. */
+    private static final int FIBONACCI = 0x9E3779B9;
+
+    /** Chiavi della tabella, FREE nelle posizioni libere. */
+    private int[] keys;
+
+    /** Valori associati alle chiavi, nella stessa posizione. */
+    private int[] values;
+
+    /** Numero di bit da scartare dal prodotto per ottenere una posizione della tabella. */
+    private int shift;
+
+    /** Numero di celle presenti nella tabella. */
+    private int size;
+
+    /** Il costruttore crea una tabella vuota con la capacitá iniziale. */
+    CellMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /** Metodo che ritorna il valore associato ad una cella.
+     * @param cell indice lineare della cella
+     * @return il valore oppure NO_VALUE se la cella non é presente */
+    int get(final int cell) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(cell); keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == cell) {
+                return values[slot];
+            }
+        }
+        return NO_VALUE;
+    }
+
+    /** Metodo che associa un valore ad una cella, sostituendo quello eventualmente presente.
+     * @param cell indice lineare della cella, non negativo
+     * @param value valore da associare
+     * @return il valore precedente oppure NO_VALUE se la cella non era presente */
+    int put(final int cell, final int value) {
+        int mask = keys.length - 1;
+        int slot = slotOf(cell);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == cell) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = cell;
+        values[slot] = value;
+
+        //Il fattore di carico resta al massimo 1/2, cosí le sequenze da ispezionare restano corte
+        if (++size > keys.length >>> 1) {
+            grow();
+        }
+        return NO_VALUE;
+    }
+
+    /** Metodo che rimuove una cella dalla tabella, spostando indietro gli elementi che la seguono nella
+     * stessa sequenza perché restino raggiungibili.
+     * @param cell indice lineare della cella
+     * @return il valore rimosso oppure NO_VALUE se la cella non era presente */
+    int remove(final int cell) {
+        int mask = keys.length - 1;
+        int slot = slotOf(cell);
+        while (keys[slot] != cell) {
+            if (keys[slot] == FREE) {
+                return NO_VALUE;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int previous = values[slot];
+        size--;
+
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            //Un elemento puó riempire il buco solo se la sua posizione di partenza non sta tra il buco e lui
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        return previous;
+    }
+
+    /** Metodo che ritorna il numero di celle presenti.
+     * @return il numero di celle */
+    int size() {
+        return size;
+    }
+
+    /** Metodo che rimuove tutte le celle, mantenendo la capacitá raggiunta. */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+    }
+
+    /** Calcola la posizione di partenza di una cella.
+     * @param cell indice lineare della cella
+     * @return la posizione nella tabella */
+    private int slotOf(final int cell) {
+        return (cell * FIBONACCI) >>> shift;
+    }
+
+    /** Alloca una tabella vuota.
+     * @param capacity capacitá della tabella, una potenza di due */
+    private void allocate(final int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    /** Raddoppia la tabella reinserendo tutte le celle presenti. */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slotOf(oldKeys[i]);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package grid;
+
+/** {@literal <<Entity>>}
+ * Classe che raccoglie i caratteri utilizzati nelle celle della griglia di gioco.
+ * La classe CellState definisce in un unico punto i cinque stati che una cella puó assumere:
+ * il mare vuoto '-', la nave 'S', la nave colpita '$', il colpo a vuoto 'O' e la nave affondata 'X'.
+ * Oltre ai caratteri, la classe associa ad ogni stato un indice numerico compatto che viene utilizzato
+ * dalle implementazioni di GridStorage per conservare le celle senza dover memorizzare il carattere stesso. */
+public final class CellState {
+
+    /** Carattere che rappresenta una cella vuota (mare). */
+    public static final char EMPTY = '-';
+
+    /** Carattere che rappresenta una cella occupata da una nave. */
+    public static final char SHIP = 'S';
+
+    /** Carattere che rappresenta una cella di una nave colpita ma non ancora affondata. */
+    public static final char HIT = '$';
+
+    /** Carattere che rappresenta un colpo a vuoto. */
+    public static final char MISS = 'O';
+
+    /** Carattere che rappresenta una cella di una nave affondata. */
+    public static final char SUNK = 'X';
+
+    /** Indice associato alla cella vuota. */
+    public static final int EMPTY_INDEX = 0;
+
+    /** Indice associato alla nave. */
+    public static final int SHIP_INDEX = 1;
+
+    /** Indice associato alla nave colpita. */
+    public static final int HIT_INDEX = 2;
+
+    /** Indice associato al colpo a vuoto. */
+    public static final int MISS_INDEX = 3;
+
+    /** Indice associato alla nave affondata. */
+    public static final int SUNK_INDEX = 4;
+
+    /** Numero di stati che una cella puó assumere. */
+    public static final int STATES = 5;
+
+    /** Caratteri degli stati ordinati secondo il loro indice. */
+    private static final char[] VALUES = {EMPTY, SHIP, HIT, MISS, SUNK};
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private CellState() { }
+
+    /** Metodo che converte il carattere di una cella nel suo indice compatto.
+     * @param value carattere della cella
+     * @return l'indice dello stato, oppure -1 se il carattere non rappresenta uno stato valido */
+    public static int toIndex(final char value) {
+        return switch (value) {
+            case EMPTY -> EMPTY_INDEX;
+            case SHIP -> SHIP_INDEX;
+            case HIT -> HIT_INDEX;
+            case MISS -> MISS_INDEX;
+            case SUNK -> SUNK_INDEX;
+            default -> -1;
+        };
+    }
+
+    /** Metodo che converte l'indice compatto di uno stato nel carattere della cella.
+     * @param index indice dello stato
+     * @return il carattere associato allo stato */
+    public static char toChar(final int index) {
+        return VALUES[index];
+    }
+}
@@ -0,0 +1,92 @@
+package grid;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** {@literal <<Entity>>}
+ * Implementazione di GridStorage basata su una matrice a due dimensioni di caratteri.
+ * É la rappresentazione storica della griglia di gioco: ogni cella occupa un carattere (2 byte)
+ * e ogni riga é un array separato. Viene mantenuta come termine di paragone per BitboardStorage
+ * e per chi preferisce una rappresentazione semplice da ispezionare. */
+public final class CharMatrixStorage implements GridStorage {
+
+    /** La griglia é una matrice a due dimensioni di caratteri. */
+    private final char[][] cells;
+
+    /** Attributo che definisce la cardinalità delle colonne. */
+    private final int dimColumn;
+
+    /** Numero di celle per ogni stato, indicizzato secondo CellState. */
+    private final int[] counts = new int[CellState.STATES];
+
+    /** Il costruttore crea la matrice e la riempie con il carattere della cella vuota.
+     * @param fixedDimRow cardinalità delle righe
+     * @param fixedDimColumn cardinalità delle colonne */
+    public CharMatrixStorage(final int fixedDimRow, final int fixedDimColumn) {
+        cells = new char[fixedDimRow][fixedDimColumn];
+        dimColumn = fixedDimColumn;
+        reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public char get(final int rowPos, final int columnPos) {
+        return cells[rowPos][columnPos];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void set(final int rowPos, final int columnPos, final char value) {
+        int previous = CellState.toIndex(cells[rowPos][columnPos]);
+        int state = CellState.toIndex(value);
+        cells[rowPos][columnPos] = value;
+
+        if (previous >= 0) {
+            counts[previous]--;
+        }
+        if (state >= 0) {
+            counts[state]++;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        for (char[] row : cells) {
+            Arrays.fill(row, CellState.EMPTY);
+        }
+        Arrays.fill(counts, 0);
+        counts[CellState.EMPTY_INDEX] = cells.length * dimColumn;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int count(final char value) {
+        int state = CellState.toIndex(value);
+        return state < 0 ? 0 : counts[state];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeBits(final ByteBuffer out) {
+        BitboardStorage.writeBits(this, out);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void readBits(final ByteBuffer in) {
+        BitboardStorage.readBits(this, in);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowLength() {
+        return cells.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnLength() {
+        return dimColumn;
+    }
+}
@@ -0,0 +1,174 @@
+package grid;
+
+import java.util.Arrays;
+
+/** {@literal <<Entity>>}
+ * Riassunto degli attacchi ricevuti da una griglia grande, diviso in blocchi rettangolari di celle.
+ * La griglia viene divisa in al massimo MAX_ROWS x MAX_COLUMNS blocchi, tutti della stessa dimensione tranne
+ * quelli dell'ultima riga e dell'ultima colonna, e per ogni blocco vengono contate le celle attaccate (colpite,
+ * mancate o affondate) e quelle colpite o affondate. I contatori vengono aggiornati da Grid ad ogni scrittura,
+ * insieme alla posizione dell'ultima cella attaccata, quindi la minimappa di GridRenderer e il Viewport che
+ * segue gli attacchi non devono mai scorrere la griglia: il loro costo dipende dal numero di blocchi e non
+ * dalle dimensioni della griglia. */
+final class DensityMap {
+
+    /** Numero massimo di righe di blocchi. */
+    static final int MAX_ROWS = 16;
+
+    /** Numero massimo di colonne di blocchi, il doppio delle righe perché un carattere é alto circa il doppio
+     * della sua larghezza. */
+    static final int MAX_COLUMNS = 32;
+
+    /** Righe di celle di ogni blocco. */
+    private final int blockRows;
+
+    /** Colonne di celle di ogni blocco. */
+    private final int blockColumns;
+
+    /** Numero di righe di blocchi. */
+    private final int rows;
+
+    /** Numero di colonne di blocchi. */
+    private final int columns;
+
+    /** Celle attaccate di ogni blocco, riga per riga. */
+    private final int[] attacked;
+
+    /** Celle colpite o affondate di ogni blocco, riga per riga. */
+    private final int[] hits;
+
+    /** Numero di celle che sono passate da non attaccate ad attaccate dall'ultima pulizia. */
+    private long attacks;
+
+    /** Riga dell'ultima cella attaccata, -1 se nessuna cella é stata attaccata. */
+    private int lastRow = -1;
+
+    /** Colonna dell'ultima cella attaccata, -1 se nessuna cella é stata attaccata. */
+    private int lastColumn = -1;
+
+    /** Il costruttore divide in blocchi una griglia delle dimensioni indicate.
+     * @param dimRow cardinalità delle righe della griglia
+     * @param dimColumn cardinalità delle colonne della griglia */
+    DensityMap(final int dimRow, final int dimColumn) {
+        blockRows = (dimRow + MAX_ROWS - 1) / MAX_ROWS;
+        blockColumns = (dimColumn + MAX_COLUMNS - 1) / MAX_COLUMNS;
+        rows = rowsFor(dimRow);
+        columns = (dimColumn + blockColumns - 1) / blockColumns;
+        attacked = new int[rows * columns];
+        hits = new int[rows * columns];
+    }
+
+    /** Metodo che calcola il numero di righe di blocchi di una griglia, cioé le righe della sua minimappa.
+     * @param dimRow cardinalità delle righe della griglia
+     * @return il numero di righe di blocchi */
+    static int rowsFor(final int dimRow) {
+        int blockRows = (dimRow + MAX_ROWS - 1) / MAX_ROWS;
+        return (dimRow + blockRows - 1) / blockRows;
+    }
+
+    /** Metodo richiamato da Grid ad ogni scrittura di una cella.
+     * @param row riga della cella
+     * @param column colonna della cella
+     * @param previous carattere presente prima della scrittura
+     * @param value carattere scritto */
+    void onChange(final int row, final int column, final char previous, final char value) {
+        int wasAttacked = isAttacked(previous) ? 1 : 0;
+        int isAttacked = isAttacked(value) ? 1 : 0;
+        int wasHit = isHit(previous) ? 1 : 0;
+        int isHit = isHit(value) ? 1 : 0;
+        if (wasAttacked == isAttacked && wasHit == isHit) {
+            return;
+        }
+
+        int block = row / blockRows * columns + column / blockColumns;
+        attacked[block] += isAttacked - wasAttacked;
+        hits[block] += isHit - wasHit;
+        if (isAttacked > wasAttacked) {
+            attacks++;
+            lastRow = row;
+            lastColumn = column;
+        }
+    }
+
+    /** Metodo che azzera i contatori, richiamato quando la griglia viene svuotata. */
+    void clear() {
+        Arrays.fill(attacked, 0);
+        Arrays.fill(hits, 0);
+        attacks = 0;
+        lastRow = -1;
+        lastColumn = -1;
+    }
+
+    /** Metodo che ritorna le celle attaccate di un blocco.
+     * @param row riga del blocco
+     * @param column colonna del blocco
+     * @return il numero di celle colpite, mancate o affondate */
+    int getAttacked(final int row, final int column) {
+        return attacked[row * columns + column];
+    }
+
+    /** Metodo che ritorna le celle colpite o affondate di un blocco.
+     * @param row riga del blocco
+     * @param column colonna del blocco
+     * @return il numero di celle colpite o affondate */
+    int getHits(final int row, final int column) {
+        return hits[row * columns + column];
+    }
+
+    /** Metodo che ritorna il numero di righe di blocchi.
+     * @return il numero di righe */
+    int getRows() {
+        return rows;
+    }
+
+    /** Metodo che ritorna il numero di colonne di blocchi.
+     * @return il numero di colonne */
+    int getColumns() {
+        return columns;
+    }
+
+    /** Metodo che ritorna le righe di celle di ogni blocco.
+     * @return le righe di un blocco */
+    int getBlockRows() {
+        return blockRows;
+    }
+
+    /** Metodo che ritorna le colonne di celle di ogni blocco.
+     * @return le colonne di un blocco */
+    int getBlockColumns() {
+        return blockColumns;
+    }
+
+    /** Metodo che ritorna quante celle sono state attaccate dall'ultima pulizia, per sapere se c'é un nuovo
+     * attacco senza confrontare le posizioni.
+     * @return il numero di attacchi */
+    long getAttacks() {
+        return attacks;
+    }
+
+    /** Metodo che ritorna la riga dell'ultima cella attaccata.
+     * @return la riga, -1 se nessuna cella é stata attaccata */
+    int getLastRow() {
+        return lastRow;
+    }
+
+    /** Metodo che ritorna la colonna dell'ultima cella attaccata.
+     * @return la colonna, -1 se nessuna cella é stata attaccata */
+    int getLastColumn() {
+        return lastColumn;
+    }
+
+    /** Controlla se un carattere indica una cella attaccata.
+     * @param value carattere della cella
+     * @return vero per le celle colpite, mancate o affondate */
+    private static boolean isAttacked(final char value) {
+        return value == CellState.HIT || value == CellState.MISS || value == CellState.SUNK;
+    }
+
+    /** Controlla se un carattere indica una cella colpita.
+     * @param value carattere della cella
+     * @return vero per le celle colpite o affondate */
+    private static boolean isHit(final char value) {
+        return value == CellState.HIT || value == CellState.SUNK;
+    }
+}
@@ -1,20 +1,50 @@
 package grid;
 
-import utility.UtilityTools;
+import java.nio.ByteBuffer;
+
+import utility.LatencyHistogram;
 
 /** {@literal <<Entity>>}
  * La classe Grid permette la creazione e la visualizzazione della griglia sulla quale andra giocata la partita.
  * La classe Grid è responsabile della creazione e della visualizzazione di una griglia di gioco.
- * Essa contiene un array bidimensionale di caratteri (char) che rappresenta la griglia stessa.
+ * Le celle della griglia sono conservate da un GridStorage (di default una BitboardStorage, oppure una
+ * SparseStorage per le griglie con piú di SPARSE_THRESHOLD celle),
+ * ma vengono sempre lette e scritte come caratteri (char) attraverso getGridValue e setGridValue.
  * La classe fornisce metodi per accedere e modificare i valori delle singole celle della griglia,
  * nonché per reimpostare la griglia a un valore predefinito. Inoltre, la classe offre due metodi per
  * la stampa della griglia a schermo, uno che visualizza tutti i valori delle celle e un altro che nasconde
- * le celle contenenti il carattere 'O'. In generale, la classe Grid fornisce un'interfaccia per la gestione
- * della griglia di gioco all'interno di un'applicazione. */
+ * le celle contenenti il carattere 'O', e il tempo di ogni stampa viene registrato in un istogramma condiviso,
+ * letto dalle metriche del gioco. La stampa usa sempre lo stesso Viewport, grande quanto il terminale; le griglie
+ * piú grandi di questa finestra o di un Viewport di default tengono anche un riassunto a blocchi degli attacchi
+ * (DensityMap) e vengono stampate come una finestra attorno all'ultimo attacco seguita dalla minimappa, cosí il
+ * costo della stampa non dipende dalle dimensioni della griglia. In generale, la classe
+ * Grid fornisce un'interfaccia per la gestione della griglia di gioco all'interno di un'applicazione. */
 public class Grid {
 
-    /** La griglia é una matrice a due dimensioni di caratteri. */
-    private char[][] grid;
+    /** Numero di celle oltre il quale la griglia conserva solo le celle non vuote in una SparseStorage:
+     * una griglia 256x256 occupa 32 kilobyte di piani di bit, quelle piú grandi crescono con il quadrato
+     * del lato anche se quasi tutte le celle restano vuote. */
+    public static final int SPARSE_THRESHOLD = 1 << 16;
+
+    /** Renderer usato dalla stampa della griglia, uno per ogni thread per poterne riutilizzare i buffer. */
+    private static final ThreadLocal<GridRenderer> RENDERER = ThreadLocal.withInitial(GridRenderer::new);
+
+    /** Tempi di stampa di printGrid e printGridWithoutMiss, in nanosecondi. */
+    private static final LatencyHistogram RENDER_TIMES = new LatencyHistogram();
+
+    /** Le celle della griglia sono conservate da un'implementazione di GridStorage. */
+    private GridStorage storage;
+
+    /** Registro delle navi piazzate sulla griglia, condiviso tra le copie della griglia. */
+    private ShipRegistry ships;
+
+    /** Riassunto a blocchi degli attacchi, condiviso tra le copie della griglia; null se la griglia entra sia
+     * in un Viewport di default sia nella finestra di stampa. */
+    private DensityMap density;
+
+    /** Finestra usata da printGrid, printGridWithoutMiss e ScreenModel, grande quanto il terminale e condivisa
+     * tra le copie della griglia. */
+    private Viewport viewport;
 
     /** Attributo che definisce la cardinalità delle righe della griglia. */
     private int dimRow;
@@ -23,56 +53,173 @@ public class Grid {
     private int dimColumn;
 
     /** Il costruttore definisce la cardinalità delle righe e delle colonne della griglia
-     * e inizializza la griglia inserendo in ogni cella il carattere '-' associato alla cella vuota
-     * richiamando il metodo resetGrid.
+     * e inizializza la griglia inserendo in ogni cella il carattere '-' associato alla cella vuota.
+     * Le celle vengono conservate in una BitboardStorage, oppure in una SparseStorage se la griglia ha piú di
+     * SPARSE_THRESHOLD celle.
      * @param fixedDimRow cardinalità delle righe della griglia
      * @param fixedDimColumn cardinalità delle colonne della griglia */
     public Grid(final int fixedDimRow, final int fixedDimColumn) {
-        grid = new char[fixedDimRow][fixedDimColumn];
-        dimRow = fixedDimRow;
-        dimColumn = fixedDimColumn;
+        this(fixedDimRow * fixedDimColumn > SPARSE_THRESHOLD
+                ? new SparseStorage(fixedDimRow, fixedDimColumn)
+                : new BitboardStorage(fixedDimRow, fixedDimColumn));
+    }
+
+    /** Il costruttore crea una griglia che conserva le proprie celle nello storage indicato,
+     * permettendo di scegliere la rappresentazione in memoria della griglia.
+     * @param gridStorage storage nel quale verranno conservate le celle */
+    public Grid(final GridStorage gridStorage) {
+        storage = gridStorage;
+        dimRow = gridStorage.getRowLength();
+        dimColumn = gridStorage.getColumnLength();
+        ships = new ShipRegistry(dimRow, dimColumn);
+        viewport = Viewport.forTerminal(dimRow, dimColumn);
+        if (dimRow > Viewport.DEFAULT_ROWS || dimColumn > Viewport.DEFAULT_COLUMNS || !viewport.covers(this)) {
+            density = new DensityMap(dimRow, dimColumn);
+        }
         resetGrid();
     }
 
     /** Questo costruttore crea un oggetto copiando le caratteristiche di un altro.
+     * Le due griglie condividono lo stesso storage e lo stesso registro delle navi.
      * (Utilizzato per esigenze di Spotbugs)
      * @param gridCopy oggetto da copiare */
     public Grid(final Grid gridCopy) {
         dimRow = gridCopy.getRowLength();
         dimColumn = gridCopy.getColumnLength();
-        grid = gridCopy.getGrid();
+        storage = gridCopy.storage;
+        ships = gridCopy.ships;
+        density = gridCopy.density;
+        viewport = gridCopy.viewport;
     }
 
-    /** Restituisce la griglia stessa, la utilizziamo per poter copiare l'oggetto griglia.
+    /** Restituisce una copia delle celle della griglia sotto forma di matrice di caratteri.
      * @return grid Griglia */
     public char[][] getGrid() {
-        return copy2DArray(grid);
-    }
+        char[][] newMatrix = new char[getRowLength()][getColumnLength()];
 
-    /** Metodo privato per la copia di un array di caratteri a 2 dimensioni.
-     * @param arrayToCopy array da copiare
-     * @return newMatrix copia dell'array
-    */
-    private char[][] copy2DArray(final char[][] arrayToCopy) {
-        char[][] newMatrix = arrayToCopy;
+        for (int i = 0; i < getRowLength(); i++) {
+            for (int j = 0; j < getColumnLength(); j++) {
+                newMatrix[i][j] = getGridValue(i, j);
+            }
+        }
         return newMatrix;
     }
 
     /** Metodo che inserisce un valore all'interno di una specifica cella della griglia di gioco.
+     * Se la cella apparteneva ad una nave registrata, la salute della nave viene aggiornata.
      * @param rowPos indice della riga sulla quale andra effettuato il metodo
      * @param columnPos indice della colonna sulla quale andra effettuato il metodo
      * @param value carattere che andra inserito nella cella alla riga rowPos e colonna columnPos */
     public void setGridValue(final int rowPos, final int columnPos, final char value) {
-        grid[rowPos][columnPos] = value;
+        char previous = storage.get(rowPos, columnPos);
+        storage.set(rowPos, columnPos, value);
+        if (density != null) {
+            density.onChange(rowPos, columnPos, previous, value);
+        }
+
+        if (previous == CellState.SHIP && value != CellState.SHIP) {
+            ships.onShipCellHit(rowPos, columnPos);
+        } else if (previous != CellState.SHIP && value == CellState.SHIP) {
+            ships.onShipCellRestored(rowPos, columnPos);
+        }
+    }
+
+    /** Metodo che ritorna quante celle della griglia contengono un determinato carattere.
+     * Il conteggio viene mantenuto dallo storage ad ogni scrittura, quindi il costo é costante.
+     * @param value carattere da contare
+     * @return il numero di celle che contengono il carattere */
+    public int countGridValue(final char value) {
+        return storage.count(value);
+    }
+
+    /** Metodo che piazza una nave scrivendo 'S' in tutte le sue celle e la aggiunge al registro delle navi.
+     * @param rowPos riga della prima cella della nave
+     * @param columnPos colonna della prima cella della nave
+     * @param length lunghezza della nave
+     * @param direction direzione della nave, ShipRegistry.HORIZONTAL o ShipRegistry.VERTICAL
+     * @return l'identificativo assegnato alla nave dal registro */
+    public int placeShip(final int rowPos, final int columnPos, final int length, final int direction) {
+        for (int i = 0; i < length; i++) {
+            if (direction == ShipRegistry.HORIZONTAL) {
+                setGridValue(rowPos, columnPos + i, CellState.SHIP);
+            } else {
+                setGridValue(rowPos + i, columnPos, CellState.SHIP);
+            }
+        }
+        return ships.addShip(rowPos, columnPos, length, direction);
+    }
+
+    /** Metodo che aggiunge al registro una nave le cui celle sono giá scritte sulla griglia, ad esempio dopo
+     * readCells; i segmenti che non contengono piú 'S' vengono segnati come colpiti.
+     * @param rowPos riga della prima cella della nave
+     * @param columnPos colonna della prima cella della nave
+     * @param length lunghezza della nave
+     * @param direction direzione della nave, ShipRegistry.HORIZONTAL o ShipRegistry.VERTICAL
+     * @return l'identificativo assegnato alla nave dal registro
+     * @throws IllegalArgumentException se la nave esce dalla griglia, si sovrappone ad un'altra nave registrata
+     * oppure copre una cella vuota o mancata */
+    public int registerShip(final int rowPos, final int columnPos, final int length, final int direction) {
+        int rowStep = direction == ShipRegistry.VERTICAL ? 1 : 0;
+        int columnStep = 1 - rowStep;
+        int lastRow = rowPos + rowStep * (length - 1);
+        int lastColumn = columnPos + columnStep * (length - 1);
+        if (length < 1 || rowPos < 0 || columnPos < 0 || lastRow >= dimRow || lastColumn >= dimColumn
+                || direction != ShipRegistry.HORIZONTAL && direction != ShipRegistry.VERTICAL) {
+            throw new IllegalArgumentException("Nave fuori dalla griglia");
+        }
+        for (int i = 0; i < length; i++) {
+            char value = storage.get(rowPos + rowStep * i, columnPos + columnStep * i);
+            if (value == CellState.EMPTY || value == CellState.MISS
+                    || ships.getShipAt(rowPos + rowStep * i, columnPos + columnStep * i) != ShipRegistry.NO_SHIP) {
+                throw new IllegalArgumentException("La nave non corrisponde alle celle della griglia");
+            }
+        }
+
+        int id = ships.addShip(rowPos, columnPos, length, direction);
+        for (int i = 0; i < length; i++) {
+            if (storage.get(rowPos + rowStep * i, columnPos + columnStep * i) != CellState.SHIP) {
+                ships.onShipCellHit(rowPos + rowStep * i, columnPos + columnStep * i);
+            }
+        }
+        return id;
+    }
+
+    /** Metodo che ritorna il registro delle navi piazzate sulla griglia.
+     * @return il registro delle navi */
+    public ShipRegistry getShips() {
+        return ships;
+    }
+
+    /** Metodo che scrive le celle della griglia nel formato a piani di bit di BitboardStorage.
+     * @param out buffer in cui scrivere BitboardStorage.bitsSize(righe, colonne) byte */
+    public void writeCells(final ByteBuffer out) {
+        storage.writeBits(out);
+    }
+
+    /** Metodo che sostituisce le celle della griglia con quelle lette nel formato di writeCells.
+     * Il registro delle navi non viene aggiornato: il metodo é pensato per le griglie che non lo usano, come la
+     * copia della griglia del giocatore tenuta da un client, oppure va seguito da registerShip per ogni nave.
+     * @param in buffer da cui leggere BitboardStorage.bitsSize(righe, colonne) byte
+     * @throws IllegalArgumentException se i byte letti non descrivono una griglia valida */
+    public void readCells(final ByteBuffer in) {
+        storage.readBits(in);
+        if (density != null) {
+            density.clear();
+            for (int i = 0; i < dimRow; i++) {
+                for (int j = 0; j < dimColumn; j++) {
+                    density.onChange(i, j, CellState.EMPTY, storage.get(i, j));
+                }
+            }
+        }
     }
 
     /** Metodo che ritorna il valore presente in una determinata cella della griglia.
      * @param rowPos indice della riga sulla quale andra effettuato il metodo
      * @param columnPos indice della colonna sulla quale andra effettuato il metodo
-     * @return grid[rowPos][columnPos] ritorna il carattere presente
+     * @return ritorna il carattere presente
      * alla griglia nella cella alla riga rowPos e colonna columnPos */
     public char getGridValue(final int rowPos, final int columnPos) {
-        return grid[rowPos][columnPos];
+        return storage.get(rowPos, columnPos);
     }
 
     /** Metodo che ritorna la cardinalità delle colonne della griglia.
@@ -87,106 +234,53 @@ public class Grid {
         return dimRow;
     }
 
-    /** Metodo che riempie ogni cella della griglia con il carattere '-'. */
+    /** Metodo che riempie ogni cella della griglia con il carattere '-' e rimuove le navi registrate. */
     public void resetGrid() {
-
-        for (int i = 0; i < getRowLength(); i++) {
-            for (int j = 0; j < getColumnLength(); j++) {
-                setGridValue(i, j, '-');
-            }
+        storage.reset();
+        ships.clear();
+        if (density != null) {
+            density.clear();
         }
     }
 
-    /** Metodo che permette la visualizzazione a schermo della griglia di gioco
-     * attraverso l'utilizzo di un primo for per la stampa delle lettere
-     * che rappresentano le colonne della griglia
-     * e due for per la stampa dei numeri che indicano le righe della griglia e
-     * dei valori presenti all'interno di ogni cella
-     * della griglia di gioco. */
+    /** Metodo che permette la visualizzazione a schermo della griglia di gioco,
+     * con le lettere che rappresentano le colonne, i numeri che indicano le righe
+     * e i valori presenti all'interno di ogni cella della griglia di gioco.
+     * Il disegno viene costruito dal GridRenderer del thread corrente e scritto con una sola chiamata; le griglie
+     * piú grandi del terminale vengono disegnate attorno all'ultima cella attaccata. */
     public void printGrid() {
-        int x;
-        char y;
-
-        final int rowCheck = 9;
-        System.out.print("   ");
-
-        for (int i = 0; i < getRowLength(); i++) {
-            x = 'A' + i;
-            y = (char) x;
-            System.out.print(UtilityTools.PURPLE + y + "  " + UtilityTools.RESET);
-        }
-
-        System.out.println();
-
-        for (int i = 0; i < getRowLength(); i++) {
-            if (i + 1 <= rowCheck) {
-                System.out.print(UtilityTools.PURPLE + (i + 1) + "  " + UtilityTools.RESET);
-            } else {
-                System.out.print(UtilityTools.PURPLE + (i + 1) + " " + UtilityTools.RESET);
-            }
-
-            for (int j = 0; j < getColumnLength(); j++) {
-                if (getGridValue(i, j) == 'S') {
-                    System.out.print(UtilityTools.GREEN + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else if (getGridValue(i, j) == '$') {
-                    System.out.print(UtilityTools.YELLOW + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else if (getGridValue(i, j) == 'X') {
-                    System.out.print(UtilityTools.RED + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else if (getGridValue(i, j) == 'O') {
-                    System.out.print(UtilityTools.CYAN + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else {
-                    System.out.print(getGridValue(i, j) + "  ");
-                }
-            }
-            System.out.println();
-        }
-        System.out.println();
+        long start = System.nanoTime();
+        RENDERER.get().print(this, true, viewport.follow(this), System.out);
+        RENDER_TIMES.record(System.nanoTime() - start);
     }
 
-    /** Metodo che permette la visualizzazione a schermo della griglia di gioco senza i O
-     * attraverso l'utilizzo di un primo for per la stampa delle lettere
-     * che rappresentano le colonne della griglia
-     * e due for per la stampa dei numeri che indicano le righe della griglia e
-     * dei valori presenti all'interno di ogni cella
-     * della griglia di gioco. */
+    /** Metodo che permette la visualizzazione a schermo della griglia di gioco senza i O,
+     * con le lettere che rappresentano le colonne, i numeri che indicano le righe
+     * e i valori presenti all'interno di ogni cella della griglia di gioco.
+     * Il disegno viene costruito dal GridRenderer del thread corrente e scritto con una sola chiamata; le griglie
+     * piú grandi del terminale vengono disegnate attorno all'ultima cella attaccata. */
     public void printGridWithoutMiss() {
-        int x;
-        char y;
-
-        final int rowCheck = 9;
-        System.out.print("   ");
-
-        for (int i = 0; i < getRowLength(); i++) {
-            x = 'A' + i;
-            y = (char) x;
-            System.out.print(UtilityTools.CYAN + y + "  " + UtilityTools.RESET);
-        }
-
-        System.out.println();
+        long start = System.nanoTime();
+        RENDERER.get().print(this, false, viewport.follow(this), System.out);
+        RENDER_TIMES.record(System.nanoTime() - start);
+    }
 
-        for (int i = 0; i < getRowLength(); i++) {
-            if (i + 1 <= rowCheck) {
-                System.out.print(UtilityTools.CYAN + (i + 1) + "  " + UtilityTools.RESET);
-            } else {
-                System.out.print(UtilityTools.CYAN + (i + 1) + " " + UtilityTools.RESET);
-            }
+    /** Metodo che ritorna la finestra usata per stampare la griglia sul terminale, da printGrid,
+     * printGridWithoutMiss e ScreenModel; chi la sposta, ad esempio con centerOn, sposta anche i loro disegni.
+     * @return la finestra, condivisa tra le copie della griglia */
+    public Viewport getViewport() {
+        return viewport;
+    }
 
-            for (int j = 0; j < getColumnLength(); j++) {
-                if (getGridValue(i, j) == 'S') {
-                    System.out.print(UtilityTools.GREEN + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else if (getGridValue(i, j) == '$') {
-                    System.out.print(UtilityTools.YELLOW + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else if (getGridValue(i, j) == 'X') {
-                    System.out.print(UtilityTools.RED + getGridValue(i, j) + UtilityTools.RESET + "  ");
-                } else if (getGridValue(i, j) == 'O') {
-                    System.out.print("-  ");
-                } else {
-                    System.out.print(getGridValue(i, j) + "  ");
-                }
-            }
-            System.out.println();
-        }
-        System.out.println();
+    /** Metodo che ritorna il riassunto a blocchi degli attacchi.
+     * @return il riassunto, null se la griglia entra sia in un Viewport di default sia nella finestra di stampa */
+    DensityMap getDensity() {
+        return density;
     }
 
+    /** Metodo che ritorna i tempi di stampa della griglia, comprese la costruzione del disegno e la scrittura.
+     * @return l'istogramma dei tempi di printGrid e printGridWithoutMiss di tutte le griglie */
+    public static LatencyHistogram getRenderTimes() {
+        return RENDER_TIMES;
+    }
 }
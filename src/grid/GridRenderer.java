@@ -0,0 +1,322 @@
+package grid;
+
+import java.io.PrintStream;
+import java.util.Objects;
+
+import utility.UtilityTools;
+
+/** {@literal <<Boundary>>}
+ * Classe che disegna una griglia di gioco in un unico fotogramma di testo.
+ * La classe GridRenderer costruisce la griglia (intestazione delle colonne, numeri delle righe e celle
+ * colorate) in un StringBuilder che viene riutilizzato tra un disegno e l'altro, e la scrive sullo stream
+ * con una sola chiamata. I codici di colore ANSI vengono emessi solo quando il colore cambia, quindi una fila
+ * di celle dello stesso stato condivide un solo codice, e il colore viene riportato a quello base alla fine
+ * di ogni riga. Anche il buffer di byte usato per la scrittura viene riutilizzato, quindi una volta raggiunta
+ * la dimensione della griglia piú grande il disegno non alloca memoria.
+ * Le colonne sono indicate da lettere che dopo la Z proseguono con AA, AB e cosí via; la larghezza dei numeri
+ * delle righe e delle celle cresce con le etichette, quindi fino a 26 colonne e 99 righe ogni cella occupa tre
+ * caratteri e le griglie piú grandi restano allineate.
+ * Un Viewport limita il disegno ad una finestra della griglia, seguita da una minimappa per le griglie che non
+ * entrano nella finestra, cosí il costo del disegno dipende dalle dimensioni del terminale e non da quelle
+ * della griglia.
+ * Un'istanza non va usata da piú thread contemporaneamente: Grid ne conserva una per ogni thread. */
+public final class GridRenderer {
+
+    /** Larghezza minima, in caratteri, dei numeri delle righe e delle celle. */
+    private static final int MIN_WIDTH = 3;
+
+    /** Numero di lettere dell'alfabeto usato per le colonne. */
+    private static final int LETTERS = 26;
+
+    /** Base dei numeri delle righe. */
+    private static final int RADIX = 10;
+
+    /** Colore di ogni stato della cella, nell'ordine degli indici di CellState; null indica il colore base. */
+    private static final String[] STATE_COLOURS = {
+        null, UtilityTools.GREEN, UtilityTools.YELLOW, UtilityTools.CYAN, UtilityTools.RED
+    };
+
+    /** Indice del colore dei blocchi della minimappa senza attacchi. */
+    private static final int MINIMAP_EMPTY = 0;
+
+    /** Indice del colore dei blocchi della minimappa con soli colpi a vuoto. */
+    private static final int MINIMAP_MISS = 1;
+
+    /** Indice del colore dei blocchi della minimappa con almeno un colpo a segno. */
+    private static final int MINIMAP_HIT = 2;
+
+    /** Codice ANSI che disegna il testo in negativo. */
+    private static final String REVERSE = "\033[7m";
+
+    /** Colori dei blocchi della minimappa fuori dalla finestra; ogni codice riparte dal colore base, cosí il
+     * negativo dei blocchi precedenti non resta attivo. */
+    private static final String[] MINIMAP_COLOURS = {
+        null, UtilityTools.RESET + UtilityTools.CYAN, UtilityTools.RESET + UtilityTools.YELLOW
+    };
+
+    /** Colori dei blocchi della minimappa toccati dalla finestra, in negativo. */
+    private static final String[] MINIMAP_VIEW_COLOURS = {
+        UtilityTools.RESET + REVERSE, UtilityTools.RESET + REVERSE + UtilityTools.CYAN,
+        UtilityTools.RESET + REVERSE + UtilityTools.YELLOW
+    };
+
+    /** Fotogramma in costruzione. */
+    private final StringBuilder frame = new StringBuilder();
+
+    /** Byte del fotogramma da scrivere sullo stream. */
+    private byte[] bytes = new byte[0];
+
+    /** Colore attivo nel punto del fotogramma in cui si sta scrivendo, null se é quello base. */
+    private String currentColour;
+
+    /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
+    public GridRenderer() { }
+
+    /** Metodo che costruisce il fotogramma di una griglia intera.
+     * Il risultato é il buffer interno del renderer e resta valido fino al disegno successivo.
+     * @param grid griglia da disegnare
+     * @param showMiss se falso i colpi a vuoto ('O') vengono disegnati come celle vuote
+     * @return il fotogramma */
+    public CharSequence render(final Grid grid, final boolean showMiss) {
+        frame.setLength(0);
+        currentColour = null;
+        appendWindow(grid, showMiss, 0, 0, grid.getRowLength(), grid.getColumnLength());
+        frame.append('\n');
+        return frame;
+    }
+
+    /** Metodo che costruisce il fotogramma della parte di una griglia mostrata da una finestra. Se la finestra
+     * non copre tutta la griglia e la griglia tiene il riassunto degli attacchi, sotto la finestra viene
+     * disegnata la minimappa: un carattere per blocco, '-' se nel blocco non ci sono attacchi, 'O' se ci sono
+     * solo colpi a vuoto, altrimenti una cifra da 1 a 9 con i decimi degli attacchi andati a segno; i blocchi
+     * toccati dalla finestra sono disegnati in negativo. Il costo dipende solo dalle dimensioni della finestra
+     * e della minimappa.
+     * @param grid griglia da disegnare
+     * @param showMiss se falso i colpi a vuoto ('O') vengono disegnati come celle vuote
+     * @param viewport finestra da disegnare
+     * @return il fotogramma */
+    public CharSequence render(final Grid grid, final boolean showMiss, final Viewport viewport) {
+        frame.setLength(0);
+        currentColour = null;
+        appendWindow(grid, showMiss, viewport.getFirstRow(grid), viewport.getFirstColumn(grid),
+                viewport.getRows(grid), viewport.getColumns(grid));
+        frame.append('\n');
+        if (!viewport.covers(grid) && grid.getDensity() != null) {
+            appendMinimap(grid, showMiss, viewport);
+            frame.append('\n');
+        }
+        return frame;
+    }
+
+    /** Metodo che disegna una griglia intera sullo stream con una sola scrittura.
+     * @param grid griglia da disegnare
+     * @param showMiss se falso i colpi a vuoto ('O') vengono disegnati come celle vuote
+     * @param out stream su cui scrivere il fotogramma */
+    public void print(final Grid grid, final boolean showMiss, final PrintStream out) {
+        render(grid, showMiss);
+        write(out);
+    }
+
+    /** Metodo che disegna sullo stream, con una sola scrittura, la parte di una griglia mostrata da una finestra
+     * e l'eventuale minimappa, come render.
+     * @param grid griglia da disegnare
+     * @param showMiss se falso i colpi a vuoto ('O') vengono disegnati come celle vuote
+     * @param viewport finestra da disegnare
+     * @param out stream su cui scrivere il fotogramma */
+    public void print(final Grid grid, final boolean showMiss, final Viewport viewport, final PrintStream out) {
+        render(grid, showMiss, viewport);
+        write(out);
+    }
+
+    /** Scrive il fotogramma sullo stream con una sola chiamata.
+     * @param out stream su cui scrivere il fotogramma */
+    private void write(final PrintStream out) {
+        int length = frame.length();
+
+        if (bytes.length < length) {
+            bytes = new byte[length];
+        }
+        // Il fotogramma contiene solo caratteri ASCII, quindi ogni carattere occupa un byte.
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) frame.charAt(i);
+        }
+        out.write(bytes, 0, length);
+        out.flush();
+    }
+
+    /** Aggiunge al fotogramma le etichette e le celle di un rettangolo della griglia. La larghezza delle
+     * etichette dipende dall'intera griglia, cosí spostando la finestra le colonne restano allineate.
+     * @param grid griglia da disegnare
+     * @param showMiss se falso i colpi a vuoto vengono disegnati come celle vuote
+     * @param firstRow prima riga del rettangolo
+     * @param firstColumn prima colonna del rettangolo
+     * @param rows righe del rettangolo
+     * @param columns colonne del rettangolo */
+    private void appendWindow(final Grid grid, final boolean showMiss, final int firstRow, final int firstColumn,
+                              final int rows, final int columns) {
+        String labelColour = showMiss ? UtilityTools.PURPLE : UtilityTools.CYAN;
+        int rowWidth = rowLabelWidth(grid.getRowLength());
+        int cellWidth = cellWidth(grid.getColumnLength());
+
+        pad(rowWidth);
+        colour(labelColour);
+        for (int j = firstColumn; j < firstColumn + columns; j++) {
+            appendColumnLabel(frame, j);
+            pad(cellWidth - columnLabelLength(j));
+        }
+        endLine();
+
+        for (int i = firstRow; i < firstRow + rows; i++) {
+            colour(labelColour);
+            frame.append(i + 1);
+            pad(rowWidth - digits(i + 1));
+
+            for (int j = firstColumn; j < firstColumn + columns; j++) {
+                char value = grid.getGridValue(i, j);
+                if (!showMiss && value == CellState.MISS) {
+                    value = CellState.EMPTY;
+                }
+
+                colour(colourOf(value));
+                frame.append(value);
+                pad(cellWidth - 1);
+            }
+            endLine();
+        }
+    }
+
+    /** Aggiunge al fotogramma la minimappa della griglia, preceduta da una riga con la dimensione dei blocchi e
+     * le celle agli angoli della finestra.
+     * @param grid griglia da disegnare, con il riassunto degli attacchi
+     * @param showMiss se falso i blocchi con soli colpi a vuoto vengono disegnati come blocchi senza attacchi
+     * @param viewport finestra disegnata sopra la minimappa */
+    private void appendMinimap(final Grid grid, final boolean showMiss, final Viewport viewport) {
+        final int tenths = 10;
+        DensityMap density = grid.getDensity();
+        int firstRow = viewport.getFirstRow(grid);
+        int firstColumn = viewport.getFirstColumn(grid);
+        int lastRow = firstRow + viewport.getRows(grid) - 1;
+        int lastColumn = firstColumn + viewport.getColumns(grid) - 1;
+
+        colour(showMiss ? UtilityTools.PURPLE : UtilityTools.CYAN);
+        frame.append("Mappa, un carattere ogni ").append(density.getBlockRows()).append('x')
+                .append(density.getBlockColumns()).append(" celle; finestra ");
+        appendColumnLabel(frame, firstColumn).append('-').append(firstRow + 1).append(" : ");
+        appendColumnLabel(frame, lastColumn).append('-').append(lastRow + 1);
+        endLine();
+
+        for (int i = 0; i < density.getRows(); i++) {
+            pad(MIN_WIDTH);
+            boolean rowInView = i >= firstRow / density.getBlockRows() && i <= lastRow / density.getBlockRows();
+            for (int j = 0; j < density.getColumns(); j++) {
+                boolean inView = rowInView && j >= firstColumn / density.getBlockColumns()
+                        && j <= lastColumn / density.getBlockColumns();
+                int attacked = density.getAttacked(i, j);
+                int hits = density.getHits(i, j);
+
+                int symbol;
+                char value;
+                if (hits > 0) {
+                    //Decimi arrotondati per eccesso, cosí anche un solo colpo a segno resta visibile
+                    symbol = MINIMAP_HIT;
+                    value = (char) ('0' + Math.min(tenths - 1, (hits * tenths + attacked - 1) / attacked));
+                } else if (attacked > 0 && showMiss) {
+                    symbol = MINIMAP_MISS;
+                    value = CellState.MISS;
+                } else {
+                    symbol = MINIMAP_EMPTY;
+                    value = CellState.EMPTY;
+                }
+                colour(inView ? MINIMAP_VIEW_COLOURS[symbol] : MINIMAP_COLOURS[symbol]);
+                frame.append(value);
+            }
+            endLine();
+        }
+    }
+
+    /** Metodo che aggiunge l'etichetta di una colonna: A per la prima, Z per la ventiseiesima, poi AA, AB e
+     * cosí via, come nei fogli di calcolo.
+     * @param out testo a cui aggiungere l'etichetta
+     * @param column indice della colonna, a partire da 0
+     * @return il testo ricevuto */
+    public static StringBuilder appendColumnLabel(final StringBuilder out, final int column) {
+        int start = out.length();
+        out.setLength(start + columnLabelLength(column));
+
+        //Le lettere vengono scritte da destra, come le cifre di un numero in base 26 senza lo zero
+        int remaining = column;
+        for (int i = out.length() - 1; i >= start; i--) {
+            out.setCharAt(i, (char) ('A' + remaining % LETTERS));
+            remaining = remaining / LETTERS - 1;
+        }
+        return out;
+    }
+
+    /** Metodo che ritorna il numero di lettere dell'etichetta di una colonna.
+     * @param column indice della colonna, a partire da 0
+     * @return il numero di lettere */
+    public static int columnLabelLength(final int column) {
+        int letters = 1;
+        for (int first = LETTERS; column >= first; first = (first + 1) * LETTERS) {
+            letters++;
+        }
+        return letters;
+    }
+
+    /** Metodo che ritorna la larghezza dei numeri delle righe, compreso lo spazio che li separa dalle celle.
+     * @param rows cardinalità delle righe della griglia
+     * @return la larghezza in caratteri */
+    static int rowLabelWidth(final int rows) {
+        return Math.max(MIN_WIDTH, digits(rows) + 1);
+    }
+
+    /** Metodo che ritorna la larghezza di una cella, compreso lo spazio che la separa dalla successiva.
+     * @param columns cardinalità delle colonne della griglia
+     * @return la larghezza in caratteri */
+    static int cellWidth(final int columns) {
+        return Math.max(MIN_WIDTH, columnLabelLength(columns - 1) + 1);
+    }
+
+    /** Metodo che ritorna il colore con cui viene disegnato uno stato della cella.
+     * @param value carattere dello stato
+     * @return il codice ANSI del colore, null per il colore base */
+    static String colourOf(final char value) {
+        int state = CellState.toIndex(value);
+        return state < 0 ? null : STATE_COLOURS[state];
+    }
+
+    /** Imposta il colore del testo che segue, emettendo il codice ANSI solo se il colore cambia.
+     * @param colour colore da impostare, null per il colore base */
+    private void colour(final String colour) {
+        if (Objects.equals(colour, currentColour)) {
+            return;
+        }
+        frame.append(colour == null ? UtilityTools.RESET : colour);
+        currentColour = colour;
+    }
+
+    /** Aggiunge spazi al fotogramma.
+     * @param count numero di spazi */
+    private void pad(final int count) {
+        for (int i = 0; i < count; i++) {
+            frame.append(' ');
+        }
+    }
+
+    /** Conta le cifre di un numero positivo.
+     * @param number numero da esaminare
+     * @return il numero di cifre */
+    private static int digits(final int number) {
+        int count = 1;
+        for (int rest = number / RADIX; rest > 0; rest /= RADIX) {
+            count++;
+        }
+        return count;
+    }
+
+    /** Chiude la riga corrente riportando il colore a quello base. */
+    private void endLine() {
+        colour(null);
+        frame.append('\n');
+    }
+}
@@ -0,0 +1,56 @@
+package grid;
+
+import java.nio.ByteBuffer;
+
+/** {@literal <<Entity>>}
+ * Interfaccia che rappresenta il modo in cui le celle di una griglia vengono memorizzate.
+ * La classe Grid delega la conservazione delle proprie celle ad un'implementazione di GridStorage,
+ * in modo da poter scegliere la rappresentazione in memoria piú adatta senza modificare il resto del gioco.
+ * Le implementazioni disponibili sono CharMatrixStorage, che utilizza la classica matrice di caratteri,
+ * BitboardStorage, che conserva ogni stato della cella (nave, colpita, vuoto, affondata) in un array
+ * di long dove ogni bit rappresenta una cella della griglia, e SparseStorage, che per le griglie molto grandi
+ * conserva solo le celle non vuote. */
+public interface GridStorage {
+
+    /** Metodo che ritorna il carattere presente in una cella.
+     * @param rowPos indice della riga
+     * @param columnPos indice della colonna
+     * @return il carattere presente nella cella */
+    char get(int rowPos, int columnPos);
+
+    /** Metodo che inserisce un carattere in una cella.
+     * @param rowPos indice della riga
+     * @param columnPos indice della colonna
+     * @param value carattere da inserire nella cella */
+    void set(int rowPos, int columnPos, char value);
+
+    /** Metodo che riempie ogni cella con il carattere della cella vuota. */
+    void reset();
+
+    /** Metodo che ritorna quante celle contengono un determinato stato.
+     * Le implementazioni aggiornano il conteggio ad ogni scrittura, quindi il costo é costante.
+     * @param value carattere dello stato da contare, uno di quelli definiti in CellState
+     * @return il numero di celle che contengono il carattere */
+    int count(char value);
+
+    /** Metodo che scrive le celle nel formato a piani di bit di BitboardStorage, lo stesso per ogni
+     * implementazione: BitboardStorage.bitsSize(righe, colonne) byte, nell'ordine dei byte del buffer.
+     * @param out buffer in cui scrivere, a partire dalla sua posizione
+     * @throws java.nio.BufferOverflowException se il buffer non ha abbastanza spazio */
+    void writeBits(ByteBuffer out);
+
+    /** Metodo che sostituisce tutte le celle con quelle lette nel formato di writeBits.
+     * @param in buffer da cui leggere, a partire dalla sua posizione
+     * @throws java.nio.BufferUnderflowException se il buffer non contiene tutte le celle
+     * @throws IllegalArgumentException se i bit letti non descrivono una griglia valida; in quel caso la
+     * griglia viene svuotata */
+    void readBits(ByteBuffer in);
+
+    /** Metodo che ritorna la cardinalità delle righe memorizzate.
+     * @return la cardinalità delle righe */
+    int getRowLength();
+
+    /** Metodo che ritorna la cardinalità delle colonne memorizzate.
+     * @return la cardinalità delle colonne */
+    int getColumnLength();
+}
@@ -0,0 +1,327 @@
+package grid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import utility.UtilityTools;
+
+/** {@literal <<Boundary>>}
+ * Classe che ricorda l'ultima schermata disegnata sul terminale e la aggiorna solo dove é cambiata.
+ * Una schermata é composta da un'intestazione di testo, da una griglia disegnata con il GridRenderer e da un
+ * testo finale, la cui ultima riga é il prompt. La griglia viene disegnata attraverso il suo Viewport, come in
+ * Grid.printGrid: le griglie piú grandi della finestra mostrano solo la parte attorno all'ultimo attacco,
+ * seguita dalla minimappa, quindi anche il disegno completo non dipende dalle dimensioni della griglia.
+ * La prima volta la schermata viene pulita e disegnata per intero, e il modello conserva il contenuto di ogni
+ * cella della finestra e le righe di schermo occupate da intestazione, griglia e prompt. Se la schermata
+ * successiva ha la stessa intestazione, lo stesso testo finale e la stessa finestra della griglia, vengono
+ * inviate solo le celle cambiate (ad esempio l'unica cella toccata da un attacco), ciascuna preceduta dal
+ * codice ANSI che posiziona il cursore; poi il cursore torna sulla riga del prompt, il testo scritto sotto
+ * (input dell'utente e messaggi dei comandi) viene cancellato e il prompt viene riscritto. La minimappa
+ * cambia ad ogni attacco, e un attacco su una griglia con la minimappa sposta anche la finestra, quindi in
+ * quel caso la schermata viene disegnata per intero.
+ * Il modello funziona solo se nel frattempo lo schermo non é scorso: chi stampa un testo lungo
+ * (l'help, un'altra griglia, la grafica della vittoria) o pulisce lo schermo deve chiamare invalidate,
+ * cosí il disegno successivo torna ad essere completo.
+ * Le dimensioni del terminale vengono lette all'avvio dalle variabili d'ambiente LINES e COLUMNS, che la shell
+ * di solito non esporta ai programmi, e altrimenti chiedendole al terminale con "stty size". Se il terminale é
+ * piú basso della schermata, il modello disegna sempre la schermata per intero.
+ * Le righe di intestazione e testo finale piú larghe del terminale vanno a capo e occupano piú righe di schermo:
+ * il modello ne misura la larghezza visibile, senza i codici ANSI, e se la larghezza del terminale é nota
+ * conta le righe di schermo effettivamente occupate. Se non é nota, ad esempio quando l'output non é un
+ * terminale, vengono supposte DEFAULT_COLUMNS colonne: le schermate del menu di gioco, le cui righe non le
+ * superano, vengono comunque aggiornate cella per cella, mentre una riga o una griglia piú larga fa disegnare
+ * sempre la schermata per intero. */
+public final class ScreenModel {
+
+    /** Codice ANSI che porta il cursore in alto a sinistra e pulisce lo schermo. */
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+    /** Inizio del codice ANSI che posiziona il cursore. */
+    private static final String CURSOR_PREFIX = "\033[";
+
+    /** Codice ANSI che cancella dal cursore fino alla fine dello schermo. */
+    private static final String CLEAR_BELOW = "\033[J";
+
+    /** Colonne supposte quando COLUMNS non é nota, quelle di un terminale classico. */
+    private static final int DEFAULT_COLUMNS = 80;
+
+    /** Carattere che introduce un codice ANSI. */
+    private static final char ESCAPE = '\033';
+
+    /** Millisecondi concessi a "stty size" per rispondere. */
+    private static final long STTY_TIMEOUT_MILLIS = 500;
+
+    /** Righe e colonne del terminale lette da "stty size", zero se non sono note. */
+    private static final int[] STTY_SIZE = querySttySize();
+
+    /** Righe del terminale lette dalla variabile d'ambiente LINES oppure da "stty size", zero se non sono note. */
+    private static final int TERMINAL_LINES = readTerminalSize("LINES", STTY_SIZE[0]);
+
+    /** Colonne del terminale lette dalla variabile d'ambiente COLUMNS oppure da "stty size", zero se non sono
+     * note. */
+    private static final int TERMINAL_COLUMNS = readTerminalSize("COLUMNS", STTY_SIZE[1]);
+
+    /** Renderer usato per i disegni completi. */
+    private final GridRenderer renderer = new GridRenderer();
+
+    /** Fotogramma in costruzione. */
+    private final StringBuilder frame = new StringBuilder();
+
+    /** Contenuto delle celle della finestra disegnata, riga per riga. */
+    private char[] cells = new char[0];
+
+    /** Intestazione dell'ultima schermata, null se il modello non é valido. */
+    private String header;
+
+    /** Testo finale dell'ultima schermata. */
+    private String footer;
+
+    /** Ultima riga del testo finale, ovvero il prompt. */
+    private String promptLine;
+
+    /** Cardinalità delle righe della griglia disegnata. */
+    private int dimRow;
+
+    /** Cardinalità delle colonne della griglia disegnata. */
+    private int dimColumn;
+
+    /** Prima riga della griglia mostrata dalla finestra disegnata. */
+    private int firstRow;
+
+    /** Prima colonna della griglia mostrata dalla finestra disegnata. */
+    private int firstColumn;
+
+    /** Righe della finestra disegnata. */
+    private int rows;
+
+    /** Colonne della finestra disegnata. */
+    private int columns;
+
+    /** Attacchi contati dal riassunto della griglia quando é stata disegnata la minimappa, -1 se non é stata
+     * disegnata. */
+    private long minimapAttacks;
+
+    /** Riga di schermo (a partire da 1) dell'intestazione delle colonne della griglia. */
+    private int gridTop;
+
+    /** Riga di schermo (a partire da 1) del prompt. */
+    private int promptRow;
+
+    /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
+    public ScreenModel() { }
+
+    /** Metodo che disegna una schermata, inviando solo le differenze se il modello é ancora valido.
+     * @param headerText testo sopra la griglia
+     * @param grid griglia da disegnare, con i colpi a vuoto visibili, attraverso il suo Viewport
+     * @param footerText testo sotto la griglia, che termina con il prompt
+     * @param out stream del terminale */
+    public void draw(final String headerText, final Grid grid, final String footerText, final PrintStream out) {
+        frame.setLength(0);
+        Viewport viewport = grid.getViewport().follow(grid);
+
+        if (header != null && header.equals(headerText) && footer.equals(footerText)
+                && dimRow == grid.getRowLength() && dimColumn == grid.getColumnLength()
+                && firstRow == viewport.getFirstRow(grid) && firstColumn == viewport.getFirstColumn(grid)
+                && (minimapAttacks < 0 || minimapAttacks == grid.getDensity().getAttacks())) {
+            appendChangedCells(grid);
+            appendCursor(promptRow, 1);
+            frame.append(CLEAR_BELOW).append(promptLine);
+        } else {
+            appendFullScreen(headerText, grid, viewport, footerText);
+        }
+        out.append(frame);
+        out.flush();
+    }
+
+    /** Metodo che rende non valido il modello, cosí il disegno successivo sará completo.
+     * Va chiamato dopo aver pulito lo schermo o stampato un testo che puó averlo fatto scorrere. */
+    public void invalidate() {
+        header = null;
+    }
+
+    /** Disegna l'intera schermata e memorizza il contenuto della finestra della griglia e le righe occupate.
+     * @param headerText testo sopra la griglia
+     * @param grid griglia da disegnare
+     * @param viewport finestra della griglia, giá spostata sull'ultimo attacco
+     * @param footerText testo sotto la griglia */
+    private void appendFullScreen(final String headerText, final Grid grid, final Viewport viewport,
+                                  final String footerText) {
+        dimRow = grid.getRowLength();
+        dimColumn = grid.getColumnLength();
+        firstRow = viewport.getFirstRow(grid);
+        firstColumn = viewport.getFirstColumn(grid);
+        rows = viewport.getRows(grid);
+        columns = viewport.getColumns(grid);
+        if (cells.length != rows * columns) {
+            cells = new char[rows * columns];
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                cells[i * columns + j] = grid.getGridValue(firstRow + i, firstColumn + j);
+            }
+        }
+        boolean minimap = !viewport.covers(grid) && grid.getDensity() != null;
+        minimapAttacks = minimap ? grid.getDensity().getAttacks() : -1;
+
+        CharSequence gridText = renderer.render(grid, true, viewport);
+        int terminalColumns = TERMINAL_COLUMNS > 0 ? TERMINAL_COLUMNS : DEFAULT_COLUMNS;
+        int headerRows = countRows(headerText, terminalColumns);
+        int footerRows = countRows(footerText, terminalColumns);
+        int gridWidth = GridRenderer.rowLabelWidth(dimRow) + GridRenderer.cellWidth(dimColumn) * columns;
+        gridTop = headerRows + 1;
+        promptRow = gridTop + countLines(gridText) + footerRows;
+        frame.append(CLEAR_SCREEN).append(headerText).append(gridText).append(footerText);
+
+        //Con una riga che puó andare a capo le posizioni calcolate non sarebbero affidabili
+        boolean wraps = gridWidth > terminalColumns || TERMINAL_COLUMNS == 0
+                && (headerRows != countLines(headerText) || footerRows != countLines(footerText));
+        if (wraps || TERMINAL_LINES > 0 && promptRow > TERMINAL_LINES) {
+            invalidate();
+            return;
+        }
+        header = headerText;
+        footer = footerText;
+        promptLine = footerText.substring(footerText.lastIndexOf('\n') + 1);
+    }
+
+    /** Aggiunge al fotogramma le sole celle della finestra cambiate dall'ultimo disegno.
+     * @param grid griglia da disegnare */
+    private void appendChangedCells(final Grid grid) {
+        int rowWidth = GridRenderer.rowLabelWidth(dimRow);
+        int cellWidth = GridRenderer.cellWidth(dimColumn);
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                char value = grid.getGridValue(firstRow + i, firstColumn + j);
+                if (cells[i * columns + j] == value) {
+                    continue;
+                }
+
+                cells[i * columns + j] = value;
+                appendCursor(gridTop + 1 + i, rowWidth + cellWidth * j + 1);
+                String colour = GridRenderer.colourOf(value);
+                if (colour != null) {
+                    frame.append(colour).append(value).append(UtilityTools.RESET);
+                } else {
+                    frame.append(value);
+                }
+            }
+        }
+    }
+
+    /** Aggiunge al fotogramma il codice ANSI che posiziona il cursore.
+     * @param row riga di schermo, a partire da 1
+     * @param column colonna di schermo, a partire da 1 */
+    private void appendCursor(final int row, final int column) {
+        frame.append(CURSOR_PREFIX).append(row).append(';').append(column).append('H');
+    }
+
+    /** Conta le righe complete di un testo.
+     * @param text testo da esaminare
+     * @return il numero di caratteri di fine riga */
+    private static int countLines(final CharSequence text) {
+        int lines = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /** Conta le righe di schermo occupate dalle righe complete di un testo su un terminale largo columns
+     * caratteri: una riga vuota ne occupa una, una riga piú larga del terminale ne occupa una ogni columns
+     * caratteri visibili. I codici ANSI non occupano spazio sullo schermo e non vengono contati.
+     * @param text testo da esaminare
+     * @param columns colonne del terminale
+     * @return il numero di righe di schermo */
+    private static int countRows(final String text, final int columns) {
+        int rows = 0;
+        int width = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                rows += Math.max(1, (width + columns - 1) / columns);
+                width = 0;
+            } else if (c == ESCAPE) {
+                //Salta il codice fino alla lettera finale, ad esempio ESC[0;36m
+                i++;
+                while (i + 1 < text.length() && !Character.isLetter(text.charAt(i + 1))) {
+                    i++;
+                }
+                i++;
+            } else if (!Character.isLowSurrogate(c)) {
+                width++;
+            }
+        }
+        return rows;
+    }
+
+    /** Metodo che ritorna le righe del terminale lette dalla variabile d'ambiente LINES oppure da "stty size".
+     * @return le righe, zero se non sono note */
+    static int getTerminalLines() {
+        return TERMINAL_LINES;
+    }
+
+    /** Metodo che ritorna le colonne del terminale lette dalla variabile d'ambiente COLUMNS oppure da "stty size".
+     * @return le colonne, zero se non sono note */
+    static int getTerminalColumns() {
+        return TERMINAL_COLUMNS;
+    }
+
+    /** Legge una dimensione del terminale da una variabile d'ambiente, ad esempio LINES o COLUMNS.
+     * @param variable nome della variabile
+     * @param fallback dimensione da usare se la variabile non é presente o non é un numero
+     * @return la dimensione */
+    private static int readTerminalSize(final String variable, final int fallback) {
+        final int maxDigits = 4;
+        String size = System.getenv(variable);
+
+        if (!UtilityTools.isNumeric(size) || size.length() > maxDigits) {
+            return fallback;
+        }
+        return Integer.parseInt(size);
+    }
+
+    /** Chiede le dimensioni al terminale che controlla il processo con "stty size", che scrive righe e colonne.
+     * Se il processo non ha un terminale, ad esempio nei test o con l'output rediretto, oppure stty non esiste,
+     * le dimensioni restano non note.
+     * @return righe e colonne del terminale, zero se non sono note */
+    private static int[] querySttySize() {
+        final int maxDigits = 4;
+        int[] size = new int[2];
+        File tty = new File("/dev/tty");
+        if (!tty.exists()) {
+            return size;
+        }
+
+        try {
+            Process stty = new ProcessBuilder("stty", "size").redirectInput(ProcessBuilder.Redirect.from(tty))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            String line;
+            try (BufferedReader reader = stty.inputReader()) {
+                line = reader.readLine();
+            }
+            if (!stty.waitFor(STTY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) || stty.exitValue() != 0 || line == null) {
+                stty.destroy();
+                return size;
+            }
+            String[] values = line.trim().split(" ");
+            if (values.length == 2 && UtilityTools.isNumeric(values[0]) && UtilityTools.isNumeric(values[1])
+                    && values[0].length() <= maxDigits && values[1].length() <= maxDigits) {
+                size[0] = Integer.parseInt(values[0]);
+                size[1] = Integer.parseInt(values[1]);
+            }
+        } catch (IOException e) {
+            //Nessun terminale o nessun stty: le dimensioni restano non note
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return size;
+    }
+}
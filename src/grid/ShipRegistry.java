@@ -0,0 +1,236 @@
+package grid;
+
+import java.util.Arrays;
+
+/** {@literal <<Entity>>}
+ * Classe che tiene traccia delle navi piazzate su una griglia, dei loro segmenti e dei colpi subiti.
+ * La classe ShipRegistry associa ad ogni cella occupata l'identificativo della nave che la contiene
+ * e conserva per ogni nave l'origine, la lunghezza e la direzione con cui é stata piazzata, oltre ad
+ * una maschera di bit in cui il bit i-esimo indica che il segmento i-esimo della nave é stato colpito.
+ * Il registro viene riempito al momento del piazzamento delle navi e aggiornato dalla classe Grid ad ogni
+ * scrittura che trasforma una cella 'S' in un altro stato, cosí sapere se una nave é stata affondata
+ * richiede un tempo costante e scorrere le sue celle richiede un tempo proporzionale alla sua lunghezza,
+ * senza dover esplorare la griglia. Per le griglie con piú di Grid.SPARSE_THRESHOLD celle l'identificativo
+ * delle navi viene conservato in una CellMap, che contiene solo le celle occupate. */
+public final class ShipRegistry {
+
+    /** Costante che indica la direzione orizzontale di una nave. */
+    public static final int HORIZONTAL = 0;
+
+    /** Costante che indica la direzione verticale di una nave. */
+    public static final int VERTICAL = 1;
+
+    /** Valore che indica una cella senza nave. */
+    public static final int NO_SHIP = -1;
+
+    /** Lunghezza massima di una nave, limitata dai bit della maschera dei colpi. */
+    public static final int MAX_LENGTH = Long.SIZE;
+
+    /** Capacitá iniziale degli array delle navi, sufficiente per la flotta standard. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Cardinalità delle righe della griglia. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne della griglia. */
+    private final int dimColumn;
+
+    /** Identificativo della nave presente in ogni cella, allocato al primo piazzamento. */
+    private int[] cellShip;
+
+    /** Identificativo della nave presente nelle celle occupate, usato al posto di cellShip per le griglie
+     * molto grandi. */
+    private CellMap sparseCellShip;
+
+    /** Indice lineare della prima cella di ogni nave. */
+    private int[] origin = new int[INITIAL_CAPACITY];
+
+    /** Lunghezza di ogni nave. */
+    private int[] length = new int[INITIAL_CAPACITY];
+
+    /** Direzione di ogni nave. */
+    private int[] direction = new int[INITIAL_CAPACITY];
+
+    /** Maschera dei segmenti colpiti di ogni nave. */
+    private long[] hitMask = new long[INITIAL_CAPACITY];
+
+    /** Numero di navi registrate. */
+    private int shipCount;
+
+    /** Il costruttore crea un registro vuoto per una griglia delle dimensioni indicate.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia */
+    public ShipRegistry(final int fixedDimRow, final int fixedDimColumn) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        if (fixedDimRow * fixedDimColumn > Grid.SPARSE_THRESHOLD) {
+            sparseCellShip = new CellMap();
+        }
+    }
+
+    /** Metodo che registra una nave appena piazzata.
+     * @param row riga della prima cella della nave
+     * @param column colonna della prima cella della nave
+     * @param lengthShip lunghezza della nave, al massimo MAX_LENGTH
+     * @param directionShip direzione della nave, HORIZONTAL o VERTICAL
+     * @return l'identificativo assegnato alla nave */
+    public int addShip(final int row, final int column, final int lengthShip, final int directionShip) {
+        if (lengthShip > MAX_LENGTH) {
+            throw new IllegalArgumentException("Lunghezza della nave non supportata: " + lengthShip);
+        }
+        if (cellShip == null && sparseCellShip == null) {
+            cellShip = new int[dimRow * dimColumn];
+            Arrays.fill(cellShip, NO_SHIP);
+        }
+        if (shipCount == origin.length) {
+            origin = Arrays.copyOf(origin, shipCount * 2);
+            length = Arrays.copyOf(length, shipCount * 2);
+            direction = Arrays.copyOf(direction, shipCount * 2);
+            hitMask = Arrays.copyOf(hitMask, shipCount * 2);
+        }
+
+        int id = shipCount++;
+        origin[id] = row * dimColumn + column;
+        length[id] = lengthShip;
+        direction[id] = directionShip;
+        hitMask[id] = 0L;
+
+        for (int i = 0; i < lengthShip; i++) {
+            if (sparseCellShip != null) {
+                sparseCellShip.put(getShipCell(id, i), id);
+            } else {
+                cellShip[getShipCell(id, i)] = id;
+            }
+        }
+        return id;
+    }
+
+    /** Metodo che ritorna l'identificativo della nave presente in una cella.
+     * @param row riga della cella
+     * @param column colonna della cella
+     * @return l'identificativo della nave oppure NO_SHIP se la cella non contiene navi */
+    public int getShipAt(final int row, final int column) {
+        if (sparseCellShip != null) {
+            int id = sparseCellShip.get(row * dimColumn + column);
+            return id == CellMap.NO_VALUE ? NO_SHIP : id;
+        }
+        if (cellShip == null) {
+            return NO_SHIP;
+        }
+        return cellShip[row * dimColumn + column];
+    }
+
+    /** Metodo che ritorna il numero di celle ancora intatte di una nave.
+     * @param id identificativo della nave
+     * @return il numero di celle non colpite */
+    public int getHealth(final int id) {
+        return length[id] - Long.bitCount(hitMask[id]);
+    }
+
+    /** Metodo che controlla se una nave é stata affondata.
+     * @param id identificativo della nave
+     * @return vero se tutte le celle della nave sono state colpite */
+    public boolean isSunk(final int id) {
+        return hitMask[id] == fullMask(length[id]);
+    }
+
+    /** Metodo che ritorna la maschera dei segmenti colpiti di una nave.
+     * @param id identificativo della nave
+     * @return la maschera in cui il bit i-esimo indica il segmento i-esimo colpito */
+    public long getHitMask(final int id) {
+        return hitMask[id];
+    }
+
+    /** Metodo che ritorna la riga della prima cella di una nave.
+     * @param id identificativo della nave
+     * @return la riga dell'origine della nave */
+    public int getShipRow(final int id) {
+        return origin[id] / dimColumn;
+    }
+
+    /** Metodo che ritorna la colonna della prima cella di una nave.
+     * @param id identificativo della nave
+     * @return la colonna dell'origine della nave */
+    public int getShipColumn(final int id) {
+        return origin[id] % dimColumn;
+    }
+
+    /** Metodo che ritorna la lunghezza di una nave.
+     * @param id identificativo della nave
+     * @return la lunghezza della nave */
+    public int getShipLength(final int id) {
+        return length[id];
+    }
+
+    /** Metodo che ritorna la direzione di una nave.
+     * @param id identificativo della nave
+     * @return HORIZONTAL o VERTICAL */
+    public int getShipDirection(final int id) {
+        return direction[id];
+    }
+
+    /** Metodo che ritorna l'indice lineare (riga * colonne + colonna) di un segmento di una nave.
+     * @param id identificativo della nave
+     * @param segment indice del segmento, da 0 alla lunghezza della nave esclusa
+     * @return l'indice lineare della cella del segmento */
+    public int getShipCell(final int id, final int segment) {
+        int step = direction[id] == VERTICAL ? dimColumn : 1;
+        return origin[id] + segment * step;
+    }
+
+    /** Metodo che ritorna il numero di navi registrate.
+     * @return il numero di navi */
+    public int getShipCount() {
+        return shipCount;
+    }
+
+    /** Metodo richiamato da Grid quando una cella della nave smette di contenere 'S'.
+     * @param row riga della cella
+     * @param column colonna della cella */
+    void onShipCellHit(final int row, final int column) {
+        int id = getShipAt(row, column);
+        if (id != NO_SHIP) {
+            hitMask[id] |= 1L << segmentOf(id, row, column);
+        }
+    }
+
+    /** Metodo richiamato da Grid quando in una cella della nave viene riscritto 'S'.
+     * @param row riga della cella
+     * @param column colonna della cella */
+    void onShipCellRestored(final int row, final int column) {
+        int id = getShipAt(row, column);
+        if (id != NO_SHIP) {
+            hitMask[id] &= ~(1L << segmentOf(id, row, column));
+        }
+    }
+
+    /** Metodo che ritorna l'indice del segmento della nave che occupa una cella.
+     * @param id identificativo della nave
+     * @param row riga della cella
+     * @param column colonna della cella
+     * @return l'indice del segmento */
+    private int segmentOf(final int id, final int row, final int column) {
+        if (direction[id] == VERTICAL) {
+            return row - origin[id] / dimColumn;
+        }
+        return column - origin[id] % dimColumn;
+    }
+
+    /** Metodo che ritorna la maschera con tutti i segmenti di una nave colpiti.
+     * @param lengthShip lunghezza della nave
+     * @return la maschera con i primi lengthShip bit accesi */
+    private static long fullMask(final int lengthShip) {
+        return lengthShip == MAX_LENGTH ? -1L : (1L << lengthShip) - 1;
+    }
+
+    /** Metodo che rimuove tutte le navi registrate. */
+    public void clear() {
+        if (cellShip != null) {
+            Arrays.fill(cellShip, NO_SHIP);
+        }
+        if (sparseCellShip != null) {
+            sparseCellShip.clear();
+        }
+        shipCount = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package grid;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/** {@literal <<Entity>>}
+ * Implementazione di GridStorage per le griglie molto grandi, che conserva solo le celle non vuote.
+ * Le celle vengono linearizzate riga per riga come in BitboardStorage e l'indice dello stato di ogni cella
+ * non vuota viene conservato in una CellMap; una cella assente dalla tabella é vuota. Durante una partita
+ * le celle non vuote sono quelle delle navi e quelle giá attaccate, quindi una griglia 1000x1000 con una flotta
+ * di qualche centinaio di navi occupa poche decine di kilobyte invece dei 500 kilobyte dei piani di bit,
+ * al prezzo di una ricerca nella tabella per ogni accesso. Il formato di writeBits e readBits é quello di
+ * BitboardStorage, prodotto dai suoi metodi statici. */
+public final class SparseStorage implements GridStorage {
+
+    /** Stato delle celle non vuote, indicizzato secondo CellState. */
+    private final CellMap cells = new CellMap();
+
+    /** Attributo che definisce la cardinalità delle righe. */
+    private final int dimRow;
+
+    /** Attributo che definisce la cardinalità delle colonne. */
+    private final int dimColumn;
+
+    /** Numero di celle per ogni stato, indicizzato secondo CellState. */
+    private final int[] counts = new int[CellState.STATES];
+
+    /** Il costruttore crea una griglia con tutte le celle vuote.
+     * @param fixedDimRow cardinalità delle righe
+     * @param fixedDimColumn cardinalità delle colonne */
+    public SparseStorage(final int fixedDimRow, final int fixedDimColumn) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        counts[CellState.EMPTY_INDEX] = fixedDimRow * fixedDimColumn;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public char get(final int rowPos, final int columnPos) {
+        int state = cells.get(toCell(rowPos, columnPos));
+        return CellState.toChar(state == CellMap.NO_VALUE ? CellState.EMPTY_INDEX : state);
+    }
+
+    /** {@inheritDoc}
+     * Scrivere la cella vuota rimuove la cella dalla tabella.
+     * @throws IllegalArgumentException se il carattere non é uno degli stati definiti in CellState */
+    @Override
+    public void set(final int rowPos, final int columnPos, final char value) {
+        int state = CellState.toIndex(value);
+        if (state < 0) {
+            throw new IllegalArgumentException("Carattere di cella non supportato: " + value);
+        }
+
+        int cell = toCell(rowPos, columnPos);
+        int previous = state == CellState.EMPTY_INDEX ? cells.remove(cell) : cells.put(cell, state);
+        counts[previous == CellMap.NO_VALUE ? CellState.EMPTY_INDEX : previous]--;
+        counts[state]++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        cells.clear();
+        Arrays.fill(counts, 0);
+        counts[CellState.EMPTY_INDEX] = dimRow * dimColumn;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int count(final char value) {
+        int state = CellState.toIndex(value);
+        return state < 0 ? 0 : counts[state];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeBits(final ByteBuffer out) {
+        BitboardStorage.writeBits(this, out);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void readBits(final ByteBuffer in) {
+        BitboardStorage.readBits(this, in);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowLength() {
+        return dimRow;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnLength() {
+        return dimColumn;
+    }
+
+    /** Metodo che ritorna il numero di celle non vuote conservate nella tabella.
+     * @return il numero di celle non vuote */
+    public int getStoredCells() {
+        return cells.size();
+    }
+
+    /** Metodo che converte riga e colonna nell'indice lineare della cella,
+     * controllando che entrambe rientrino nei limiti della griglia.
+     * @param rowPos indice della riga
+     * @param columnPos indice della colonna
+     * @return l'indice lineare della cella */
+    private int toCell(final int rowPos, final int columnPos) {
+        Objects.checkIndex(rowPos, dimRow);
+        Objects.checkIndex(columnPos, dimColumn);
+        return rowPos * dimColumn + columnPos;
+    }
+}
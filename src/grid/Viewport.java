@@ -0,0 +1,149 @@
+package grid;
+
+/** {@literal <<Entity>>}
+ * Finestra rettangolare di una griglia, la parte che viene disegnata quando la griglia non entra nel terminale.
+ * La finestra mostra al massimo maxRows righe e maxColumns colonne a partire dalla cella in alto a sinistra;
+ * puó essere centrata su una cella scelta con centerOn oppure seguire l'ultima cella attaccata con follow, e
+ * viene sempre spostata in modo da restare dentro la griglia. Le dimensioni di default sono quelle della
+ * griglia piú grande del menu principale, che quindi viene ancora disegnata per intero; forTerminal crea invece
+ * la finestra piú grande che entra nel terminale, con le dimensioni lette da ScreenModel.
+ * GridRenderer disegna solo le celle della finestra e, se la finestra non copre tutta la griglia, una minimappa
+ * con la densitá dei colpi di ogni blocco; una finestra va usata con griglie delle stesse dimensioni. */
+public final class Viewport {
+
+    /** Righe mostrate di default, quelle della griglia extra large. */
+    public static final int DEFAULT_ROWS = 26;
+
+    /** Colonne mostrate di default, quelle della griglia extra large. */
+    public static final int DEFAULT_COLUMNS = 26;
+
+    /** Righe del terminale occupate oltre alla finestra: intestazione delle colonne, riga vuota finale e
+     * prompt. */
+    private static final int FRAME_LINES = 3;
+
+    /** Numero massimo di righe mostrate. */
+    private final int maxRows;
+
+    /** Numero massimo di colonne mostrate. */
+    private final int maxColumns;
+
+    /** Prima riga mostrata. */
+    private int firstRow;
+
+    /** Prima colonna mostrata. */
+    private int firstColumn;
+
+    /** Attacchi della griglia giá seguiti da follow, per spostare la finestra solo dopo un nuovo attacco. */
+    private long followedAttacks;
+
+    /** Il costruttore crea una finestra delle dimensioni di default, posizionata in alto a sinistra. */
+    public Viewport() {
+        this(DEFAULT_ROWS, DEFAULT_COLUMNS);
+    }
+
+    /** Il costruttore crea una finestra posizionata in alto a sinistra.
+     * @param fixedMaxRows numero massimo di righe mostrate
+     * @param fixedMaxColumns numero massimo di colonne mostrate */
+    public Viewport(final int fixedMaxRows, final int fixedMaxColumns) {
+        maxRows = fixedMaxRows;
+        maxColumns = fixedMaxColumns;
+    }
+
+    /** Metodo che crea la finestra piú grande che entra nel terminale per una griglia delle dimensioni indicate.
+     * Le colonne mostrate sono quelle che entrano nelle colonne del terminale dopo i numeri delle righe, con la
+     * larghezza delle celle usata da GridRenderer per quella griglia, quindi sulle griglie larghe, con etichette
+     * di piú lettere, ne entrano meno; le righe mostrate lasciano spazio all'intestazione, al prompt e, se la
+     * griglia non entra nella finestra, alla minimappa. Le dimensioni del terminale non note vengono sostituite
+     * da quelle di default.
+     * @param rows cardinalità delle righe della griglia
+     * @param columns cardinalità delle colonne della griglia
+     * @return la finestra, posizionata in alto a sinistra */
+    public static Viewport forTerminal(final int rows, final int columns) {
+        int lines = ScreenModel.getTerminalLines();
+        int width = ScreenModel.getTerminalColumns();
+
+        int maxColumns = DEFAULT_COLUMNS;
+        if (width > 0) {
+            maxColumns = Math.max(1, (width - GridRenderer.rowLabelWidth(rows)) / GridRenderer.cellWidth(columns));
+        }
+        int maxRows = DEFAULT_ROWS;
+        if (lines > 0) {
+            maxRows = lines - FRAME_LINES;
+            if (maxRows < rows || maxColumns < columns) {
+                //Riga che descrive la minimappa e righe della minimappa
+                maxRows -= 1 + DensityMap.rowsFor(rows);
+            }
+            maxRows = Math.max(1, maxRows);
+        }
+        return new Viewport(maxRows, maxColumns);
+    }
+
+    /** Metodo che centra la finestra su una cella, spostandola quanto basta per restare dentro la griglia.
+     * @param grid griglia mostrata
+     * @param row riga della cella
+     * @param column colonna della cella
+     * @return questa finestra */
+    public Viewport centerOn(final Grid grid, final int row, final int column) {
+        firstRow = clamp(row - getRows(grid) / 2, grid.getRowLength() - getRows(grid));
+        firstColumn = clamp(column - getColumns(grid) / 2, grid.getColumnLength() - getColumns(grid));
+        return this;
+    }
+
+    /** Metodo che centra la finestra sull'ultima cella attaccata, se é stata attaccata una nuova cella dall'ultima
+     * chiamata; altrimenti la finestra resta dove si trova, ad esempio dove l'ha portata centerOn.
+     * Le griglie che entrano sia nella finestra di default sia in quella del terminale non tengono traccia degli
+     * attacchi e vengono ignorate.
+     * @param grid griglia mostrata
+     * @return questa finestra */
+    public Viewport follow(final Grid grid) {
+        DensityMap density = grid.getDensity();
+        if (density != null && density.getAttacks() != followedAttacks) {
+            followedAttacks = density.getAttacks();
+            centerOn(grid, density.getLastRow(), density.getLastColumn());
+        }
+        return this;
+    }
+
+    /** Metodo che controlla se la finestra mostra tutta la griglia.
+     * @param grid griglia mostrata
+     * @return vero se la griglia entra nella finestra */
+    public boolean covers(final Grid grid) {
+        return grid.getRowLength() <= maxRows && grid.getColumnLength() <= maxColumns;
+    }
+
+    /** Metodo che ritorna la prima riga mostrata.
+     * @param grid griglia mostrata
+     * @return l'indice della riga */
+    public int getFirstRow(final Grid grid) {
+        return clamp(firstRow, grid.getRowLength() - getRows(grid));
+    }
+
+    /** Metodo che ritorna la prima colonna mostrata.
+     * @param grid griglia mostrata
+     * @return l'indice della colonna */
+    public int getFirstColumn(final Grid grid) {
+        return clamp(firstColumn, grid.getColumnLength() - getColumns(grid));
+    }
+
+    /** Metodo che ritorna il numero di righe mostrate.
+     * @param grid griglia mostrata
+     * @return il numero di righe */
+    public int getRows(final Grid grid) {
+        return Math.min(maxRows, grid.getRowLength());
+    }
+
+    /** Metodo che ritorna il numero di colonne mostrate.
+     * @param grid griglia mostrata
+     * @return il numero di colonne */
+    public int getColumns(final Grid grid) {
+        return Math.min(maxColumns, grid.getColumnLength());
+    }
+
+    /** Limita un indice tra 0 e il massimo indicato.
+     * @param value indice da limitare
+     * @param max valore massimo, non negativo
+     * @return l'indice limitato */
+    private static int clamp(final int value, final int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
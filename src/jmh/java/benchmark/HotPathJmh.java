@@ -0,0 +1,143 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** {@literal <<Control>>}
+ * Benchmark JMH dei percorsi critici di una partita, gli stessi carichi di HotPathWorkloads misurati da
+ * HotPathBenchmark. Ogni metodo esegue un blocco di BATCH operazioni del suo carico e JMH riporta le operazioni
+ * al secondo per singola operazione; con il profiler gc, configurato nel blocco jmh di build.gradle insieme al
+ * file dei risultati in JSON, gc.alloc.rate.norm indica i byte allocati per operazione.
+ * Si avvia con: gradle jmh (i risultati vengono salvati in build/results/jmh/results.json) */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(HotPathJmh.BATCH)
+public class HotPathJmh {
+
+    /** Operazioni eseguite da ogni invocazione di un metodo di benchmark. */
+    static final int BATCH = 1_000;
+
+    /** Operazioni di ogni invocazione del risolutore, una per posizione di fine partita preparata: un blocco
+     * di BATCH posizioni sulla griglia 26 durerebbe piú di un'iterazione. */
+    static final int ENDGAME_BATCH = 16;
+
+    /** Dimensione della griglia quadrata, le stesse di CommandsMainMenu. */
+    @Param({"10", "18", "26"})
+    public int dim;
+
+    /** Piazzamento casuale della flotta. */
+    private BenchmarkHarness.Workload placement;
+
+    /** Attacco di una cella, con una nuova partita ogni dim*dim attacchi. */
+    private BenchmarkHarness.Workload attack;
+
+    /** Percorso completo di un attacco digitato. */
+    private BenchmarkHarness.Workload commandAttack;
+
+    /** Colpo completo del ProbabilityShooter. */
+    private BenchmarkHarness.Workload aiShot;
+
+    /** Risoluzione esatta di una posizione di fine partita. */
+    private BenchmarkHarness.Workload endgame;
+
+    /** Controllo della nave affondata. */
+    private BenchmarkHarness.Workload sinkCheck;
+
+    /** Controllo di fine partita. */
+    private BenchmarkHarness.Workload gameEnd;
+
+    /** Costruzione del fotogramma della griglia. */
+    private BenchmarkHarness.Workload render;
+
+    /** Riconoscimento delle righe del menu di gioco. */
+    private BenchmarkHarness.Workload parse;
+
+    /** Prepara i carichi per la dimensione della prova, prima delle iterazioni di riscaldamento. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        placement = HotPathWorkloads.placement(dim);
+        attack = HotPathWorkloads.attack(dim);
+        commandAttack = HotPathWorkloads.commandAttack(dim);
+        aiShot = HotPathWorkloads.aiShot(dim);
+        endgame = HotPathWorkloads.endgame(dim);
+        sinkCheck = HotPathWorkloads.sinkCheck(dim);
+        gameEnd = HotPathWorkloads.gameEnd(dim);
+        render = HotPathWorkloads.render(dim);
+        parse = HotPathWorkloads.parse(dim);
+    }
+
+    /** Piazzamento casuale della flotta (GameSession.placeShipsRandom).
+     * @return le flotte piazzate */
+    @Benchmark
+    public long placement() {
+        return placement.run(BATCH);
+    }
+
+    /** Attacco di una cella (GameSession.attackCell).
+     * @return gli attacchi andati a segno */
+    @Benchmark
+    public long attack() {
+        return attack.run(BATCH);
+    }
+
+    /** Percorso completo di un attacco digitato, senza le stampe.
+     * @return gli attacchi andati a segno */
+    @Benchmark
+    public long commandAttack() {
+        return commandAttack.run(BATCH);
+    }
+
+    /** Colpo completo del ProbabilityShooter.
+     * @return i colpi andati a segno */
+    @Benchmark
+    public long aiShot() {
+        return aiShot.run(BATCH);
+    }
+
+    /** Risoluzione esatta di una posizione di fine partita (EndgameSolver).
+     * @return le disposizioni trovate */
+    @Benchmark
+    @OperationsPerInvocation(ENDGAME_BATCH)
+    public long endgame() {
+        return endgame.run(ENDGAME_BATCH);
+    }
+
+    /** Controllo della nave affondata sul registro delle navi.
+     * @return le navi affondate trovate */
+    @Benchmark
+    public long sinkCheck() {
+        return sinkCheck.run(BATCH);
+    }
+
+    /** Controllo di fine partita (GameSession.getStatus).
+     * @return i controlli con la partita in corso */
+    @Benchmark
+    public long gameEnd() {
+        return gameEnd.run(BATCH);
+    }
+
+    /** Costruzione del fotogramma della griglia (GridRenderer).
+     * @return la somma delle lunghezze dei fotogrammi */
+    @Benchmark
+    public long render() {
+        return render.run(BATCH);
+    }
+
+    /** Riconoscimento delle righe del menu di gioco (CommandTable e CommandParser).
+     * @return i comandi riconosciuti e le coordinate lette */
+    @Benchmark
+    public long parse() {
+        return parse.run(BATCH);
+    }
+}
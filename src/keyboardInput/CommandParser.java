@@ -0,0 +1,159 @@
+package keyboardInput;
+
+/** {@literal <<Control>>}
+ * Classe che contiene i parser scritti a mano per le parti numeriche dei comandi.
+ * La classe CommandParser sostituisce le espressioni regolari usate dai menu ("[a-z]-\\d[0-9]?",
+ * "/tempo \\d[0-9]?") e gli split delle coordinate: ogni metodo scorre i caratteri una sola volta,
+ * senza compilare espressioni e senza allocare stringhe o array.
+ * Le colonne oltre la Z proseguono come nei fogli di calcolo (AA, AB, ..., ZZ, AAA), cosí le coordinate
+ * funzionano anche sulle griglie molto grandi.
+ * Una coordinata corretta viene restituita come un unico intero che contiene riga e colonna, leggibili
+ * con rowOf e columnOf; i valori negativi indicano un errore. */
+public final class CommandParser {
+
+    /** Valore restituito da parseCoordinate se il testo non ha la forma di una coordinata. */
+    public static final int NOT_A_COORDINATE = -1;
+
+    /** Valore restituito da parseCoordinate se la coordinata ha la forma corretta ma é fuori dalla griglia. */
+    public static final int OUT_OF_GRID = -2;
+
+    /** Valore restituito da parseNumber se il testo non é un numero accettato. */
+    public static final int NOT_A_NUMBER = -1;
+
+    /** Numero massimo di cifre accettate per l'argomento di un comando. */
+    private static final int MAX_DIGITS = 2;
+
+    /** Numero massimo di cifre accettate per la riga di una coordinata. */
+    private static final int MAX_ROW_DIGITS = 4;
+
+    /** Numero massimo di lettere accettate per la colonna di una coordinata. */
+    private static final int MAX_COLUMN_LETTERS = 3;
+
+    /** Numero di lettere dell'alfabeto usato per le colonne. */
+    private static final int LETTERS = 26;
+
+    /** Numero di bit che separano la riga dalla colonna nella coordinata codificata. */
+    private static final int ROW_SHIFT = 16;
+
+    /** Maschera che estrae la colonna dalla coordinata codificata. */
+    private static final int COLUMN_MASK = (1 << ROW_SHIFT) - 1;
+
+    /** Base dei numeri letti. */
+    private static final int RADIX = 10;
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private CommandParser() { }
+
+    /** Metodo che legge una coordinata d'attacco nella forma lettere-numero, ad esempio "a-1", "B-10" o "aa-120".
+     * Le lettere, da una a tre, indicano la colonna e il numero, fino a quattro cifre, la riga a partire da 1.
+     * @param text testo digitato dall'utente
+     * @param dimRow cardinalità delle righe della griglia
+     * @param dimColumn cardinalità delle colonne della griglia
+     * @return la coordinata codificata, NOT_A_COORDINATE se il testo non ha la forma di una coordinata
+     * oppure OUT_OF_GRID se la coordinata é fuori dalla griglia */
+    public static int parseCoordinate(final CharSequence text, final int dimRow, final int dimColumn) {
+        int letters = letterCount(text);
+        if (letters == 0 || letters >= text.length() || text.charAt(letters) != '-') {
+            return NOT_A_COORDINATE;
+        }
+
+        int column = parseColumn(text, letters);
+        int number = parseDigits(text, letters + 1, MAX_ROW_DIGITS);
+        if (number == NOT_A_NUMBER) {
+            return NOT_A_COORDINATE;
+        }
+
+        int row = number - 1;
+        if (row < 0 || row >= dimRow || column >= dimColumn) {
+            return OUT_OF_GRID;
+        }
+        return row << ROW_SHIFT | column;
+    }
+
+    /** Metodo che controlla se il testo é una coordinata a cui manca il trattino, ad esempio "a1".
+     * @param text testo digitato dall'utente
+     * @return vero se il testo é formato dalle lettere e dalle cifre di una coordinata */
+    public static boolean isCoordinateWithoutDash(final CharSequence text) {
+        int letters = letterCount(text);
+        return letters > 0 && parseDigits(text, letters, MAX_ROW_DIGITS) != NOT_A_NUMBER;
+    }
+
+    /** Metodo che legge un numero di una o due cifre che occupa il testo dalla posizione indicata fino alla fine.
+     * @param text testo da esaminare
+     * @param from indice della prima cifra
+     * @return il numero letto oppure NOT_A_NUMBER */
+    public static int parseNumber(final CharSequence text, final int from) {
+        return parseDigits(text, from, MAX_DIGITS);
+    }
+
+    /** Metodo che legge un numero di cifre limitate che occupa il testo dalla posizione indicata fino alla fine.
+     * @param text testo da esaminare
+     * @param from indice della prima cifra
+     * @param maxDigits numero massimo di cifre accettate
+     * @return il numero letto oppure NOT_A_NUMBER */
+    private static int parseDigits(final CharSequence text, final int from, final int maxDigits) {
+        int length = text.length() - from;
+        if (length < 1 || length > maxDigits) {
+            return NOT_A_NUMBER;
+        }
+
+        int number = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_A_NUMBER;
+            }
+            number = number * RADIX + (c - '0');
+        }
+        return number;
+    }
+
+    /** Metodo che estrae la riga da una coordinata codificata.
+     * @param coordinate coordinata restituita da parseCoordinate
+     * @return la riga, a partire da 0 */
+    public static int rowOf(final int coordinate) {
+        return coordinate >>> ROW_SHIFT;
+    }
+
+    /** Metodo che estrae la colonna da una coordinata codificata.
+     * @param coordinate coordinata restituita da parseCoordinate
+     * @return la colonna, a partire da 0 */
+    public static int columnOf(final int coordinate) {
+        return coordinate & COLUMN_MASK;
+    }
+
+    /** Conta le lettere iniziali del testo, che formano la colonna di una coordinata.
+     * @param text testo da esaminare
+     * @return il numero di lettere, 0 se sono piú di MAX_COLUMN_LETTERS */
+    private static int letterCount(final CharSequence text) {
+        int letters = 0;
+        while (letters < text.length() && columnIndex(text.charAt(letters)) >= 0) {
+            letters++;
+        }
+        return letters > MAX_COLUMN_LETTERS ? 0 : letters;
+    }
+
+    /** Converte le lettere iniziali del testo nell'indice della colonna: A é 0, Z é 25, AA é 26 e cosí via.
+     * @param text testo da esaminare
+     * @param letters numero di lettere della colonna
+     * @return l'indice della colonna */
+    private static int parseColumn(final CharSequence text, final int letters) {
+        int column = 0;
+        for (int i = 0; i < letters; i++) {
+            column = column * LETTERS + columnIndex(text.charAt(i)) + 1;
+        }
+        return column - 1;
+    }
+
+    /** Converte la lettera di una colonna nel suo indice, senza distinguere maiuscole e minuscole.
+     * @param c lettera della colonna
+     * @return l'indice della colonna, negativo se il carattere non é una lettera ASCII */
+    private static int columnIndex(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return -1;
+    }
+}
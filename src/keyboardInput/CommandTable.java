@@ -0,0 +1,153 @@
+package keyboardInput;
+
+import game.Settings.CommandsState;
+
+/** {@literal <<Entity>>}
+ * Tabella che associa i comandi testuali (ad esempio "/help") allo stato corrispondente di CommandsState.
+ * La classe CommandTable sostituisce le catene di equalsIgnoreCase dei menu: i comandi vengono inseriti una
+ * sola volta in una tabella hash ad indirizzamento aperto, calcolata sui caratteri in minuscolo, e la ricerca
+ * di una riga digitata dall'utente richiede il calcolo di un solo hash e, di norma, un solo confronto.
+ * La ricerca non distingue maiuscole e minuscole, lavora su una porzione di qualsiasi CharSequence e non
+ * alloca memoria, quindi puó essere usata anche per la prima parola di un comando con argomento.
+ * Le tabelle dei menu del gioco sono le costanti MAIN_MENU, MAIN_MENU_ARGUMENTS, GAME_MENU e
+ * GAME_MENU_ARGUMENTS. */
+public final class CommandTable {
+
+    /** Comandi senza argomento del menu principale. */
+    public static final CommandTable MAIN_MENU = new CommandTable(
+            new String[] {"/help", "/gioca", "/esci", "/facile", "/medio", "/difficile", "/mostralivello",
+                "/mostranavi", "/svelagriglia", "/standard", "/large", "/extralarge", "/mostratempo", "/metriche"},
+            new CommandsState[] {CommandsState.HELP, CommandsState.GIOCA, CommandsState.ESCI, CommandsState.FACILE,
+                CommandsState.MEDIO, CommandsState.DIFFICILE, CommandsState.MOSTRALIVELLO, CommandsState.MOSTRANAVI,
+                CommandsState.SVELAGRIGLIA, CommandsState.STANDARD, CommandsState.LARGE, CommandsState.EXTRALARGE,
+                CommandsState.MOSTRATEMPO, CommandsState.METRICHE});
+
+    /** Comandi del menu principale seguiti da uno spazio e da un numero, ad esempio "/tempo 10". */
+    public static final CommandTable MAIN_MENU_ARGUMENTS = new CommandTable(
+            new String[] {"/tempo", "/facile", "/medio", "/difficile", "/tentativi"},
+            new CommandsState[] {CommandsState.TEMPO, CommandsState.FACILETENTATIVI, CommandsState.MEDIOTENTATIVI,
+                CommandsState.DIFFICILETENTATIVI, CommandsState.PERSONALIZZATA});
+
+    /** Comandi del menu di gioco. */
+    public static final CommandTable GAME_MENU = new CommandTable(
+            new String[] {"/help", "/esci", "/mostralivello", "/mostranavi", "/svelagriglia", "/mostratempo",
+                "/mostragriglia", "/abbandona", "/mostratentativi", "/metriche"},
+            new CommandsState[] {CommandsState.HELP, CommandsState.ESCI, CommandsState.MOSTRALIVELLO,
+                CommandsState.MOSTRANAVI, CommandsState.SVELAGRIGLIA, CommandsState.MOSTRATEMPO,
+                CommandsState.MOSTRAGRIGLIA, CommandsState.ABBANDONA, CommandsState.MOSTRATENTATIVI,
+                CommandsState.METRICHE});
+
+    /** Comandi del menu di gioco seguiti da uno spazio e da una coordinata, ad esempio "/centra AB-120". */
+    public static final CommandTable GAME_MENU_ARGUMENTS = new CommandTable(
+            new String[] {"/centra"},
+            new CommandsState[] {CommandsState.CENTRA});
+
+    /** Distanza tra una lettera maiuscola e la corrispondente minuscola nella tabella ASCII. */
+    private static final int CASE_OFFSET = 'a' - 'A';
+
+    /** Comandi in minuscolo, nella posizione data dal loro hash; null indica una posizione libera. */
+    private final String[] keys;
+
+    /** Stato associato ad ogni comando della tabella. */
+    private final CommandsState[] states;
+
+    /** Maschera per ridurre un hash ad una posizione della tabella. */
+    private final int mask;
+
+    /** Il costruttore crea la tabella a partire da due array paralleli.
+     * @param commands comandi riconosciuti, ad esempio "/help"
+     * @param commandStates stato associato ad ogni comando */
+    public CommandTable(final String[] commands, final CommandsState[] commandStates) {
+        int size = Integer.highestOneBit(Math.max(1, commands.length * 2 - 1)) << 1;
+        keys = new String[size];
+        states = new CommandsState[size];
+        mask = size - 1;
+
+        for (int i = 0; i < commands.length; i++) {
+            String key = commands[i];
+            int slot = hash(key, 0, key.length()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = toLowerCase(key);
+            states[slot] = commandStates[i];
+        }
+    }
+
+    /** Metodo che cerca un comando corrispondente all'intero testo.
+     * @param text testo digitato dall'utente
+     * @return lo stato del comando, null se il testo non é un comando della tabella */
+    public CommandsState lookup(final CharSequence text) {
+        return lookup(text, 0, text.length());
+    }
+
+    /** Metodo che cerca un comando corrispondente ad una porzione del testo.
+     * @param text testo digitato dall'utente
+     * @param from indice del primo carattere della porzione
+     * @param to indice successivo all'ultimo carattere della porzione
+     * @return lo stato del comando, null se la porzione non é un comando della tabella */
+    public CommandsState lookup(final CharSequence text, final int from, final int to) {
+        int slot = hash(text, from, to) & mask;
+
+        while (keys[slot] != null) {
+            if (matches(keys[slot], text, from, to)) {
+                return states[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /** Confronta un comando della tabella con una porzione del testo, senza distinguere maiuscole e minuscole.
+     * @param key comando in minuscolo
+     * @param text testo digitato dall'utente
+     * @param from indice del primo carattere della porzione
+     * @param to indice successivo all'ultimo carattere della porzione
+     * @return vero se la porzione corrisponde al comando */
+    private static boolean matches(final String key, final CharSequence text, final int from, final int to) {
+        if (key.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != toLowerCase(text.charAt(from + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Calcola l'hash dei caratteri in minuscolo di una porzione del testo.
+     * @param text testo da esaminare
+     * @param from indice del primo carattere della porzione
+     * @param to indice successivo all'ultimo carattere della porzione
+     * @return l'hash della porzione */
+    private static int hash(final CharSequence text, final int from, final int to) {
+        final int multiplier = 31;
+        int hash = 0;
+
+        for (int i = from; i < to; i++) {
+            hash = multiplier * hash + toLowerCase(text.charAt(i));
+        }
+        // Mescola i bit alti in quelli bassi, che sono gli unici usati dalla maschera.
+        return hash ^ (hash >>> (Integer.SIZE / 2));
+    }
+
+    /** Converte in minuscolo una lettera ASCII, lasciando invariati gli altri caratteri.
+     * @param c carattere da convertire
+     * @return il carattere in minuscolo */
+    private static char toLowerCase(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + CASE_OFFSET) : c;
+    }
+
+    /** Converte in minuscolo le lettere ASCII di un comando.
+     * @param command comando da convertire
+     * @return il comando in minuscolo */
+    private static String toLowerCase(final String command) {
+        char[] chars = command.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
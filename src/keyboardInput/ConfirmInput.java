@@ -10,41 +10,59 @@ import utility.UtilityTools;
  * e restituisce true se l'input è "yes" e false se l'input è "no". Se l'input non è corretto,
  * la classe visualizza un messaggio di errore e richiede nuovamente l'input.
  * Inoltre, eredita il metodo takeInput dalla classe padre KeyboardInput per ottenere l'input dell'utente.
+ * Chi legge le risposte da un'altra sorgente, come le partite remote, le controlla con accept e isYes: i
+ * messaggi di errore sono gli stessi della console, scritti sull'Appendable indicato nel costruttore.
  * In generale, la classe ConfirmInput facilita l'acquisizione di input di conferma coerenti dall'utente. */
 public class ConfirmInput extends KeyboardInput {
 
-    /** Costruttore di default della classe. Non esegue alcuna operazione.
-    * Aggiunto per prevenire il warning di Javadoc. */
+    /** Costruttore di default della classe, scrive i messaggi di errore sulla console. */
     public ConfirmInput() { };
 
-    /** Controlla che la stringa di input non abbia errori.
+    /** Costruttore che sceglie dove scrivere i messaggi di errore.
+     * @param output destinazione dei messaggi di errore */
+    public ConfirmInput(final Appendable output) {
+        super(output);
+    }
+
+    /** Controlla che la stringa di input non abbia errori; se ne ha, dopo il messaggio aspetta INVIO.
      * @return boolean se il l'input é sbagliato ritorna falso altrimenti vero */
     protected boolean isTheInputCorrect() {
-        if (getUserInput().equalsIgnoreCase("yes") || getUserInput().equalsIgnoreCase("no")) {
+        if (accept(getUserInput())) {
+            return true;
+        }
+        waitForEnter();
+        return false;
+    };
+
+    /** Controlla una risposta e la conserva; se non é yes o no scrive il messaggio di errore.
+     * @param answer risposta dell'utente
+     * @return vero se la risposta é yes oppure no */
+    public boolean accept(final String answer) {
+        setUserInput(answer);
+        if (answer.equalsIgnoreCase("yes") || answer.equalsIgnoreCase("no")) {
             return true;
         }
 
-        if (getUserInput().isEmpty()) {
-            System.out.print(UtilityTools.RED + "\nErrore: Nessun comando inserito, premere INVIO "
-                    + "per riprovare..." + UtilityTools.RESET);
+        if (answer.isEmpty()) {
+            report(UtilityTools.RED + "\nErrore: Nessun comando inserito" + UtilityTools.RESET + "\n");
         } else {
-            System.out.print(UtilityTools.RED + "\nErrore: Solo le parole yes/no sono accettate, "
-                    + "riprova con una parola corretta" + UtilityTools.RESET);
+            report(UtilityTools.RED + "\nErrore: Solo le parole yes/no sono accettate, "
+                    + "riprova con una parola corretta" + UtilityTools.RESET + "\n");
         }
-        System.out.println();
-        UtilityTools.SCANNER.nextLine();
         return false;
-    };
+    }
+
+    /** Indica se l'ultima risposta accettata é yes.
+     * @return vero se l'utente ha scritto "yes" */
+    public boolean isYes() {
+        return getUserInput().equalsIgnoreCase("yes");
+    }
 
     /** Metodo che controlla in base all'input se l'utente ha scritto yes oppure no.
      * @return boolean  Ritorna vero se l'utente scrive "yes", e falso se scrive "no"
      * @param menuIndicator Per indicare che print deve fare takeInput al refresh dello schermo */
     public boolean isConfirmed(final int menuIndicator) {
         takeInput(menuIndicator);
-
-        if (getUserInput().equalsIgnoreCase("yes")) {
-            return true;
-        }
-        return false;
+        return isYes();
     }
 }
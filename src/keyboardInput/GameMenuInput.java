@@ -1,10 +1,7 @@
 package keyboardInput;
 
-import java.nio.charset.StandardCharsets;
-
-import game.Settings;
+import game.GameSession;
 import game.Settings.CommandsState;
-import grid.Grid;
 import utility.UtilityTools;
 
 /** {@literal <<Boundary>>}
@@ -12,126 +9,105 @@ import utility.UtilityTools;
  * La classe GameMenuInput è una sottoclasse di KeyboardInput e si occupa di gestire l'input dell'utente
  * all'interno del menu di gioco. La sua responsabilità principale è controllare se l'input inserito
  * dall'utente corrisponde a comandi validi del menu di gioco.
- * La classe fornisce il metodo isTheInputCorrect, che controlla l'input dell'utente e imposta lo stato
- * del comando corrispondente nella classe Settings. I comandi validi includono /help, /esci,
- * /mostralivello, /mostranavi, /svelagriglia, /mostratempo, /mostragriglia, /abbandona, e /mostratentativi.
+ * La classe fornisce il metodo accept, che controlla una riga e conserva lo stato del comando corrispondente,
+ * letto poi con getState. I comandi validi includono /help, /esci, /mostralivello, /mostranavi, /svelagriglia,
+ * /mostratempo, /mostragriglia, /abbandona, /mostratentativi, /metriche e /centra seguito da una coordinata.
  * Se l'input dell'utente non corrisponde a nessun comando valido, viene visualizzato un messaggio di
- * errore appropriato. Inoltre, la classe fornisce il metodo isTheCoordinatesCorrect che controlla se
- * le coordinate inserite dall'utente per l'attacco sono valide. Questo metodo controlla se le coordinate
- * sono state inserite correttamente nel formato corretto (ad esempio, "a-1" o "B-3") e se le coordinate
- * sono all'interno dei limiti della griglia di gioco. Se le coordinate non sono corrette,
- * viene visualizzato un messaggio di errore.
+ * errore appropriato. I comandi vengono cercati nella tabella CommandTable.GAME_MENU, mentre le coordinate
+ * inserite dall'utente per l'attacco vengono lette da CommandParser, che controlla se sono state inserite
+ * nel formato corretto (ad esempio, "a-1" o "B-3") e se sono all'interno dei limiti della griglia di gioco.
+ * Se le coordinate non sono corrette, viene visualizzato un messaggio di errore, altrimenti la coordinata
+ * viene conservata e resa disponibile con getCoordinate.
+ * Le coordinate vengono controllate sulla GameSession indicata nel costruttore e i messaggi di errore vengono
+ * scritti sul suo Appendable, cosí la stessa classe controlla le righe della console e quelle delle partite
+ * remote; solo la console, attraverso takeInput, aspetta INVIO dopo un errore.
  * In generale, la classe GameMenuInput facilita il controllo e la gestione dell'input dell'utente
  * nel menu di gioco, assicurandosi che vengano eseguite le azioni corrispondenti ai comandi validi
  * e che le coordinate di attacco siano corrette. */
 public class GameMenuInput extends KeyboardInput {
 
-    /** Costruttore di default della classe, aggiunto per warning di Javadoc.*/
-    public GameMenuInput() { };
+    /** Il costruttore prepara il controllo delle righe di una partita.
+     * @param gameSession partita su cui controllare le coordinate
+     * @param output destinazione dei messaggi di errore */
+    public GameMenuInput(final GameSession gameSession, final Appendable output) {
+        super(output);
+        session = gameSession;
+    }
+
+    /** Partita su cui vengono controllate le coordinate. */
+    private final GameSession session;
+
+    /** Stato dell'ultimo comando accettato. */
+    private CommandsState state;
 
-    /** Utilizzo del Singleton per accedere a variabili condivise. */
-    private Settings settings = Settings.getIstance();
+    /** Ultima coordinata letta, codificata da CommandParser. */
+    private int coordinate;
 
-    /** Controlla se l'utente ha inserito correttamente il comando,
-     * nel caso il comando fosse sbagliato il programma lo segnalerebbe e il metodo ritornerebbe "false"
-     * altrimenti imposta l'CommandsState di gameMenu con il relativo comando e ritorna "true".
+    /** Controlla se l'utente ha inserito correttamente il comando; se é sbagliato, dopo il messaggio di
+     * errore aspetta INVIO.
      * @return false, true Ritorna vero se il comando è implementato nel gioco,
      * ritorna falso se l'utente ha inserito una stringa errato o se il comando non è implementato nel gioco */
     protected boolean isTheInputCorrect() {
-        if (getUserInput().equalsIgnoreCase(("/help"))) {
-            settings.setCurrentState(CommandsState.HELP);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/esci")) {
-            settings.setCurrentState(CommandsState.ESCI);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostralivello")) {
-            settings.setCurrentState(CommandsState.MOSTRALIVELLO);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostranavi")) {
-            settings.setCurrentState(CommandsState.MOSTRANAVI);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/svelagriglia")) {
-            settings.setCurrentState(CommandsState.SVELAGRIGLIA);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostratempo")) {
-            settings.setCurrentState(CommandsState.MOSTRATEMPO);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostragriglia")) {
-            settings.setCurrentState(CommandsState.MOSTRAGRIGLIA);
-            return true;
-        } else if (getUserInput().matches("[a-z]-\\d[0-9]?") || getUserInput().matches("[A-Z]-\\d[0-9]?")) {
-
-            if (!isTheCoordinatesCorrect(settings.getEnemyGrid(), getUserInput().toLowerCase())) {
-                UtilityTools.SCANNER.nextLine();
-                return false;
-            }
-
-            settings.setCurrentState(CommandsState.ATTACCA);
+        if (accept(getUserInput())) {
             return true;
-        } else if (getUserInput().equalsIgnoreCase("/abbandona")) {
-            settings.setCurrentState(CommandsState.ABBANDONA);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostratentativi")) {
-            settings.setCurrentState(CommandsState.MOSTRATENTATIVI);
-            return true;
-        }
-        if (getUserInput().isEmpty()) {
-            System.out.print(UtilityTools.RED + "\nErrore: Nessun comando inserito,"
-                    + " premere INVIO per continuare..." + UtilityTools.RESET);
-        } else if (!getUserInput().startsWith("/") && !getUserInput().matches("[a-z]\\d[0-9]?")
-                && !getUserInput().matches("[A-Z]\\d[0-9]?")) {
-            System.out.print(UtilityTools.RED + "\nErrore: Il prefisso / non e' stato inserito correttamente,"
-                    + " premere INVIO per continuare..." + UtilityTools.RESET);
-        } else if (getUserInput().matches("[a-z]\\d[0-9]?") || getUserInput().matches("[A-Z]\\d[0-9]?")) {
-            System.out.println(UtilityTools.RED + "\nErrore: La stringa " + getUserInput() + " non contiene il -"
-                    + UtilityTools.RESET);
-        } else {
-            System.out.print(UtilityTools.RED + "\nErrore: Comando non supportato,"
-                    + " premere INVIO per continuare..." + UtilityTools.RESET);
         }
-        UtilityTools.SCANNER.nextLine();
+        waitForEnter();
         return false;
     }
 
-    /** Controlla se le coordinate inserite dall'utente sono corrette.
-     * @param mat La griglia di gioco
-     * @param coordinates Le coordinate inserite dall'utente
-     * @return boolean Ritorna vero se le coordinate sono corrette, falso altrimenti */
-    private boolean isTheCoordinatesCorrect(final Grid mat, final String coordinates) {
-        boolean result = false;
-        int column = 0;
-        int row = 0;
-        final int coverter = 97;
-
-        String[] cord = coordinates.split("-");
-        if (cord[0].length() != 1) {
-            System.out.println(UtilityTools.RED + "\nErrore: Le coordinate sono state inserite male"
-                    + UtilityTools.RESET);
-            return false;
+    /** Controlla una riga del menu di gioco: se é un comando o una coordinata d'attacco ne conserva lo stato e
+     * l'eventuale coordinata, altrimenti scrive il messaggio di errore.
+     * @param line riga inserita dall'utente
+     * @return vero se la riga é un comando del menu di gioco oppure una coordinata d'attacco */
+    public boolean accept(final String line) {
+        setUserInput(line);
+        CommandsState found = CommandTable.GAME_MENU.lookup(line);
+        if (found != null) {
+            state = found;
+            return true;
         }
 
-        if (!UtilityTools.isNumeric(cord[1])) {
-            System.out.println(UtilityTools.RED + "\nErrore: Le coordinate sono state inserite male"
-                    + UtilityTools.RESET);
-            return false;
+        int space = line.indexOf(' ');
+        found = space > 0 ? CommandTable.GAME_MENU_ARGUMENTS.lookup(line, 0, space) : null;
+        int parsed;
+        if (found != null) {
+            parsed = CommandParser.parseCoordinate(line.substring(space + 1).strip(), session.getRowLength(),
+                    session.getColumnLength());
+        } else {
+            found = CommandsState.ATTACCA;
+            parsed = CommandParser.parseCoordinate(line, session.getRowLength(), session.getColumnLength());
+        }
+        if (parsed >= 0) {
+            state = found;
+            coordinate = parsed;
+            return true;
         }
 
-        if (cord[1].length() <= 2) {
-            byte[] byteFirstCord = cord[0].getBytes(StandardCharsets.US_ASCII);
-            column = byteFirstCord[0] - coverter;
-            row = Integer.parseInt(cord[1]) - 1;
-            if (column >= 0 && column <= mat.getColumnLength() - 1
-                    && row >= 0 && row <= mat.getRowLength() - 1) {
-                result = true;
-            } else {
-                System.out.println(UtilityTools.RED + "\nErrore: Le coordinate sono state inserite male"
-                        + UtilityTools.RESET);
-            }
+        if (parsed == CommandParser.OUT_OF_GRID || found != CommandsState.ATTACCA) {
+            report(UtilityTools.RED + "\nErrore: Le coordinate sono state inserite male" + UtilityTools.RESET + "\n");
+        } else if (line.isEmpty()) {
+            report(UtilityTools.RED + "\nErrore: Nessun comando inserito" + UtilityTools.RESET + "\n");
+        } else if (CommandParser.isCoordinateWithoutDash(line)) {
+            report(UtilityTools.RED + "\nErrore: La stringa " + line + " non contiene il -" + UtilityTools.RESET
+                    + "\n");
+        } else if (line.charAt(0) != '/') {
+            report(UtilityTools.RED + "\nErrore: Il prefisso / non e' stato inserito correttamente"
+                    + UtilityTools.RESET + "\n");
         } else {
-            System.out.println(UtilityTools.RED + "\nErrore: Le coordinate sono state inserite male"
-                    + UtilityTools.RESET);
+            report(UtilityTools.RED + "\nErrore: Comando non supportato" + UtilityTools.RESET + "\n");
         }
+        return false;
+    }
+
+    /** Accede allo stato dell'ultimo comando accettato.
+     * @return lo stato, ATTACCA se la riga era una coordinata d'attacco */
+    public CommandsState getState() {
+        return state;
+    }
 
-        return result;
+    /** Accede all'ultima coordinata letta, codificata da CommandParser.
+     * @return la coordinata, valida se lo stato corrente é ATTACCA oppure CENTRA */
+    public int getCoordinate() {
+        return coordinate;
     }
 }
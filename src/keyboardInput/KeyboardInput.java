@@ -1,4 +1,7 @@
 package keyboardInput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import game.Settings;
 import utility.UtilityTools;
 
@@ -16,17 +19,38 @@ import utility.UtilityTools;
  * e continua a richiedere l'input finché non viene fornito un input valido.
  * Inoltre, la classe fornisce metodi per impostare e ottenere il valore dell'attributo userInput, che
  * rappresenta la stringa inserita dall'utente.
+ * I messaggi di errore vengono scritti su un Appendable, la console oppure la risposta di una partita remota:
+ * solo la console, dopo un errore, aspetta INVIO prima di ristampare il prompt.
  * In generale, la classe KeyboardInput fornisce un'implementazione di base per la gestione dell'input
  * da tastiera e delega il compito di verificare la correttezza specifica dell'input alle sue sottoclassi. */
 abstract class KeyboardInput {
 
 
-    /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
-    KeyboardInput() { };
+    /** Costruttore di default della classe, scrive i messaggi di errore sulla console. */
+    KeyboardInput() {
+        this(System.out);
+    };
+
+    /** Costruttore che sceglie dove scrivere i messaggi di errore.
+     * @param output destinazione dei messaggi di errore */
+    KeyboardInput(final Appendable output) {
+        out = output;
+    }
+
+    /** Destinazione dei messaggi di errore. */
+    private final Appendable out;
 
     /** Utilizzo del Singleton per accedere a variabili condivise. */
     private Settings settings = Settings.getIstance();
 
+    /** Testo sotto la griglia del menu di gioco, che termina con il prompt del comando. */
+    private static final String GAME_MENU_FOOTER = UtilityTools.GAME_MENU_CHOICES + UtilityTools.GREEN
+            + "Inserire il comando o la coordinata d'attacco es.(A-1): " + UtilityTools.RESET;
+
+    /** Testo sotto la griglia del menu di gioco quando si cerca di uscire, che termina con il prompt. */
+    private static final String GAME_MENU_EXIT_FOOTER = UtilityTools.GAME_MENU_CHOICES + "\n" + UtilityTools.YELLOW
+            + "Vuoi veramente uscire? (Scrivere yes/no): " + UtilityTools.RESET;
+
     /** Rappresenta la variabile che contiene la stringa digitata da tastiera dall'utente. */
     private String userInput;
 
@@ -41,47 +65,70 @@ abstract class KeyboardInput {
     }
 
     /** Prende l'input dal giocatore, in base da dove viene richiamato stampa diversamente.
+     * Le schermate con la griglia del giocatore passano dal modello della schermata, che dopo il primo
+     * disegno invia solo le celle cambiate e riscrive il prompt.
      * @param controllPosition Indica dove viene richiamato takeInput */
     public void takeInput(final int controllPosition) {
         //I valori che rappresentano i print da eseguire in base al menu
-        final int mainMenuNormal = 1;           //Print del menu principale appena si apre il gioco
-        final int mainMenuExitConfirm = 2;      //Print del menu principale quando si esce
         final int gameMenuNormal = 3;           //Print del menu di gioco appena di fa /gioca
         final int gameMenuExitConfirm = 4;      //Print del menu di gioco quando si cerca di uscire durante la partita
-        final int gameMenuAbandonConfirm = 5;   //Print del menu di gioco quando si cerca di abbandonare la partita
 
         do {
-            UtilityTools.clearScreen();
-            if (controllPosition == mainMenuNormal) {
-                UtilityTools.printMainMenuChoices();
-                System.out.print(UtilityTools.GREEN + "Inserire il comando: " + UtilityTools.RESET);
-            } else if (controllPosition == mainMenuExitConfirm) {
-                UtilityTools.printMainMenuChoices();
-                System.out.print(UtilityTools.YELLOW + "\nVuoi veramente uscire? (Scrivere yes/no): "
-                        + UtilityTools.RESET);
-            } else if (controllPosition == gameMenuNormal) {
-                UtilityTools.printGameMenuAsciiArt();
-                settings.getPlayerGrid().printGrid();
-                UtilityTools.printGameMenuChoices();
-                System.out.print(UtilityTools.GREEN + "Inserire il comando o la coordinata d'attacco es.(A-1): "
-                        + UtilityTools.RESET);
-
+            if (controllPosition == gameMenuNormal) {
+                settings.getScreen().draw(UtilityTools.GAME_MENU_ASCII_ART, settings.getPlayerGrid(),
+                        GAME_MENU_FOOTER, System.out);
             } else if (controllPosition == gameMenuExitConfirm) {
-                UtilityTools.printGameMenuAsciiArt();
-                settings.getPlayerGrid().printGrid();
-                UtilityTools.printGameMenuChoices();
-                System.out.print(UtilityTools.YELLOW + "\nVuoi veramente uscire? (Scrivere yes/no): "
-                        + UtilityTools.RESET);
-            } else if (controllPosition == gameMenuAbandonConfirm) {
-                UtilityTools.printGameMenuAsciiArt();
-                UtilityTools.printGameMenuChoices();
-                System.out.print(UtilityTools.YELLOW + "\nVuoi veramente abbandonare "
-                        + "la partita? (Scrivere yes/no): " + UtilityTools.RESET);
+                settings.getScreen().draw(UtilityTools.GAME_MENU_ASCII_ART, settings.getPlayerGrid(),
+                        GAME_MENU_EXIT_FOOTER, System.out);
+            } else {
+                settings.getScreen().invalidate();
+                UtilityTools.clearScreen();
+                printPrompt(controllPosition);
             }
-            setUserInput(UtilityTools.SCANNER.nextLine());
+            setUserInput(UtilityTools.INPUT.nextLine());
         } while (!isTheInputCorrect());
     };
 
+    /** Stampa per intero le schermate che non contengono la griglia del giocatore.
+     * @param controllPosition Indica dove viene richiamato takeInput */
+    private void printPrompt(final int controllPosition) {
+        final int mainMenuNormal = 1;
+        final int mainMenuExitConfirm = 2;
+        final int gameMenuAbandonConfirm = 5;
+
+        if (controllPosition == mainMenuNormal) {
+            UtilityTools.printMainMenuChoices();
+            System.out.print(UtilityTools.GREEN + "Inserire il comando: " + UtilityTools.RESET);
+        } else if (controllPosition == mainMenuExitConfirm) {
+            UtilityTools.printMainMenuChoices();
+            System.out.print(UtilityTools.YELLOW + "\nVuoi veramente uscire? (Scrivere yes/no): "
+                    + UtilityTools.RESET);
+        } else if (controllPosition == gameMenuAbandonConfirm) {
+            UtilityTools.printGameMenuAsciiArt();
+            UtilityTools.printGameMenuChoices();
+            System.out.print(UtilityTools.YELLOW + "\nVuoi veramente abbandonare "
+                    + "la partita? (Scrivere yes/no): " + UtilityTools.RESET);
+        }
+    }
+
+    /** Scrive un messaggio di errore sulla destinazione dei messaggi.
+     * @param message messaggio da scrivere
+     * @throws UncheckedIOException se la destinazione non puó essere scritta */
+    protected final void report(final String message) {
+        try {
+            out.append(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Dopo un messaggio di errore sulla console aspetta INVIO, cosí il messaggio resta visibile finché il
+     * prompt non viene ristampato. */
+    protected final void waitForEnter() {
+        System.out.print("Premere " + UtilityTools.GREEN + "INVIO" + UtilityTools.RESET + " per continuare...");
+        UtilityTools.INPUT.nextLine();
+    }
+
     /** Accede all'attributo userInput.
      * @return userInput ritorna sempre userInput. */
     public final String getUserInput() {
@@ -11,8 +11,9 @@ import utility.UtilityTools;
  * principale (App.java). Se l'input è corretto, la classe imposta lo stato corrispondente al comando inserito
  * e restituisce true, altrimenti restituisce false e visualizza un messaggio di errore a schermo.
  * La classe contiene una serie di costanti che rappresentano i comandi supportati, come ad esempio la selezione
- * della difficoltà di gioco o l'impostazione del tempo di gioco. Ogni comando viene controllato utilizzando
- * una serie di condizioni if-else if. Se un comando corrisponde all'input dell'utente, viene impostato
+ * della difficoltà di gioco o l'impostazione del tempo di gioco. Ogni comando viene cercato nelle tabelle
+ * CommandTable.MAIN_MENU e CommandTable.MAIN_MENU_ARGUMENTS, e l'argomento numerico viene letto da
+ * CommandParser. Se un comando corrisponde all'input dell'utente, viene impostato
  * lo stato corrispondente nel Settings e restituito true.
  * La classe contiene anche metodi ausiliari per controllare la validità dei valori inseriti dall'utente,
  * ad esempio per verificare se il tempo inserito è accettabile o se il numero di tentativi per
@@ -60,97 +61,21 @@ public final class MainMenuInput extends KeyboardInput {
      * @return false, true Ritorna vero se il comando è implementato nel gioco,
      * ritorna falso se l'utente ha inserito una stringa errato o se il comando non è implementato nel gioco */
     protected boolean isTheInputCorrect() {
-        if (getUserInput().equalsIgnoreCase(("/help"))) {
-            settings.setCurrentState(CommandsState.HELP);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/gioca")) {
-            settings.setCurrentState(CommandsState.GIOCA);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/esci")) {
-            settings.setCurrentState(CommandsState.ESCI);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/facile")) {
-            settings.setCurrentState(CommandsState.FACILE);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/medio")) {
-            settings.setCurrentState(CommandsState.MEDIO);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/difficile")) {
-            settings.setCurrentState(CommandsState.DIFFICILE);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostralivello")) {
-            settings.setCurrentState(CommandsState.MOSTRALIVELLO);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostranavi")) {
-            settings.setCurrentState(CommandsState.MOSTRANAVI);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/svelagriglia")) {
-            settings.setCurrentState(CommandsState.SVELAGRIGLIA);
-            return true;
-        } else if (getUserInput().matches("/tempo \\d[0-9]?")) {
-
-            if (!isTimeLegal()) {
-                UtilityTools.SCANNER.nextLine();
-                return false;
-            }
-
-            settings.setCurrentState(CommandsState.TEMPO);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/standard")) {
-            settings.setCurrentState(CommandsState.STANDARD);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/large")) {
-            settings.setCurrentState(CommandsState.LARGE);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/extralarge")) {
-            settings.setCurrentState(CommandsState.EXTRALARGE);
-            return true;
-        } else if (getUserInput().equalsIgnoreCase("/mostratempo")) {
-            settings.setCurrentState(CommandsState.MOSTRATEMPO);
-            return true;
-        } else if (getUserInput().matches("/facile \\d[0-9]?")) {
-
-            if (!isDifficultyLegal(EASY_SELECTOR)) {
-                UtilityTools.SCANNER.nextLine();
-                return false;
-            }
-
-            settings.setCurrentState(CommandsState.FACILETENTATIVI);
-            String number = getUserInput().replaceAll("[^0-9]?", "");
-            settings.setEasyNumTry(Integer.parseInt(number));
-            return true;
-        } else if (getUserInput().matches("/medio \\d[0-9]?")) {
-
-            if (!isDifficultyLegal(MEDIUM_SELECTOR)) {
-                UtilityTools.SCANNER.nextLine();
-                return false;
-            }
-
-            settings.setCurrentState(CommandsState.MEDIOTENTATIVI);
-            String number = getUserInput().replaceAll("[^0-9]?", "");
-            settings.setMediumNumTry(Integer.parseInt(number));
-            return true;
-        } else if (getUserInput().matches("/difficile \\d[0-9]?")) {
+        String input = getUserInput();
+        CommandsState state = CommandTable.MAIN_MENU.lookup(input);
 
-            if (!isDifficultyLegal(HARD_SELECTOR)) {
-                UtilityTools.SCANNER.nextLine();
-                return false;
-            }
-
-            settings.setCurrentState(CommandsState.DIFFICILETENTATIVI);
-            settings.setHardNumTry(Integer.parseInt(getUserInput().replaceAll("[^0-9]?", "")));
+        if (state != null) {
+            settings.setCurrentState(state);
             return true;
-        } else if (getUserInput().matches("/tentativi \\d[0-9]?")) {
+        }
 
-            if (!isDifficultyLegal(PERSONAL_SELECTOR)) {
-                UtilityTools.SCANNER.nextLine();
-                return false;
+        int space = input.indexOf(' ');
+        if (space > 0) {
+            CommandsState argumentState = CommandTable.MAIN_MENU_ARGUMENTS.lookup(input, 0, space);
+            int number = CommandParser.parseNumber(input, space + 1);
+            if (argumentState != null && number != CommandParser.NOT_A_NUMBER) {
+                return applyArgument(argumentState, number);
             }
-
-            settings.setCurrentState(CommandsState.PERSONALIZZATA);
-            String number = getUserInput().replaceAll("[^0-9]?", "");
-            settings.setCurrentDifficultyNumTry(Integer.parseInt(number));
-            return true;
         }
 
         if (getUserInput().isEmpty()) {
@@ -165,17 +90,45 @@ public final class MainMenuInput extends KeyboardInput {
         }
 
         System.out.println();
-        UtilityTools.SCANNER.nextLine();
+        UtilityTools.INPUT.nextLine();
         return false;
     }
 
+    /** Applica un comando con argomento numerico, se il numero rispetta i vincoli del comando.
+     * @param state stato del comando
+     * @param number argomento del comando
+     * @return vero se il comando é stato applicato, altrimenti falso dopo aver atteso INVIO */
+    private boolean applyArgument(final CommandsState state, final int number) {
+        boolean legal = switch (state) {
+            case TEMPO -> isTimeLegal(number);
+            case FACILETENTATIVI -> isDifficultyLegal(EASY_SELECTOR, number);
+            case MEDIOTENTATIVI -> isDifficultyLegal(MEDIUM_SELECTOR, number);
+            case DIFFICILETENTATIVI -> isDifficultyLegal(HARD_SELECTOR, number);
+            default -> isDifficultyLegal(PERSONAL_SELECTOR, number);
+        };
+
+        if (!legal) {
+            UtilityTools.INPUT.nextLine();
+            return false;
+        }
+
+        settings.setCurrentState(state);
+        switch (state) {
+            case FACILETENTATIVI -> settings.setEasyNumTry(number);
+            case MEDIOTENTATIVI -> settings.setMediumNumTry(number);
+            case DIFFICILETENTATIVI -> settings.setHardNumTry(number);
+            case PERSONALIZZATA -> settings.setCurrentDifficultyNumTry(number);
+            default -> { }
+        }
+        return true;
+    }
+
     /** Controlla se il valore selezionato dall'utente é accettato secondo i vincoli delle
      * difficoltá, nel caso il comando fosse sbagliato il programma lo segnalerebbe e il metodo ritornerebbe "false"
      * altrimenti imposta l'CommandsState di menu con il relativo comando e ritorna "true".
+     * @param number il tempo inserito dall'utente
      * @return vero se il valore messo puó essere utilizzato, altrimenti falso stampando un errore a schermo */
-    private boolean isTimeLegal() {
-        int number = Integer.parseInt(getUserInput().replaceAll("[^0-9]?", ""));
-
+    private boolean isTimeLegal(final int number) {
         if (number < settings.getMinValueTime()) {
             System.out.println(UtilityTools.RED + "\nErrore: Bisogna inserire un tempo minimo di "
                     + settings.getMinValueTime() + " minuti." + UtilityTools.RESET);
@@ -189,11 +142,9 @@ public final class MainMenuInput extends KeyboardInput {
      * difficoltá, nel caso il comando fosse sbagliato il programma lo segnalerebbe e il metodo ritornerebbe "false"
      * altrimenti imposta CurrentStte di menu con il relativo comando e ritorna "true".
      * @param difficulty la difficoltá selezionata dall'utente
+     * @param number il numero di tentativi inserito dall'utente
      * @return vero se il valore messo puó essere utilizzato, altrimenti falso stampando un errore a schermo */
-    private boolean isDifficultyLegal(final String difficulty) {
-
-        int number = Integer.parseInt(getUserInput().replaceAll("[^0-9]?", ""));
-
+    private boolean isDifficultyLegal(final String difficulty, final int number) {
         if (number > MAX_INT) {
             System.out.println(UtilityTools.RED + "\nErrore: Il numero inserito non puó superare "
                     + MAX_INT + UtilityTools.RESET);
@@ -1,5 +1,6 @@
 package menu;
 
+import game.Metrics;
 import game.Settings;
 import utility.UtilityTools;
 
@@ -8,8 +9,8 @@ import utility.UtilityTools;
  * La responsabilità della classe Commands è quella di gestire i comandi comuni e i valori comuni tra
  * i menu di gioco e il menu principale. La classe fornisce metodi per stampare le informazioni sulle navi
  * e il numero di esemplari per ogni nave, nonché per visualizzare il livello di gioco e il numero massimo
- * di tentativi falliti. La classe utilizza la classe Settings per accedere alle impostazioni di gioco
- * condivise attraverso il pattern Singleton. */
+ * di tentativi falliti, e per mostrare le metriche raccolte da Metrics. La classe utilizza la classe Settings
+ * per accedere alle impostazioni di gioco condivise attraverso il pattern Singleton. */
 class Commands {
 
         /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
@@ -39,4 +40,12 @@ class Commands {
                 System.out.println("Numero massimo di tentativi falliti: "
                 + UtilityTools.GREEN + settings.getCurrentDifficultyNumTry() + UtilityTools.RESET);
         }
+
+        /** Al comando /metriche, il metodo stampa i tempi dei comandi eseguiti, gli esiti degli attacchi e i tempi
+         * di stampa della griglia. */
+        public void showMetrics() {
+                settings.getScreen().invalidate();
+                System.out.println();
+                System.out.print(Metrics.getIstance().report());
+        }
 }
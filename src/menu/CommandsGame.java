@@ -1,11 +1,18 @@
 package menu;
 
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
 
-import game.Settings;
+import game.GameClock;
+import game.GameSession;
+import game.Metrics;
 import grid.Grid;
+import grid.GridRenderer;
+import grid.ScreenModel;
+import grid.ShipRegistry;
+import grid.Viewport;
+import keyboardInput.CommandParser;
 import keyboardInput.ConfirmInput;
 import utility.UtilityTools;
 
@@ -15,438 +22,289 @@ import utility.UtilityTools;
  * La classe fornisce metodi per uscire dal gioco, visualizzare le informazioni sulle navi e il numero di esemplari
  * per ogni nave, visualizzare il livello di gioco e il numero massimo di tentativi falliti, visualizzare la griglia
  * di gioco, visualizzare la griglia di gioco senza i colpi a vuoto e visualizzare la griglia di gioco con le navi
- * nemiche. */
+ * nemiche. Le regole della partita sono nella classe GameSession: i comandi chiamano la sessione indicata nel
+ * costruttore e scrivono i risultati su un Appendable, la console per Game oppure la risposta in costruzione per
+ * le partite remote, cosí i due menu di gioco eseguono gli stessi comandi con gli stessi messaggi.
+ * Quando un comando termina la partita isPlaying diventa falso; chi esegue il menu decide cosa fare dopo,
+ * ad esempio aspettare INVIO sulla console oppure chiudere la connessione. */
 public class CommandsGame extends Commands {
 
-    /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
-    public CommandsGame() { };
+    /** Il costruttore prepara i comandi di una partita.
+     * @param gameSession partita su cui eseguire i comandi
+     * @param levelName livello di gioco mostrato da /mostralivello, null se la partita non ne ha uno
+     * @param output destinazione dei messaggi dei comandi
+     * @param screenModel schermata da ridisegnare per intero dopo i comandi che stampano molte righe, null se
+     * l'output non é disegnato da un ScreenModel */
+    public CommandsGame(final GameSession gameSession, final String levelName, final Appendable output,
+                        final ScreenModel screenModel) {
+        session = gameSession;
+        level = levelName;
+        out = output;
+        screen = screenModel;
+        viewport = screenModel != null ? session.getPlayerGrid().getViewport() : new Viewport();
+    }
+
+    /** Nomi delle navi per lunghezza, vuoti per le lunghezze senza un nome. */
+    private static final String[] SHIP_NAMES = {"", "", "Cacciatorpediniere", "Incrociatore", "Corazzata",
+        "Portaerei"};
+
+    /** Partita su cui vengono eseguiti i comandi. */
+    private final GameSession session;
+
+    /** Livello di gioco della partita, null se non ne ha uno. */
+    private final String level;
+
+    /** Destinazione dei messaggi dei comandi. */
+    private final Appendable out;
+
+    /** Schermata della console da rendere non valida, null se non c'é. */
+    private final ScreenModel screen;
+
+    /** Disegnatore delle griglie della partita. */
+    private final GridRenderer renderer = new GridRenderer();
+
+    /** Finestra delle griglie disegnate, che segue l'ultimo attacco oppure la cella scelta con /centra. Sulla
+     * console é quella della griglia del giocatore, grande quanto il terminale e usata anche dalla schermata del
+     * menu di gioco, cosí /centra sposta anche quella; chi non conosce le dimensioni del terminale ne usa una
+     * di default. */
+    private final Viewport viewport;
+
+    /** Vero finché la partita non é finita o il giocatore non ha chiesto di uscire. */
+    private boolean playing = true;
 
-    /** Utilizzo del Singleton per accedere a variabili condivise. */
-    private Settings settings = Settings.getIstance();
+    /** Vero se il giocatore ha chiesto di uscire dal gioco. */
+    private boolean quit;
 
-    /** Esce dal menu di gioco e dal menu principale, facendoti chiudere l'applicazione. */
+    /** Esce dal menu di gioco e dal gioco, dopo la conferma del giocatore. */
     public void exit() {
         final int gameMenuExitConfirm = 4;
-        ConfirmInput confirmInput = new ConfirmInput();
-
-        if (confirmInput.isConfirmed(gameMenuExitConfirm)) {
-            System.out.println(UtilityTools.GREEN + "\nGrazie per aver giocato a Battleship, ti meriti un cornetto!"
-            + UtilityTools.RESET);
-            settings.setMainMenuLoop(false);
-            settings.setGameMenuLoop(false);
-        } else {
-            settings.setMainMenuLoop(true);
-            settings.setGameMenuLoop(true);
+
+        if (confirm(gameMenuExitConfirm, "Vuoi veramente uscire? (Scrivere yes/no)")) {
+            print(UtilityTools.GREEN + "\nGrazie per aver giocato a Battleship, ti meriti un cornetto!"
+                    + UtilityTools.RESET + "\n");
+            playing = false;
+            quit = true;
         }
     }
 
     /** Stampa una lista dei comandi utilizzabili dall'utente. */
     public void help() {
-        System.out.println(UtilityTools.YELLOW + "\nPer interagire con l'applicazione, "
-                + "vanno utilizzati i seguenti comandi:");
-        System.out.println("- /help: " + UtilityTools.RESET + "Mostra l’help con l’elenco dei comandi");
-        System.out.println(UtilityTools.YELLOW + "- /esci: " + UtilityTools.RESET + "Chiude il gioco");
-        System.out.println(UtilityTools.YELLOW + "- /mostralivello: " + UtilityTools.RESET
-                + "Mostra il livello di gioco e il numero massimo di tentativi falliti");
-        System.out.println(UtilityTools.YELLOW + "- /mostranavi: " + UtilityTools.RESET
-                + "Mostra i tipi di nave e la loro quantita'");
-        System.out.println(UtilityTools.YELLOW + "- /mostratentativi: " + UtilityTools.RESET
-                + "Mostra la griglia di gioco");
-        System.out.println(UtilityTools.YELLOW + "- /svelagriglia: " + UtilityTools.RESET
-                + "Mostra la griglia di gioco");
-        System.out.println(UtilityTools.YELLOW + "- /mostragriglia: " + UtilityTools.RESET
-                + "Mostra la griglia di gioco senza i colpi a vuoto");
-        System.out.println(UtilityTools.YELLOW + "- /mostratempo: " + UtilityTools.RESET
-                + "Mostra il tempo di gioco");
-        System.out.println(UtilityTools.YELLOW + "- /abbandona: " + UtilityTools.RESET
-                + "Permette di tornare al menu principale");
-    }
-
-    /** Al comando /svelagriglia, il metodo stampa la griglia di gioco.
-     * @param grid griglia da stampare del menú di gioco */
-    public void showGrid(final Grid grid) {
-        System.out.println();
-        grid.printGrid();
-    }
-
-    /** Al comando /mostragriglia, il metodo stampa la griglia di gioco
-     * senza visualizzare le i punti a vuoto.
-     * @param grid griglia da stampare del menú di gioco */
-    public void showGridWithoutMiss(final Grid grid) {
-        System.out.println();
-        grid.printGridWithoutMiss();
-    }
-
-    /** Metodo che stampa il tempo rimanente. */
-    public void showTime() {
-        LocalDateTime currentTime = LocalDateTime.now();
-        Duration duration = Duration.between(currentTime, settings.getEndTime());
-        System.out.println();
-        System.out.println("Tempo rimanente: " + UtilityTools.GREEN + duration.toMinutes()
-                + UtilityTools.RESET + " minuti e " + UtilityTools.CYAN
-                + duration.toSecondsPart() + UtilityTools.RESET + " secondi.");
+        invalidateScreen();
+        print(UtilityTools.YELLOW + "\nPer interagire con l'applicazione, vanno utilizzati i seguenti comandi:\n");
+        printHelpLine("/help", "Mostra l’help con l’elenco dei comandi");
+        printHelpLine("/esci", "Chiude il gioco");
+        printHelpLine("/mostralivello", "Mostra il livello di gioco e il numero massimo di tentativi falliti");
+        printHelpLine("/mostranavi", "Mostra i tipi di nave e la loro quantita'");
+        printHelpLine("/mostratentativi", "Mostra i tentativi totali, rimasti e falliti");
+        printHelpLine("/svelagriglia", "Mostra la griglia di gioco");
+        printHelpLine("/mostragriglia", "Mostra la griglia di gioco senza i colpi a vuoto");
+        printHelpLine("/mostratempo", "Mostra il tempo di gioco");
+        printHelpLine("/abbandona", "Abbandona la partita svelando la griglia di gioco");
+        printHelpLine("/metriche", "Mostra i tempi dei comandi e gli esiti degli attacchi");
+        printHelpLine("/centra A-1", "Mostra la griglia attorno alla cella, se la griglia non entra nello schermo");
+        printHelpLine("A-1", "Attacca la cella nella colonna A e nella riga 1");
     }
 
-    /** Metodo che attacca la griglia avversaria.
-     * @param gridEnemy Griglia avversaria
-     * @param gridPlayer Griglia del giocatore
-     * @param coordinate Coordinate in cui attaccare
-     * @param testCondition Indica se testare le condizioni di vittoria o meno, utile per permettere
-     * magari una modalitá senza queste restrizioni. */
-    public void attack(final Grid gridEnemy, final Grid gridPlayer, final String coordinate,
-    final boolean testCondition) {
-        int column = 0;
-        int row = 0;
-        final int offSet = 97;
-        String[] cord = coordinate.split("-");
-        byte[] byteFirstCord = cord[0].getBytes(StandardCharsets.US_ASCII);
-        column = byteFirstCord[0] - offSet;
-        row = Integer.parseInt(cord[1]) - 1;
-        writeEnemyGrid(gridEnemy, row, column);
-        writePlayerGrid(gridEnemy, gridPlayer, row, column);
-
-        if (testCondition) {
-            winLoseCondition(gridEnemy);
-        }
+    /** Stampa una riga della lista dei comandi.
+     * @param command comando
+     * @param description descrizione del comando */
+    private void printHelpLine(final String command, final String description) {
+        print(UtilityTools.YELLOW + "- " + command + ": " + UtilityTools.RESET + description + "\n");
     }
 
-    /** Metodo che controlla se hai vinto.
-     * @param gridEnemy Griglia avversaria */
-    private void winLoseCondition(final Grid gridEnemy) {
-
-        if (isTheGameEnd(gridEnemy) == 1) {
-            System.out.println(UtilityTools.RED + "\nIl tempo è finito, hai perso! "
-                    + "\nStai per tornare al menu principale" + UtilityTools.RESET);
-            UtilityTools.SCANNER.nextLine();
-            settings.setGameMenuLoop(false);
-        } else if (isTheGameEnd(gridEnemy) == 2) {
-            System.out.println(UtilityTools.RED + "\nHai finito i tentativi disponibili, hai perso! "
-                    + "\nStai per tornare al menu principale" + UtilityTools.RESET);
-            UtilityTools.SCANNER.nextLine();
-            settings.setGameMenuLoop(false);
-        } else if (isTheGameEnd(gridEnemy) == 0) {
-            UtilityTools.printWin();
-            System.out.println(UtilityTools.GREEN + "\nHai vinto, stai per tornare al menu principale"
-                    + UtilityTools.RESET);
-            UtilityTools.SCANNER.nextLine();
-            settings.setGameMenuLoop(false);
+    /** Metodo che stampa le navi della partita e il numero di esemplari per ogni nave. */
+    @Override
+    public void printShipsSet() {
+        ShipRegistry ships = session.getEnemyGrid().getShips();
+        int[] count = new int[ShipRegistry.MAX_LENGTH + 1];
+        int longest = 0;
+        for (int id = 0; id < ships.getShipCount(); id++) {
+            int length = ships.getShipLength(id);
+            count[length]++;
+            longest = Math.max(longest, length);
         }
-    }
 
-    /** Metodo che controlla se c'è qualche nave affondata.
-     * @param gridEnemy Griglia avversaria
-     * @param row Riga della nave affondata
-     * @param column Colonna della nave affondata
-     * @return true se c'è una nave affondata, false altrimenti */
-    private boolean isSinked(final Grid gridEnemy, final int row, final int column) {
-        boolean isSinked = true;
-        int i = 0;
-
-        //Controllo della direzione Nord quando si controllano determinate posizioni della griglia
-        if (row == gridEnemy.getRowLength() - 1 && column == 0
-            || row == gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-            || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == gridEnemy.getRowLength() - 1
-            || row > 0 && row < gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-            || row > 0 && row < gridEnemy.getRowLength() - 1 && column == 0) {
-
-            while (row - i >= 0 && isSinked && gridEnemy.getGridValue(row - i, column) != '-'
-            && gridEnemy.getGridValue(row - i, column) != 'O') {
-                if (gridEnemy.getGridValue(row - i, column) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
-        }
-
-        //Controllo della direzione Sud quando si controllano determinate posizioni della griglia
-        if (row == 0 && column == 0
-            || row > 0 && row < gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-            || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == 0
-            || column == gridEnemy.getColumnLength() - 1 && row == 0
-            || row > 0 && row < gridEnemy.getRowLength() - 1 && column == 0) {
-
-            i = 0;
-            while (row + i < gridEnemy.getRowLength() && isSinked
-            && gridEnemy.getGridValue(row + i, column) != '-' && gridEnemy.getGridValue(row + i, column) != 'O') {
-                if (gridEnemy.getGridValue(row + i, column) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
+        print(UtilityTools.GREEN + "\nDi seguito sono rappresentati gli esemplari per ogni nave: " + UtilityTools.RESET
+                + "\n");
+        for (int length = 1; length <= longest; length++) {
+            if (count[length] > 0) {
+                String name = length < SHIP_NAMES.length && !SHIP_NAMES[length].isEmpty() ? SHIP_NAMES[length]
+                        : "Nave";
+                print("- " + String.format("%-19s", name) + UtilityTools.CYAN + "⊠".repeat(length)
+                        + UtilityTools.RESET + " ".repeat(longest + 2 - length) + "Esemplari: " + UtilityTools.CYAN
+                        + count[length] + UtilityTools.RESET + "\n");
             }
         }
+    }
 
-        //Controllo della direzione Ovest quando si controllano determinate posizioni della griglia
-        if (column > 0 && column < gridEnemy.getColumnLength() - 1 && row == 0
-            || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == gridEnemy.getRowLength() - 1
-            || column == gridEnemy.getColumnLength() - 1  && row == 0
-            || row > 0 && row < gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-            || row == gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1) {
-
-            i = 0;
-            while (column - i >= 0 && isSinked && gridEnemy.getGridValue(row, column - i) != '-'
-            && gridEnemy.getGridValue(row, column - i) != 'O') {
-                if (gridEnemy.getGridValue(row, column - i) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
+    /** Metodo che stampa il livello di gioco e il numero massimo di tentativi falliti della partita. */
+    @Override
+    public void showLevel() {
+        if (level != null) {
+            print("\nLivello di gioco: " + UtilityTools.GREEN + level + UtilityTools.RESET);
         }
+        print("\nNumero massimo di tentativi falliti: " + UtilityTools.GREEN + session.getMaxFailures()
+                + UtilityTools.RESET + "\n");
+    }
 
-        //Controllo della direzione Est quando si controllano determinate posizioni della griglia
-        if (row == 0 && column == 0
-        || row > 0 && row < gridEnemy.getRowLength() - 1 && column == 0
-        || row == gridEnemy.getRowLength() - 1 && column == 0
-        || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == 0
-        || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == gridEnemy.getRowLength() - 1) {
-            i = 0;
-            while (column + i < gridEnemy.getColumnLength() && isSinked
-            && gridEnemy.getGridValue(row, column + i) != '-' && gridEnemy.getGridValue(row, column + i) != 'O') {
-                if (gridEnemy.getGridValue(row, column + i) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
-        }
+    /** Al comando /metriche, il metodo stampa i tempi dei comandi eseguiti, gli esiti degli attacchi e i tempi
+     * di stampa della griglia. */
+    @Override
+    public void showMetrics() {
+        invalidateScreen();
+        print("\n" + Metrics.getIstance().report());
+    }
 
-        //Se non ci troviamo in nessun bordo, controlliaamo tutte e 4 le coordinate, NORD-SUD-EST-OVEST
-        if (column > 0 && column < gridEnemy.getColumnLength() - 1 && row > 0 && row < gridEnemy.getRowLength() - 1) {
-            i = 0;
-            //Controllo direzione NORD
-            while (row - i >= 0 && isSinked && gridEnemy.getGridValue(row - i, column) != '-'
-            && gridEnemy.getGridValue(row - i, column) != 'O') {
-                if (gridEnemy.getGridValue(row - i, column) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
+    /** Al comando /svelagriglia, il metodo stampa la griglia del nemico. */
+    public void showGrid() {
+        printGrid(session.getEnemyGrid(), true);
+    }
 
-            i = 0;
-            //Controllo direzione OVEST
-            while (column - i >= 0 && isSinked && gridEnemy.getGridValue(row, column - i) != '-'
-            && gridEnemy.getGridValue(row, column - i) != 'O') {
-                if (gridEnemy.getGridValue(row, column - i) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
+    /** Al comando /mostragriglia, il metodo stampa la griglia del giocatore
+     * senza visualizzare le i punti a vuoto. */
+    public void showGridWithoutMiss() {
+        printGrid(session.getPlayerGrid(), false);
+    }
 
-            i = 0;
-            //Controllo direzione EST
-            while (column + i < gridEnemy.getColumnLength() && isSinked
-            && gridEnemy.getGridValue(row, column + i) != '-' && gridEnemy.getGridValue(row, column + i) != 'O') {
-                if (gridEnemy.getGridValue(row, column + i) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
+    /** Al comando /centra, il metodo centra la finestra su una cella e stampa la griglia del giocatore; la
+     * finestra resta ferma fino al prossimo attacco.
+     * @param coordinate coordinata codificata da CommandParser */
+    public void center(final int coordinate) {
+        Grid grid = session.getPlayerGrid();
+        viewport.follow(grid).centerOn(grid, CommandParser.rowOf(coordinate), CommandParser.columnOf(coordinate));
+        printViewport(grid, true);
+    }
 
-            i = 0;
-            //Controllo direzione SUD
-            while (row + i < gridEnemy.getRowLength() && isSinked && gridEnemy.getGridValue(row + i, column) != '-'
-            && gridEnemy.getGridValue(row + i, column) != 'O') {
-                if (gridEnemy.getGridValue(row + i, column) == 'S') {
-                    isSinked =  false;
-                    return isSinked;
-                }
-                i++;
-            }
-        }
-        return true;
+    /** Stampa una griglia limitata alla finestra che segue l'ultimo attacco.
+     * @param grid griglia da stampare
+     * @param showMiss se falso i colpi a vuoto vengono stampati come celle vuote */
+    private void printGrid(final Grid grid, final boolean showMiss) {
+        viewport.follow(grid);
+        printViewport(grid, showMiss);
     }
 
-    /** Scrive le navi affondate nella griglia avversaria.
-     * @param gridEnemy Griglia avversaria
-     * @param row Riga della nave affondata
-     * @param column Colonna della nave affondata */
-    private void writeSinkedShips(final Grid gridEnemy, final int row, final int column) {
-        int i = 0;
-
-        //Se non ci troviamo in nessun bordo, scriviam in tutte e 4 le coordinate, NORD-SUD-EST-OVEST
-        if (column > 0 && column < gridEnemy.getColumnLength() - 1 && row > 0 && row < gridEnemy.getRowLength() - 1) {
-
-            i = 0;
-            //Controllo direzione NORD
-            while (row - i >= 0 && gridEnemy.getGridValue(row - i, column) != '-'
-                                && gridEnemy.getGridValue(row - i, column) != 'O') {
-                gridEnemy.setGridValue(row - i, column, 'X');
-                i++;
-            }
+    /** Stampa la parte di una griglia dentro la finestra e ne misura il tempo di stampa.
+     * @param grid griglia da stampare
+     * @param showMiss se falso i colpi a vuoto vengono stampati come celle vuote */
+    private void printViewport(final Grid grid, final boolean showMiss) {
+        invalidateScreen();
+        long start = System.nanoTime();
+        print("\n");
+        print(renderer.render(grid, showMiss, viewport));
+        Grid.getRenderTimes().record(System.nanoTime() - start);
+    }
 
-            i = 0;
-            //Controllo direzione SUD
-            while (row + i < gridEnemy.getRowLength() && gridEnemy.getGridValue(row + i, column) != '-'
-                                                      && gridEnemy.getGridValue(row + i, column) != 'O') {
-                gridEnemy.setGridValue(row + i, column, 'X');
-                i++;
-            }
+    /** Metodo che stampa il tempo rimanente. */
+    public void showTime() {
+        final int secondsPerMinute = 60;
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(Math.max(0, session.getRemainingNanos()));
+        print("\nTempo rimanente: " + UtilityTools.GREEN + seconds / secondsPerMinute + UtilityTools.RESET
+                + " minuti e " + UtilityTools.CYAN + seconds % secondsPerMinute + UtilityTools.RESET + " secondi.\n");
+    }
 
-            i = 0;
-            //Controllo direzione EST
-            while (column + i < gridEnemy.getColumnLength() && gridEnemy.getGridValue(row, column + i) != '-'
-                                                            && gridEnemy.getGridValue(row, column + i) != 'O') {
-                gridEnemy.setGridValue(row, column + i, 'X');
-                i++;
-            }
+    /** Metodo che annuncia la fine del tempo di gioco e termina la partita.
+     * Viene chiamato quando il tempo scade mentre si aspetta l'input, oppure dopo un attacco concluso
+     * oltre la scadenza. */
+    public void timeUp() {
+        print(UtilityTools.RED + "\nIl tempo è finito, hai perso!" + UtilityTools.RESET + "\n");
+        playing = false;
+    }
 
-            //Controllo direzione OVEST
-            i = 0;
-            while (column - i >= 0 && gridEnemy.getGridValue(row, column - i) != '-'
-                                  && gridEnemy.getGridValue(row, column - i) != 'O') {
-                gridEnemy.setGridValue(row, column - i, 'X');
-                i++;
-            }
+    /** Metodo che attacca la griglia avversaria.
+     * Il colpo viene risolto dalla sessione, il metodo si limita a contarne l'esito in Metrics e a stamparlo;
+     * se la partita finisce ne stampa anche l'esito. I messaggi sono costanti, quindi l'attacco non alloca.
+     * @param coordinate Coordinata in cui attaccare, codificata da CommandParser */
+    public void attack(final int coordinate) {
+        GameSession.AttackResult result = session.attack(CommandParser.rowOf(coordinate),
+                CommandParser.columnOf(coordinate));
+        Metrics.getIstance().recordAttack(result);
+        switch (result) {
+            case SUNK -> print(UtilityTools.PURPLE + "\nColpito e affondato" + UtilityTools.RESET + "\n");
+            case HIT -> print(UtilityTools.YELLOW + "\nColpito" + UtilityTools.RESET + "\n");
+            case MISS -> print(UtilityTools.CYAN + "\nBuco nell'acqua" + UtilityTools.RESET + "\n");
+            default -> print(UtilityTools.YELLOW + "\nPosizione gia' attaccata" + UtilityTools.RESET + "\n");
         }
 
-        if (row == gridEnemy.getRowLength() - 1 && column == 0
-                || row == gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-                || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == gridEnemy.getRowLength() - 1
-                || row > 0 && row < gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-                || row > 0 && row < gridEnemy.getRowLength() - 1 && column == 0) {
-            i = 0;
-            //Controllo direzione NORD
-            while (row - i >= 0 && gridEnemy.getGridValue(row - i, column) != '-'
-                                && gridEnemy.getGridValue(row - i, column) != 'O') {
-                gridEnemy.setGridValue(row - i, column, 'X');
-                i++;
+        switch (session.getStatus()) {
+            case LOST_TIME -> timeUp();
+            case LOST_FAILURES -> {
+                print(UtilityTools.RED + "\nHai finito i tentativi disponibili, hai perso!" + UtilityTools.RESET
+                        + "\n");
+                playing = false;
             }
-        }
-
-        if (row == 0 && column == 0
-                || row > 0 && row < gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-                || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == 0
-                || column == gridEnemy.getColumnLength() - 1 && row == 0
-                || row > 0 && row < gridEnemy.getRowLength() - 1 && column == 0) {
-            i = 0;
-            //Controllo direzione SUD
-            while (row + i < gridEnemy.getRowLength() - 1 && gridEnemy.getGridValue(row + i, column) != '-'
-                                                          && gridEnemy.getGridValue(row + i, column) != 'O') {
-                gridEnemy.setGridValue(row + i, column, 'X');
-                i++;
+            case WON -> {
+                invalidateScreen();
+                print("\n" + UtilityTools.WIN_ASCII_ART + UtilityTools.GREEN + "\nHai vinto!" + UtilityTools.RESET
+                        + "\n");
+                playing = false;
             }
+            default -> { }
         }
+    }
 
-        if (column > 0 && column < gridEnemy.getColumnLength() - 1 && row == 0
-                || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == gridEnemy.getRowLength() - 1
-                || column == gridEnemy.getColumnLength() - 1 && row == 0
-                || row > 0 && row < gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1
-                || row == gridEnemy.getRowLength() - 1 && column == gridEnemy.getColumnLength() - 1) {
-            //Controllo direzione OVEST
-            i = 0;
-            while (column - i >= 0 && gridEnemy.getGridValue(row, column - i) != '-'
-                                   && gridEnemy.getGridValue(row, column - i) != 'O') {
-                gridEnemy.setGridValue(row, column - i, 'X');
-                i++;
-            }
-        }
+    /** Metodo che permette di abbandonare la partita, dopo la conferma del giocatore, svelando la griglia del
+     * nemico. */
+    public void abandon() {
+        final int gameMenuAbandonConfirm = 5;
 
-        if (row == 0 && column == 0
-                || row > 0 && row < gridEnemy.getRowLength() - 1 && column == 0
-                || row == gridEnemy.getRowLength() - 1 && column == 0
-                || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == 0
-                || column > 0 && column < gridEnemy.getColumnLength() - 1 && row == gridEnemy.getRowLength() - 1) {
-            i = 0;
-            //Controllo direzione EST
-            while (column + i < gridEnemy.getColumnLength() - 1 && gridEnemy.getGridValue(row, column + i) != '-'
-                                                                && gridEnemy.getGridValue(row, column + i) != 'O') {
-                gridEnemy.setGridValue(row, column + i, 'X');
-                i++;
-            }
+        if (confirm(gameMenuAbandonConfirm, "Vuoi veramente abbandonare la partita? (Scrivere yes/no)")) {
+            showGrid();
+            playing = false;
         }
     }
 
-    /** Metodo che colpisce la nave del giocatore.
-     * @param gridEnemy Griglia avversaria
-     * @param gridPlayer Griglia del giocatore
-     * @param row Riga della griglia avversaria
-     * @param column Colonna della griglia avversaria */
-    private void writePlayerGrid(final Grid gridEnemy, final Grid gridPlayer, final int row, final int column) {
-        if (gridEnemy.getGridValue(row, column) == 'X' || gridEnemy.getGridValue(row, column) == '$') {
-            gridPlayer.setGridValue(row, column, '$');
-        } else {
-            gridPlayer.setGridValue(row, column, 'O');
-        }
-
-        if (isSinked(gridEnemy, row, column)) {
-            writeSinkedShips(gridPlayer, row, column);
-        }
+    /** Metodo che permette di vedere quanti sono i tentativi totali, rimanenti e falliti. */
+    public void showFailures() {
+        print("\nTentativi totali: " + UtilityTools.PURPLE + session.getMaxFailures() + UtilityTools.RESET
+                + "\nTentativi rimasti: " + UtilityTools.GREEN + (session.getMaxFailures() - session.getFailures())
+                + UtilityTools.RESET + "\nTentativi falliti: " + UtilityTools.CYAN + session.getFailures()
+                + UtilityTools.RESET + "\n");
     }
 
-    /** Metodo che colpisce la nave dell'avversario.
-     * @param gridEnemy Griglia avversaria
-     * @param row Riga della griglia avversaria
-     * @param column Colonna della griglia avversaria */
-    private void writeEnemyGrid(final Grid gridEnemy, final int row, final int column) {
-
-        if (gridEnemy.getGridValue(row, column) == 'S') {
-            gridEnemy.setGridValue(row, column, '$');
-            if (isSinked(gridEnemy, row, column)) {
-                System.out.println(UtilityTools.PURPLE + "\nColpito e affondato" + UtilityTools.RESET);
-                writeSinkedShips(gridEnemy, row, column);
-            } else {
-                System.out.println(UtilityTools.YELLOW + "\nColpito" + UtilityTools.RESET);
-            }
-        } else if (gridEnemy.getGridValue(row, column) == '-') {
-            gridEnemy.setGridValue(row, column, 'O');
-            System.out.println(UtilityTools.CYAN + "\nBuco nell'acqua" + UtilityTools.RESET);
-            settings.setFailures(settings.getFailures() + 1);
-        } else {
-            System.out.println(UtilityTools.YELLOW + "\nPosizione gia' attaccata" + UtilityTools.RESET);
-        }
+    /** Indica se la partita continua.
+     * @return falso dopo la fine della partita, l'abbandono o l'uscita dal gioco */
+    public boolean isPlaying() {
+        return playing;
     }
 
-    /** Metodo che controlla se è finito il gioco.
-     * @param mat Griglia avversaria
-     * @return Zero se il gioco non è finito, Uno se il tempo è scaduto,
-     * Due se il numero di tentativi è finito, Quattro se tutte le navi sono affondate. */
-    private int isTheGameEnd(final Grid mat) {
-        int isTheGameEnd = 0;
-        final int isNotEnded = 3;
-        LocalDateTime currentTime = LocalDateTime.now();
-        Duration duration = Duration.between(currentTime, settings.getEndTime());
-        if (duration.getSeconds() <= 0) {
-            return 1;
-        } else if (settings.getFailures() == settings.getCurrentDifficultyNumTry()) {
-            return 2;
-        }
+    /** Indica se il giocatore ha chiesto di uscire dal gioco con /esci.
+     * @return vero dopo la conferma di /esci */
+    public boolean hasQuit() {
+        return quit;
+    }
 
-        for (int i = 0; i < mat.getRowLength() - 1; i++) {
-            for (int j = 0; j < mat.getColumnLength() - 1; j++) {
-                if (mat.getGridValue(i, j) == 'S') {
-                    isTheGameEnd = isNotEnded;
-                }
-            }
+    /** Chiede conferma al giocatore. Sulla console ridisegna la schermata indicata da menuIndicator, che contiene
+     * giá la domanda, e ripete la richiesta finché la risposta non é yes o no; chi non disegna la schermata
+     * della console ridefinisce il metodo per porre question. Mentre si aspetta la risposta l'orologio della
+     * partita é in pausa, perché la domanda non fa parte del tempo di gioco.
+     * @param menuIndicator schermata della console che pone la domanda, come in KeyboardInput.takeInput
+     * @param question domanda da porre
+     * @return vero se il giocatore ha risposto yes */
+    protected boolean confirm(final int menuIndicator, final String question) {
+        GameClock clock = session.getClock();
+        clock.pause();
+        try {
+            return new ConfirmInput(out).isConfirmed(menuIndicator);
+        } finally {
+            clock.resume();
         }
-        return isTheGameEnd;
     }
 
-    /** Metodo che permette di abbandonare la partita e tornare al menu principale. */
-    public void abandon() {
-        final int gameMenuAbandonConfirm = 5;
-        ConfirmInput confirmInput = new ConfirmInput();
-
-        if (confirmInput.isConfirmed(gameMenuAbandonConfirm)) {
-            System.out.println();
-            settings.getEnemyGrid().printGrid();
-            settings.setGameMenuLoop(false);
-        } else {
-            settings.setGameMenuLoop(true);
+    /** Scrive un testo sulla destinazione dei messaggi.
+     * @param text testo da scrivere
+     * @throws UncheckedIOException se la destinazione non puó essere scritta */
+    protected final void print(final CharSequence text) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    /** Metodo che permette di vedere quanti sono i tentativi totali, rimanenti e falliti. */
-    public void showFailures() {
-        System.out.println("\nTentativi totali: " + UtilityTools.PURPLE
-                        + (settings.getCurrentDifficultyNumTry()) + UtilityTools.RESET);
-        System.out.println("Tentativi rimasti: " + UtilityTools.GREEN
-                        + (settings.getCurrentDifficultyNumTry() - settings.getFailures()) + UtilityTools.RESET);
-        System.out.println("Tentativi falliti: " + UtilityTools.CYAN
-                        + (settings.getFailures()) + UtilityTools.RESET);
+    /** Rende non valida la schermata della console, se c'é, perché il prossimo disegno sia completo. */
+    private void invalidateScreen() {
+        if (screen != null) {
+            screen.invalidate();
+        }
     }
 }
@@ -1,10 +1,10 @@
 package menu;
 
-import java.time.LocalDateTime;
-
 import game.Game;
+import game.GameSession;
 import game.Settings;
 import game.Settings.CommandsState;
+import game.SnapshotStore;
 import grid.Grid;
 import keyboardInput.ConfirmInput;
 import utility.UtilityTools;
@@ -80,15 +80,24 @@ public class CommandsMainMenu extends Commands {
         return dimRow;
     }
 
-    /** Metodo costruttore della classe. */
+    /** Metodo costruttore della classe. Se l'archivio dei salvataggi contiene una partita interrotta ancora in
+     * corso, viene ripresa quella con la sua difficoltá invece di iniziarne una nuova. */
     public void play() {
         System.out.println();
-        settings.setEndTime(LocalDateTime.now().plusMinutes(settings.getTime()));
 
-        settings.setTime(settings.getTime());
-        Game game = new Game(getDimRow(), getDimColumn());
-        settings.setGameMenuLoop(true);
+        SnapshotStore snapshots = settings.getSnapshots();
+        SnapshotStore.SavedGame saved = snapshots == null ? null : snapshots.load(Game.SNAPSHOT_SLOT);
+        if (saved != null && saved.getSession().getStatus() == GameSession.Status.IN_PROGRESS) {
+            if (saved.getDifficulty() != null) {
+                settings.setCurrentDifficulty(saved.getDifficulty());
+            }
+            settings.setCurrentDifficultyNumTry(saved.getSession().getMaxFailures());
+            Game game = new Game(saved.getSession());
+            game.resumeGame();
+            return;
+        }
 
+        Game game = new Game(getDimRow(), getDimColumn());
         game.startNewGame();
     }
 
@@ -137,6 +146,8 @@ public class CommandsMainMenu extends Commands {
                 + "di gioco con una grandezza " + EXTRA_LARGE_GRID_DIM + "x" + EXTRA_LARGE_GRID_DIM);
         System.out.println(UtilityTools.YELLOW + "- /mostratempo: " + UtilityTools.RESET
                 + "Mostra il tempo di gioco");
+        System.out.println(UtilityTools.YELLOW + "- /metriche: " + UtilityTools.RESET
+                + "Mostra i tempi dei comandi e gli esiti degli attacchi");
         System.out.println(UtilityTools.YELLOW + "- /facile " + UtilityTools.CYAN + "numero" + UtilityTools.RESET
                 + ": (Es: /facile 40) "
                 + "Imposta il numero di tentativi falliti massimi\n della modalita' facile e la seleziona");
@@ -0,0 +1,295 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+import game.GameSession;
+import grid.BitboardStorage;
+import grid.CellState;
+import grid.Grid;
+import grid.ShipRegistry;
+
+/** {@literal <<Boundary>>}
+ * Protocollo binario compatto per giocare una partita di rete, alternativo alle righe di testo di RemoteGame.
+ * Ogni messaggio é un frame composto da un'intestazione di HEADER_SIZE byte (lunghezza del contenuto su due
+ * byte senza segno e tipo su un byte) seguita dal contenuto:
+ * ATTACK contiene l'indice lineare della cella attaccata su due byte;
+ * RESULT contiene il codice dell'esito (MISS, HIT, SUNK oppure ALREADY_ATTACKED), lo stato della partita e,
+ * se il colpo ha affondato una nave, la sua estensione: prima cella su due byte, lunghezza e direzione;
+ * BOARD_REQUEST non ha contenuto;
+ * BOARD contiene righe e colonne su un byte ciascuna seguite dai piani di bit della griglia, nello stesso
+ * formato di BitboardStorage (Grid.writeCells).
+ * I codec leggono e scrivono direttamente nei ByteBuffer di rete, senza copie intermedie né oggetti: i frame
+ * ricevuti vengono letti sul posto nel buffer di ricezione e quelli da inviare vengono scritti nel buffer di
+ * invio, riservando l'intestazione e completandola quando la lunghezza é nota. I buffer devono usare l'ordine
+ * dei byte di default (big-endian).
+ * I campi a larghezza fissa sono anche il limite di dimensione delle griglie del protocollo: le righe e le
+ * colonne di BOARD stanno in un byte, quindi al massimo MAX_DIMENSION, e gli indici lineari delle celle di
+ * ATTACK e RESULT in due byte, quindi al massimo MAX_CELL; il contenuto di un frame non supera MAX_PAYLOAD.
+ * Le griglie piú grandi, che GameSession e RemoteGame gestiscono, non possono essere giocate con questo
+ * protocollo: i metodi di scrittura lanciano IllegalArgumentException invece di troncare i valori. */
+public final class BinaryProtocol {
+
+    /** Byte dell'intestazione di un frame. */
+    public static final int HEADER_SIZE = 3;
+
+    /** Lunghezza massima del contenuto di un frame. */
+    public static final int MAX_PAYLOAD = 0xFFFF;
+
+    /** Massima cardinalità delle righe e delle colonne di una griglia inviata con BOARD. */
+    public static final int MAX_DIMENSION = 0xFF;
+
+    /** Massimo indice lineare di una cella inviato con ATTACK o RESULT. */
+    public static final int MAX_CELL = 0xFFFF;
+
+    /** Valore restituito da readFrame se il buffer non contiene ancora un frame completo. */
+    public static final int INCOMPLETE = -1;
+
+    /** Tipo del frame che attacca una cella. */
+    public static final byte ATTACK = 1;
+
+    /** Tipo del frame con l'esito di un attacco. */
+    public static final byte RESULT = 2;
+
+    /** Tipo del frame che chiede la griglia del giocatore. */
+    public static final byte BOARD_REQUEST = 3;
+
+    /** Tipo del frame con la griglia del giocatore. */
+    public static final byte BOARD = 4;
+
+    /** Codice dell'esito di un colpo finito in acqua. */
+    public static final byte MISS = (byte) CellState.MISS;
+
+    /** Codice dell'esito di un colpo che ha colpito una nave. */
+    public static final byte HIT = (byte) CellState.HIT;
+
+    /** Codice dell'esito di un colpo che ha affondato una nave. */
+    public static final byte SUNK = (byte) CellState.SUNK;
+
+    /** Codice dell'esito di un colpo su una cella giá attaccata. */
+    public static final byte ALREADY_ATTACKED = '=';
+
+    /** Lunghezza del contenuto di ATTACK. */
+    private static final int ATTACK_SIZE = Short.BYTES;
+
+    /** Lunghezza del contenuto di RESULT senza estensione della nave. */
+    private static final int RESULT_SIZE = 2;
+
+    /** Lunghezza del contenuto di RESULT con l'estensione della nave affondata. */
+    private static final int SUNK_RESULT_SIZE = RESULT_SIZE + Short.BYTES + 2;
+
+    /** Lunghezza delle dimensioni all'inizio del contenuto di BOARD. */
+    private static final int BOARD_DIMS_SIZE = 2;
+
+    /** Maschera di un valore senza segno su un byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** Maschera di un valore senza segno su due byte. */
+    private static final int SHORT_MASK = 0xFFFF;
+
+    /** Posizione dello stato della partita nell'esito codificato. */
+    private static final int STATUS_SHIFT = 8;
+
+    /** Posizione della prima cella della nave nell'esito codificato. */
+    private static final int CELL_SHIFT = 16;
+
+    /** Posizione della lunghezza della nave nell'esito codificato. */
+    private static final int LENGTH_SHIFT = 32;
+
+    /** Posizione della direzione della nave nell'esito codificato. */
+    private static final int DIRECTION_SHIFT = 40;
+
+    /** Stati della partita indicizzati per ordinale, copiati una volta sola. */
+    private static final GameSession.Status[] STATUSES = GameSession.Status.values();
+
+    /** Costruttore privato per evitare che venga istanziata la classe. */
+    private BinaryProtocol() { }
+
+    /** Metodo che controlla se il buffer contiene un frame completo e, in quel caso, ne salta l'intestazione.
+     * Se il frame é incompleto la posizione del buffer non cambia, cosí la lettura puó riprendere quando
+     * arrivano altri byte.
+     * @param in buffer di ricezione, in lettura
+     * @return il tipo del frame, con la posizione all'inizio del contenuto, oppure INCOMPLETE
+     * @throws IllegalArgumentException se il tipo é sconosciuto o la lunghezza non é valida per il tipo */
+    public static int readFrame(final ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < HEADER_SIZE) {
+            return INCOMPLETE;
+        }
+        int length = in.getShort(start) & SHORT_MASK;
+        byte type = in.get(start + Short.BYTES);
+        boolean valid = switch (type) {
+            case ATTACK -> length == ATTACK_SIZE;
+            case RESULT -> length == RESULT_SIZE || length == SUNK_RESULT_SIZE;
+            case BOARD_REQUEST -> length == 0;
+            case BOARD -> length >= BOARD_DIMS_SIZE;
+            default -> false;
+        };
+        if (!valid) {
+            throw new IllegalArgumentException("Frame non valido: tipo " + type + ", lunghezza " + length);
+        }
+        if (in.remaining() < HEADER_SIZE + length) {
+            return INCOMPLETE;
+        }
+        in.position(start + HEADER_SIZE);
+        return type;
+    }
+
+    /** Metodo che scrive il frame di un attacco.
+     * @param out buffer di invio
+     * @param cell indice lineare della cella (riga * colonne + colonna)
+     * @throws IllegalArgumentException se la cella é negativa o supera MAX_CELL */
+    public static void writeAttack(final ByteBuffer out, final int cell) {
+        checkCell(cell);
+        out.putShort((short) ATTACK_SIZE).put(ATTACK).putShort((short) cell);
+    }
+
+    /** Metodo che legge il contenuto di un frame ATTACK.
+     * @param in buffer posizionato da readFrame
+     * @return l'indice lineare della cella attaccata */
+    public static int readAttack(final ByteBuffer in) {
+        return in.getShort() & SHORT_MASK;
+    }
+
+    /** Metodo che scrive il frame con l'esito dell'ultimo attacco di una partita.
+     * @param out buffer di invio
+     * @param session partita in cui é stato sparato il colpo
+     * @param result esito restituito da GameSession.attack
+     * @throws IllegalArgumentException se la prima cella della nave affondata supera MAX_CELL */
+    public static void writeResult(final ByteBuffer out, final GameSession session,
+                                   final GameSession.AttackResult result) {
+        byte status = (byte) session.getStatus().ordinal();
+        switch (result) {
+            case MISS -> out.putShort((short) RESULT_SIZE).put(RESULT).put(MISS).put(status);
+            case HIT -> out.putShort((short) RESULT_SIZE).put(RESULT).put(HIT).put(status);
+            case SUNK -> {
+                ShipRegistry ships = session.getEnemyGrid().getShips();
+                int ship = session.getLastSunkShip();
+                int first = ships.getShipRow(ship) * session.getColumnLength() + ships.getShipColumn(ship);
+                checkCell(first);
+                out.putShort((short) SUNK_RESULT_SIZE).put(RESULT).put(SUNK).put(status)
+                        .putShort((short) first).put((byte) ships.getShipLength(ship))
+                        .put((byte) ships.getShipDirection(ship));
+            }
+            default -> out.putShort((short) RESULT_SIZE).put(RESULT).put(ALREADY_ATTACKED).put(status);
+        }
+    }
+
+    /** Metodo che legge il contenuto di un frame RESULT e lo codifica in un unico long, leggibile con
+     * codeOf, statusOf, shipCellOf, shipLengthOf e shipDirectionOf.
+     * @param in buffer posizionato da readFrame
+     * @return l'esito codificato */
+    public static long readResult(final ByteBuffer in) {
+        byte code = in.get();
+        long result = code & BYTE_MASK | (long) (in.get() & BYTE_MASK) << STATUS_SHIFT;
+        if (code == SUNK) {
+            result |= (long) (in.getShort() & SHORT_MASK) << CELL_SHIFT;
+            result |= (long) (in.get() & BYTE_MASK) << LENGTH_SHIFT;
+            result |= (long) (in.get() & BYTE_MASK) << DIRECTION_SHIFT;
+        }
+        return result;
+    }
+
+    /** Metodo che estrae il codice dell'esito.
+     * @param result esito restituito da readResult
+     * @return MISS, HIT, SUNK oppure ALREADY_ATTACKED */
+    public static byte codeOf(final long result) {
+        return (byte) result;
+    }
+
+    /** Metodo che estrae lo stato della partita dopo il colpo.
+     * @param result esito restituito da readResult
+     * @return lo stato della partita
+     * @throws IllegalArgumentException se lo stato ricevuto non esiste */
+    public static GameSession.Status statusOf(final long result) {
+        int status = (int) (result >>> STATUS_SHIFT & BYTE_MASK);
+        if (status >= STATUSES.length) {
+            throw new IllegalArgumentException("Stato della partita sconosciuto: " + status);
+        }
+        return STATUSES[status];
+    }
+
+    /** Metodo che estrae la prima cella della nave affondata.
+     * @param result esito con codice SUNK restituito da readResult
+     * @return l'indice lineare della cella in alto a sinistra della nave */
+    public static int shipCellOf(final long result) {
+        return (int) (result >>> CELL_SHIFT & SHORT_MASK);
+    }
+
+    /** Metodo che estrae la lunghezza della nave affondata.
+     * @param result esito con codice SUNK restituito da readResult
+     * @return la lunghezza della nave */
+    public static int shipLengthOf(final long result) {
+        return (int) (result >>> LENGTH_SHIFT & BYTE_MASK);
+    }
+
+    /** Metodo che estrae la direzione della nave affondata.
+     * @param result esito con codice SUNK restituito da readResult
+     * @return ShipRegistry.HORIZONTAL oppure ShipRegistry.VERTICAL */
+    public static int shipDirectionOf(final long result) {
+        return (int) (result >>> DIRECTION_SHIFT & BYTE_MASK);
+    }
+
+    /** Metodo che scrive il frame che chiede la griglia del giocatore.
+     * @param out buffer di invio */
+    public static void writeBoardRequest(final ByteBuffer out) {
+        out.putShort((short) 0).put(BOARD_REQUEST);
+    }
+
+    /** Metodo che scrive il frame con una griglia. L'intestazione viene riservata e completata dopo aver scritto
+     * i piani di bit, che la griglia copia direttamente nel buffer di invio.
+     * @param out buffer di invio, con almeno boardFrameSize byte disponibili
+     * @param grid griglia da inviare
+     * @throws IllegalArgumentException se la griglia supera i limiti del protocollo; il buffer non viene
+     * modificato */
+    public static void writeBoard(final ByteBuffer out, final Grid grid) {
+        boardFrameSize(grid.getRowLength(), grid.getColumnLength());
+        int start = out.position();
+        out.position(start + HEADER_SIZE);
+        out.put((byte) grid.getRowLength()).put((byte) grid.getColumnLength());
+        grid.writeCells(out);
+        out.putShort(start, (short) (out.position() - start - HEADER_SIZE)).put(start + Short.BYTES, BOARD);
+    }
+
+    /** Metodo che legge il contenuto di un frame BOARD in una griglia delle stesse dimensioni.
+     * Come per Grid.readCells, il registro delle navi della griglia non viene aggiornato.
+     * @param in buffer posizionato da readFrame
+     * @param grid griglia da riempire
+     * @throws IllegalArgumentException se le dimensioni o le celle ricevute non sono valide per la griglia */
+    public static void readBoard(final ByteBuffer in, final Grid grid) {
+        int rows = in.get() & BYTE_MASK;
+        int columns = in.get() & BYTE_MASK;
+        if (rows != grid.getRowLength() || columns != grid.getColumnLength()) {
+            throw new IllegalArgumentException("Griglia " + rows + "x" + columns + " inattesa");
+        }
+        grid.readCells(in);
+    }
+
+    /** Metodo che calcola la lunghezza del frame BOARD di una griglia.
+     * @param rows cardinalità delle righe
+     * @param columns cardinalità delle colonne
+     * @return il numero di byte del frame, intestazione compresa
+     * @throws IllegalArgumentException se una dimensione supera MAX_DIMENSION o il contenuto supera
+     * MAX_PAYLOAD */
+    public static int boardFrameSize(final int rows, final int columns) {
+        if (rows < 1 || rows > MAX_DIMENSION || columns < 1 || columns > MAX_DIMENSION) {
+            throw new IllegalArgumentException("Griglia " + rows + "x" + columns + " oltre il limite di "
+                    + MAX_DIMENSION + "x" + MAX_DIMENSION + " del protocollo");
+        }
+        int payload = BOARD_DIMS_SIZE + BitboardStorage.bitsSize(rows, columns);
+        if (payload > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Contenuto di " + payload + " byte oltre il limite di "
+                    + MAX_PAYLOAD + " del protocollo");
+        }
+        return HEADER_SIZE + payload;
+    }
+
+    /** Controlla che l'indice lineare di una cella possa essere scritto in due byte.
+     * @param cell indice lineare della cella
+     * @throws IllegalArgumentException se la cella é negativa o supera MAX_CELL */
+    private static void checkCell(final int cell) {
+        if (cell < 0 || cell > MAX_CELL) {
+            throw new IllegalArgumentException("Cella " + cell + " oltre il limite di " + MAX_CELL
+                    + " del protocollo");
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.MoveJournal;
+import game.Settings;
+import game.Settings.CommandsState;
+import keyboardInput.CommandTable;
+import utility.LatencyHistogram;
+import utility.UtilityTools;
+
+/** {@literal <<Control>>}
+ * Server TCP locale che ospita molte partite nella stessa JVM.
+ * La classe GameServer accetta le connessioni sull'interfaccia di loopback e, se richiesto con startUnix, su un
+ * socket di dominio Unix, che evita lo stack TCP ai client sulla stessa macchina; fa giocare ogni client in una
+ * propria RemoteGame, con una GameSession indipendente dal singleton Settings. Ogni connessione ha un proprio
+ * thread che esegue la partita con letture e scritture bloccanti, come il menu di gioco della console. I thread
+ * vengono da un pool senza limite di dimensione che li conserva per KEEP_ALIVE_SECONDS dopo la fine di una
+ * partita, cosí le connessioni successive non pagano la creazione di un thread e la chiusura di molte partite
+ * insieme non pesa sul server; sono demoni e hanno uno stack ridotto (STACK_SIZE), perché il loro codice non va
+ * mai in profonditá e con migliaia di connessioni la memoria riservata agli stack sarebbe la parte piú grande
+ * del server.
+ * Per ogni comando del menu di gioco il server conserva un LatencyHistogram, condiviso da tutte le partite,
+ * con il tempo di risposta misurato lato server; il resoconto viene stampato da printReport.
+ * Se viene impostato un MoveJournal, ogni partita registra su di esso la disposizione delle navi e gli attacchi.
+ * Si avvia con: java server.GameServer [porta] [dimensione|righexcolonne] [diario] [socket unix]; premendo
+ * INVIO il server si ferma e stampa il resoconto. Il client di carico é LoadTestClient. */
+public final class GameServer implements AutoCloseable {
+
+    /** Porta di ascolto se non ne viene indicata un'altra. */
+    public static final int DEFAULT_PORT = 4545;
+
+    /** Dimensione dello stack dei thread delle connessioni, in byte. */
+    private static final long STACK_SIZE = 256 * 1024;
+
+    /** Secondi per cui un thread senza partita resta a disposizione di nuove connessioni. */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /** Connessioni in attesa di essere accettate che il sistema operativo puó tenere in coda. */
+    private static final int BACKLOG = 4096;
+
+    /** Flotta standard di Game. */
+    private static final int[] DEFAULT_FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Dimensione della griglia se non ne viene indicata un'altra, la stessa di default di Settings. */
+    private static final int DEFAULT_DIM = 10;
+
+    /** Cardinalità delle righe delle griglie delle partite. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne delle griglie delle partite. */
+    private final int dimColumn;
+
+    /** Flotta delle partite nel formato di Game. */
+    private final int[] fleet;
+
+    /** Numero massimo di tentativi falliti di ogni partita. */
+    private final int maxFailures;
+
+    /** Tempo di gioco di ogni partita in nanosecondi. */
+    private final long timeLimitNanos;
+
+    /** Istogramma delle latenze di ogni comando del menu di gioco; la mappa non cambia dopo la costruzione. */
+    private final Map<CommandsState, LatencyHistogram> histograms;
+
+    /** Connessioni aperte in questo momento. */
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    /** Connessioni accettate dall'avvio del server. */
+    private final AtomicLong acceptedConnections = new AtomicLong();
+
+    /** Pool dei thread delle connessioni. */
+    private final ExecutorService connectionThreads;
+
+    /** Diario su cui vengono registrate le mosse di tutte le partite, null se non vengono registrate. */
+    private volatile MoveJournal journal;
+
+    /** Canale di ascolto TCP, null prima di start. */
+    private ServerSocketChannel serverChannel;
+
+    /** Canale di ascolto sul socket di dominio Unix, null prima di startUnix. */
+    private ServerSocketChannel unixChannel;
+
+    /** File del socket di dominio Unix, cancellato da close; null prima di startUnix. */
+    private Path unixPath;
+
+    /** Il costruttore configura le partite del server, senza ancora aprire la porta.
+     * @param fixedDimRow cardinalità delle righe delle griglie
+     * @param fixedDimColumn cardinalità delle colonne delle griglie
+     * @param shipsArray flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @param maxFailuresParam numero massimo di tentativi falliti di ogni partita
+     * @param timeLimit tempo di gioco di ogni partita in nanosecondi */
+    public GameServer(final int fixedDimRow, final int fixedDimColumn, final int[] shipsArray,
+                      final int maxFailuresParam, final long timeLimit) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        fleet = shipsArray.clone();
+        maxFailures = maxFailuresParam;
+        timeLimitNanos = timeLimit;
+
+        Map<CommandsState, LatencyHistogram> map = new EnumMap<>(CommandsState.class);
+        for (CommandsState state : CommandsState.values()) {
+            if (isGameMenuCommand(state)) {
+                map.put(state, new LatencyHistogram());
+            }
+        }
+        histograms = Collections.unmodifiableMap(map);
+
+        AtomicLong threadCount = new AtomicLong();
+        connectionThreads = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(null, runnable, "partita-remota-" + threadCount.incrementAndGet(),
+                            STACK_SIZE);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /** Punto di avvio del server. Usa i tentativi della difficoltá e il tempo di gioco impostati in Settings.
+     * @param args porta, dimensione della griglia (un numero per quella quadrata oppure righe e colonne separate
+     * da una x), file del diario delle mosse e file del socket di dominio Unix, tutti facoltativi
+     * @throws IOException se la porta, il socket o il diario non possono essere aperti */
+    public static void main(final String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String size = args.length > 1 ? args[1] : Integer.toString(DEFAULT_DIM);
+        int separator = size.indexOf('x');
+        int rows = Integer.parseInt(separator < 0 ? size : size.substring(0, separator));
+        int columns = separator < 0 ? rows : Integer.parseInt(size.substring(separator + 1));
+        Settings settings = Settings.getIstance();
+
+        GameServer server = new GameServer(rows, columns, DEFAULT_FLEET, settings.getCurrentDifficultyNumTry(),
+                TimeUnit.MINUTES.toNanos(settings.getTime()));
+        MoveJournal moveJournal = args.length > 2 ? MoveJournal.open(Path.of(args[2]), true) : null;
+        server.setJournal(moveJournal);
+        server.start(port);
+        if (args.length > 3) {
+            server.startUnix(Path.of(args[3]));
+            System.out.println("Server in ascolto sul socket " + args[3]);
+        }
+        System.out.println("Server in ascolto sulla porta " + server.getPort()
+                + ", premere " + UtilityTools.GREEN + "INVIO" + UtilityTools.RESET + " per fermarlo...");
+        UtilityTools.INPUT.nextLine();
+        server.close();
+        if (moveJournal != null) {
+            moveJournal.close();
+        }
+        server.printReport(System.out);
+    }
+
+    /** Metodo che imposta il diario su cui registrare le mosse delle partite che iniziano da questo momento.
+     * Il diario non viene chiuso dal server.
+     * @param moveJournal diario delle mosse, null per non registrarle */
+    public void setJournal(final MoveJournal moveJournal) {
+        journal = moveJournal;
+    }
+
+    /** Metodo che ritorna il diario su cui registrare le mosse.
+     * @return il diario, null se le mosse non vengono registrate */
+    MoveJournal getJournal() {
+        return journal;
+    }
+
+    /** Metodo che apre la porta sull'interfaccia di loopback e avvia il thread che accetta le connessioni.
+     * @param port porta di ascolto, zero per farne scegliere una libera al sistema operativo
+     * @throws IOException se la porta non puó essere aperta */
+    public synchronized void start(final int port) throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Server giá avviato");
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        startAcceptor(serverChannel, "server-accettazione");
+    }
+
+    /** Metodo che apre un socket di dominio Unix e avvia il thread che accetta le sue connessioni, servite come
+     * quelle TCP. Il file del socket non deve esistere e viene cancellato da close.
+     * @param path file del socket
+     * @throws IOException se il socket non puó essere aperto, ad esempio perché il file esiste giá */
+    public synchronized void startUnix(final Path path) throws IOException {
+        if (unixChannel != null) {
+            throw new IllegalStateException("Socket Unix giá aperto");
+        }
+        unixChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            unixChannel.bind(UnixDomainSocketAddress.of(path), BACKLOG);
+        } catch (IOException e) {
+            unixChannel.close();
+            unixChannel = null;
+            throw e;
+        }
+        unixPath = path;
+        startAcceptor(unixChannel, "server-accettazione-unix");
+    }
+
+    /** Avvia il thread demone che accetta le connessioni di un canale di ascolto.
+     * @param listener canale di ascolto
+     * @param name nome del thread */
+    private void startAcceptor(final ServerSocketChannel listener, final String name) {
+        Thread acceptor = new Thread(() -> acceptLoop(listener), name);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /** Metodo che ritorna la porta su cui il server é in ascolto.
+     * @return la porta, -1 se il server non é avviato */
+    public synchronized int getPort() {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    /** Metodo che chiude la porta e il socket Unix di ascolto; le partite in corso continuano finché i client
+     * non si scollegano, oppure finché l'applicazione non termina, essendo i loro thread demoni. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (unixChannel != null) {
+            unixChannel.close();
+            Files.deleteIfExists(unixPath);
+        }
+        connectionThreads.shutdown();
+    }
+
+    /** Metodo che stampa le connessioni servite e, per ogni comando usato, il numero di esecuzioni e i
+     * percentili del tempo di risposta in millisecondi.
+     * @param out stream su cui stampare */
+    public void printReport(final PrintStream out) {
+        out.printf(Locale.ROOT, "Connessioni accettate: %d, aperte: %d%n", acceptedConnections.get(),
+                activeConnections.get());
+        printHistograms(out, histograms);
+    }
+
+    /** Metodo che stampa una tabella di istogrammi, una riga per ogni comando con almeno un valore.
+     * @param out stream su cui stampare
+     * @param table istogrammi da stampare */
+    static void printHistograms(final PrintStream out, final Map<CommandsState, LatencyHistogram> table) {
+        final double nanosPerMilli = 1e6;
+        out.printf(Locale.ROOT, "%-18s %10s %9s %9s %9s %9s %9s %9s%n", "comando (ms)", "conteggio", "media",
+                "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<CommandsState, LatencyHistogram> entry : table.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-18s %10d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey().name().toLowerCase(Locale.ROOT), histogram.getCount(),
+                    histogram.getMean() / nanosPerMilli, histogram.getPercentile(50) / nanosPerMilli,
+                    histogram.getPercentile(90) / nanosPerMilli, histogram.getPercentile(99) / nanosPerMilli,
+                    histogram.getPercentile(99.9) / nanosPerMilli, histogram.getMax() / nanosPerMilli);
+        }
+    }
+
+    /** Metodo che indica se uno stato corrisponde ad un comando del menu di gioco, compresi l'attacco e i
+     * comandi con argomento.
+     * @param state stato da controllare
+     * @return vero se il comando puó essere eseguito da una RemoteGame */
+    static boolean isGameMenuCommand(final CommandsState state) {
+        String command = "/" + state.name();
+        return state == CommandsState.ATTACCA || CommandTable.GAME_MENU.lookup(command) == state
+                || CommandTable.GAME_MENU_ARGUMENTS.lookup(command) == state;
+    }
+
+    /** Metodo che ritorna l'istogramma di un comando del menu di gioco.
+     * @param state comando
+     * @return l'istogramma delle latenze del comando */
+    LatencyHistogram getHistogram(final CommandsState state) {
+        return histograms.get(state);
+    }
+
+    /** Metodo che ritorna gli istogrammi dei comandi del menu di gioco.
+     * @return la mappa non modificabile degli istogrammi */
+    public Map<CommandsState, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    /** Metodo che ritorna le connessioni aperte in questo momento.
+     * @return il numero di connessioni aperte */
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /** Metodo che ritorna la cardinalità delle righe delle griglie delle partite.
+     * @return la cardinalità delle righe */
+    int getDimRow() {
+        return dimRow;
+    }
+
+    /** Metodo che ritorna la cardinalità delle colonne delle griglie delle partite.
+     * @return la cardinalità delle colonne */
+    int getDimColumn() {
+        return dimColumn;
+    }
+
+    /** Metodo che ritorna la flotta delle partite, da non modificare.
+     * @return all'indice i il numero di navi lunghe i */
+    int[] getFleet() {
+        return fleet;
+    }
+
+    /** Metodo che ritorna il numero massimo di tentativi falliti di ogni partita.
+     * @return il numero massimo di tentativi falliti */
+    int getMaxFailures() {
+        return maxFailures;
+    }
+
+    /** Metodo che ritorna il tempo di gioco di ogni partita.
+     * @return il tempo di gioco in nanosecondi */
+    long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    /** Accetta le connessioni di un canale finché non viene chiuso, avviando un thread per ognuna.
+     * @param listener canale di ascolto, TCP oppure Unix */
+    private void acceptLoop(final ServerSocketChannel listener) {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = listener.accept();
+            } catch (IOException e) {
+                if (!listener.isOpen()) {
+                    //Il canale é stato chiuso da close
+                    return;
+                }
+                System.err.println("Errore nell'accettare una connessione: " + e.getMessage());
+                continue;
+            }
+
+            acceptedConnections.incrementAndGet();
+            activeConnections.incrementAndGet();
+            RemoteGame game = new RemoteGame(channel, this);
+            try {
+                connectionThreads.execute(() -> {
+                    try {
+                        game.run();
+                    } finally {
+                        activeConnections.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //Il server é stato chiuso mentre accettava la connessione
+                activeConnections.decrementAndGet();
+                closeQuietly(channel);
+                return;
+            }
+        }
+    }
+
+    /** Chiude una connessione ignorando gli errori, perché viene abbandonata comunque.
+     * @param channel connessione da chiudere */
+    private static void closeQuietly(final SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //La connessione viene abbandonata comunque
+        }
+    }
+}
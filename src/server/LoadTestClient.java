@@ -0,0 +1,371 @@
+package server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import game.Settings;
+import game.Settings.CommandsState;
+import utility.LatencyHistogram;
+
+/** {@literal <<Control>>}
+ * Client di carico per GameServer: apre molte partite contemporaneamente e misura il tempo di risposta di ogni
+ * comando visto dal client.
+ * Tutte le connessioni vengono aperte prima di iniziare e restano aperte per tutta la prova, quindi il server
+ * ospita contemporaneamente tutte le sessioni. Ogni sessione esegue un copione di comandi: attacchi su celle
+ * casuali mai ripetute, intervallati ogni VIEW_EVERY comandi da /mostragriglia, /mostratentativi e
+ * /mostratempo; tra la fine di una risposta e il comando successivo la sessione aspetta un tempo di
+ * riflessione, e l'attesa del primo comando é casuale, cosí le sessioni non inviano tutte nello stesso istante.
+ * Il client usa un solo thread con un Selector e canali non bloccanti, cosí il suo numero di thread non dipende
+ * dal numero di sessioni; una risposta é completa quando arriva il prompt di RemoteGame.
+ * Si avvia con: java server.LoadTestClient [sessioni] [comandi] [riflessione ms] [porta]; senza porta il
+ * client avvia un GameServer nella stessa JVM e stampa anche il suo resoconto. */
+public final class LoadTestClient {
+
+    /** Sessioni aperte se non ne viene indicato un altro numero. */
+    private static final int DEFAULT_SESSIONS = 10_000;
+
+    /** Comandi eseguiti da ogni sessione se non ne viene indicato un altro numero. */
+    private static final int DEFAULT_COMMANDS = 20;
+
+    /** Tempo di riflessione tra due comandi di una sessione, in millisecondi, se non ne viene indicato un altro. */
+    private static final int DEFAULT_THINK_MILLIS = 100;
+
+    /** Ogni quanti comandi una sessione chiede una schermata invece di attaccare. */
+    private static final int VIEW_EVERY = 4;
+
+    /** Comandi usati a turno per chiedere una schermata. */
+    private static final String[] VIEW_COMMANDS = {"/mostragriglia", "/mostratentativi", "/mostratempo"};
+
+    /** Stati dei comandi di VIEW_COMMANDS, nello stesso ordine. */
+    private static final CommandsState[] VIEW_STATES = {CommandsState.MOSTRAGRIGLIA, CommandsState.MOSTRATENTATIVI,
+        CommandsState.MOSTRATEMPO};
+
+    /** Ultimi tre byte di ogni risposta del server: un fine riga seguito dal PROMPT di RemoteGame. */
+    private static final int PROMPT_TAIL = '\n' << Byte.SIZE * 2 | '>' << Byte.SIZE | ' ';
+
+    /** Maschera che conserva gli ultimi tre byte letti. */
+    private static final int TAIL_MASK = (1 << Byte.SIZE * 3) - 1;
+
+    /** Dimensione del buffer di lettura condiviso dalle connessioni. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /** Flotta standard di Game, usata dal server avviato nella stessa JVM. */
+    private static final int[] DEFAULT_FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Dimensione della griglia del server avviato nella stessa JVM e delle coordinate attaccate. */
+    private static final int DIM = 10;
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** Indirizzo del server. */
+    private final InetSocketAddress address;
+
+    /** Numero di sessioni da aprire. */
+    private final int sessions;
+
+    /** Numero di comandi eseguiti da ogni sessione. */
+    private final int commands;
+
+    /** Tempo di riflessione tra due comandi di una sessione, in nanosecondi. */
+    private final long thinkNanos;
+
+    /** Istogramma dei tempi di risposta di ogni comando, misurati dal client. */
+    private final Map<CommandsState, LatencyHistogram> histograms = new EnumMap<>(CommandsState.class);
+
+    /** Istogramma dei tempi di risposta di tutti i comandi. */
+    private final LatencyHistogram allCommands = new LatencyHistogram();
+
+    /** Buffer di lettura condiviso, usato da un solo thread. */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    /** Sessioni che hanno eseguito tutto il copione. */
+    private int completedSessions;
+
+    /** Sessioni chiuse dal server prima della fine del copione, perché la partita é finita. */
+    private int endedSessions;
+
+    /** Sessioni interrotte da un errore di rete. */
+    private int failedSessions;
+
+    /** Numero piú alto di sessioni aperte contemporaneamente. */
+    private int peakSessions;
+
+    /** Durata della prova, dall'apertura della prima connessione alla chiusura dell'ultima. */
+    private long elapsedNanos;
+
+    /** Il costruttore prepara la prova, senza ancora aprire le connessioni.
+     * @param serverAddress indirizzo del server
+     * @param sessionCount numero di sessioni da aprire
+     * @param commandCount numero di comandi eseguiti da ogni sessione
+     * @param thinkTime tempo di riflessione tra due comandi, in nanosecondi */
+    public LoadTestClient(final InetSocketAddress serverAddress, final int sessionCount, final int commandCount,
+                          final long thinkTime) {
+        address = serverAddress;
+        sessions = sessionCount;
+        commands = commandCount;
+        thinkNanos = thinkTime;
+        for (CommandsState state : VIEW_STATES) {
+            histograms.put(state, new LatencyHistogram());
+        }
+        histograms.put(CommandsState.ATTACCA, new LatencyHistogram());
+    }
+
+    /** Punto di avvio della prova.
+     * @param args sessioni, comandi per sessione, tempo di riflessione in millisecondi e porta del server,
+     * tutti facoltativi
+     * @throws IOException se non é possibile aprire le connessioni o avviare il server */
+    public static void main(final String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COMMANDS;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THINK_MILLIS;
+
+        GameServer server = null;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            Settings settings = Settings.getIstance();
+            server = new GameServer(DIM, DIM, DEFAULT_FLEET, settings.getCurrentDifficultyNumTry(),
+                    TimeUnit.MINUTES.toNanos(settings.getTime()));
+            server.start(0);
+            port = server.getPort();
+        }
+
+        LoadTestClient client = new LoadTestClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                sessions, commands, TimeUnit.MILLISECONDS.toNanos(thinkMillis));
+        client.run();
+        client.print(System.out);
+        if (server != null) {
+            server.close();
+            System.out.println("\nResoconto del server:");
+            server.printReport(System.out);
+        }
+    }
+
+    /** Metodo che esegue la prova: apre tutte le sessioni, esegue i loro copioni e le chiude.
+     * @throws IOException se non é possibile aprire le connessioni */
+    public void run() throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        PriorityQueue<Connection> waiting = new PriorityQueue<>(Comparator.comparingLong(c -> c.dueAt));
+        long start = System.nanoTime();
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < sessions; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(address);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Connection(channel, random.split()));
+            }
+            int open = sessions;
+            peakSessions = open;
+
+            while (open > 0) {
+                long now = System.nanoTime();
+                while (!waiting.isEmpty() && waiting.peek().dueAt <= now) {
+                    open -= sendNext(waiting.poll());
+                }
+
+                long timeout = waiting.isEmpty() ? 0
+                        : Math.max(1, TimeUnit.NANOSECONDS.toMillis(waiting.peek().dueAt - now));
+                selector.select(timeout);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    if (read(connection)) {
+                        if (connection.isFinished()) {
+                            completedSessions++;
+                            open -= close(connection);
+                        } else {
+                            connection.dueAt = System.nanoTime() + connection.nextThinkNanos();
+                            waiting.add(connection);
+                        }
+                    } else if (!connection.channel.isOpen()) {
+                        open--;
+                    }
+                }
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    /** Metodo che stampa il resoconto della prova: sessioni, comandi al secondo e percentili dei tempi di
+     * risposta di ogni comando in millisecondi.
+     * @param out stream su cui stampare */
+    public void print(final PrintStream out) {
+        final double nanosPerMilli = 1e6;
+        final double nanosPerSecond = 1e9;
+        out.printf(Locale.ROOT, "Sessioni: %d aperte insieme, %d complete, %d chiuse dal server, %d con errori%n",
+                peakSessions, completedSessions, endedSessions, failedSessions);
+        out.printf(Locale.ROOT, "Comandi: %d in %.2f s (%.0f comandi/s), p99 %.3f ms, p99.9 %.3f ms%n",
+                allCommands.getCount(), elapsedNanos / nanosPerSecond,
+                allCommands.getCount() * nanosPerSecond / Math.max(1, elapsedNanos),
+                allCommands.getPercentile(99) / nanosPerMilli, allCommands.getPercentile(99.9) / nanosPerMilli);
+        GameServer.printHistograms(out, histograms);
+    }
+
+    /** Invia il prossimo comando del copione di una sessione.
+     * @param connection sessione
+     * @return 1 se la connessione é stata chiusa per un errore, altrimenti 0 */
+    private int sendNext(final Connection connection) {
+        String command = connection.nextCommand();
+        ByteBuffer bytes = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.UTF_8));
+        connection.sentAt = System.nanoTime();
+        try {
+            // Il comando é molto piú piccolo del buffer di invio, che é vuoto perché il server ha giá risposto.
+            while (bytes.hasRemaining()) {
+                connection.channel.write(bytes);
+            }
+            return 0;
+        } catch (IOException e) {
+            failedSessions++;
+            return close(connection);
+        }
+    }
+
+    /** Legge i byte disponibili di una sessione e controlla se la risposta in attesa é completa.
+     * @param connection sessione
+     * @return vero se la risposta é completa e la sessione puó inviare il prossimo comando */
+    private boolean read(final Connection connection) {
+        int count;
+        try {
+            readBuffer.clear();
+            count = connection.channel.read(readBuffer);
+        } catch (IOException e) {
+            failedSessions++;
+            close(connection);
+            return false;
+        }
+
+        if (count < 0) {
+            //Il server chiude la connessione quando la partita finisce: l'ultima risposta é completa
+            connection.complete(System.nanoTime());
+            endedSessions++;
+            close(connection);
+            return false;
+        }
+
+        boolean completed = false;
+        for (int i = 0; i < count; i++) {
+            connection.tail = (connection.tail << Byte.SIZE | readBuffer.get(i) & 0xFF) & TAIL_MASK;
+            if (connection.tail == PROMPT_TAIL) {
+                connection.complete(System.nanoTime());
+                completed = true;
+            }
+        }
+        return completed;
+    }
+
+    /** Chiude una sessione.
+     * @param connection sessione da chiudere
+     * @return 1, il numero di sessioni chiuse */
+    private int close(final Connection connection) {
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            //La connessione viene abbandonata comunque
+        }
+        return 1;
+    }
+
+    /** Sessione della prova, con il suo copione e il comando in attesa di risposta. */
+    private final class Connection {
+
+        /** Canale della sessione. */
+        private final SocketChannel channel;
+
+        /** Celle della griglia in ordine casuale, attaccate una dopo l'altra. */
+        private final int[] cells = new int[DIM * DIM];
+
+        /** Numero di comandi inviati. */
+        private int sent;
+
+        /** Numero di celle giá attaccate. */
+        private int attacked;
+
+        /** Comando in attesa di risposta, null per il messaggio di benvenuto. */
+        private CommandsState pending;
+
+        /** Istante di invio del comando in attesa di risposta. */
+        private long sentAt;
+
+        /** Istante in cui la sessione invierá il prossimo comando. */
+        private long dueAt;
+
+        /** Ultimi tre byte ricevuti. */
+        private int tail;
+
+        /** Attesa prima del primo comando, casuale perché le sessioni non inviino tutte insieme. */
+        private final long firstThinkNanos;
+
+        /** Crea una sessione con un copione casuale.
+         * @param sessionChannel canale della sessione
+         * @param random generatore casuale della sessione */
+        Connection(final SocketChannel sessionChannel, final SplittableRandom random) {
+            channel = sessionChannel;
+            firstThinkNanos = thinkNanos > 0 ? random.nextLong(thinkNanos) : 0;
+            for (int i = 0; i < cells.length; i++) {
+                int j = random.nextInt(i + 1);
+                cells[i] = cells[j];
+                cells[j] = i;
+            }
+        }
+
+        /** Indica se la sessione ha ricevuto la risposta a tutti i comandi del copione.
+         * @return vero se il copione é finito */
+        boolean isFinished() {
+            return sent >= commands && pending == null;
+        }
+
+        /** Ritorna l'attesa prima del prossimo comando: quella del primo comando é distribuita a caso nel
+         * tempo di riflessione, le altre sono uguali al tempo di riflessione.
+         * @return l'attesa in nanosecondi */
+        long nextThinkNanos() {
+            return sent == 0 ? firstThinkNanos : thinkNanos;
+        }
+
+        /** Prepara il prossimo comando del copione e lo segna come in attesa di risposta.
+         * @return il testo del comando */
+        String nextCommand() {
+            sent++;
+            if (sent % VIEW_EVERY == 0 || attacked == cells.length) {
+                int view = sent / VIEW_EVERY % VIEW_COMMANDS.length;
+                pending = VIEW_STATES[view];
+                return VIEW_COMMANDS[view];
+            }
+            int cell = cells[attacked++];
+            pending = CommandsState.ATTACCA;
+            return (char) ('A' + cell % DIM) + "-" + (cell / DIM + 1);
+        }
+
+        /** Registra il tempo di risposta del comando in attesa, se ce n'é uno.
+         * @param now istante in cui la risposta é stata completata */
+        void complete(final long now) {
+            if (pending != null) {
+                histograms.get(pending).record(now - sentAt);
+                allCommands.record(now - sentAt);
+                pending = null;
+            }
+        }
+    }
+}
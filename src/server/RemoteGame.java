@@ -0,0 +1,304 @@
+package server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import game.GameSession;
+import game.MoveJournal;
+import game.Settings.CommandsState;
+import keyboardInput.ConfirmInput;
+import keyboardInput.GameMenuInput;
+import menu.CommandsGame;
+import utility.UtilityTools;
+
+/** {@literal <<Boundary>>}
+ * Partita giocata da un client collegato a GameServer.
+ * La classe RemoteGame é la versione di rete del menu di gioco: controlla le righe con GameMenuInput ed esegue
+ * i comandi con CommandsGame, come il menu di gioco di Game, ma su una GameSession propria invece che su quella
+ * del singleton Settings, e scrive le risposte sul socket invece che sulla console: i messaggi dei comandi
+ * vengono scritti nella risposta in costruzione, e l'unica differenza é la conferma di /esci e /abbandona, che
+ * viene chiesta sulla connessione. Ogni risposta termina con il PROMPT, cosí un client sa quando ha finito di
+ * leggerla.
+ * La partita viene giocata dal thread della connessione, che resta fermo sulla lettura del canale, TCP oppure
+ * Unix; alla scadenza del tempo di gioco l'avviso di GameClock chiude la lettura del canale, quindi il tempo
+ * scade anche se il client non scrive nulla.
+ * Il tempo di ogni comando, dalla lettura della riga all'invio della risposta, viene registrato
+ * nell'istogramma del comando fornito da GameServer.
+ * Poiché il server ospita migliaia di partite, i buffer della connessione sono piccoli e riutilizzati: le righe
+ * vengono lette dal canale senza Reader e la risposta viene codificata in un buffer di byte che cresce solo
+ * fino alla risposta piú lunga, scritto direttamente sul canale.
+ * Le griglie vengono disegnate da CommandsGame attraverso un Viewport che segue l'ultimo attacco e puó essere
+ * spostato con "/centra" seguito da una coordinata, cosí sulle griglie molto grandi la risposta resta grande
+ * quanto un terminale. */
+final class RemoteGame implements Runnable {
+
+    /** Testo che chiude ogni risposta e indica che il server aspetta una riga. */
+    static final String PROMPT = "> ";
+
+    /** Dimensione del buffer di lettura del socket. */
+    private static final int READ_BUFFER_SIZE = 256;
+
+    /** Lunghezza massima di una riga in byte; i byte successivi vengono scartati. */
+    private static final int MAX_LINE = 1024;
+
+    /** Dimensione iniziale del buffer della risposta codificata. */
+    private static final int REPLY_BUFFER_SIZE = 1024;
+
+    /** Connessione con il client. */
+    private final SocketChannel channel;
+
+    /** Server che ha accettato la connessione, con la configurazione delle partite e gli istogrammi. */
+    private final GameServer server;
+
+    /** Partita del client. */
+    private final GameSession session;
+
+    /** Risposta in costruzione, riutilizzata tra un comando e l'altro. */
+    private final StringBuilder reply = new StringBuilder();
+
+    /** Comandi della partita, che scrivono nella risposta in costruzione. */
+    private final CommandsGame commands;
+
+    /** Controllo delle righe del client, che scrive gli errori nella risposta in costruzione. */
+    private final GameMenuInput menuInput;
+
+    /** Controllo delle risposte alle conferme, che scrive gli errori nella risposta in costruzione. */
+    private final ConfirmInput confirmInput = new ConfirmInput(reply);
+
+    /** Byte letti dal canale e non ancora consumati. */
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    /** Vista di readBuffer usata per le letture dal canale. */
+    private final ByteBuffer readView = ByteBuffer.wrap(readBuffer);
+
+    /** Posizione del prossimo byte da consumare in readBuffer. */
+    private int readPosition;
+
+    /** Numero di byte validi in readBuffer. */
+    private int readLimit;
+
+    /** Byte della riga in lettura. */
+    private byte[] lineBytes = new byte[READ_BUFFER_SIZE];
+
+    /** Codificatore della risposta in UTF-8. */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    /** Risposta codificata, riutilizzata tra un comando e l'altro. */
+    private ByteBuffer replyBytes = ByteBuffer.allocate(REPLY_BUFFER_SIZE);
+
+    /** Il costruttore prepara la partita di una connessione, con la configurazione del server.
+     * @param clientChannel connessione con il client, TCP oppure Unix
+     * @param owner server che ha accettato la connessione */
+    RemoteGame(final SocketChannel clientChannel, final GameServer owner) {
+        channel = clientChannel;
+        server = owner;
+        session = new GameSession(owner.getDimRow(), owner.getDimColumn(), owner.getMaxFailures(),
+                owner.getTimeLimitNanos());
+        commands = new RemoteCommands();
+        menuInput = new GameMenuInput(session, reply);
+    }
+
+    /** Gioca la partita fino alla sua fine o alla chiusura della connessione. */
+    @Override
+    public void run() {
+        try (channel) {
+            if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+
+            reply.setLength(0);
+            if (!session.placeShipsRandom(ThreadLocalRandom.current(), server.getFleet())) {
+                reply.append(UtilityTools.RED).append("Errore: Le navi non possono essere piazzate tutte sulla ")
+                        .append("griglia").append(UtilityTools.RESET).append('\n');
+                send(false);
+                return;
+            }
+            MoveJournal journal = server.getJournal();
+            if (journal != null && journal.recordStart(session)) {
+                session.setJournal(journal);
+            }
+            session.getClock().setTimeoutListener(this::expire);
+            reply.append(UtilityTools.GREEN).append("Benvenuto nel menu di gioco, cosa vuoi fare?")
+                    .append(UtilityTools.RESET).append('\n');
+            reply.append("Scrivere il comando /help per visionare i comandi utilizzabili\n");
+            send(true);
+
+            while (commands.isPlaying()) {
+                String line = readLine();
+                if (line == null) {
+                    return;
+                }
+                long start = System.nanoTime();
+                CommandsState state = execute(line.strip());
+                send(commands.isPlaying());
+                if (state != null) {
+                    server.getHistogram(state).record(System.nanoTime() - start);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            //La connessione é stata chiusa dal client o dal server: la partita finisce
+        } finally {
+            session.getClock().cancel();
+        }
+    }
+
+    /** Legge la prossima riga del client, aspettando finché non arriva o non scade il tempo della partita.
+     * Se il tempo scade annuncia la sconfitta e chiude la partita.
+     * @return la riga letta, oppure null se la connessione é chiusa o il tempo é scaduto
+     * @throws IOException se la lettura fallisce */
+    private String readLine() throws IOException {
+        String line = session.getClock().isExpired() ? null : nextLine();
+        if (!session.getClock().isExpired()) {
+            return line;
+        }
+        reply.setLength(0);
+        commands.timeUp();
+        send(false);
+        return null;
+    }
+
+    /** Chiude la lettura del canale alla scadenza del tempo di gioco, eseguito dal thread dell'orologio:
+     * la lettura in corso termina come alla chiusura della connessione e readLine annuncia la sconfitta. */
+    private void expire() {
+        try {
+            channel.shutdownInput();
+        } catch (IOException e) {
+            //La connessione é giá chiusa: la partita finisce comunque
+        }
+    }
+
+    /** Legge dal canale una riga terminata da '\n', togliendo l'eventuale '\r' finale.
+     * @return la riga decodificata da UTF-8, oppure null se la connessione é chiusa prima di una nuova riga
+     * @throws IOException se la lettura fallisce o scade il tempo di attesa */
+    private String nextLine() throws IOException {
+        int length = 0;
+        while (true) {
+            if (readPosition == readLimit) {
+                readView.clear();
+                int count = channel.read(readView);
+                if (count < 0) {
+                    return length == 0 ? null : new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+                }
+                readPosition = 0;
+                readLimit = count;
+            }
+
+            byte b = readBuffer[readPosition++];
+            if (b == '\n') {
+                if (length > 0 && lineBytes[length - 1] == '\r') {
+                    length--;
+                }
+                return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+            }
+            if (length < MAX_LINE) {
+                if (length == lineBytes.length) {
+                    lineBytes = Arrays.copyOf(lineBytes, Math.min(MAX_LINE, length * 2));
+                }
+                lineBytes[length++] = b;
+            }
+        }
+    }
+
+    /** Esegue una riga del client, come il menu di gioco di Game.
+     * @param line riga inviata dal client
+     * @return lo stato del comando eseguito, null se la riga non era un comando valido */
+    private CommandsState execute(final String line) {
+        reply.setLength(0);
+        if (!menuInput.accept(line)) {
+            return null;
+        }
+
+        CommandsState state = menuInput.getState();
+        switch (state) {
+            case HELP -> commands.help();
+            case ESCI -> commands.exit();
+            case MOSTRANAVI -> commands.printShipsSet();
+            case MOSTRALIVELLO -> commands.showLevel();
+            case SVELAGRIGLIA -> commands.showGrid();
+            case MOSTRATEMPO -> commands.showTime();
+            case ATTACCA -> commands.attack(menuInput.getCoordinate());
+            case MOSTRAGRIGLIA -> commands.showGridWithoutMiss();
+            case ABBANDONA -> commands.abandon();
+            case MOSTRATENTATIVI -> commands.showFailures();
+            case METRICHE -> commands.showMetrics();
+            case CENTRA -> commands.center(menuInput.getCoordinate());
+            default -> reply.append(UtilityTools.RED).append("Nessun UserChoice trovato").append(UtilityTools.RESET)
+                    .append('\n');
+        }
+        return state;
+    }
+
+    /** Invia la risposta in costruzione con una sola scrittura.
+     * @param prompt vero se la risposta va chiusa con il PROMPT perché il server aspetta un'altra riga
+     * @throws IOException se la scrittura fallisce */
+    private void send(final boolean prompt) throws IOException {
+        if (prompt) {
+            reply.append(PROMPT);
+        }
+        encoder.reset();
+        replyBytes.clear();
+        CharBuffer chars = CharBuffer.wrap(reply);
+        while (true) {
+            CoderResult result = encoder.encode(chars, replyBytes, true);
+            if (result.isOverflow()) {
+                replyBytes = ByteBuffer.allocate(replyBytes.capacity() * 2).put(replyBytes.flip());
+            } else {
+                break;
+            }
+        }
+        replyBytes.flip();
+        while (replyBytes.hasRemaining()) {
+            channel.write(replyBytes);
+        }
+    }
+
+    /** {@literal <<Control>>}
+     * Comandi della partita remota: sono quelli di CommandsGame, senza livello di gioco e senza schermata della
+     * console, con la conferma chiesta sulla connessione. */
+    private final class RemoteCommands extends CommandsGame {
+
+        /** Il costruttore prepara i comandi della partita, che scrivono nella risposta in costruzione. */
+        RemoteCommands() {
+            super(session, null, reply, null);
+        }
+
+        /** Invia la domanda al client e ripete la richiesta finché la risposta non é yes o no, con i messaggi di
+         * errore di ConfirmInput. Se la connessione si chiude o il tempo scade la risposta vale no; nel secondo
+         * caso readLine ha giá annunciato la sconfitta. A differenza della console l'orologio non viene messo in
+         * pausa: la scadenza del tempo di gioco resta il limite all'attesa, cosí un client non puó tenere occupata
+         * la connessione senza fine.
+         * @param menuIndicator schermata della console, non usata dalle partite remote
+         * @param question domanda da porre
+         * @return vero se il client ha risposto yes
+         * @throws UncheckedIOException se la scrittura o la lettura falliscono */
+        @Override
+        protected boolean confirm(final int menuIndicator, final String question) {
+            while (true) {
+                print(UtilityTools.YELLOW + question + UtilityTools.RESET + "\n");
+                String answer;
+                try {
+                    send(true);
+                    answer = readLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                reply.setLength(0);
+                if (answer == null) {
+                    return false;
+                }
+                if (confirmInput.accept(answer.strip())) {
+                    return confirmInput.isYes();
+                }
+            }
+        }
+    }
+}
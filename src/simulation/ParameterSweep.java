@@ -0,0 +1,354 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import ai.ProbabilityShooter;
+import ai.RandomShooter;
+import ai.ShootingStrategy;
+import game.GameSession;
+import game.Settings;
+
+/** {@literal <<Control>>}
+ * Strumento che valuta in parallelo molte combinazioni dei parametri di difficoltá, per scegliere i valori
+ * predefiniti del gioco in base ai dati.
+ * Ogni combinazione é formata da dimensione della griglia, tentativi falliti massimi e tempo di gioco in minuti.
+ * Per ogni combinazione vengono giocate lo stesso numero di partite, con GameSession.placeShipsRandom e
+ * GameSession.attack come nel gioco e con i tentativi della combinazione; il tempo di gioco non puó essere
+ * misurato con l'orologio, perché una partita simulata dura pochi microsecondi, quindi viene convertito in un
+ * numero massimo di colpi supponendo che il giocatore impieghi secondsPerShot secondi per ogni colpo: una
+ * partita ancora in corso all'ultimo colpo concesso é persa per tempo.
+ * Tutte le combinazioni vengono avviate insieme nel pool fork-join comune e divise in porzioni di partite,
+ * quindi i core restano occupati anche quando le combinazioni sono poche o molto diverse tra loro. Le
+ * combinazioni con la stessa griglia usano lo stesso seme, cosí le differenze tra i risultati dipendono solo
+ * dai parametri e non dal caso; a paritá di seme i risultati non dipendono dal numero di core.
+ * Il resoconto é un file CSV con una riga per combinazione.
+ * Si avvia con: java simulation.ParameterSweep [file.csv] [partite] [dimensioni] [tentativi] [minuti]
+ * [secondi per colpo] [probabilita|casuale], dove dimensioni, tentativi e minuti sono elenchi separati da
+ * virgole, ad esempio 10,18,26. */
+public final class ParameterSweep {
+
+    /** Numero massimo di partite giocate da una porzione senza dividerla. */
+    private static final int SPLIT_THRESHOLD = 512;
+
+    /** Tempo di gioco di GameSession, abbastanza lungo da non scadere: il tempo viene contato in colpi. */
+    private static final long TIME_LIMIT = TimeUnit.DAYS.toNanos(1);
+
+    /** Flotta standard di Game. */
+    private static final int[] DEFAULT_FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Dimensioni delle griglie se non ne vengono indicate altre, le stesse di CommandsMainMenu. */
+    private static final int[] DEFAULT_DIMS = {10, 18, 26};
+
+    /** Minuti di gioco se non ne vengono indicati altri. */
+    private static final int[] DEFAULT_MINUTES = {2, 5, 10, 30};
+
+    /** Partite per combinazione se non ne viene indicato un altro numero. */
+    private static final int DEFAULT_GAMES = 10_000;
+
+    /** Secondi impiegati dal giocatore per ogni colpo se non ne viene indicato un altro numero. */
+    private static final double DEFAULT_SECONDS_PER_SHOT = 6;
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** File CSV in cui viene salvato il resoconto se non ne viene indicato un altro. */
+    private static final String DEFAULT_OUTPUT = "sweep-results.csv";
+
+    /** Flotta nel formato di Game. */
+    private final int[] fleet;
+
+    /** Costruttore delle strategie delle porzioni. */
+    private final StrategyFactory factory;
+
+    /** Secondi impiegati dal giocatore per ogni colpo. */
+    private final double secondsPerShot;
+
+    /** Il costruttore prepara lo strumento per una flotta, una strategia e un ritmo di gioco.
+     * @param shipsArray flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @param strategyFactory costruttore della strategia, chiamato una volta per porzione
+     * @param secondsPerShotParam secondi impiegati dal giocatore per ogni colpo */
+    public ParameterSweep(final int[] shipsArray, final StrategyFactory strategyFactory,
+                          final double secondsPerShotParam) {
+        fleet = shipsArray.clone();
+        factory = strategyFactory;
+        secondsPerShot = secondsPerShotParam;
+    }
+
+    /** Punto di avvio dello strumento. I tentativi predefiniti sono quelli delle difficoltá di Settings.
+     * @param args file CSV, partite per combinazione, dimensioni, tentativi, minuti, secondi per colpo e
+     * strategia, tutti facoltativi
+     * @throws IOException se il resoconto non puó essere scritto */
+    public static void main(final String[] args) throws IOException {
+        final int gamesArg = 1;
+        final int dimsArg = 2;
+        final int attemptsArg = 3;
+        final int minutesArg = 4;
+        final int paceArg = 5;
+        final int strategyArg = 6;
+        Settings settings = Settings.getIstance();
+
+        Path output = Path.of(args.length > 0 ? args[0] : DEFAULT_OUTPUT);
+        int games = args.length > gamesArg ? Integer.parseInt(args[gamesArg]) : DEFAULT_GAMES;
+        int[] dims = args.length > dimsArg ? parseList(args[dimsArg]) : DEFAULT_DIMS;
+        int[] attempts = args.length > attemptsArg ? parseList(args[attemptsArg])
+                : new int[] {settings.getEasyNumTry(), settings.getMediumNumTry(), settings.getHardNumTry()};
+        int[] minutes = args.length > minutesArg ? parseList(args[minutesArg]) : DEFAULT_MINUTES;
+        double pace = args.length > paceArg ? Double.parseDouble(args[paceArg]) : DEFAULT_SECONDS_PER_SHOT;
+        String strategy = args.length > strategyArg ? args[strategyArg].toLowerCase(Locale.ROOT) : "probabilita";
+
+        StrategyFactory factory = switch (strategy) {
+            case "probabilita" -> ProbabilityShooter::new;
+            case "casuale" -> RandomShooter::new;
+            default -> throw new IllegalArgumentException("Strategia sconosciuta: " + strategy);
+        };
+
+        ParameterSweep sweep = new ParameterSweep(DEFAULT_FLEET, factory, pace);
+        List<Combination> combinations = combine(dims, attempts, minutes);
+        System.out.printf(Locale.ROOT, "%d combinazioni da %d partite, strategia %s, %d core%n",
+                combinations.size(), games, strategy, ForkJoinPool.commonPool().getParallelism());
+
+        long start = System.nanoTime();
+        sweep.run(combinations, games, SEED);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "Partite: %d in %.2f s (%.0f partite/s)%n", (long) games * combinations.size(),
+                seconds, games * combinations.size() / seconds);
+
+        writeCsv(output, combinations);
+        System.out.println("Resoconto salvato in " + output);
+    }
+
+    /** Metodo che crea tutte le combinazioni dei valori indicati, ordinate per dimensione, tentativi e minuti.
+     * @param dims dimensioni delle griglie quadrate
+     * @param attempts tentativi falliti massimi
+     * @param minutes minuti di gioco
+     * @return le combinazioni, ancora senza partite */
+    public static List<Combination> combine(final int[] dims, final int[] attempts, final int[] minutes) {
+        List<Combination> combinations = new ArrayList<>(dims.length * attempts.length * minutes.length);
+        for (int dim : dims) {
+            for (int attempt : attempts) {
+                for (int minute : minutes) {
+                    combinations.add(new Combination(dim, attempt, minute));
+                }
+            }
+        }
+        return combinations;
+    }
+
+    /** Metodo che gioca le partite di tutte le combinazioni nel pool fork-join comune e ne registra i risultati.
+     * @param combinations combinazioni da valutare
+     * @param games partite per combinazione
+     * @param seed seme da cui derivare i generatori casuali, lo stesso per le combinazioni con la stessa griglia */
+    public void run(final List<Combination> combinations, final int games, final long seed) {
+        List<SweepTask> tasks = new ArrayList<>(combinations.size());
+        for (Combination combination : combinations) {
+            combination.shotBudget = (int) Math.min(combination.dim * combination.dim,
+                    TimeUnit.MINUTES.toSeconds(combination.minutes) / secondsPerShot);
+            SweepTask task = new SweepTask(combination, new SplittableRandom(seed ^ combination.dim), games);
+            task.fork();
+            tasks.add(task);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            combinations.get(i).outcome.merge(tasks.get(i).join());
+        }
+    }
+
+    /** Metodo che scrive il resoconto CSV, una riga per combinazione.
+     * @param file percorso del file
+     * @param combinations combinazioni valutate
+     * @throws IOException se il file non puó essere scritto */
+    public static void writeCsv(final Path file, final List<Combination> combinations) throws IOException {
+        final double percent = 100;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("dimensione,tentativi,minuti,colpi_max,partite,vittorie,sconfitte_tentativi,"
+                    + "sconfitte_tempo,percentuale_vittorie,colpi_medi_vittoria");
+            for (Combination c : combinations) {
+                Outcome o = c.outcome;
+                out.printf(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%d,%d,%.2f,%.2f%n", c.dim, c.attempts, c.minutes,
+                        c.shotBudget, o.games, o.won, o.lostFailures, o.lostTime,
+                        o.games == 0 ? 0 : o.won * percent / o.games, o.won == 0 ? 0 : (double) o.winShots / o.won);
+            }
+        }
+    }
+
+    /** Legge un elenco di numeri separati da virgole.
+     * @param list testo dell'elenco
+     * @return i numeri */
+    private static int[] parseList(final String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    /** Gioca un certo numero di partite di una combinazione sul thread corrente.
+     * @param combination combinazione da giocare
+     * @param random generatore casuale della porzione
+     * @param games numero di partite
+     * @return i risultati delle partite */
+    private Outcome play(final Combination combination, final SplittableRandom random, final int games) {
+        int dim = combination.dim;
+        int shotBudget = combination.shotBudget;
+        Outcome outcome = new Outcome();
+        ShootingStrategy strategy = factory.create(dim, dim, fleet, random.split());
+
+        for (int i = 0; i < games; i++) {
+            GameSession session = new GameSession(dim, dim, combination.attempts, TIME_LIMIT);
+            if (!session.placeShipsRandom(random, fleet)) {
+                throw new IllegalStateException("Impossibile piazzare la flotta su una griglia " + dim + "x" + dim);
+            }
+
+            strategy.reset();
+            int shots = 0;
+            while (session.getStatus() == GameSession.Status.IN_PROGRESS && shots < shotBudget) {
+                int cell = strategy.nextShot();
+                strategy.onResult(cell, session.attackCell(cell));
+                shots++;
+            }
+            outcome.record(session.getStatus(), shots);
+        }
+        return outcome;
+    }
+
+    /** Combinazione di parametri con i risultati delle sue partite. */
+    public static final class Combination {
+
+        /** Dimensione della griglia quadrata. */
+        private final int dim;
+
+        /** Tentativi falliti massimi. */
+        private final int attempts;
+
+        /** Minuti di gioco. */
+        private final int minutes;
+
+        /** Colpi concessi dal tempo di gioco, calcolati da run. */
+        private int shotBudget;
+
+        /** Risultati delle partite giocate. */
+        private final Outcome outcome = new Outcome();
+
+        /** Crea una combinazione senza partite.
+         * @param dimParam dimensione della griglia quadrata
+         * @param attemptsParam tentativi falliti massimi
+         * @param minutesParam minuti di gioco */
+        public Combination(final int dimParam, final int attemptsParam, final int minutesParam) {
+            dim = dimParam;
+            attempts = attemptsParam;
+            minutes = minutesParam;
+        }
+
+        /** Metodo che ritorna la frazione di partite vinte.
+         * @return la frazione di vittorie, tra 0 e 1 */
+        public double getWinRate() {
+            return outcome.games == 0 ? 0 : (double) outcome.won / outcome.games;
+        }
+
+        /** Metodo che ritorna il numero di partite giocate.
+         * @return il numero di partite */
+        public long getGames() {
+            return outcome.games;
+        }
+    }
+
+    /** Contatori dei risultati di un gruppo di partite, uniti con merge. */
+    private static final class Outcome {
+
+        /** Partite giocate. */
+        private long games;
+
+        /** Partite vinte. */
+        private long won;
+
+        /** Partite perse per i tentativi falliti. */
+        private long lostFailures;
+
+        /** Partite perse per il tempo. */
+        private long lostTime;
+
+        /** Somma dei colpi sparati nelle partite vinte. */
+        private long winShots;
+
+        /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
+        Outcome() { }
+
+        /** Registra una partita finita.
+         * @param status stato della partita: in corso se i colpi concessi dal tempo sono finiti
+         * @param shots colpi sparati */
+        void record(final GameSession.Status status, final int shots) {
+            games++;
+            switch (status) {
+                case WON -> {
+                    won++;
+                    winShots += shots;
+                }
+                case LOST_FAILURES -> lostFailures++;
+                default -> lostTime++;
+            }
+        }
+
+        /** Aggiunge i contatori di un altro gruppo di partite.
+         * @param other contatori da aggiungere */
+        void merge(final Outcome other) {
+            games += other.games;
+            won += other.won;
+            lostFailures += other.lostFailures;
+            lostTime += other.lostTime;
+            winShots += other.winShots;
+        }
+    }
+
+    /** Porzione delle partite di una combinazione: si divide a metà finché é piú grande di SPLIT_THRESHOLD. */
+    private final class SweepTask extends RecursiveTask<Outcome> {
+
+        /** Identificativo di serializzazione, richiesto da RecursiveTask. */
+        private static final long serialVersionUID = 1L;
+
+        /** Combinazione giocata. */
+        private final transient Combination combination;
+
+        /** Generatore casuale della porzione. */
+        private final transient SplittableRandom random;
+
+        /** Numero di partite della porzione. */
+        private final int games;
+
+        /** Crea una porzione.
+         * @param taskCombination combinazione giocata
+         * @param taskRandom generatore casuale della porzione
+         * @param taskGames numero di partite della porzione */
+        SweepTask(final Combination taskCombination, final SplittableRandom taskRandom, final int taskGames) {
+            combination = taskCombination;
+            random = taskRandom;
+            games = taskGames;
+        }
+
+        /** Divide la porzione oppure, se é abbastanza piccola, la gioca con una propria strategia.
+         * @return i risultati delle partite della porzione */
+        @Override
+        protected Outcome compute() {
+            if (games <= SPLIT_THRESHOLD) {
+                return play(combination, random, games);
+            }
+
+            SweepTask left = new SweepTask(combination, random.split(), games / 2);
+            SweepTask right = new SweepTask(combination, random, games - games / 2);
+            left.fork();
+            Outcome outcome = right.compute();
+            outcome.merge(left.join());
+            return outcome;
+        }
+    }
+}
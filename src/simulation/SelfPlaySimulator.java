@@ -0,0 +1,174 @@
+package simulation;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import ai.AutoPlayer;
+import ai.ProbabilityShooter;
+import ai.RandomShooter;
+import ai.ShootingStrategy;
+import game.GameSession;
+import game.Settings;
+
+/** {@literal <<Control>>}
+ * Simulatore Monte Carlo che fa giocare da sola una strategia di tiro su molte partite.
+ * Ogni partita piazza la flotta con GameSession.placeShipsRandom, lo stesso piazzamento di Game.startNewGame,
+ * e viene giocata da AutoPlayer con le regole di GameSession.attack usate da CommandsGame.attack, senza limite
+ * di tentativi falliti, fino all'affondamento di tutte le navi. Il lotto viene diviso tra i core del pool
+ * fork-join comune: ogni porzione ha un proprio generatore casuale, ottenuto con SplittableRandom.split, una
+ * propria strategia e un proprio SimulationReport, che vengono uniti alla fine. A paritá di seme i risultati
+ * non dipendono dal numero di core.
+ * Si avvia con: java simulation.SelfPlaySimulator [partite] [dimensione|righexcolonne] [probabilita|casuale]
+ * [flotte], dove flotte moltiplica il numero di navi della flotta standard, ad esempio 1000x1000 con 50 flotte
+ * per provare le griglie molto grandi. */
+public final class SelfPlaySimulator {
+
+    /** Numero massimo di partite giocate da una porzione senza dividerla. */
+    private static final int SPLIT_THRESHOLD = 512;
+
+    /** Tempo di gioco delle partite simulate, abbastanza lungo da non scadere durante la simulazione. */
+    private static final long TIME_LIMIT = TimeUnit.DAYS.toNanos(1);
+
+    /** Flotta standard di Game. */
+    private static final int[] DEFAULT_FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Partite simulate se non ne viene indicato un altro numero. */
+    private static final int DEFAULT_GAMES = 100_000;
+
+    /** Dimensione della griglia se non ne viene indicata un'altra, la stessa di default di Settings. */
+    private static final int DEFAULT_DIM = 10;
+
+    /** Seme del generatore casuale, fisso per rendere confrontabili le esecuzioni. */
+    private static final long SEED = 42L;
+
+    /** Cardinalità delle righe della griglia. */
+    private final int dimRow;
+
+    /** Cardinalità delle colonne della griglia. */
+    private final int dimColumn;
+
+    /** Flotta nel formato di Game. */
+    private final int[] fleet;
+
+    /** Costruttore delle strategie delle porzioni. */
+    private final StrategyFactory factory;
+
+    /** Il costruttore prepara il simulatore per una griglia, una flotta e una strategia.
+     * @param fixedDimRow cardinalità delle righe della griglia
+     * @param fixedDimColumn cardinalità delle colonne della griglia
+     * @param shipsArray flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @param strategyFactory costruttore della strategia, chiamato una volta per porzione */
+    public SelfPlaySimulator(final int fixedDimRow, final int fixedDimColumn, final int[] shipsArray,
+                             final StrategyFactory strategyFactory) {
+        dimRow = fixedDimRow;
+        dimColumn = fixedDimColumn;
+        fleet = shipsArray.clone();
+        factory = strategyFactory;
+    }
+
+    /** Punto di avvio della simulazione. Stampa la velocitá, l'istogramma dei colpi per vincere e la
+     * percentuale di vittorie con i tentativi falliti di ogni difficoltá di Settings.
+     * @param args numero di partite, dimensione della griglia (un numero per quella quadrata oppure righe e
+     * colonne separate da una x), strategia e numero di flotte, tutti facoltativi */
+    public static void main(final String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        String size = args.length > 1 ? args[1] : Integer.toString(DEFAULT_DIM);
+        int separator = size.indexOf('x');
+        int rows = Integer.parseInt(separator < 0 ? size : size.substring(0, separator));
+        int columns = separator < 0 ? rows : Integer.parseInt(size.substring(separator + 1));
+        String strategy = args.length > 2 ? args[2].toLowerCase(Locale.ROOT) : "probabilita";
+        int fleets = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        int[] fleet = DEFAULT_FLEET.clone();
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] *= fleets;
+        }
+
+        StrategyFactory factory = switch (strategy) {
+            case "probabilita" -> ProbabilityShooter::new;
+            case "casuale" -> RandomShooter::new;
+            default -> throw new IllegalArgumentException("Strategia sconosciuta: " + strategy);
+        };
+
+        Settings settings = Settings.getIstance();
+        int[] limits = {settings.getEasyNumTry(), settings.getMediumNumTry(), settings.getHardNumTry()};
+        String[] names = {"facile", "medio", "difficile"};
+
+        System.out.printf(Locale.ROOT, "Griglia %dx%d, %d flotte, strategia %s, %d core%n", rows, columns, fleets,
+                strategy, ForkJoinPool.commonPool().getParallelism());
+        new SelfPlaySimulator(rows, columns, fleet, factory).run(games, SEED).print(System.out, limits, names);
+    }
+
+    /** Metodo che gioca un lotto di partite dividendolo tra i core del pool fork-join comune.
+     * @param games numero di partite
+     * @param seed seme da cui derivare i generatori casuali di ogni porzione del lotto
+     * @return il resoconto delle partite, con la durata della simulazione */
+    public SimulationReport run(final int games, final long seed) {
+        long start = System.nanoTime();
+        SimulationReport report = ForkJoinPool.commonPool().invoke(new SimulateTask(new SplittableRandom(seed), games));
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /** Gioca un certo numero di partite sul thread corrente.
+     * @param random generatore casuale della porzione
+     * @param games numero di partite
+     * @return il resoconto delle partite */
+    private SimulationReport play(final SplittableRandom random, final int games) {
+        SimulationReport report = new SimulationReport(dimRow * dimColumn);
+        ShootingStrategy strategy = factory.create(dimRow, dimColumn, fleet, random.split());
+
+        for (int i = 0; i < games; i++) {
+            GameSession session = new GameSession(dimRow, dimColumn, Integer.MAX_VALUE, TIME_LIMIT);
+            if (!session.placeShipsRandom(random, fleet)) {
+                throw new IllegalStateException("Impossibile piazzare la flotta su una griglia "
+                        + dimRow + "x" + dimColumn);
+            }
+
+            strategy.reset();
+            int shots = AutoPlayer.play(session, strategy);
+            report.record(shots, session.getFailures());
+        }
+        return report;
+    }
+
+    /** Porzione di un lotto: si divide a metà finché é piú grande di SPLIT_THRESHOLD. */
+    private final class SimulateTask extends RecursiveTask<SimulationReport> {
+
+        /** Identificativo di serializzazione, richiesto da RecursiveTask. */
+        private static final long serialVersionUID = 1L;
+
+        /** Generatore casuale della porzione. */
+        private final transient SplittableRandom random;
+
+        /** Numero di partite della porzione. */
+        private final int games;
+
+        /** Crea una porzione del lotto.
+         * @param taskRandom generatore casuale della porzione
+         * @param taskGames numero di partite della porzione */
+        SimulateTask(final SplittableRandom taskRandom, final int taskGames) {
+            random = taskRandom;
+            games = taskGames;
+        }
+
+        /** Divide la porzione oppure, se é abbastanza piccola, la gioca con una propria strategia.
+         * @return il resoconto delle partite della porzione */
+        @Override
+        protected SimulationReport compute() {
+            if (games <= SPLIT_THRESHOLD) {
+                return play(random, games);
+            }
+
+            SimulateTask left = new SimulateTask(random.split(), games / 2);
+            SimulateTask right = new SimulateTask(random, games - games / 2);
+            left.fork();
+            SimulationReport report = right.compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package simulation;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+/** {@literal <<Entity>>}
+ * Classe che raccoglie i risultati di un lotto di partite simulate.
+ * Per ogni partita giocata fino all'affondamento di tutte le navi vengono registrati i colpi sparati e i colpi
+ * a vuoto, in due istogrammi indicizzati per numero di colpi. Poiché nel gioco la partita é persa quando i
+ * tentativi falliti raggiungono il limite della difficoltá, una partita é vinta con il limite L se ha sparato
+ * meno di L colpi a vuoto: la percentuale di vittorie per ogni limite si ricava quindi dall'istogramma dei colpi
+ * a vuoto. I resoconti delle porzioni giocate in parallelo vengono uniti con merge. */
+public final class SimulationReport {
+
+    /** Numero di partite per colpi sparati: all'indice i le partite vinte con i colpi. */
+    private final long[] shotsHistogram;
+
+    /** Numero di partite per colpi a vuoto: all'indice i le partite finite con i colpi a vuoto. */
+    private final long[] missesHistogram;
+
+    /** Numero di partite giocate. */
+    private long games;
+
+    /** Durata della simulazione in nanosecondi, impostata dal simulatore. */
+    private long elapsedNanos;
+
+    /** Il costruttore crea un resoconto vuoto per una griglia.
+     * @param cells numero di celle della griglia, ovvero il massimo dei colpi di una partita */
+    public SimulationReport(final int cells) {
+        shotsHistogram = new long[cells + 1];
+        missesHistogram = new long[cells + 1];
+    }
+
+    /** Metodo che registra una partita.
+     * @param shots colpi sparati per affondare tutte le navi
+     * @param misses colpi a vuoto */
+    public void record(final int shots, final int misses) {
+        shotsHistogram[shots]++;
+        missesHistogram[misses]++;
+        games++;
+    }
+
+    /** Metodo che aggiunge a questo resoconto le partite di un altro.
+     * @param other resoconto della stessa griglia */
+    public void merge(final SimulationReport other) {
+        for (int i = 0; i < shotsHistogram.length; i++) {
+            shotsHistogram[i] += other.shotsHistogram[i];
+            missesHistogram[i] += other.missesHistogram[i];
+        }
+        games += other.games;
+    }
+
+    /** Metodo che ritorna il numero di partite giocate.
+     * @return games */
+    public long getGames() {
+        return games;
+    }
+
+    /** Metodo che ritorna le partite al secondo della simulazione.
+     * @return le partite al secondo */
+    public double getGamesPerSecond() {
+        final double nanosPerSecond = 1e9;
+        return games * nanosPerSecond / Math.max(1, elapsedNanos);
+    }
+
+    /** Metodo che ritorna la media dei colpi sparati per vincere.
+     * @return la media dei colpi */
+    public double getAverageShots() {
+        return average(shotsHistogram);
+    }
+
+    /** Metodo che ritorna la frazione di partite vinte con un limite di tentativi falliti.
+     * @param limit numero di tentativi falliti che fa perdere la partita
+     * @return la frazione di partite con meno di limit colpi a vuoto, tra 0 e 1 */
+    public double getWinRate(final int limit) {
+        long won = 0;
+        for (int i = 0; i < Math.min(limit, missesHistogram.length); i++) {
+            won += missesHistogram[i];
+        }
+        return games == 0 ? 0 : (double) won / games;
+    }
+
+    /** Metodo che ritorna una copia dell'istogramma dei colpi sparati per vincere.
+     * @return all'indice i il numero di partite vinte con i colpi */
+    public long[] getShotsHistogram() {
+        return shotsHistogram.clone();
+    }
+
+    /** Metodo che ritorna una copia dell'istogramma dei colpi a vuoto.
+     * @return all'indice i il numero di partite finite con i colpi a vuoto */
+    public long[] getMissesHistogram() {
+        return missesHistogram.clone();
+    }
+
+    /** Metodo che imposta la durata della simulazione.
+     * @param nanos durata in nanosecondi */
+    void setElapsedNanos(final long nanos) {
+        elapsedNanos = nanos;
+    }
+
+    /** Metodo che stampa il resoconto: velocitá, istogramma dei colpi e vittorie per ogni limite.
+     * @param out stream su cui stampare
+     * @param limits limiti di tentativi falliti di cui stampare la percentuale di vittorie
+     * @param limitNames nomi dei limiti, nello stesso ordine */
+    public void print(final PrintStream out, final int[] limits, final String[] limitNames) {
+        final int barWidth = 50;
+        final double percent = 100;
+        long peak = Arrays.stream(shotsHistogram).max().orElse(0);
+
+        out.printf(Locale.ROOT, "Partite: %d in %.2f s (%.0f partite/s)%n", games, elapsedNanos / 1e9,
+                getGamesPerSecond());
+        out.printf(Locale.ROOT, "Colpi per vincere: media %.1f, colpi a vuoto: media %.1f%n",
+                getAverageShots(), average(missesHistogram));
+        for (int i = 0; i < shotsHistogram.length; i++) {
+            if (shotsHistogram[i] > 0) {
+                int bar = (int) Math.max(1, shotsHistogram[i] * barWidth / peak);
+                out.printf(Locale.ROOT, "%4d %-" + barWidth + "s %d%n", i, "#".repeat(bar), shotsHistogram[i]);
+            }
+        }
+        for (int i = 0; i < limits.length; i++) {
+            out.printf(Locale.ROOT, "Vittorie con %s (%d tentativi): %.2f%%%n", limitNames[i], limits[i],
+                    getWinRate(limits[i]) * percent);
+        }
+    }
+
+    /** Calcola la media di un istogramma.
+     * @param histogram all'indice i il numero di partite con valore i
+     * @return la media dei valori */
+    private double average(final long[] histogram) {
+        double sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += (double) i * histogram[i];
+        }
+        return games == 0 ? 0 : sum / games;
+    }
+}
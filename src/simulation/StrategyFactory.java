@@ -0,0 +1,22 @@
+package simulation;
+
+import java.util.random.RandomGenerator;
+
+import ai.ShootingStrategy;
+
+/** {@literal <<Control>>}
+ * Interfaccia che crea una strategia di tiro per una griglia e una flotta.
+ * Il simulatore crea una strategia per ogni porzione di partite giocata in parallelo, passando il generatore
+ * casuale della porzione; i costruttori di ProbabilityShooter e RandomShooter hanno giá questa firma e possono
+ * essere usati direttamente, ad esempio ProbabilityShooter::new. */
+@FunctionalInterface
+public interface StrategyFactory {
+
+    /** Metodo che crea una strategia.
+     * @param dimRow cardinalità delle righe della griglia
+     * @param dimColumn cardinalità delle colonne della griglia
+     * @param fleet flotta nel formato di Game: all'indice i il numero di navi lunghe i
+     * @param random generatore casuale riservato alla strategia
+     * @return la strategia */
+    ShootingStrategy create(int dimRow, int dimColumn, int[] fleet, RandomGenerator random);
+}
@@ -0,0 +1,115 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/** {@literal <<Control>>}
+ * Test della pausa e dell'orologio delle mosse di GameClock. I test aspettano gli avvisi con un tempo massimo
+ * largo, WAIT, e controllano le durate solo da un lato, cosí un thread rallentato dalla macchina non li fa
+ * fallire. */
+class GameClockTest {
+
+    /** Tempo di gioco degli orologi che non devono scadere durante i test. */
+    private static final long TIME_LIMIT = TimeUnit.HOURS.toNanos(1);
+
+    /** Tempo breve, usato per le scadenze e le pause dei test. */
+    private static final long SHORT_MILLIS = 100;
+
+    /** Tempo massimo di attesa di un avviso, in millisecondi. */
+    private static final long WAIT = 5000;
+
+    /** Durante la pausa il tempo rimanente non scorre, dopo la ripresa sí. */
+    @Test
+    void pauseFreezesTheRemainingTime() throws InterruptedException {
+        GameClock clock = new GameClock(TIME_LIMIT);
+
+        clock.pause();
+        assertTrue(clock.isPaused());
+        long frozen = clock.getRemainingNanos();
+        Thread.sleep(SHORT_MILLIS);
+        assertEquals(frozen, clock.getRemainingNanos());
+
+        clock.resume();
+        assertFalse(clock.isPaused());
+        Thread.sleep(SHORT_MILLIS);
+        assertTrue(clock.getRemainingNanos() < frozen);
+    }
+
+    /** Un orologio in pausa non avvisa della scadenza, anche se la pausa dura piú del tempo rimanente;
+     * l'avviso arriva dopo la ripresa. */
+    @Test
+    void pauseSuspendsTheTimeout() throws InterruptedException {
+        GameClock clock = new GameClock(TimeUnit.MILLISECONDS.toNanos(SHORT_MILLIS));
+        CountDownLatch expired = new CountDownLatch(1);
+        clock.setTimeoutListener(expired::countDown);
+
+        clock.pause();
+        assertFalse(expired.await(2 * SHORT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(clock.isExpired());
+
+        clock.resume();
+        assertTrue(expired.await(WAIT, TimeUnit.MILLISECONDS));
+        assertTrue(clock.isExpired());
+    }
+
+    /** La durata di una mossa non conta le pause e torna a zero dopo la fine della mossa. */
+    @Test
+    void moveTimeExcludesPauses() throws InterruptedException {
+        GameClock clock = new GameClock(TIME_LIMIT);
+        assertEquals(0, clock.getMoveNanos());
+
+        clock.startMove();
+        clock.pause();
+        Thread.sleep(2 * SHORT_MILLIS);
+        clock.resume();
+        long move = clock.endMove();
+
+        assertTrue(move >= 0);
+        assertTrue(move < TimeUnit.MILLISECONDS.toNanos(2 * SHORT_MILLIS), "durata della mossa: " + move);
+        assertEquals(0, clock.getMoveNanos());
+    }
+
+    /** Una mossa che supera il limite avvisa il suo ascoltatore, e la sua durata é almeno il limite. */
+    @Test
+    void moveLimitNotifiesTheListener() throws InterruptedException {
+        GameClock clock = new GameClock(TIME_LIMIT);
+        CountDownLatch late = new CountDownLatch(1);
+        clock.setMoveLimit(TimeUnit.MILLISECONDS.toNanos(SHORT_MILLIS), late::countDown);
+
+        clock.startMove();
+        assertTrue(late.await(WAIT, TimeUnit.MILLISECONDS));
+        assertTrue(clock.endMove() >= TimeUnit.MILLISECONDS.toNanos(SHORT_MILLIS));
+    }
+
+    /** Una mossa conclusa prima del limite non avvisa l'ascoltatore. */
+    @Test
+    void endMoveCancelsTheMoveLimit() throws InterruptedException {
+        GameClock clock = new GameClock(TIME_LIMIT);
+        CountDownLatch late = new CountDownLatch(1);
+        clock.setMoveLimit(TimeUnit.MILLISECONDS.toNanos(SHORT_MILLIS), late::countDown);
+
+        clock.startMove();
+        clock.endMove();
+        assertFalse(late.await(2 * SHORT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /** Un orologio fermato non puó essere messo in pausa né ripreso e il suo tempo rimanente non cambia. */
+    @Test
+    void cancelledClockIgnoresPauseAndResume() throws InterruptedException {
+        GameClock clock = new GameClock(TIME_LIMIT);
+
+        clock.cancel();
+        long remaining = clock.getRemainingNanos();
+        clock.pause();
+        assertFalse(clock.isPaused());
+        clock.resume();
+        Thread.sleep(SHORT_MILLIS);
+        assertEquals(remaining, clock.getRemainingNanos());
+    }
+}
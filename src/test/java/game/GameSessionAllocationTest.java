@@ -0,0 +1,180 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import grid.GridRenderer;
+import keyboardInput.CommandParser;
+import keyboardInput.CommandTable;
+
+/** {@literal <<Control>>}
+ * Test di allocazione del percorso di un attacco: riconoscimento della riga digitata, GameSession.attack,
+ * conteggio in Metrics, controllo di fine partita e accesso alle griglie da disegnare non devono allocare
+ * memoria. Le allocazioni vengono lette dal contatore del thread corrente di com.sun.management.ThreadMXBean,
+ * dopo un riscaldamento che carica e inizializza tutte le classi coinvolte. La misura viene ripetuta fino a
+ * ROUNDS volte e basta un giro senza allocazioni: mentre il JIT compila il codice misurato la JVM puó allocare
+ * qualche byte per conto suo (con -Xint i giri sono tutti a zero), mentre un'allocazione del percorso
+ * comparirebbe in ogni giro. */
+class GameSessionAllocationTest {
+
+    /** Flotta standard di Game. */
+    private static final int[] FLEET = {0, 0, 4, 3, 2, 1};
+
+    /** Partite giocate per intero durante la misura. */
+    private static final int GAMES = 20;
+
+    /** Tempo di gioco delle partite, abbastanza lungo da non scadere durante i test. */
+    private static final long TIME_LIMIT = TimeUnit.HOURS.toNanos(1);
+
+    /** Numero massimo di giri di misura. */
+    private static final int ROUNDS = 10;
+
+    /** Seme del generatore casuale, fisso per rendere ripetibili i test. */
+    private static final long SEED = 42L;
+
+    /** Contatore di allocazione dei thread fornito dalla JVM. */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Abilita il contatore di allocazione dei thread. */
+    @BeforeAll
+    static void enableAllocationCounter() {
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /** Le griglie restituite da una partita sono sempre le stesse viste, create con la partita. */
+    @Test
+    void gridGettersReturnTheSameViews() {
+        GameSession session = new GameSession(10, 10, Integer.MAX_VALUE, TIME_LIMIT);
+
+        assertSame(session.getEnemyGrid(), session.getEnemyGrid());
+        assertSame(session.getPlayerGrid(), session.getPlayerGrid());
+    }
+
+    /** Giocare intere partite digitando le coordinate non alloca memoria dopo il riscaldamento.
+     * @param dim dimensione della griglia quadrata */
+    @ParameterizedTest
+    @ValueSource(ints = {10, 18, 26})
+    void typedAttacksDoNotAllocate(final int dim) {
+        BoardGenerator generator = new BoardGenerator(dim, dim, FLEET);
+        int[] layouts = new int[GAMES * generator.getShipCount()];
+        generator.generate(new SplittableRandom(SEED), layouts, GAMES);
+        GameSession session = new GameSession(dim, dim, Integer.MAX_VALUE, TIME_LIMIT);
+        String[] lines = typedLines(dim);
+
+        assertEquals(GAMES, playGames(session, generator, layouts, lines));
+        assertEquals(0, minAllocation(() -> playGames(session, generator, layouts, lines)),
+                "byte allocati da " + GAMES + " partite");
+    }
+
+    /** Attaccare con l'indice lineare della cella non alloca memoria dopo il riscaldamento.
+     * @param dim dimensione della griglia quadrata */
+    @ParameterizedTest
+    @ValueSource(ints = {10, 18, 26})
+    void cellAttacksDoNotAllocate(final int dim) {
+        BoardGenerator generator = new BoardGenerator(dim, dim, FLEET);
+        int[] layouts = new int[GAMES * generator.getShipCount()];
+        generator.generate(new SplittableRandom(SEED), layouts, GAMES);
+        GameSession session = new GameSession(dim, dim, Integer.MAX_VALUE, TIME_LIMIT);
+
+        assertEquals(GAMES * generator.getShipCount(), attackAllCells(session, generator, layouts));
+        assertEquals(0, minAllocation(() -> attackAllCells(session, generator, layouts)),
+                "byte allocati da " + GAMES + " partite");
+    }
+
+    /** Misura i byte allocati da un giro di partite, ripetendo il giro finché non alloca nulla.
+     * @param round giro di partite da misurare
+     * @return i byte allocati dal giro migliore, 0 se almeno un giro non ha allocato */
+    private static long minAllocation(final LongSupplier round) {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        long baseline = THREADS.getCurrentThreadAllocatedBytes() - before;
+        long min = Long.MAX_VALUE;
+
+        for (int i = 0; i < ROUNDS && min > 0; i++) {
+            before = THREADS.getCurrentThreadAllocatedBytes();
+            round.getAsLong();
+            min = Math.min(min, THREADS.getCurrentThreadAllocatedBytes() - before - baseline);
+        }
+        return min;
+    }
+
+    /** Prepara le righe digitate per attaccare tutte le celle, riga per riga.
+     * @param dim dimensione della griglia quadrata
+     * @return le righe nella forma lettere-numero */
+    private static String[] typedLines(final int dim) {
+        String[] lines = new String[dim * dim];
+        StringBuilder line = new StringBuilder();
+
+        for (int cell = 0; cell < lines.length; cell++) {
+            line.setLength(0);
+            GridRenderer.appendColumnLabel(line, cell % dim);
+            lines[cell] = line.append('-').append(cell / dim + 1).toString();
+        }
+        return lines;
+    }
+
+    /** Gioca una partita per disposizione digitando le celle una dopo l'altra, come GameMenuInput e
+     * CommandsGame, finché dopo un attacco lo stato della partita non indica la vittoria.
+     * Ogni disposizione viene scritta sulla griglia del nemico della stessa partita.
+     * @param session partita da giocare
+     * @param generator generatore delle disposizioni
+     * @param layouts disposizioni preparate
+     * @param lines righe digitate
+     * @return il numero di partite vinte affondando tutte le navi della disposizione */
+    private static long playGames(final GameSession session, final BoardGenerator generator, final int[] layouts,
+                                  final String[] lines) {
+        Metrics metrics = Metrics.getIstance();
+        long won = 0;
+
+        for (int game = 0; game < GAMES; game++) {
+            generator.writeBoard(session.getEnemyGrid(), layouts, game);
+            session.getPlayerGrid().resetGrid();
+            int sunk = 0;
+            for (String line : lines) {
+                if (CommandTable.GAME_MENU.lookup(line) == null) {
+                    int coordinate = CommandParser.parseCoordinate(line, session.getRowLength(),
+                            session.getColumnLength());
+                    GameSession.AttackResult result = session.attack(CommandParser.rowOf(coordinate),
+                            CommandParser.columnOf(coordinate));
+                    metrics.recordAttack(result);
+                    sunk += result == GameSession.AttackResult.SUNK ? 1 : 0;
+                    if (session.getStatus() == GameSession.Status.WON) {
+                        break;
+                    }
+                }
+            }
+            won += sunk == generator.getShipCount() && session.getStatus() == GameSession.Status.WON ? 1 : 0;
+        }
+        return won;
+    }
+
+    /** Gioca una partita per disposizione attaccando tutte le celle con GameSession.attackCell.
+     * @param session partita da giocare
+     * @param generator generatore delle disposizioni
+     * @param layouts disposizioni preparate
+     * @return il numero di navi affondate */
+    private static long attackAllCells(final GameSession session, final BoardGenerator generator,
+                                       final int[] layouts) {
+        int cells = session.getRowLength() * session.getColumnLength();
+        long sunk = 0;
+
+        for (int game = 0; game < GAMES; game++) {
+            generator.writeBoard(session.getEnemyGrid(), layouts, game);
+            session.getPlayerGrid().resetGrid();
+            for (int cell = 0; cell < cells; cell++) {
+                sunk += session.attackCell(cell) == GameSession.AttackResult.SUNK ? 1 : 0;
+            }
+        }
+        return sunk;
+    }
+}
@@ -0,0 +1,72 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import grid.CellState;
+
+/** {@literal <<Control>>}
+ * Test dei controlli sulle coordinate degli attacchi di GameSession: una cella fuori dalla griglia non deve
+ * essere scambiata per la cella successiva o precedente dell'indice lineare, ma rifiutata senza sparare il
+ * colpo. I test usano una griglia rettangolare, cosí righe e colonne non si possono confondere. */
+class GameSessionTest {
+
+    /** Cardinalità delle righe della griglia dei test. */
+    private static final int ROWS = 7;
+
+    /** Cardinalità delle colonne della griglia dei test. */
+    private static final int COLUMNS = 11;
+
+    /** Tempo di gioco delle partite, abbastanza lungo da non scadere durante i test. */
+    private static final long TIME_LIMIT = TimeUnit.HOURS.toNanos(1);
+
+    /** Un attacco con riga o colonna fuori dalla griglia viene rifiutato, anche quando l'indice lineare
+     * corrispondente sarebbe dentro la griglia, e non conta come colpo.
+     * @param row riga attaccata
+     * @param column colonna attaccata */
+    @ParameterizedTest
+    @CsvSource({"0, 11", "1, -1", "-1, 0", "7, 0", "6, 11", "0, -1"})
+    void attackOutsideTheGridIsRejected(final int row, final int column) {
+        GameSession session = new GameSession(ROWS, COLUMNS, Integer.MAX_VALUE, TIME_LIMIT);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> session.attack(row, column));
+        assertUntouched(session);
+    }
+
+    /** Un attacco con un indice lineare fuori dalla griglia viene rifiutato e non conta come colpo.
+     * @param cell indice lineare attaccato */
+    @ParameterizedTest
+    @CsvSource({"-1", "77", "2147483647"})
+    void attackCellOutsideTheGridIsRejected(final int cell) {
+        GameSession session = new GameSession(ROWS, COLUMNS, Integer.MAX_VALUE, TIME_LIMIT);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> session.attackCell(cell));
+        assertUntouched(session);
+    }
+
+    /** Gli attacchi sulle celle agli angoli della griglia, gli ultimi indici validi, vengono sparati.
+     * @param row riga attaccata
+     * @param column colonna attaccata */
+    @ParameterizedTest
+    @CsvSource({"0, 0", "0, 10", "6, 0", "6, 10"})
+    void attackOnTheEdgesIsApplied(final int row, final int column) {
+        GameSession session = new GameSession(ROWS, COLUMNS, Integer.MAX_VALUE, TIME_LIMIT);
+
+        assertEquals(GameSession.AttackResult.MISS, session.attack(row, column));
+        assertEquals(1, session.getShots());
+        assertEquals(CellState.MISS, session.getPlayerGrid().getGridValue(row, column));
+    }
+
+    /** Controlla che la partita non abbia registrato colpi.
+     * @param session partita da controllare */
+    private static void assertUntouched(final GameSession session) {
+        assertEquals(0, session.getShots());
+        assertEquals(0, session.getFailures());
+        assertEquals(0, session.getPlayerGrid().countGridValue(CellState.MISS));
+    }
+}
@@ -0,0 +1,106 @@
+package grid;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import utility.UtilityTools;
+
+/** {@literal <<Control>>}
+ * Test del ridisegno differenziale di ScreenModel con la schermata del menu di gioco e l'ambiente di default,
+ * dove la shell non esporta LINES e COLUMNS: dopo il primo disegno completo, un attacco deve inviare solo la
+ * cella cambiata, senza pulire lo schermo. Il test viene saltato se il terminale che esegue i test é troppo
+ * piccolo per la schermata, perché in quel caso il disegno completo é quello corretto. */
+class ScreenModelTest {
+
+    /** Codice ANSI che pulisce lo schermo, presente solo nei disegni completi. */
+    private static final String CLEAR = "\033[2J";
+
+    /** Colonne di un terminale classico, quelle supposte se la larghezza non é nota. */
+    private static final int CLASSIC_COLUMNS = 80;
+
+    /** Testo sotto la griglia, lo stesso del menu di gioco di KeyboardInput. */
+    private static final String FOOTER = UtilityTools.GAME_MENU_CHOICES + UtilityTools.GREEN
+            + "Inserire il comando o la coordinata d'attacco es.(A-1): " + UtilityTools.RESET;
+
+    /** Il secondo disegno della schermata del menu di gioco invia solo la cella attaccata, posizionando il
+     * cursore, e non pulisce lo schermo.
+     * @param dim dimensione della griglia quadrata, quelle del menu principale che entrano in 80 colonne */
+    @ParameterizedTest
+    @ValueSource(ints = {10, 18})
+    void secondFrameUpdatesOnlyTheAttackedCell(final int dim) {
+        String header = UtilityTools.GAME_MENU_ASCII_ART;
+        int headerLines = countLines(header);
+        int lines = ScreenModel.getTerminalLines();
+        int columns = ScreenModel.getTerminalColumns();
+        assumeTrue(lines == 0 || lines >= headerLines + dim + 2 + countLines(FOOTER) + 1);
+        assumeTrue(columns == 0 || columns >= CLASSIC_COLUMNS);
+
+        ScreenModel screen = new ScreenModel();
+        Grid grid = new Grid(dim, dim);
+        int row = dim - 1;
+        int column = dim / 2;
+
+        String first = draw(screen, header, grid);
+        assertTrue(first.contains(CLEAR), "il primo disegno é completo");
+
+        grid.setGridValue(row, column, CellState.MISS);
+        String second = draw(screen, header, grid);
+        assertFalse(second.contains(CLEAR), "il secondo disegno non pulisce lo schermo");
+        String cursor = "\033[" + (headerLines + 2 + row) + ";"
+                + (GridRenderer.rowLabelWidth(dim) + GridRenderer.cellWidth(dim) * column + 1) + "H";
+        assertTrue(second.contains(cursor + UtilityTools.CYAN + CellState.MISS), "la cella attaccata é aggiornata");
+        assertTrue(second.length() < first.length() / 10, "il secondo disegno invia solo le differenze");
+
+        String third = draw(screen, header, grid);
+        assertFalse(third.contains(CLEAR), "un disegno senza cambiamenti non pulisce lo schermo");
+        assertFalse(third.contains(String.valueOf(CellState.MISS)), "un disegno senza cambiamenti non invia celle");
+    }
+
+    /** Su una griglia piú grande della sua finestra anche il disegno completo mostra solo la finestra attorno
+     * all'ultimo attacco e la minimappa, non l'intera griglia. */
+    @Test
+    void fullFrameOfALargeGridIsLimitedToTheViewport() {
+        final int dim = 300;
+        Grid grid = new Grid(dim, dim);
+        ScreenModel screen = new ScreenModel();
+        int wholeGrid = new GridRenderer().render(grid, true).length();
+
+        grid.setGridValue(dim - 1, dim - 1, CellState.MISS);
+        String frame = draw(screen, UtilityTools.GAME_MENU_ASCII_ART, grid);
+        Viewport viewport = grid.getViewport();
+
+        assertTrue(frame.contains(CLEAR), "il primo disegno é completo");
+        assertTrue(frame.contains("Mappa"), "la griglia é seguita dalla minimappa");
+        assertTrue(frame.length() < wholeGrid / 10, "il disegno contiene solo la finestra");
+        assertTrue(frame.contains(String.valueOf(dim)), "la finestra segue l'ultimo attacco");
+        assertTrue(viewport.getFirstRow(grid) > 0 && viewport.getFirstColumn(grid) > 0);
+    }
+
+    /** Disegna una schermata e ritorna quanto é stato scritto sul terminale.
+     * @param screen modello della schermata
+     * @param header testo sopra la griglia
+     * @param grid griglia da disegnare
+     * @return il fotogramma inviato */
+    private static String draw(final ScreenModel screen, final String header, final Grid grid) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        screen.draw(header, grid, FOOTER, out);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Conta le righe complete di un testo.
+     * @param text testo da esaminare
+     * @return il numero di caratteri di fine riga */
+    private static int countLines(final String text) {
+        return (int) text.chars().filter(c -> c == '\n').count();
+    }
+}
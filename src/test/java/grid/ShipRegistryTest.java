@@ -0,0 +1,100 @@
+package grid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import game.GameSession;
+
+/** {@literal <<Control>>}
+ * Test del registro delle navi e del conteggio delle celle intatte per le navi che toccano l'ultima riga e
+ * l'ultima colonna della griglia, dove il vecchio controllo dei confini non vedeva l'ultima cella.
+ * Ogni test viene ripetuto sulle griglie 10, 18 e 26 di CommandsMainMenu, su una griglia rettangolare e su
+ * una griglia rettangolare abbastanza grande da usare SparseStorage. */
+class ShipRegistryTest {
+
+    /** Lunghezza delle navi piazzate dai test. */
+    private static final int LENGTH = 4;
+
+    /** Tempo di gioco delle partite, abbastanza lungo da non scadere durante i test. */
+    private static final long TIME_LIMIT = TimeUnit.HOURS.toNanos(1);
+
+    /** Una nave orizzontale sull'ultima riga che finisce sull'ultima colonna viene affondata dall'ultimo colpo
+     * e la sua affondatura termina la partita.
+     * @param rows righe della griglia
+     * @param columns colonne della griglia */
+    @ParameterizedTest
+    @CsvSource({"10, 10", "18, 18", "26, 26", "7, 23", "300, 400"})
+    void horizontalShipOnLastRowSinksAndEndsGame(final int rows, final int columns) {
+        Grid enemy = new Grid(rows, columns);
+        enemy.placeShip(rows - 1, columns - LENGTH, LENGTH, ShipRegistry.HORIZONTAL);
+        GameSession session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+
+        for (int i = 0; i < LENGTH - 1; i++) {
+            assertEquals(GameSession.AttackResult.HIT, session.attack(rows - 1, columns - LENGTH + i));
+            assertEquals(GameSession.Status.IN_PROGRESS, session.getStatus());
+        }
+        assertEquals(GameSession.AttackResult.SUNK, session.attack(rows - 1, columns - 1));
+        assertEquals(GameSession.Status.WON, session.getStatus());
+        assertEquals(0, enemy.countGridValue(CellState.SHIP));
+        assertEquals(LENGTH, enemy.countGridValue(CellState.SUNK));
+    }
+
+    /** Una nave verticale sull'ultima colonna che finisce sull'ultima riga viene affondata dall'ultimo colpo
+     * e la sua affondatura termina la partita.
+     * @param rows righe della griglia
+     * @param columns colonne della griglia */
+    @ParameterizedTest
+    @CsvSource({"10, 10", "18, 18", "26, 26", "7, 23", "300, 400"})
+    void verticalShipOnLastColumnSinksAndEndsGame(final int rows, final int columns) {
+        Grid enemy = new Grid(rows, columns);
+        enemy.placeShip(rows - LENGTH, columns - 1, LENGTH, ShipRegistry.VERTICAL);
+        GameSession session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+
+        for (int i = 0; i < LENGTH - 1; i++) {
+            assertEquals(GameSession.AttackResult.HIT, session.attack(rows - LENGTH + i, columns - 1));
+            assertEquals(GameSession.Status.IN_PROGRESS, session.getStatus());
+        }
+        assertEquals(GameSession.AttackResult.SUNK, session.attack(rows - 1, columns - 1));
+        assertEquals(GameSession.Status.WON, session.getStatus());
+        assertEquals(0, enemy.countGridValue(CellState.SHIP));
+        assertEquals(LENGTH, enemy.countGridValue(CellState.SUNK));
+    }
+
+    /** Con una nave orizzontale sull'ultima riga e una verticale sull'ultima colonna, affondare la prima non
+     * termina la partita e la salute di ogni nave scende di uno ad ogni colpo, anche sull'ultima cella.
+     * @param rows righe della griglia
+     * @param columns colonne della griglia */
+    @ParameterizedTest
+    @CsvSource({"10, 10", "18, 18", "26, 26", "7, 23", "300, 400"})
+    void shipsOnLastRowAndColumnSinkIndependently(final int rows, final int columns) {
+        Grid enemy = new Grid(rows, columns);
+        int horizontal = enemy.placeShip(rows - 1, columns - LENGTH, LENGTH, ShipRegistry.HORIZONTAL);
+        int vertical = enemy.placeShip(rows - 1 - LENGTH, columns - 1, LENGTH, ShipRegistry.VERTICAL);
+        ShipRegistry ships = enemy.getShips();
+        GameSession session = new GameSession(enemy, Integer.MAX_VALUE, TIME_LIMIT);
+
+        assertEquals(horizontal, ships.getShipAt(rows - 1, columns - 1));
+        assertEquals(vertical, ships.getShipAt(rows - 2, columns - 1));
+        assertEquals(2 * LENGTH, enemy.countGridValue(CellState.SHIP));
+
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            session.attack(rows - 1, columns - LENGTH + i);
+            assertEquals(i, ships.getHealth(horizontal));
+        }
+        assertTrue(ships.isSunk(horizontal));
+        assertEquals(GameSession.Status.IN_PROGRESS, session.getStatus());
+        assertEquals(LENGTH, enemy.countGridValue(CellState.SHIP));
+
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            session.attack(rows - 1 - LENGTH + i, columns - 1);
+            assertEquals(i, ships.getHealth(vertical));
+        }
+        assertTrue(ships.isSunk(vertical));
+        assertEquals(GameSession.Status.WON, session.getStatus());
+    }
+}
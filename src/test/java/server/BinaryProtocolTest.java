@@ -0,0 +1,86 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import grid.Grid;
+
+/** {@literal <<Control>>}
+ * Test dei limiti di dimensione del protocollo binario: i valori che non stanno nei campi del frame devono
+ * essere rifiutati invece di essere troncati, senza scrivere nulla nel buffer di invio. */
+class BinaryProtocolTest {
+
+    /** Dimensione del buffer di invio dei test, abbastanza grande per qualsiasi frame. */
+    private static final int BUFFER_SIZE = BinaryProtocol.HEADER_SIZE + BinaryProtocol.MAX_PAYLOAD;
+
+    /** Le celle dentro il limite attraversano il frame ATTACK senza cambiare.
+     * @param cell indice lineare della cella */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 675, BinaryProtocol.MAX_CELL})
+    void attackKeepsCellsWithinLimit(final int cell) {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        BinaryProtocol.writeAttack(buffer, cell);
+        buffer.flip();
+
+        assertEquals(BinaryProtocol.ATTACK, BinaryProtocol.readFrame(buffer));
+        assertEquals(cell, BinaryProtocol.readAttack(buffer));
+    }
+
+    /** Le celle che non stanno in due byte vengono rifiutate.
+     * @param cell indice lineare della cella */
+    @ParameterizedTest
+    @ValueSource(ints = {-1, BinaryProtocol.MAX_CELL + 1, 300 * 400 - 1})
+    void attackRejectsCellsBeyondLimit(final int cell) {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.writeAttack(buffer, cell));
+        assertEquals(0, buffer.position());
+    }
+
+    /** Le griglie fino a MAX_DIMENSION righe e colonne attraversano il frame BOARD.
+     * @param rows righe della griglia
+     * @param columns colonne della griglia */
+    @ParameterizedTest
+    @CsvSource({"10, 10", "26, 26", "7, 23", "255, 1", "255, 255"})
+    void boardKeepsGridsWithinLimit(final int rows, final int columns) {
+        Grid grid = new Grid(rows, columns);
+        grid.setGridValue(rows - 1, columns - 1, 'X');
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        BinaryProtocol.writeBoard(buffer, grid);
+        assertEquals(BinaryProtocol.boardFrameSize(rows, columns), buffer.position());
+        buffer.flip();
+
+        Grid copy = new Grid(rows, columns);
+        assertEquals(BinaryProtocol.BOARD, BinaryProtocol.readFrame(buffer));
+        BinaryProtocol.readBoard(buffer, copy);
+        assertEquals('X', copy.getGridValue(rows - 1, columns - 1));
+    }
+
+    /** Le griglie con una dimensione oltre MAX_DIMENSION vengono rifiutate.
+     * @param rows righe della griglia
+     * @param columns colonne della griglia */
+    @ParameterizedTest
+    @CsvSource({"256, 1", "1, 256", "300, 400"})
+    void boardRejectsGridsBeyondLimit(final int rows, final int columns) {
+        Grid grid = new Grid(rows, columns);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.writeBoard(buffer, grid));
+        assertEquals(0, buffer.position());
+    }
+
+    /** La dimensione del frame BOARD rifiuta le stesse griglie di writeBoard. */
+    @Test
+    void boardFrameSizeRejectsGridsBeyondLimit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryProtocol.boardFrameSize(BinaryProtocol.MAX_DIMENSION + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.boardFrameSize(0, 1));
+    }
+}
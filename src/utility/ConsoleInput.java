@@ -0,0 +1,171 @@
+package utility;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/** {@literal <<Boundary>>}
+ * Classe che legge le righe della console su un thread dedicato e le consegna ai menu attraverso una coda.
+ * Il thread di lettura, avviato alla prima richiesta, é l'unico che resta bloccato sullo stream: ogni riga letta
+ * viene messa in una BlockingQueue, da cui i menu la prendono. In questo
+ * modo chi aspetta l'input non é piú fermo finché l'utente non preme INVIO: se é impostato un limite di tempo
+ * (ad esempio il tempo rimanente della partita) e scade prima che arrivi una riga, nextLine lancia una
+ * InputTimeoutException, che interrompe qualsiasi prompt in corso. L'attesa non controlla l'orologio:
+ * la scadenza viene segnalata con expire, ad esempio dall'avviso di GameClock, che sveglia la coda.
+ * Poiché ogni ConsoleInput lavora su uno stream qualsiasi, piú sessioni possono leggere ognuna dal proprio
+ * stream con la stessa interfaccia.
+ * Alla fine dello stream nextLine lancia NoSuchElementException, come faceva lo Scanner. */
+public final class ConsoleInput {
+
+    /** Riga che segnala la fine dello stream: contiene un fine riga, quindi non puó essere letta dallo stream. */
+    private static final String END_OF_INPUT = "\n";
+
+    /** Riga che segnala la scadenza del limite di tempo: anche il ritorno a capo termina una riga letta. */
+    private static final String TIME_OUT = "\r";
+
+    /** Righe lette e non ancora consumate. */
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    /** Lettore dello stream, usato solo dal thread di lettura. */
+    private final BufferedReader reader;
+
+    /** Thread di lettura, null finché non viene richiesta la prima riga. */
+    private Thread readerThread;
+
+    /** Fornisce i nanosecondi entro cui deve arrivare la prossima riga, null se l'attesa non ha limite. */
+    private LongSupplier timeLimit;
+
+    /** Il costruttore prepara la lettura dello stream, senza ancora avviare il thread.
+     * @param in stream da cui leggere le righe, codificate in UTF-8 */
+    public ConsoleInput(final InputStream in) {
+        reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /** Metodo che imposta il limite di tempo delle letture successive.
+     * Il fornitore viene interrogato prima di ogni attesa, per non aspettare se il tempo é giá scaduto; la
+     * scadenza durante un'attesa va segnalata con expire.
+     * @param remainingNanos fornisce i nanosecondi rimanenti; zero o meno indica che il tempo é scaduto */
+    public void setTimeLimit(final LongSupplier remainingNanos) {
+        timeLimit = remainingNanos;
+    }
+
+    /** Metodo che toglie il limite di tempo alle letture successive e scarta una scadenza non ancora consumata. */
+    public void clearTimeLimit() {
+        timeLimit = null;
+        lines.remove(TIME_OUT);
+    }
+
+    /** Metodo che segnala la scadenza del limite di tempo: la lettura in corso, o la prossima, lancia
+     * InputTimeoutException. Puó essere chiamato da qualsiasi thread, ad esempio da quello di GameClock. */
+    public void expire() {
+        lines.add(TIME_OUT);
+    }
+
+    /** Metodo che ritorna la prossima riga, aspettando finché non arriva o non scade il limite di tempo.
+     * @return la riga letta, senza il carattere di fine riga
+     * @throws InputTimeoutException se il limite di tempo scade prima che arrivi una riga
+     * @throws NoSuchElementException se lo stream é finito */
+    public String nextLine() {
+        while (true) {
+            LongSupplier limit = timeLimit;
+            if (limit != null && limit.getAsLong() <= 0) {
+                lines.remove(TIME_OUT);
+                throw new InputTimeoutException();
+            }
+            String line = take();
+            if (!TIME_OUT.equals(line)) {
+                return unwrap(line);
+            } else if (timeLimit != null) {
+                throw new InputTimeoutException();
+            }
+            //Scadenza arrivata quando il limite era giá stato tolto: viene ignorata
+        }
+    }
+
+    /** Metodo che ritorna la prossima riga se arriva entro un tempo massimo, ignorando il limite di tempo.
+     * @param timeout tempo massimo di attesa
+     * @param unit unitá di misura di timeout
+     * @return la riga letta, oppure null se non é arrivata in tempo
+     * @throws NoSuchElementException se lo stream é finito */
+    public String pollLine(final long timeout, final TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        String line;
+        do {
+            line = poll(deadline - System.nanoTime());
+        } while (TIME_OUT.equals(line));
+        return line == null ? null : unwrap(line);
+    }
+
+    /** Metodo che termina la lettura: le righe non ancora consumate vengono scartate e le letture successive
+     * terminano come alla fine dello stream. Lo stream non viene chiuso, perché il thread di lettura potrebbe
+     * essere bloccato su di esso; essendo demone, il thread non impedisce la chiusura dell'applicazione. */
+    public void close() {
+        lines.clear();
+        lines.add(END_OF_INPUT);
+    }
+
+    /** Aspetta una riga senza limite di tempo.
+     * @return la riga, oppure END_OF_INPUT */
+    private String take() {
+        startReader();
+        try {
+            return lines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoSuchElementException("Lettura interrotta");
+        }
+    }
+
+    /** Aspetta una riga per un tempo massimo.
+     * @param nanos tempo massimo di attesa in nanosecondi
+     * @return la riga, END_OF_INPUT, oppure null se il tempo é scaduto */
+    private String poll(final long nanos) {
+        startReader();
+        try {
+            return lines.poll(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoSuchElementException("Lettura interrotta");
+        }
+    }
+
+    /** Controlla che la riga non segnali la fine dello stream; in quel caso la rimette in coda, cosí anche le
+     * letture successive terminano.
+     * @param line riga presa dalla coda
+     * @return la riga */
+    private String unwrap(final String line) {
+        if (END_OF_INPUT.equals(line)) {
+            lines.add(END_OF_INPUT);
+            throw new NoSuchElementException("No line found");
+        }
+        return line;
+    }
+
+    /** Avvia il thread di lettura, se non é giá stato avviato. Il thread é demone, quindi non impedisce la
+     * chiusura dell'applicazione mentre é bloccato sullo stream. */
+    private synchronized void startReader() {
+        if (readerThread != null) {
+            return;
+        }
+        readerThread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (IOException e) {
+                //Un errore di lettura viene trattato come la fine dello stream
+            }
+            lines.add(END_OF_INPUT);
+        }, "lettore-console");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+}
@@ -0,0 +1,16 @@
+package utility;
+
+/** {@literal <<Entity>>}
+ * Eccezione lanciata da ConsoleInput quando il limite di tempo scade prima che l'utente inserisca una riga.
+ * É un'eccezione non controllata perché puó interrompere un prompt qualsiasi, anche annidato (ad esempio una
+ * conferma o la pausa dopo un messaggio di errore), e viene gestita da chi ha impostato il limite. */
+public final class InputTimeoutException extends RuntimeException {
+
+    /** Identificativo di serializzazione, richiesto da RuntimeException. */
+    private static final long serialVersionUID = 1L;
+
+    /** Il costruttore crea l'eccezione con un messaggio fisso. */
+    public InputTimeoutException() {
+        super("Tempo scaduto durante l'attesa dell'input");
+    }
+}
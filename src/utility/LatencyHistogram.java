@@ -0,0 +1,139 @@
+package utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** {@literal <<Entity>>}
+ * Istogramma delle latenze, in nanosecondi, con errore relativo limitato.
+ * I valori vengono contati in intervalli log-lineari: ogni potenza di due é divisa in SUB_BUCKETS intervalli
+ * della stessa ampiezza, quindi l'errore di un percentile é al massimo di 1/SUB_BUCKETS (circa il 3%) e
+ * l'istogramma occupa pochi KB qualunque sia il numero di valori registrati. I valori oltre MAX_NANOS
+ * finiscono nell'ultimo intervallo.
+ * I contatori sono atomici, quindi piú thread possono registrare valori nello stesso istogramma senza
+ * bloccarsi a vicenda; il numero, la somma e il massimo dei valori, aggiornati ad ogni registrazione, sono
+ * LongAdder e LongAccumulator suddivisi per thread, cosí i thread non si contendono la stessa variabile. I
+ * percentili letti mentre altri thread registrano sono un'istantanea approssimata.
+ * L'istogramma viene usato dalle metriche della console e dal server. */
+public final class LatencyHistogram {
+
+    /** Bit che indicizzano gli intervalli di una potenza di due. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Intervalli in cui é divisa ogni potenza di due. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Esponente della potenza di due piú alta distinta dall'istogramma. */
+    private static final int MAX_EXPONENT = 36;
+
+    /** Latenza piú alta distinta dall'istogramma, circa 68 secondi. */
+    private static final long MAX_NANOS = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /** Numero di intervalli dell'istogramma. */
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** Conteggio dei valori di ogni intervallo. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** Numero di valori registrati. */
+    private final LongAdder total = new LongAdder();
+
+    /** Somma dei valori registrati, per la media. */
+    private final LongAdder sum = new LongAdder();
+
+    /** Valore piú alto registrato. */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Costruttore di default della classe, aggiunto per warning di Javadoc. */
+    public LatencyHistogram() { }
+
+    /** Metodo che registra una latenza.
+     * @param nanos latenza in nanosecondi; i valori negativi vengono contati come zero */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_NANOS)));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /** Metodo che aggiunge a questo istogramma i valori di un altro.
+     * @param other istogramma da aggiungere */
+    public void merge(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    /** Metodo che ritorna il numero di valori registrati.
+     * @return il numero di valori */
+    public long getCount() {
+        return total.sum();
+    }
+
+    /** Metodo che ritorna la media dei valori registrati.
+     * @return la media in nanosecondi, zero se l'istogramma é vuoto */
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /** Metodo che ritorna il valore piú alto registrato.
+     * @return il massimo in nanosecondi */
+    public long getMax() {
+        return max.get();
+    }
+
+    /** Metodo che ritorna un percentile dei valori registrati.
+     * Il risultato é il limite superiore dell'intervallo che contiene il percentile, senza superare il massimo.
+     * @param percentile percentile richiesto, tra 0 e 100
+     * @return il percentile in nanosecondi, zero se l'istogramma é vuoto */
+    public long getPercentile(final double percentile) {
+        final double percent = 100;
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / percent));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /** Calcola l'intervallo di un valore: i valori piú piccoli di SUB_BUCKETS hanno un intervallo ciascuno,
+     * gli altri vengono divisi per potenza di due e poi per i SUB_BUCKET_BITS bit che seguono il piú alto.
+     * @param value valore tra 0 e MAX_NANOS
+     * @return l'indice dell'intervallo */
+    private static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /** Calcola il valore piú alto contenuto in un intervallo.
+     * @param index indice dell'intervallo
+     * @return il limite superiore dell'intervallo */
+    private static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
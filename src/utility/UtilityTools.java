@@ -1,13 +1,11 @@
 package utility;
 
-import java.util.Scanner;
-
 /** {@literal <<Boundary>>}
  * Contiene metodi e costanti utili per l'interfaccia grafica dell'intero programma.
  * La responsabilità della classe UtilityTools è quella di contenere metodi e costanti utili per l'interfaccia
  * grafica dell'intero programma. La classe fornisce metodi per pulire il terminale, per stampare il menu di
  * gioco e per ottenere il comando da tastiera che l'utente desidera digitare. La classe utilizza la classe
- * Scanner per ottenere il comando da tastiera che l'utente desidera digitare. */
+ * ConsoleInput per ottenere il comando da tastiera che l'utente desidera digitare. */
 public final class UtilityTools {
 
     /** Costante per utilizzare il colore BASE nei printf. */
@@ -37,11 +35,55 @@ public final class UtilityTools {
     /** Costante per utilizzare il colore BIANCO nei printf. */
     public static final String WHITE = "\u001B[37m";
 
+    /** Grafica della nave nel GAME menu, conservata come testo per poterne contare le righe.
+     * Nessuna riga supera le 80 colonne di un terminale classico, cosí ScreenModel puó aggiornare solo le celle
+     * cambiate anche quando la larghezza del terminale non é nota. */
+    public static final String GAME_MENU_ASCII_ART =
+        "                                                     __/___    \n"
+        + "                                              _____/______| \n"
+        + "                                     _______/_____\\_______\\_____   \n"
+        + "                                     \\              < < <       |   \n"
+        + CYAN + "-..__..- ~~--..__...----... -..__..- _-..__..- ~~--..__...__..- ~~--..__...----." + RESET + "\n"
+        + "\n"
+        + "\n"
+        + YELLOW + "   _____                           __  __                     " + RESET + "\n"
+        + YELLOW + "  / ____|                         |  \\/  |                    "
+        + CYAN + "     _.===.._" + RESET + "\n"
+        + YELLOW + " | |  __   __ _  _ __ ___    ___  | \\  / |  ___  _ __   _   _ "
+        + CYAN + "   ,:._      ~-_" + RESET + "\n"
+        + YELLOW + " | | |_ | / _` || '_ ` _ \\  / _ \\ | |\\/| | / _ \\| '_ \\ | | | |"
+        + CYAN + "       `\\      ~-" + RESET + "\n"
+        + YELLOW + " | |__| || (_| || | | | | ||  __/ | |  | ||  __/| | | || |_| |"
+        + CYAN + "         |      `." + RESET + "\n"
+        + YELLOW + "  \\_____| \\__,_||_| |_| |_| \\___| |_|  |_| \\___||_| |_| \\__,_|"
+        + CYAN + "        ,/      ~-" + RESET + "\n"
+        + CYAN + "-..__..- ~~--..__...----... -..__..--..__..- ~~--..__...----... -.._-''" + RESET + "\n"
+        + "\n\n\n";
+
+    /** Messaggio di benvenuto del menu di gioco, conservato come testo per poterne contare le righe. */
+    public static final String GAME_MENU_CHOICES =
+        GREEN + "Benvenuto nel menu di gioco, cosa vuoi fare?" + RESET + "\n"
+        + "Scrivere il comando" + YELLOW + " /help " + RESET + "per visionare i comandi utilizzabili\n";
+
+    /** Grafica della vittoria, conservata come testo per poterla scrivere anche su una partita remota. */
+    public static final String WIN_ASCII_ART =
+        CYAN + "-..__..- ~~--..__...----... -..__..- _-..__." + RESET + "\n"
+        + GREEN + "       _      _                   \n"
+        + "      (_)    | |                  \n"
+        + "__   ___  ___| |_ ___  _ __ _   _ \n"
+        + "\\ \\ / / |/ __| __/ _ \\| '__| | | |\n"
+        + " \\ V /| | (__| || (_) | |  | |_| |\n"
+        + "  \\_/ |_|\\___|\\__\\___/|_|   \\__, |\n"
+        + "                             __/ |\n"
+        + "                            |___/ " + RESET + "\n"
+        + CYAN + "-..__..- ~~--..__...----... -..__..- _-..__." + RESET + "\n";
+
     /** Costruttore privato per evitare che venga istanziata la classe. */
     private UtilityTools() { }
 
-    /** Serve per l'ottenimento del comando da tastiera che l'utente desidera digitare. */
-    public static final Scanner SCANNER = new Scanner(System.in, "UTF-8");
+    /** Serve per l'ottenimento del comando da tastiera che l'utente desidera digitare.
+     * Le righe vengono lette da un thread dedicato, quindi l'attesa puó avere un limite di tempo. */
+    public static final ConsoleInput INPUT = new ConsoleInput(System.in);
 
     /** Serve a pulire il terminale per una maggior chiarezza nell'utilizzo. */
     public static void clearScreen() {
@@ -59,9 +101,7 @@ public final class UtilityTools {
 
     /** Fa una stampa a video per stampare nel menu di gioca. */
     public static void printGameMenuChoices() {
-        System.out.println(UtilityTools.GREEN + "Benvenuto nel menu di gioco, cosa vuoi fare?" + UtilityTools.RESET);
-        System.out.println("Scrivere il comando" + UtilityTools.YELLOW + " /help " + UtilityTools.RESET
-            + "per visionare i comandi utilizzabili");
+        System.out.print(GAME_MENU_CHOICES);
     }
 
     /** Metodo che controlla se la stringa è un numero.
@@ -109,43 +149,6 @@ public final class UtilityTools {
 
     /** Stampa la grafica della nave nel GAME menu. */
     public static void printGameMenuAsciiArt() {
-        System.out.println("                                                     __/___    ");
-        System.out.println("                                              _____/______| ");
-        System.out.println("                                     _______/_____\\_______\\_____   ");
-        System.out.println("                                     \\              < < <       |   ");
-        System.out.println(CYAN + "-..__..- ~~--..__...----... -..__..- _-..__..- ~~--..__...__..- ~~--..__..."
-        + "----... -..__..- _-..__..- ~~--..__..." + RESET);
-        System.out.println("");
-        System.out.println("");
-        System.out.println(YELLOW + "   _____                           __  __                     " + RESET);
-        System.out.println(YELLOW + "  / ____|                         |  \\/  |                    "
-        + CYAN + "               _.====.._" + RESET);
-
-        System.out.println(YELLOW + " | |  __   __ _  _ __ ___    ___  | \\  / |  ___  _ __   _   _ "
-        + CYAN + "             ,:._       ~-_" + RESET);
-        System.out.println(YELLOW + " | | |_ | / _` || '_ ` _ \\  / _ \\ | |\\/| | / _ \\| '_ \\ | | | |"
-        + CYAN + "                  `\\        ~-" + RESET);
-        System.out.println(YELLOW + " | |__| || (_| || | | | | ||  __/ | |  | ||  __/| | | || |_| |"
-        + CYAN + "                     |          `." + RESET);
-        System.out.println(YELLOW + "  \\_____| \\__,_||_| |_| |_| \\___| |_|  |_| \\___||_| |_| \\__,_|"
-        + CYAN + "                    ,/            ~-__...-----..__.-" + RESET);
-        System.out.println(CYAN
-        + "-..__..- ~~--..__...----... -..__..--..__..- ~~--..__...----... -..__..--."
-        + ".__..-''                 " + RESET);
-        System.out.println("\n\n");
-    }
-
-    /** Stampa la grafica della vittoria. */
-    public static void printWin() {
-        System.out.println(CYAN + "-..__..- ~~--..__...----... -..__..- _-..__." + RESET);
-        System.out.println(GREEN + "       _      _                   ");
-        System.out.println("      (_)    | |                  ");
-        System.out.println("__   ___  ___| |_ ___  _ __ _   _ ");
-        System.out.println("\\ \\ / / |/ __| __/ _ \\| '__| | | |");
-        System.out.println(" \\ V /| | (__| || (_) | |  | |_| |");
-        System.out.println("  \\_/ |_|\\___|\\__\\___/|_|   \\__, |");
-        System.out.println("                             __/ |");
-        System.out.println("                            |___/ " + RESET);
-        System.out.println(CYAN + "-..__..- ~~--..__...----... -..__..- _-..__." + RESET);
+        System.out.print(GAME_MENU_ASCII_ART);
     }
 }